@@ -0,0 +1,54 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+//Dominic Cash
+//16042439
+
+class AdaptiveLimiterTest {
+
+    @Test
+    void testRejectsWhenLimitAndQueueAreFull() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 2, 1, 4, 0, 0);
+
+        long first = limiter.acquire();
+        long second = limiter.acquire();
+
+        assertTrue(first >= 0 && second >= 0);
+        assertEquals(-1, limiter.acquire());
+        assertEquals(1, limiter.getRejectedCount());
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    void testFailuresShrinkTheLimit() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 8, 1, 8, 0, 0);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.release(limiter.acquire(), true);
+        }
+
+        assertTrue(limiter.getLimit() < 8);
+        assertTrue(limiter.getLimit() >= 1);
+    }
+
+    @Test
+    void testSteadyLatencyGrowsTheLimitWhenSaturated() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 2, 1, 16, 0, 0);
+
+        for (int round = 0; round < 50; round++) {
+            int slots = limiter.getLimit();
+            long[] permits = new long[slots];
+            for (int i = 0; i < slots; i++) {
+                permits[i] = limiter.acquire();
+            }
+            Thread.sleep(1);
+            for (long permit : permits) {
+                limiter.release(permit, false);
+            }
+        }
+
+        assertTrue(limiter.getLimit() > 2, "limit grew to " + limiter.getLimit());
+        assertTrue(limiter.getLimit() <= 16);
+        assertEquals(0, limiter.getInFlight());
+    }
+}
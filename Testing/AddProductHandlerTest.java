@@ -0,0 +1,80 @@
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+//Dominic Cash
+//16042439
+
+class AddProductHandlerTest {
+
+    @TempDir
+    Path directory;
+
+    private ConnectionPool pool;
+    private WriteQueue queue;
+    private HomeApplianceDAO applianceDAO;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        pool = new ConnectionPool(TestDatabase.create(directory), 1, StorageProfile.BALANCED, 1000, 0);
+        queue = new WriteQueue(pool::borrowWriter, 16, 100);
+        applianceDAO = spy(new HomeApplianceDAO(new CatalogCache()));
+        doAnswer(invocation -> pool.borrowReader()).when(applianceDAO).connectReadOnly();
+        doAnswer(invocation -> queue.submit(invocation.getArgument(0))).when(applianceDAO).submitWrite(any());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        queue.shutdown(5000);
+        pool.close();
+    }
+
+    @Test
+    void testAddedProductIsListedAndChangesETag() throws Exception {
+        assertTrue(applianceDAO.findAllProducts().isEmpty());
+        String etagBefore = ConditionalGet.etag(Map.of(), DataVersion.APPLIANCE);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        new AddProductHandler(() -> applianceDAO)
+                .handle(post("sku=KET-1&description=Steel+Kettle&category=Kitchen&price=25", body));
+
+        assertEquals(1, applianceDAO.findAllProducts().size());
+        HomeAppliance added = applianceDAO.findAllProducts().get(0);
+        assertEquals("KET-1", added.getSku());
+        assertEquals("Steel Kettle", added.getDescription());
+        assertEquals(25, added.getPrice());
+        assertNotEquals(etagBefore, ConditionalGet.etag(Map.of(), DataVersion.APPLIANCE));
+        assertTrue(body.toString(StandardCharsets.UTF_8).contains("Product Added Successfully!"));
+    }
+
+    @Test
+    void testDuplicateSkuIsReportedAsFailure() throws Exception {
+        AddProductHandler handler = new AddProductHandler(() -> applianceDAO);
+        handler.handle(post("sku=KET-1&description=Kettle&category=Kitchen&price=25", new ByteArrayOutputStream()));
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        handler.handle(post("sku=KET-1&description=Other&category=Kitchen&price=30", body));
+
+        assertTrue(body.toString(StandardCharsets.UTF_8).contains("Failed to Add Product"));
+        assertEquals(1, applianceDAO.findAllProducts().size());
+    }
+
+    private static HttpExchange post(String form, ByteArrayOutputStream body) {
+        HttpExchange exchange = mock(HttpExchange.class);
+        when(exchange.getRequestMethod()).thenReturn("POST");
+        when(exchange.getRequestBody()).thenReturn(new ByteArrayInputStream(form.getBytes(StandardCharsets.UTF_8)));
+        when(exchange.getResponseHeaders()).thenReturn(new Headers());
+        when(exchange.getResponseBody()).thenReturn(body);
+        return exchange;
+    }
+}
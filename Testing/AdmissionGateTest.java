@@ -0,0 +1,59 @@
+import org.junit.jupiter.api.Test;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+//Dominic Cash
+//16042439
+
+class AdmissionGateTest {
+
+    @Test
+    void testAdmitsUpToTheLimit() {
+        AdmissionGate gate = new AdmissionGate("test", 2, 0, 0, 1);
+
+        assertTrue(gate.acquire());
+        assertTrue(gate.acquire());
+        assertFalse(gate.acquire());
+        assertEquals(2, gate.getInFlight());
+        assertEquals(1, gate.getQueueFullCount());
+
+        gate.release();
+        assertTrue(gate.acquire());
+        assertEquals(3, gate.getAdmittedCount());
+    }
+
+    @Test
+    void testQueuedRequestTimesOut() {
+        AdmissionGate gate = new AdmissionGate("test", 1, 1, 20, 1);
+        assertTrue(gate.acquire());
+
+        assertFalse(gate.acquire());
+
+        assertEquals(1, gate.getTimeoutCount());
+        assertEquals(0, gate.getQueued());
+    }
+
+    @Test
+    void testQueuedRequestIsAdmittedOnRelease() throws Exception {
+        AdmissionGate gate = new AdmissionGate("test", 1, 1, 5000, 1);
+        assertTrue(gate.acquire());
+        CountDownLatch admitted = new CountDownLatch(1);
+
+        Thread waiter = new Thread(() -> {
+            if (gate.acquire()) {
+                admitted.countDown();
+            }
+        });
+        waiter.start();
+        while (gate.getQueued() == 0) {
+            Thread.onSpinWait();
+        }
+        assertFalse(gate.acquire(), "a second waiter finds the queue full");
+        gate.release();
+
+        assertTrue(admitted.await(5, TimeUnit.SECONDS));
+        assertEquals(1, gate.getQueueFullCount());
+        assertEquals(0, gate.getTimeoutCount());
+    }
+}
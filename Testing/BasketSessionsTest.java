@@ -0,0 +1,82 @@
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import static org.junit.jupiter.api.Assertions.*;
+
+//Dominic Cash
+//16042439
+
+class BasketSessionsTest {
+
+    @Test
+    void testEachSessionHasItsOwnBasket() {
+        BasketSessions sessions = new BasketSessions(60_000, 1000, 0, null);
+        String first = sessions.create(0);
+        String second = sessions.create(0);
+
+        sessions.find(first, 10).addItem(new HomeAppliance(1, "SKU1", "Kettle", "Kitchen", 20));
+
+        assertNotEquals(first, second);
+        assertEquals(1, sessions.find(first, 20).getItemCount());
+        assertEquals(0, sessions.find(second, 20).getItemCount());
+        assertNull(sessions.find("unknown", 20));
+    }
+
+    @Test
+    void testIdleBasketIsEvictedAndUsedBasketKept() {
+        BasketSessions sessions = new BasketSessions(60_000, 1000, 0, null);
+        String idle = sessions.create(0);
+        String used = sessions.create(0);
+
+        sessions.expire(30_000);
+        sessions.find(used, 30_000);
+        sessions.expire(61_000);
+
+        assertNull(sessions.find(idle, 61_000));
+        assertNotNull(sessions.find(used, 61_000));
+        assertEquals(1, sessions.getEvictedCount());
+
+        sessions.expire(200_000);
+        assertEquals(0, sessions.size());
+    }
+
+    @Test
+    void testBasketHandedOutIsNotEvictedUnderneath() throws Exception {
+        for (int round = 0; round < 500; round++) {
+            BasketSessions sessions = new BasketSessions(10, 1, 0, null);
+            String id = sessions.create(0);
+            CountDownLatch start = new CountDownLatch(1);
+            Thread evictor = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                sessions.expire(100);
+            });
+            evictor.start();
+            start.countDown();
+            ShoppingBasket basket = sessions.find(id, 100);
+            evictor.join();
+
+            if (basket != null) {
+                assertEquals(1, sessions.size(), "basket handed out in round " + round + " was evicted");
+            }
+        }
+    }
+
+    @Test
+    void testWheelExpiresKeysWhoseSlotHasPassed() {
+        TimingWheel<String> wheel = new TimingWheel<>(8, 100, 0);
+        wheel.schedule("soon", 250);
+        wheel.schedule("later", 650);
+        List<String> expired = new ArrayList<>();
+
+        wheel.advance(300, expired::add);
+        assertEquals(List.of("soon"), expired);
+
+        wheel.advance(5_000, expired::add);
+        assertEquals(List.of("soon", "later"), expired);
+    }
+}
@@ -0,0 +1,252 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+//Dominic Cash
+//16042439
+
+class BasketStoreTest {
+
+    /** Long enough that only the threshold or an explicit call flushes during a test. */
+    private static final long NO_TIMED_FLUSH = TimeUnit.HOURS.toMillis(1);
+
+    private static final String ID = "AAAAAAAAAAAAAAAAAAAAAA";
+    private static final String OTHER_ID = "BBBBBBBBBBBBBBBBBBBBBB";
+
+    @TempDir
+    Path directory;
+
+    private ConnectionPool pool;
+    private WriteQueue queue;
+    private BasketDAO dao;
+    private BasketStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        pool = new ConnectionPool(TestDatabase.create(directory), 1, StorageProfile.BALANCED, 1000, 0);
+        queue = new WriteQueue(pool::borrowWriter, 16, 100);
+        dao = new BasketDAO(pool::borrowReader);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (store != null) {
+            store.shutdown(5000);
+        }
+        queue.shutdown(5000);
+        pool.close();
+    }
+
+    @Test
+    void testChangesBetweenFlushesAreSavedOnceWithLatestLines() throws Exception {
+        store = new BasketStore(dao, () -> queue, NO_TIMED_FLUSH, 100, NO_TIMED_FLUSH);
+        ShoppingBasket basket = new ShoppingBasket();
+        basket.setChangeListener(() -> store.markDirty(ID, basket));
+
+        basket.add(1, 2000, 1);
+        basket.add(2, 500, 3);
+        basket.updateQuantity(1, 4);
+        assertEquals(1, store.getDirtyCount());
+
+        assertEquals(1, store.flush().get(5, TimeUnit.SECONDS));
+        assertEquals(0, store.getDirtyCount());
+
+        ShoppingBasket loaded = dao.load(ID);
+        assertEquals(4, loaded.getQuantity(1));
+        assertEquals(3, loaded.getQuantity(2));
+        assertEquals(8000 + 1500, loaded.getTotalPrice());
+        assertNull(dao.load(OTHER_ID));
+    }
+
+    @Test
+    void testReachingThresholdFlushesWithoutWaitingForInterval() throws Exception {
+        store = new BasketStore(dao, () -> queue, NO_TIMED_FLUSH, 2, NO_TIMED_FLUSH);
+        ShoppingBasket first = new ShoppingBasket();
+        first.add(1, 100, 1);
+        ShoppingBasket second = new ShoppingBasket();
+        second.add(2, 200, 1);
+
+        store.markDirty(ID, first);
+        store.markDirty(OTHER_ID, second);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (store.getSavedCount() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, store.getSavedCount());
+        assertNotNull(dao.load(ID));
+        assertNotNull(dao.load(OTHER_ID));
+    }
+
+    @Test
+    void testFailedFlushMarksBasketsDirtyAgain() throws Exception {
+        WriteQueue failing = new WriteQueue(() -> {
+            throw new SQLException("disk I/O error");
+        }, 16, 100);
+        BasketStore failingStore = new BasketStore(dao, () -> failing, NO_TIMED_FLUSH, 100, NO_TIMED_FLUSH);
+        try {
+            ShoppingBasket basket = new ShoppingBasket();
+            basket.add(1, 100, 1);
+            failingStore.markDirty(ID, basket);
+
+            assertThrows(ExecutionException.class, () -> failingStore.flush().get(5, TimeUnit.SECONDS));
+
+            assertEquals(1, failingStore.getDirtyCount());
+            assertSame(basket, failingStore.load(ID));
+        } finally {
+            failing.shutdown(5000);
+        }
+    }
+
+    @Test
+    void testEmptiedBasketIsDeleted() throws Exception {
+        store = new BasketStore(dao, () -> queue, NO_TIMED_FLUSH, 100, NO_TIMED_FLUSH);
+        ShoppingBasket basket = new ShoppingBasket();
+        basket.setChangeListener(() -> store.markDirty(ID, basket));
+        basket.add(1, 100, 2);
+        store.flush().get(5, TimeUnit.SECONDS);
+        assertEquals(1, countRows("basket"));
+
+        basket.clearBasket();
+        store.flush().get(5, TimeUnit.SECONDS);
+
+        assertNull(dao.load(ID));
+        assertEquals(0, countRows("basket"));
+        assertEquals(0, countRows("basket_line"));
+    }
+
+    @Test
+    void testLoadReturnsBasketStillWaitingToBeSaved() throws Exception {
+        store = new BasketStore(dao, () -> queue, NO_TIMED_FLUSH, 100, NO_TIMED_FLUSH);
+        queue.submit(conn -> dao.saveAll(conn, Map.of(ID, lines(1, 100, 1)), 1000)).get(5, TimeUnit.SECONDS);
+        ShoppingBasket pending = new ShoppingBasket();
+        pending.add(1, 100, 5);
+        store.markDirty(ID, pending);
+
+        assertSame(pending, store.load(ID));
+        assertEquals(1, dao.load(ID).getQuantity(1));
+        assertNull(store.load(OTHER_ID));
+    }
+
+    @Test
+    void testLoadReturnsBasketWhoseFlushHasNotCommitted() throws Exception {
+        queue.submit(conn -> dao.saveAll(conn, Map.of(ID, lines(1, 100, 1)), 1000)).get(5, TimeUnit.SECONDS);
+        CountDownLatch writerBorrowed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        WriteQueue slow = new WriteQueue(() -> {
+            writerBorrowed.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return pool.borrowWriter();
+        }, 16, 100);
+        BasketStore slowStore = new BasketStore(dao, () -> slow, NO_TIMED_FLUSH, 100, NO_TIMED_FLUSH);
+        try {
+            ShoppingBasket newer = new ShoppingBasket();
+            newer.add(1, 100, 7);
+            slowStore.markDirty(ID, newer);
+
+            CompletableFuture<Integer> flush = slowStore.flush();
+            assertTrue(writerBorrowed.await(5, TimeUnit.SECONDS));
+            assertEquals(0, slowStore.getDirtyCount());
+
+            assertSame(newer, slowStore.load(ID));
+
+            release.countDown();
+            assertEquals(1, flush.get(5, TimeUnit.SECONDS));
+            assertEquals(7, slowStore.load(ID).getQuantity(1));
+        } finally {
+            release.countDown();
+            slowStore.shutdown(5000);
+            slow.shutdown(5000);
+        }
+    }
+
+    @Test
+    void testPurgeDeletesOnlyBasketsPastRetention() throws Exception {
+        store = new BasketStore(dao, () -> queue, NO_TIMED_FLUSH, 100, TimeUnit.MINUTES.toMillis(1));
+        queue.submit(conn -> dao.saveAll(conn, Map.of(ID, lines(1, 100, 1)), 1000)).get(5, TimeUnit.SECONDS);
+        queue.submit(conn -> dao.saveAll(conn, Map.of(OTHER_ID, lines(2, 200, 1)), System.currentTimeMillis()))
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, store.purge().get(5, TimeUnit.SECONDS));
+
+        assertNull(dao.load(ID));
+        assertNotNull(dao.load(OTHER_ID));
+        assertEquals(1, countRows("basket_line"));
+    }
+
+    @Test
+    void testMarkDirtyAfterShutdownDoesNotThrow() throws Exception {
+        BasketStore stopped = new BasketStore(dao, () -> queue, NO_TIMED_FLUSH, 1, NO_TIMED_FLUSH);
+        stopped.shutdown(5000);
+        ShoppingBasket basket = new ShoppingBasket();
+        basket.add(1, 100, 1);
+
+        assertDoesNotThrow(() -> stopped.markDirty(ID, basket));
+        assertEquals(1, stopped.getDirtyCount());
+    }
+
+    @Test
+    void testUnknownBasketIdIsLookedUpOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        BasketDAO counting = new BasketDAO(pool::borrowReader) {
+            @Override
+            public ShoppingBasket load(String basketId) throws SQLException {
+                loads.incrementAndGet();
+                return super.load(basketId);
+            }
+        };
+        store = new BasketStore(counting, () -> queue, NO_TIMED_FLUSH, 100, NO_TIMED_FLUSH);
+        BasketSessions sessions = new BasketSessions(60_000, 1000, 0, store);
+
+        assertNull(sessions.find(ID, 0));
+        assertNull(sessions.find(ID, 10));
+        assertEquals(1, loads.get());
+
+        assertNull(sessions.find(ID, 60_000));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testSavedBasketIsRestoredIntoSessions() throws Exception {
+        store = new BasketStore(dao, () -> queue, NO_TIMED_FLUSH, 100, NO_TIMED_FLUSH);
+        queue.submit(conn -> dao.saveAll(conn, Map.of(ID, lines(3, 700, 2)), 1000)).get(5, TimeUnit.SECONDS);
+        BasketSessions sessions = new BasketSessions(60_000, 1000, 0, store);
+
+        ShoppingBasket restored = sessions.find(ID, 0);
+
+        assertEquals(2, restored.getQuantity(3));
+        assertEquals(1, sessions.getRestoredCount());
+        assertSame(restored, sessions.find(ID, 10));
+    }
+
+    private static List<ShoppingBasket.Line> lines(int productId, int unitPrice, int quantity) {
+        ShoppingBasket basket = new ShoppingBasket();
+        basket.add(productId, unitPrice, quantity);
+        return basket.getLines();
+    }
+
+    private int countRows(String table) throws SQLException {
+        try (Connection conn = pool.borrowReader(); Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+//Dominic Cash
+//16042439
+
+class CatalogFacetsTest {
+
+    private CatalogSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        List<HomeAppliance> appliances = new ArrayList<>();
+        appliances.add(new HomeAppliance(1, "SKU1", "Kettle", "Kitchen", 40));
+        appliances.add(new HomeAppliance(2, "SKU2", "Toaster", "Kitchen", 25));
+        appliances.add(new HomeAppliance(3, "SKU3", "Fridge", "Kitchen", 600));
+        appliances.add(new HomeAppliance(4, "SKU4", "Washer", "Laundry", 450));
+        appliances.add(new HomeAppliance(5, "SKU5", "Dryer", "Laundry", 1200));
+        snapshot = new CatalogSnapshot(appliances);
+    }
+
+    @Test
+    void testUnfilteredCounts() {
+        CatalogFacets facets = snapshot.getFacets(null, 0, Integer.MAX_VALUE);
+
+        assertEquals(3, facets.getCategoryCount("Kitchen"));
+        assertEquals(2, facets.getCategoryCount("Laundry"));
+        assertEquals(2, facets.getBucketCount(PriceBucket.UP_TO_50));
+        assertEquals(0, facets.getBucketCount(PriceBucket.UP_TO_100));
+        assertEquals(1, facets.getBucketCount(PriceBucket.OVER_1000));
+    }
+
+    @Test
+    void testCountsRespectOtherFilters() {
+        CatalogFacets facets = snapshot.getFacets("Laundry", 0, 50);
+
+        // Category counts follow the price filter, bucket counts follow the category filter
+        assertEquals(2, facets.getCategoryCount("Kitchen"));
+        assertEquals(0, facets.getCategoryCount("Laundry"));
+        assertEquals(0, facets.getBucketCount(PriceBucket.UP_TO_50));
+        assertEquals(1, facets.getBucketCount(PriceBucket.UP_TO_500));
+    }
+
+    @Test
+    void testCountsAreCachedPerSnapshot() {
+        CatalogFacets facets = snapshot.getFacets(null, 0, Integer.MAX_VALUE);
+
+        assertSame(facets, snapshot.getFacets(null, 0, Integer.MAX_VALUE));
+        assertEquals(4, snapshot.withRemoved(1).getFacets(null, 0, Integer.MAX_VALUE).getCategoryCount("Kitchen")
+                + snapshot.withRemoved(1).getFacets(null, 0, Integer.MAX_VALUE).getCategoryCount("Laundry"));
+    }
+}
@@ -0,0 +1,134 @@
+import com.sun.net.httpserver.HttpServer;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//Dominic Cash
+//16042439
+
+/**
+ * Measures checkout throughput for concurrent shoppers. The store server is started on an ephemeral port
+ * and driven by 1, 2, 4 ... 64 closed-loop clients, each with its own basket cookie, that repeatedly add
+ * one to three random products to their basket and check out. Orders per second and the median and 99th
+ * percentile checkout latency are printed for every level.
+ * <p>
+ * Every checkout writes an order, so run from a copy of the project root, so the server finds a copy of
+ * stores.sqlite:
+ * <p>
+ * java -cp out:sqlite-jdbc.jar:jbcrypt-0.4.jar:json-20240303.jar CheckoutBenchmark [secondsPerStep]
+ *
+ * @author Dominic Cash
+ */
+public class CheckoutBenchmark {
+
+    private static final int[] CONCURRENCY = {1, 2, 4, 8, 16, 32, 64};
+
+    /**
+     * Runs the benchmark and prints orders per second and checkout latency for every concurrency level.
+     *
+     * @param args optional seconds per step
+     * @throws Exception if the server cannot be started
+     */
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int[] productIds = new HomeApplianceDAO().findAllProducts().stream().mapToInt(HomeAppliance::getId).toArray();
+        if (productIds.length == 0) {
+            System.out.println("No products to order");
+            return;
+        }
+
+        ExecutorService executor = RequestExecutors.fromConfig();
+        HttpServer server = RootHandler.createServer(0, executor);
+        server.start();
+        try {
+            String base = "http://localhost:" + server.getAddress().getPort();
+            run(base, productIds, 4, 1); // warm-up
+            System.out.printf("%8s %12s %10s %10s %10s%n", "clients", "orders/s", "p50 ms", "p99 ms", "errors");
+            for (int clients : CONCURRENCY) {
+                LatencyHistogram latency = new LatencyHistogram();
+                long errors = run(base, productIds, clients, seconds, latency);
+                System.out.printf("%8d %12.1f %10.2f %10.2f %10d%n", clients, latency.getCount() / (double) seconds,
+                        latency.getValueAtQuantile(0.5) / 1e6, latency.getValueAtQuantile(0.99) / 1e6, errors);
+            }
+        } finally {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    private static long run(String base, int[] productIds, int clients, int seconds) throws Exception {
+        return run(base, productIds, clients, seconds, new LatencyHistogram());
+    }
+
+    /**
+     * Drives the server with a fixed number of shoppers for the given duration.
+     *
+     * @param base the server's base URL
+     * @param productIds the products shoppers choose from
+     * @param clients the number of concurrent shoppers
+     * @param seconds how long to run
+     * @param latency records the latency of each successful checkout
+     * @return the number of failed requests
+     * @throws Exception if a shopper thread fails unexpectedly
+     */
+    private static long run(String base, int[] productIds, int clients, int seconds, LatencyHistogram latency)
+            throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService drivers = Executors.newFixedThreadPool(clients);
+        List<Future<Long>> futures = new ArrayList<>();
+        HttpRequest checkout = HttpRequest.newBuilder(URI.create(base + "/basket/checkout"))
+                .POST(HttpRequest.BodyPublishers.noBody()).build();
+
+        for (int i = 0; i < clients; i++) {
+            futures.add(drivers.submit(() -> {
+                // Each shopper keeps its own basket cookie
+                try (HttpClient client = HttpClient.newBuilder()
+                        .connectTimeout(Duration.ofSeconds(5))
+                        .cookieHandler(new CookieManager())
+                        .build()) {
+                    long failed = 0;
+                    while (running.get()) {
+                        try {
+                            ThreadLocalRandom random = ThreadLocalRandom.current();
+                            for (int items = random.nextInt(1, 4); items > 0; items--) {
+                                int id = productIds[random.nextInt(productIds.length)];
+                                client.send(HttpRequest.newBuilder(URI.create(base + "/basket/add?id=" + id)).build(),
+                                        HttpResponse.BodyHandlers.discarding());
+                            }
+                            long start = System.nanoTime();
+                            HttpResponse<Void> response = client.send(checkout, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() == 200) {
+                                latency.recordSince(start);
+                            } else {
+                                failed++;
+                            }
+                        } catch (Exception e) {
+                            failed++;
+                        }
+                    }
+                    return failed;
+                }
+            }));
+        }
+
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+
+        long failed = 0;
+        for (Future<Long> future : futures) {
+            failed += future.get();
+        }
+        drivers.shutdown();
+        return failed;
+    }
+}
@@ -0,0 +1,101 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+//Dominic Cash
+//16042439
+
+class CheckoutTest {
+
+    private HomeApplianceDAO applianceDAO;
+    private OrderDAO orderDAO;
+    private WriteQueue queue;
+    private Checkout checkout;
+
+    @BeforeEach
+    void setUp() {
+        applianceDAO = mock(HomeApplianceDAO.class);
+        orderDAO = mock(OrderDAO.class);
+        queue = new WriteQueue(() -> mock(Connection.class), 16, 100);
+        AtomicLong sequence = new AtomicLong(1);
+        checkout = new Checkout(applianceDAO, orderDAO, new OrderIdAllocator(size -> sequence.getAndAdd(size), 10),
+                () -> queue);
+        when(applianceDAO.findProduct(1)).thenReturn(new HomeAppliance(1, "SKU1", "Kettle", "Kitchen", 20));
+        when(applianceDAO.findProduct(2)).thenReturn(new HomeAppliance(2, "SKU2", "Toaster", "Kitchen", 35));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        queue.shutdown(5000);
+    }
+
+    @Test
+    void testOrderUsesBasketPricesAndEmptiesBasket() throws Exception {
+        ShoppingBasket basket = new ShoppingBasket();
+        basket.add(1, 20, 2);
+        basket.add(2, 35, 1);
+
+        Order order = checkout.placeOrder(basket);
+
+        assertNotNull(order);
+        assertEquals(75, order.getTotal());
+        assertEquals("Kettle", order.getLines().get(0).getDescription());
+        assertEquals(0, basket.getLineCount());
+        assertEquals(1, checkout.getPlacedCount());
+        verify(orderDAO).insert(any(), same(order));
+    }
+
+    @Test
+    void testRepricedProductSendsBasketBackUnchanged() throws Exception {
+        ShoppingBasket basket = new ShoppingBasket();
+        basket.add(1, 20, 2);
+        basket.add(2, 30, 1);
+        List<ShoppingBasket.Line> before = basket.getLines();
+
+        assertNull(checkout.placeOrder(basket));
+
+        assertLinesEqual(before, basket.getLines());
+        assertEquals(0, checkout.getPlacedCount());
+        verify(orderDAO, never()).insert(any(), any());
+    }
+
+    @Test
+    void testWithdrawnProductSendsBasketBackUnchanged() throws Exception {
+        ShoppingBasket basket = new ShoppingBasket();
+        basket.add(1, 20, 1);
+        basket.add(3, 50, 4);
+        List<ShoppingBasket.Line> before = basket.getLines();
+
+        assertNull(checkout.placeOrder(basket));
+
+        assertLinesEqual(before, basket.getLines());
+        verify(orderDAO, never()).insert(any(), any());
+    }
+
+    @Test
+    void testFailedWriteLeavesBasketAsItWas() throws Exception {
+        when(orderDAO.insert(any(), any())).thenThrow(new SQLException("disk I/O error"));
+        ShoppingBasket basket = new ShoppingBasket();
+        basket.add(1, 20, 3);
+
+        assertThrows(SQLException.class, () -> checkout.placeOrder(basket));
+
+        assertEquals(3, basket.getQuantity(1));
+        assertEquals(60, basket.getTotalPrice());
+    }
+
+    private static void assertLinesEqual(List<ShoppingBasket.Line> expected, List<ShoppingBasket.Line> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getProductId(), actual.get(i).getProductId());
+            assertEquals(expected.get(i).getQuantity(), actual.get(i).getQuantity());
+            assertEquals(expected.get(i).getUnitPrice(), actual.get(i).getUnitPrice());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+//Dominic Cash
+//16042439
+
+class ConditionalGetTest {
+
+    @Test
+    void testEquivalentQueriesShareETag() {
+        Map<String, String> first = new HashMap<>();
+        first.put("category", "Kitchen");
+        first.put("search", "");
+        Map<String, String> second = new HashMap<>();
+        second.put("category", " Kitchen ");
+
+        assertEquals(ConditionalGet.etag(first, DataVersion.APPLIANCE), ConditionalGet.etag(second, DataVersion.APPLIANCE));
+        assertNotEquals(ConditionalGet.etag(first, DataVersion.APPLIANCE), ConditionalGet.etag(new HashMap<>(), DataVersion.APPLIANCE));
+    }
+
+    @Test
+    void testVersionBumpChangesETag() {
+        String before = ConditionalGet.etag(new HashMap<>(), DataVersion.CUSTOMER);
+        DataVersion.CUSTOMER.bump();
+
+        assertNotEquals(before, ConditionalGet.etag(new HashMap<>(), DataVersion.CUSTOMER));
+    }
+
+    @Test
+    void testMatches() {
+        assertTrue(ConditionalGet.matches("\"a\", W/\"b\"", "\"b\""));
+        assertTrue(ConditionalGet.matches("*", "\"b\""));
+        assertFalse(ConditionalGet.matches("\"a\"", "\"b\""));
+        assertTrue(ConditionalGet.matches("\"a\", \"b-gz\"", "\"b\""));
+        assertFalse(ConditionalGet.matches("\"b-gz\"", "\"a\""));
+    }
+
+    @Test
+    void testRevalidationIsAnsweredWithoutBuildingThePage() throws Exception {
+        AtomicInteger pagesBuilt = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/page", exchange -> {
+            if (ConditionalGet.notModified(exchange, new HashMap<>(), DataVersion.APPLIANCE)) {
+                return;
+            }
+            pagesBuilt.incrementAndGet();
+            exchange.sendResponseHeaders(200, 2);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write("ok".getBytes());
+            }
+        });
+        server.start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/page");
+            HttpResponse<String> first = client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+            String etag = first.headers().firstValue("ETag").orElseThrow();
+
+            HttpResponse<String> second = client.send(HttpRequest.newBuilder(uri).header("If-None-Match", etag).build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, first.statusCode());
+            assertEquals(304, second.statusCode());
+            assertEquals(1, pagesBuilt.get());
+
+            DataVersion.APPLIANCE.bump();
+            HttpResponse<String> third = client.send(HttpRequest.newBuilder(uri).header("If-None-Match", etag).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, third.statusCode());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void testDegradedPageHasNoValidators() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/page", exchange -> {
+            if (ConditionalGet.notModified(exchange, new HashMap<>(), DataVersion.APPLIANCE)) {
+                return;
+            }
+            ConditionalGet.doNotCache(exchange);
+            exchange.sendResponseHeaders(200, 2);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write("ok".getBytes());
+            }
+        });
+        server.start();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/page");
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, response.statusCode());
+            assertFalse(response.headers().firstValue("ETag").isPresent());
+            assertFalse(response.headers().firstValue("Last-Modified").isPresent());
+            assertEquals("no-store", response.headers().firstValue("Cache-Control").orElse(null));
+        } finally {
+            server.stop(0);
+        }
+    }
+}
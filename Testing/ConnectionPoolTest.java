@@ -0,0 +1,121 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+//Dominic Cash
+//16042439
+
+class ConnectionPoolTest {
+
+    @TempDir
+    Path directory;
+
+    private String url;
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        url = TestDatabase.create(directory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    void testReturnedConnectionIsReused() throws Exception {
+        pool = new ConnectionPool(url, 1, StorageProfile.BALANCED, 1000, 0);
+
+        Connection first = pool.borrowReader();
+        assertEquals(1, pool.getReaders().getActiveCount());
+        first.close();
+        assertTrue(first.isClosed());
+        assertEquals(0, pool.getReaders().getActiveCount());
+
+        try (Connection second = pool.borrowReader(); Statement stmt = second.createStatement()) {
+            assertTrue(stmt.execute("SELECT 1"));
+        }
+        assertEquals(2, pool.getReaders().getBorrowCount());
+        assertEquals(1, pool.getReaders().getIdleCount());
+        assertThrows(SQLException.class, first::createStatement);
+    }
+
+    @Test
+    void testConcurrentCloseReturnsConnectionOnce() throws Exception {
+        pool = new ConnectionPool(url, 1, StorageProfile.BALANCED, 1000, 0);
+        ExecutorService closers = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 50; round++) {
+                Connection conn = pool.borrowReader();
+                CountDownLatch start = new CountDownLatch(1);
+                CountDownLatch done = new CountDownLatch(8);
+                for (int i = 0; i < 8; i++) {
+                    closers.execute(() -> {
+                        try {
+                            start.await();
+                            conn.close();
+                        } catch (Exception ignored) {
+                            // Counted by the idle size below
+                        } finally {
+                            done.countDown();
+                        }
+                    });
+                }
+                start.countDown();
+                assertTrue(done.await(5, TimeUnit.SECONDS));
+                assertEquals(1, pool.getReaders().getIdleCount());
+            }
+        } finally {
+            closers.shutdownNow();
+        }
+    }
+
+    @Test
+    void testBorrowTimesOutWhenAllConnectionsAreOnLoan() throws Exception {
+        pool = new ConnectionPool(url, 1, StorageProfile.BALANCED, 50, 0);
+
+        try (Connection held = pool.borrowWriter()) {
+            assertThrows(SQLTimeoutException.class, pool::borrowWriter);
+            assertFalse(held.isClosed());
+        }
+        assertEquals(1, pool.getWriter().getTimeoutCount());
+        pool.borrowWriter().close();
+    }
+
+    @Test
+    void testLimiterRejectionFailsFast() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 1, 1, 1, 0, 0);
+        pool = new ConnectionPool(url, 2, StorageProfile.BALANCED, 1000, 0, limiter);
+
+        try (Connection held = pool.borrowReader()) {
+            assertThrows(SQLTransientConnectionException.class, pool::borrowReader);
+            assertFalse(held.isClosed());
+        }
+        pool.borrowReader().close();
+    }
+
+    @Test
+    void testLeakDetectionCanBeDisabled() throws Exception {
+        pool = new ConnectionPool(url, 1, StorageProfile.BALANCED, 1000, 0);
+        assertFalse(pool.isLeakDetectionEnabled());
+        pool.close();
+
+        pool = new ConnectionPool(url, 1, StorageProfile.BALANCED, 1000, 30000);
+        assertTrue(pool.isLeakDetectionEnabled());
+    }
+}
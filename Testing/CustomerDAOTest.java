@@ -1,9 +1,12 @@
 import org.junit.jupiter.api.BeforeEach;	
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import java.nio.file.Path;
 import java.sql.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -29,11 +32,15 @@ class CustomerDAOTest {
         customerDAO = spy(CustomerDAO.class);
     }
 
+    private <T> CompletableFuture<T> runOnMockConnection(WriteQueue.Work<T> work) throws SQLException {
+        return CompletableFuture.completedFuture(work.execute(mockConnection));
+    }
+
     @Test
     void testFindAllCustomers() throws Exception {
        
         String query = "SELECT * FROM customer";
-        when(customerDAO.connect()).thenReturn(mockConnection);
+        when(customerDAO.connectReadOnly()).thenReturn(mockConnection);
         when(mockConnection.prepareStatement(query)).thenReturn(mockPreparedStatement);
         when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
 
@@ -69,7 +76,7 @@ class CustomerDAOTest {
     void testFindCustomer() throws Exception {
         
         String query = "SELECT * FROM customer WHERE customerID = ?";
-        when(customerDAO.connect()).thenReturn(mockConnection);
+        when(customerDAO.connectReadOnly()).thenReturn(mockConnection);
         when(mockConnection.prepareStatement(query)).thenReturn(mockPreparedStatement);
         when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
 
@@ -104,7 +111,8 @@ class CustomerDAOTest {
     void testInsertCustomer() throws Exception {
         
         String query = "INSERT INTO customer (businessName, addressLine0, addressLine1, addressLine2, country, postCode, telephoneNumber, email) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-        when(customerDAO.connect()).thenReturn(mockConnection);
+        doAnswer(invocation -> runOnMockConnection(invocation.getArgument(0)))
+                .when(customerDAO).submitWrite(any());
         when(mockConnection.prepareStatement(query)).thenReturn(mockPreparedStatement);
         when(mockPreparedStatement.executeUpdate()).thenReturn(1); // Simulate successful insertion
 
@@ -130,7 +138,8 @@ class CustomerDAOTest {
     void testUpdateCustomer() throws Exception {
         
         String query = "UPDATE customer SET businessName = ?, addressLine0 = ?, addressLine1 = ?, addressLine2 = ?, country = ?, postCode = ?, telephoneNumber = ?, email = ? WHERE customerID = ?";
-        when(customerDAO.connect()).thenReturn(mockConnection);
+        doAnswer(invocation -> runOnMockConnection(invocation.getArgument(0)))
+                .when(customerDAO).submitWrite(any());
         when(mockConnection.prepareStatement(query)).thenReturn(mockPreparedStatement);
         when(mockPreparedStatement.executeUpdate()).thenReturn(1); // Simulate successful update
 
@@ -149,7 +158,8 @@ class CustomerDAOTest {
     void testDeleteCustomer() throws Exception {
         
         String query = "DELETE FROM customer WHERE customerID = ?";
-        when(customerDAO.connect()).thenReturn(mockConnection);
+        doAnswer(invocation -> runOnMockConnection(invocation.getArgument(0)))
+                .when(customerDAO).submitWrite(any());
         when(mockConnection.prepareStatement(query)).thenReturn(mockPreparedStatement);
         when(mockPreparedStatement.executeUpdate()).thenReturn(1); // Simulate successful deletion
 
@@ -160,4 +170,22 @@ class CustomerDAOTest {
         assertTrue(result);
         verify(mockPreparedStatement, times(1)).setInt(1, 1);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testRejectedBorrowIsReportedInsteadOfFailing(@TempDir Path directory) throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test", 1, 1, 1, 0, 0);
+        ConnectionPool pool = new ConnectionPool(TestDatabase.create(directory), 2, StorageProfile.BALANCED, 1000, 0, limiter);
+        doAnswer(invocation -> pool.borrowReader()).when(customerDAO).connectReadOnly();
+
+        try (Connection held = pool.borrowReader()) {
+            List<Customer> customers = customerDAO.findAllCustomers();
+
+            assertTrue(customers.isEmpty());
+            assertNull(customerDAO.findCustomer(1));
+            assertInstanceOf(SQLTransientConnectionException.class, customerDAO.getReadFailure());
+            assertFalse(held.isClosed());
+        } finally {
+            pool.close();
+        }
+    }
+}
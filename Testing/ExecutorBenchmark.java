@@ -0,0 +1,119 @@
+import com.sun.net.httpserver.HttpServer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//Dominic Cash
+//16042439
+
+/**
+ * Measures how request throughput grows with the number of concurrent clients for each
+ * {@link RequestExecutors.Mode}. For every mode the store server is started on an ephemeral port and
+ * hammered by 1, 2, 4 ... 64 closed-loop clients, each issuing GET requests back to back.
+ * <p>
+ * Run from the project root so the server finds stores.sqlite:
+ * <p>
+ * java -cp out:sqlite-jdbc.jar:jbcrypt-0.4.jar ExecutorBenchmark [path] [secondsPerStep] [platformThreads]
+ *
+ * @author Dominic Cash
+ */
+public class ExecutorBenchmark {
+
+    private static final int[] CONCURRENCY = {1, 2, 4, 8, 16, 32, 64};
+
+    /**
+     * Runs the benchmark and prints requests per second for every mode and concurrency level.
+     *
+     * @param args optional request path, seconds per step and platform pool size
+     * @throws Exception if the server cannot be started
+     */
+    public static void main(String[] args) throws Exception {
+        String path = args.length > 0 ? args[0] : "/appliances";
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : RequestExecutors.DEFAULT_THREADS;
+
+        System.out.printf("%-10s %8s %12s %12s%n", "mode", "clients", "req/s", "errors");
+        for (RequestExecutors.Mode mode : RequestExecutors.Mode.values()) {
+            ExecutorService executor = RequestExecutors.create(mode, threads);
+            HttpServer server = RootHandler.createServer(0, executor);
+            server.start();
+            try {
+                URI uri = URI.create("http://localhost:" + server.getAddress().getPort() + path);
+                run(uri, 4, 1); // warm-up
+                for (int clients : CONCURRENCY) {
+                    long[] result = run(uri, clients, seconds);
+                    System.out.printf("%-10s %8d %12.1f %12d%n", mode, clients, result[0] / (double) seconds, result[1]);
+                }
+            } finally {
+                server.stop(0);
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Drives the server with a fixed number of closed-loop clients for the given duration.
+     *
+     * @param uri the URI to request
+     * @param clients the number of concurrent clients
+     * @param seconds how long to run
+     * @return the number of successful requests and the number of failed requests
+     * @throws Exception if a client thread fails unexpectedly
+     */
+    private static long[] run(URI uri, int clients, int seconds) throws Exception {
+        ExecutorService clientPool = Executors.newFixedThreadPool(clients);
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(clientPool)
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService drivers = Executors.newFixedThreadPool(clients);
+        List<Future<long[]>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < clients; i++) {
+                futures.add(drivers.submit(() -> {
+                    long ok = 0;
+                    long failed = 0;
+                    while (running.get()) {
+                        try {
+                            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                            if (response.statusCode() < 500) {
+                                ok++;
+                            } else {
+                                failed++;
+                            }
+                        } catch (Exception e) {
+                            failed++;
+                        }
+                    }
+                    return new long[]{ok, failed};
+                }));
+            }
+
+            Thread.sleep(seconds * 1000L);
+            running.set(false);
+
+            long ok = 0;
+            long failed = 0;
+            for (Future<long[]> future : futures) {
+                long[] counts = future.get();
+                ok += counts[0];
+                failed += counts[1];
+            }
+            return new long[]{ok, failed};
+        } finally {
+            drivers.shutdown();
+            clientPool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import static org.junit.jupiter.api.Assertions.*;
+
+//Dominic Cash
+//16042439
+
+class GzipFilterTest {
+
+    private static final String PAGE = "<html><body>" + "<p>Home Solutions</p>".repeat(200) + "</body></html>";
+
+    private volatile String varying = PAGE;
+    private HttpServer server;
+    private GzipFilter filter;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        filter = new GzipFilter(1024, 1024 * 1024);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/page", exchange -> send(exchange, PAGE, null))
+                .getFilters().add(filter);
+        server.createContext("/cached", exchange -> send(exchange, PAGE, "\"v1\""))
+                .getFilters().add(filter);
+        server.createContext("/varying", exchange -> send(exchange, varying, "\"v1\""))
+                .getFilters().add(filter);
+        server.createContext("/small", exchange -> send(exchange, "tiny", null))
+                .getFilters().add(filter);
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    private static void send(HttpExchange exchange, String body, String etag) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+        if (etag != null) {
+            exchange.getResponseHeaders().set("ETag", etag);
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private HttpResponse<byte[]> get(String path, String acceptEncoding) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path));
+        if (acceptEncoding != null) {
+            request.header("Accept-Encoding", acceptEncoding);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static String gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void testCompressesWhenAccepted() throws Exception {
+        HttpResponse<byte[]> response = get("/page", "gzip, deflate");
+
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+        assertTrue(response.body().length < PAGE.length() / 4);
+        assertEquals(PAGE, gunzip(response.body()));
+    }
+
+    @Test
+    void testPlainWhenNotAccepted() throws Exception {
+        HttpResponse<byte[]> response = get("/page", "gzip;q=0");
+
+        assertFalse(response.headers().firstValue("Content-Encoding").isPresent());
+        assertEquals(PAGE, new String(response.body(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testSmallBodiesAreNotCompressed() throws Exception {
+        HttpResponse<byte[]> response = get("/small", "gzip");
+
+        assertFalse(response.headers().firstValue("Content-Encoding").isPresent());
+        assertEquals("tiny", new String(response.body(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testResponsesWithETagAreServedFromCache() throws Exception {
+        HttpResponse<byte[]> first = get("/cached", "gzip");
+        HttpResponse<byte[]> second = get("/cached", "gzip");
+
+        assertEquals(PAGE, gunzip(first.body()));
+        assertEquals(PAGE, gunzip(second.body()));
+        assertEquals(1, filter.getCacheHits());
+        assertTrue(filter.getCachedBytes() > 0);
+        assertEquals("\"v1-gz\"", second.headers().firstValue("ETag").orElse(null));
+    }
+
+    @Test
+    void testCachedBodyIsNotServedForDifferentBytes() throws Exception {
+        get("/varying", "gzip");
+        varying = "<html><body><p>Catalog unavailable</p>" + " ".repeat(2000) + "</body></html>";
+        HttpResponse<byte[]> changed = get("/varying", "gzip");
+        varying = PAGE;
+        HttpResponse<byte[]> restored = get("/varying", "gzip");
+
+        assertEquals("<html><body><p>Catalog unavailable</p>" + " ".repeat(2000) + "</body></html>",
+                gunzip(changed.body()));
+        assertEquals(PAGE, gunzip(restored.body()));
+        assertEquals(0, filter.getCacheHits());
+    }
+
+    @Test
+    void testGzipETagSuffix() {
+        assertEquals("\"v1-gz\"", GzipFilter.gzipETag("\"v1\""));
+        assertEquals("W/\"v1-gz\"", GzipFilter.gzipETag("W/\"v1\""));
+        assertEquals("\"v1-gz\"", GzipFilter.gzipETag("\"v1-gz\""));
+        assertEquals("\"v1\"", GzipFilter.stripGzipETag("\"v1-gz\""));
+        assertEquals("\"v1\"", GzipFilter.stripGzipETag("\"v1\""));
+    }
+
+    @Test
+    void testAcceptsGzip() {
+        assertTrue(GzipFilter.acceptsGzip(List.of("br, gzip;q=0.8")));
+        assertTrue(GzipFilter.acceptsGzip(List.of("*")));
+        assertFalse(GzipFilter.acceptsGzip(List.of("identity")));
+        assertFalse(GzipFilter.acceptsGzip(null));
+    }
+}
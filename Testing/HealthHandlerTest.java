@@ -0,0 +1,34 @@
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import static org.junit.jupiter.api.Assertions.*;
+
+//Dominic Cash
+//16042439
+
+class HealthHandlerTest {
+
+    @Test
+    void testAlwaysUpWithoutTheDatabase() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/health", new HealthHandler());
+        server.start();
+        try {
+            URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/health");
+            HttpResponse<String> response = HttpClient.newHttpClient()
+                    .send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(200, response.statusCode());
+            JSONObject body = new JSONObject(response.body());
+            assertEquals("UP", body.getString("status"));
+            assertTrue(body.getDouble("uptimeSeconds") >= 0);
+        } finally {
+            server.stop(0);
+        }
+    }
+}
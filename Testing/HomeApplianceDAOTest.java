@@ -4,6 +4,7 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import java.sql.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -26,8 +27,14 @@ class HomeApplianceDAOTest {
     @BeforeEach
     void setUp() throws Exception {
         MockitoAnnotations.openMocks(this);
-        homeApplianceDAO = spy(HomeApplianceDAO.class);
-        doReturn(mockConnection).when(homeApplianceDAO).connect();
+        homeApplianceDAO = spy(new HomeApplianceDAO(new CatalogCache()));
+        doAnswer(invocation -> runOnMockConnection(invocation.getArgument(0)))
+                .when(homeApplianceDAO).submitWrite(any());
+        doReturn(mockConnection).when(homeApplianceDAO).connectReadOnly();
+    }
+
+    private <T> CompletableFuture<T> runOnMockConnection(WriteQueue.Work<T> work) throws SQLException {
+        return CompletableFuture.completedFuture(work.execute(mockConnection));
     }
 
     @Test
@@ -50,44 +57,50 @@ class HomeApplianceDAOTest {
         assertEquals(2, products.size());
         assertEquals("SKU1", products.get(0).getSku());
         assertEquals("Description2", products.get(1).getDescription());
+        assertNull(homeApplianceDAO.getReadFailure());
         verify(mockPreparedStatement, times(1)).executeQuery();
     }
 
     @Test
     void testGetAllCategories() throws Exception {
-        String query = "SELECT DISTINCT category FROM appliance";
+        String query = "SELECT * FROM appliance";
 
         when(mockConnection.prepareStatement(query)).thenReturn(mockPreparedStatement);
         when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
 
-        
-        when(mockResultSet.next()).thenReturn(true, true, false); // Two categories
-        when(mockResultSet.getString("category")).thenReturn("Category1", "Category2");
+        // Categories come from the catalog snapshot rather than a DISTINCT query
+        when(mockResultSet.next()).thenReturn(true, true, true, false); // Three products in two categories
+        when(mockResultSet.getInt("id")).thenReturn(1, 2, 3);
+        when(mockResultSet.getString("sku")).thenReturn("SKU1", "SKU2", "SKU3");
+        when(mockResultSet.getString("description")).thenReturn("Description1", "Description2", "Description3");
+        when(mockResultSet.getString("category")).thenReturn("Category1", "Category2", "Category1");
+        when(mockResultSet.getInt("price")).thenReturn(100, 200, 300);
 
         List<String> categories = homeApplianceDAO.getAllCategories();
 
         assertEquals(2, categories.size());
         assertTrue(categories.contains("Category1"));
         assertTrue(categories.contains("Category2"));
+        assertEquals(2, homeApplianceDAO.getFacets("", 0, Integer.MAX_VALUE).getCategoryCount("Category1"));
         verify(mockPreparedStatement, times(1)).executeQuery();
     }
 
     @Test
     void testGetProductsByCategory() throws Exception {
-        String query = "SELECT * FROM appliance WHERE category = ?";
+        String query = "SELECT * FROM appliance";
         String category = "Category1";
 
         // Mock the behavior of the connection and prepared statement
         when(mockConnection.prepareStatement(query)).thenReturn(mockPreparedStatement);
         when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
 
-        // Mock the result set
-        when(mockResultSet.next()).thenReturn(true, false); // One product
-        when(mockResultSet.getInt("id")).thenReturn(1);
-        when(mockResultSet.getString("sku")).thenReturn("SKU1");
-        when(mockResultSet.getString("description")).thenReturn("Description1");
-        when(mockResultSet.getString("category")).thenReturn(category);
-        when(mockResultSet.getInt("price")).thenReturn(150);
+        // Mock the result set: the catalog is loaded once and filtered in memory
+        when(mockResultSet.next()).thenReturn(true, true, false); // Two products, one in the category
+        when(mockResultSet.getInt("id")).thenReturn(1, 2);
+        when(mockResultSet.getString("sku")).thenReturn("SKU1", "SKU2");
+        when(mockResultSet.getString("description")).thenReturn("Description1", "Description2");
+        when(mockResultSet.getString("category")).thenReturn(category, "Category2");
+        when(mockResultSet.getInt("price")).thenReturn(150, 250);
 
         // Call the method under test
         List<HomeAppliance> products = homeApplianceDAO.getProductsByCategory(category);
@@ -98,17 +111,141 @@ class HomeApplianceDAOTest {
         assertEquals("Description1", products.get(0).getDescription());
         assertEquals(category, products.get(0).getCategory());
 
-        // Verify interactions
-        verify(mockPreparedStatement).setString(1, category); // Verify parameter binding
+        // A second read is served from the snapshot without touching the database
+        assertEquals(1, homeApplianceDAO.getProductsByCategory("Category2").size());
         verify(mockPreparedStatement, times(1)).executeQuery();
     }
 
+    @Test
+    void testInsertItemIsVisibleToReads() throws Exception {
+        String selectQuery = "SELECT * FROM appliance";
+        String insertQuery = "INSERT INTO appliance (sku, description, category, price) VALUES (?, ?, ?, ?);";
+        ResultSet mockKeys = mock(ResultSet.class);
+        PreparedStatement mockInsert = mock(PreparedStatement.class);
+
+        when(mockConnection.prepareStatement(selectQuery)).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(false); // Empty catalog
+        assertTrue(homeApplianceDAO.findAllProducts().isEmpty());
+
+        when(mockConnection.prepareStatement(insertQuery, Statement.RETURN_GENERATED_KEYS)).thenReturn(mockInsert);
+        when(mockInsert.executeUpdate()).thenReturn(1);
+        when(mockInsert.getGeneratedKeys()).thenReturn(mockKeys);
+        when(mockKeys.next()).thenReturn(true);
+        when(mockKeys.getInt(1)).thenReturn(7);
+
+        assertTrue(homeApplianceDAO.insertItem(new HomeAppliance("SKU7", "Description7", "Category7", 70)));
+
+        HomeAppliance inserted = homeApplianceDAO.findProduct(7);
+        assertNotNull(inserted);
+        assertEquals("SKU7", inserted.getSku());
+        assertEquals(1, homeApplianceDAO.findAllProducts().size());
+        verify(mockPreparedStatement, times(1)).executeQuery();
+    }
+
+    @Test
+    void testFullTextQueryUsesQuotedPrefixTerms() {
+        assertEquals("\"Stainless\"* \"steel\"*", HomeApplianceDAO.toFullTextQuery("Stainless, steel"));
+        assertEquals("\"fridge\"* \"OR\"*", HomeApplianceDAO.toFullTextQuery("  fridge\" OR *"));
+        assertEquals("", HomeApplianceDAO.toFullTextQuery("*-\""));
+    }
+
+    @Test
+    void testGetProductsByDescriptionOrdersByRelevance() throws Exception {
+        String selectQuery = "SELECT * FROM appliance";
+        String searchQuery = "SELECT rowid FROM appliance_fts WHERE appliance_fts MATCH ? ORDER BY bm25(appliance_fts)";
+        PreparedStatement mockSearch = mock(PreparedStatement.class);
+        ResultSet mockMatches = mock(ResultSet.class);
+
+        when(mockConnection.prepareStatement(selectQuery)).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(true, true, false);
+        when(mockResultSet.getInt("id")).thenReturn(1, 2);
+        when(mockResultSet.getString("sku")).thenReturn("SKU1", "SKU2");
+        when(mockResultSet.getString("description")).thenReturn("Steel kettle", "Steel toaster");
+        when(mockResultSet.getString("category")).thenReturn("Kitchen", "Kitchen");
+        when(mockResultSet.getInt("price")).thenReturn(30, 40);
+
+        when(mockConnection.prepareStatement(searchQuery)).thenReturn(mockSearch);
+        when(mockSearch.executeQuery()).thenReturn(mockMatches);
+        when(mockMatches.next()).thenReturn(true, true, false);
+        when(mockMatches.getInt(1)).thenReturn(2, 1);
+
+        List<HomeAppliance> products = homeApplianceDAO.getProductsByDescription("ste");
+
+        assertEquals(2, products.size());
+        assertEquals("SKU2", products.get(0).getSku());
+        verify(mockSearch).setString(1, "\"ste\"*");
+    }
+
+    @Test
+    void testFindSearchPageSeeksPastCursor() throws Exception {
+        String selectQuery = "SELECT * FROM appliance";
+        String searchQuery = "SELECT rowid, rank FROM appliance_fts WHERE appliance_fts MATCH ?"
+                + " AND (rank > ? OR (rank = ? AND rowid > ?)) ORDER BY rank, rowid LIMIT ?";
+        PreparedStatement mockSearch = mock(PreparedStatement.class);
+        ResultSet mockMatches = mock(ResultSet.class);
+
+        when(mockConnection.prepareStatement(selectQuery)).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(true, true, true, false);
+        when(mockResultSet.getInt("id")).thenReturn(1, 2, 3);
+        when(mockResultSet.getString("sku")).thenReturn("SKU1", "SKU2", "SKU3");
+        when(mockResultSet.getString("description")).thenReturn("Steel kettle", "Steel toaster", "Steel pan");
+        when(mockResultSet.getString("category")).thenReturn("Kitchen", "Kitchen", "Kitchen");
+        when(mockResultSet.getInt("price")).thenReturn(30, 40, 50);
+
+        when(mockConnection.prepareStatement(searchQuery)).thenReturn(mockSearch);
+        when(mockSearch.executeQuery()).thenReturn(mockMatches);
+        when(mockMatches.next()).thenReturn(true, true, false);
+        when(mockMatches.getInt("rowid")).thenReturn(3, 1);
+        when(mockMatches.getDouble("rank")).thenReturn(-2.0, -1.0);
+
+        ProductPage page = homeApplianceDAO.findSearchPage("ste", "-2.5:2", null, 1);
+
+        assertEquals(1, page.getItems().size());
+        assertEquals("SKU3", page.getItems().get(0).getSku());
+        assertEquals("-2.0:3", page.getNextCursor());
+        assertEquals("-2.0:3", page.getPreviousCursor());
+        verify(mockSearch).setDouble(2, -2.5);
+        verify(mockSearch).setInt(4, 2);
+        verify(mockSearch).setInt(5, 2);
+    }
+
+    @Test
+    void testFailedCatalogLoadIsReported() throws Exception {
+        when(mockConnection.prepareStatement("SELECT * FROM appliance")).thenThrow(new SQLException("disk I/O error"));
+
+        List<HomeAppliance> products = homeApplianceDAO.findAllProducts();
+
+        assertTrue(products.isEmpty());
+        assertNotNull(homeApplianceDAO.getReadFailure());
+    }
+
+    @Test
+    void testRejectedSearchDoesNotFallBackToScan() throws Exception {
+        when(mockConnection.prepareStatement("SELECT * FROM appliance")).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(false);
+        homeApplianceDAO.findAllProducts();
+        doThrow(new SQLTransientConnectionException("Read rejected")).when(homeApplianceDAO).connectReadOnly();
+
+        ProductPage page = homeApplianceDAO.findSearchPage("kettle", null, null, 10);
+
+        assertTrue(page.getItems().isEmpty());
+        assertInstanceOf(SQLTransientConnectionException.class, homeApplianceDAO.getReadFailure());
+        verify(homeApplianceDAO, times(2)).connectReadOnly();
+    }
+
     @Test
     void testInsertItem() throws Exception {
         String query = "INSERT INTO appliance (sku, description, category, price) VALUES (?, ?, ?, ?);";
 
-        when(mockConnection.prepareStatement(query)).thenReturn(mockPreparedStatement);
+        when(mockConnection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)).thenReturn(mockPreparedStatement);
         when(mockPreparedStatement.executeUpdate()).thenReturn(1); // Success
+        when(mockPreparedStatement.getGeneratedKeys()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(true);
+        when(mockResultSet.getInt(1)).thenReturn(1);
 
         HomeAppliance appliance = new HomeAppliance("SKU1", "Description1", "Category1", 100);
         boolean result = homeApplianceDAO.insertItem(appliance);
@@ -0,0 +1,55 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+//Dominic Cash
+//16042439
+
+class LatencyHistogramTest {
+
+    @Test
+    void testEmptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtQuantile(0.99));
+    }
+
+    @Test
+    void testBucketsCoverTheirValues() {
+        for (long value : new long[] {0, 1, 31, 32, 33, 63, 64, 1000, 123_456_789L, 1L << 39}) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.upperBoundOf(index) >= value, "upper bound of " + value);
+            assertTrue(index == 0 || LatencyHistogram.upperBoundOf(index - 1) < value, "lower bound of " + value);
+        }
+    }
+
+    @Test
+    void testPercentilesAreWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_500_000L, histogram.getSum());
+        assertEquals(500_000, histogram.getValueAtQuantile(0.5), 500_000 / LatencyHistogram.SUB_BUCKETS);
+        assertEquals(990_000, histogram.getValueAtQuantile(0.99), 990_000 / LatencyHistogram.SUB_BUCKETS);
+        assertEquals(1_000_000, histogram.getValueAtQuantile(0.999), 1_000_000 / LatencyHistogram.SUB_BUCKETS);
+        assertEquals(1_000_000, histogram.getValueAtQuantile(1.0));
+    }
+
+    @Test
+    void testMetricsRenderRequestSummary() {
+        Metrics.recordRequest("/histogram-test", 200, 2_000_000);
+        Metrics.recordRequest("/histogram-test", -1, 1_000_000);
+
+        String text = Metrics.render();
+
+        assertTrue(text.contains("# TYPE store_http_request_duration_seconds summary"));
+        assertTrue(text.contains("store_http_request_duration_seconds{route=\"/histogram-test\",status=\"200\",quantile=\"0.99\"}"));
+        assertTrue(text.contains("store_http_request_duration_seconds_count{route=\"/histogram-test\",status=\"500\"} 1"));
+        assertTrue(text.contains("jvm_threads_live "));
+        assertEquals(1, Metrics.getRequestHistogram("/histogram-test", 200).getCount());
+    }
+}
@@ -0,0 +1,52 @@
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+//Dominic Cash
+//16042439
+
+class LifecycleTest {
+
+    @Test
+    void testHooksRunByPhaseThenRegistrationOrder() {
+        Lifecycle lifecycle = new Lifecycle(false);
+        List<String> steps = new ArrayList<>();
+        lifecycle.register(Lifecycle.Phase.CLOSE, "pool", () -> steps.add("pool"));
+        lifecycle.register(Lifecycle.Phase.DRAIN, "server", () -> steps.add("server"));
+        lifecycle.register(Lifecycle.Phase.COMMIT, "writes", () -> steps.add("writes"));
+        lifecycle.register(Lifecycle.Phase.DRAIN, "second server", () -> steps.add("second server"));
+
+        assertTrue(lifecycle.shutdown());
+
+        assertEquals(List.of("server", "second server", "writes", "pool"), steps);
+    }
+
+    @Test
+    void testFailingHookDoesNotStopTheSequence() {
+        Lifecycle lifecycle = new Lifecycle(false);
+        List<String> steps = new ArrayList<>();
+        lifecycle.register(Lifecycle.Phase.FLUSH, "broken", () -> {
+            throw new IllegalStateException("broken");
+        });
+        lifecycle.register(Lifecycle.Phase.CLOSE, "pool", () -> steps.add("pool"));
+
+        assertFalse(lifecycle.shutdown());
+
+        assertEquals(List.of("pool"), steps);
+    }
+
+    @Test
+    void testShutdownRunsOnce() {
+        Lifecycle lifecycle = new Lifecycle(false);
+        List<String> steps = new ArrayList<>();
+        lifecycle.register(Lifecycle.Phase.CLOSE, "pool", () -> steps.add("pool"));
+
+        lifecycle.shutdown();
+        assertFalse(lifecycle.shutdown());
+        lifecycle.register(Lifecycle.Phase.CLOSE, "late", () -> steps.add("late"));
+
+        assertTrue(lifecycle.isStopped());
+        assertEquals(List.of("pool"), steps);
+    }
+}
@@ -0,0 +1,49 @@
+import org.junit.jupiter.api.Test;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.UUID;
+import static org.junit.jupiter.api.Assertions.*;
+
+//Dominic Cash
+//16042439
+
+class LogTest {
+
+    private static Path logFile() {
+        return Paths.get(System.getProperty("store.log.dir", "logs")).resolve(Log.FILE_NAME);
+    }
+
+    @Test
+    void testEventsAreWrittenWithFields() throws Exception {
+        String marker = UUID.randomUUID().toString();
+        long written = Log.getWrittenCount();
+
+        Log.info("Log test", "marker", marker, "note", "two words", "count", 3);
+
+        assertTrue(Log.flush(5000));
+        assertTrue(Log.getWrittenCount() > written);
+        String content = new String(Files.readAllBytes(logFile()), StandardCharsets.UTF_8);
+        assertTrue(content.contains("INFO  [" + Thread.currentThread().getName() + "] Log test marker=" + marker
+                + " note=\"two words\" count=3"));
+    }
+
+    @Test
+    void testErrorsIncludeStackTrace() throws Exception {
+        String marker = UUID.randomUUID().toString();
+
+        Log.error("Log test failure", new IllegalStateException(marker));
+
+        assertTrue(Log.flush(5000));
+        String content = new String(Files.readAllBytes(logFile()), StandardCharsets.UTF_8);
+        assertTrue(content.contains("java.lang.IllegalStateException: " + marker));
+        assertTrue(content.contains("at LogTest.testErrorsIncludeStackTrace"));
+    }
+
+    @Test
+    void testDebugIsBelowDefaultLevel() {
+        assertFalse(Log.isEnabled(Log.Level.DEBUG));
+        assertTrue(Log.isEnabled(Log.Level.WARN));
+    }
+}
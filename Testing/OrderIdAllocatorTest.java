@@ -0,0 +1,52 @@
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import static org.junit.jupiter.api.Assertions.*;
+
+//Dominic Cash
+//16042439
+
+class OrderIdAllocatorTest {
+
+    @Test
+    void testIdsComeFromConsecutiveBlocks() throws Exception {
+        AtomicLong sequence = new AtomicLong(41);
+        OrderIdAllocator ids = new OrderIdAllocator(size -> sequence.getAndAdd(size), 3);
+
+        List<Long> allocated = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            allocated.add(ids.next());
+        }
+
+        assertEquals(List.of(41L, 42L, 43L, 44L, 45L, 46L, 47L), allocated);
+        assertEquals(3, ids.getBlockCount());
+    }
+
+    @Test
+    void testConcurrentCheckoutsGetUniqueIds() throws Exception {
+        AtomicLong sequence = new AtomicLong(1);
+        OrderIdAllocator ids = new OrderIdAllocator(size -> sequence.getAndAdd(size), 10);
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < 500; i++) {
+                    try {
+                        assertTrue(seen.add(ids.next()));
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(4000, seen.size());
+        assertEquals(400, ids.getBlockCount());
+    }
+}
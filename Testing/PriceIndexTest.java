@@ -0,0 +1,98 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+//Dominic Cash
+//16042439
+
+class PriceIndexTest {
+
+    private List<HomeAppliance> appliances;
+
+    @BeforeEach
+    void setUp() {
+        appliances = new ArrayList<>();
+        appliances.add(new HomeAppliance(1, "SKU1", "Kettle", "Kitchen", 40));
+        appliances.add(new HomeAppliance(2, "SKU2", "Toaster", "Kitchen", 25));
+        appliances.add(new HomeAppliance(3, "SKU3", "Fridge", "Kitchen", 600));
+        appliances.add(new HomeAppliance(4, "SKU4", "Washer", "Laundry", 450));
+        appliances.add(new HomeAppliance(5, "SKU5", "Dryer", "Laundry", 40));
+    }
+
+    @Test
+    void testBuildSortsByPriceThenId() {
+        PriceIndex index = PriceIndex.build(appliances);
+
+        assertEquals(5, index.size());
+        assertEquals(2, index.idAt(0));
+        assertEquals(1, index.idAt(1));
+        assertEquals(5, index.idAt(2));
+        assertEquals(600, index.priceAt(4));
+    }
+
+    @Test
+    void testRangeBoundsAreInclusive() {
+        PriceIndex index = PriceIndex.build(appliances);
+
+        assertEquals(3, index.count(25, 40));
+        assertEquals(1, index.count(41, 450));
+        assertEquals(0, index.count(601, Integer.MAX_VALUE));
+        assertEquals(0, index.count(100, 50));
+    }
+
+    @Test
+    void testWithAndWithoutKeepOrder() {
+        PriceIndex index = PriceIndex.build(appliances).with(6, 30).without(3, 600);
+
+        assertEquals(5, index.size());
+        assertEquals(6, index.idAt(1));
+        assertEquals(450, index.priceAt(4));
+        assertSame(index, index.without(3, 600));
+    }
+
+    @Test
+    void testSnapshotRangeFollowsIncrementalChanges() {
+        CatalogSnapshot snapshot = new CatalogSnapshot(appliances)
+                .withUpserted(new HomeAppliance(1, "SKU1", "Kettle", "Laundry", 500))
+                .withRemoved(2);
+
+        List<HomeAppliance> kitchen = snapshot.getByPriceRange("Kitchen", 0, Integer.MAX_VALUE);
+        List<HomeAppliance> laundry = snapshot.getByPriceRange("Laundry", 100, 1000);
+
+        assertEquals(1, kitchen.size());
+        assertEquals(3, kitchen.get(0).getId());
+        assertEquals(2, laundry.size());
+        assertEquals(4, laundry.get(0).getId());
+        assertEquals(1, laundry.get(1).getId());
+    }
+
+    @Test
+    void testOrderedByIdWithinPriceRange() {
+        CatalogSnapshot snapshot = new CatalogSnapshot(appliances);
+
+        List<HomeAppliance> ordered = snapshot.getOrdered(null, 30, 500, ProductPage.Sort.ID);
+
+        assertEquals(3, ordered.size());
+        assertEquals(1, ordered.get(0).getId());
+        assertEquals(4, ordered.get(1).getId());
+        assertEquals(5, ordered.get(2).getId());
+    }
+
+    @Test
+    void testOrderedByIdWithinWideRangeMatchesNarrowRange() {
+        CatalogSnapshot snapshot = new CatalogSnapshot(appliances);
+
+        List<HomeAppliance> all = snapshot.getOrdered(null, 0, 100_000, ProductPage.Sort.ID);
+        List<HomeAppliance> again = snapshot.getOrdered(null, 0, 100_000, ProductPage.Sort.ID);
+
+        assertEquals(snapshot.size(), all.size());
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(all.get(i - 1).getId() < all.get(i).getId());
+        }
+        assertEquals(all, again);
+        assertTrue(snapshot.getOrdered(null, 500, 30, ProductPage.Sort.ID).isEmpty());
+        assertEquals(List.of(snapshot.find(4)), snapshot.getOrdered("Laundry", 400, 500, ProductPage.Sort.ID));
+    }
+}
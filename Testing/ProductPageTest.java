@@ -0,0 +1,84 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+//Dominic Cash
+//16042439
+
+class ProductPageTest {
+
+    private List<HomeAppliance> byId;
+
+    @BeforeEach
+    void setUp() {
+        byId = new ArrayList<>();
+        for (int id = 1; id <= 10; id++) {
+            byId.add(new HomeAppliance(id, "SKU" + id, "Description" + id, "Category", 100 - id * 5));
+        }
+    }
+
+    @Test
+    void testFirstPage() {
+        ProductPage page = ProductPage.seek(byId, ProductPage.Sort.ID, null, null, 4);
+
+        assertEquals(4, page.getItems().size());
+        assertEquals(1, page.getItems().get(0).getId());
+        assertEquals("4", page.getNextCursor());
+        assertNull(page.getPreviousCursor());
+    }
+
+    @Test
+    void testSeekAfterCursor() {
+        ProductPage page = ProductPage.seek(byId, ProductPage.Sort.ID, "8", null, 4);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(9, page.getItems().get(0).getId());
+        assertNull(page.getNextCursor());
+        assertEquals("9", page.getPreviousCursor());
+    }
+
+    @Test
+    void testSeekBeforeCursor() {
+        ProductPage page = ProductPage.seek(byId, ProductPage.Sort.ID, null, "9", 4);
+
+        assertEquals(4, page.getItems().size());
+        assertEquals(5, page.getItems().get(0).getId());
+        assertEquals(8, page.getItems().get(3).getId());
+        assertEquals("8", page.getNextCursor());
+        assertEquals("5", page.getPreviousCursor());
+    }
+
+    @Test
+    void testSeekByPriceBreaksTiesById() {
+        List<HomeAppliance> byPrice = new ArrayList<>();
+        byPrice.add(new HomeAppliance(3, "SKU3", "Description3", "Category", 10));
+        byPrice.add(new HomeAppliance(7, "SKU7", "Description7", "Category", 20));
+        byPrice.add(new HomeAppliance(9, "SKU9", "Description9", "Category", 20));
+        byPrice.add(new HomeAppliance(1, "SKU1", "Description1", "Category", 30));
+
+        ProductPage page = ProductPage.seek(byPrice, ProductPage.Sort.PRICE, "20:7", null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(9, page.getItems().get(0).getId());
+        assertEquals(1, page.getItems().get(1).getId());
+        assertNull(page.getNextCursor());
+        assertEquals("20:9", page.getPreviousCursor());
+    }
+
+    @Test
+    void testMalformedCursorStartsAtBeginning() {
+        ProductPage page = ProductPage.seek(byId, ProductPage.Sort.PRICE, "not-a-cursor", null, 3);
+
+        assertEquals(1, page.getItems().get(0).getId());
+    }
+
+    @Test
+    void testClampSize() {
+        assertEquals(ProductPage.DEFAULT_SIZE, ProductPage.clampSize(null));
+        assertEquals(ProductPage.DEFAULT_SIZE, ProductPage.clampSize("abc"));
+        assertEquals(1, ProductPage.clampSize("-5"));
+        assertEquals(ProductPage.MAX_SIZE, ProductPage.clampSize("100000"));
+    }
+}
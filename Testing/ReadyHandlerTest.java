@@ -0,0 +1,100 @@
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+//Dominic Cash
+//16042439
+
+class ReadyHandlerTest {
+
+    @TempDir
+    Path directory;
+
+    private final Warmup warmup = new Warmup();
+    private final CatalogCache catalog = new CatalogCache();
+    private ConnectionPool pool;
+    private WriteQueue writeQueue;
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ready", new ReadyHandler(warmup, catalog, () -> pool, () -> writeQueue, 1000));
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        server.stop(0);
+        if (writeQueue != null) {
+            writeQueue.shutdown(5000);
+        }
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private HttpResponse<String> ready() throws Exception {
+        URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/ready");
+        return HttpClient.newHttpClient().send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String check(HttpResponse<String> response, String name) {
+        return new JSONObject(response.body()).getJSONObject("checks").getJSONObject(name).getString("status");
+    }
+
+    private void startDatabase() throws Exception {
+        pool = new ConnectionPool(TestDatabase.create(directory), 1, StorageProfile.BALANCED, 1000, 0);
+        writeQueue = new WriteQueue(pool::borrowWriter, 16, 100);
+    }
+
+    @Test
+    void testNotReadyBeforeWarmup() throws Exception {
+        HttpResponse<String> response = ready();
+
+        assertEquals(503, response.statusCode());
+        assertEquals("DOWN", check(response, "warmup"));
+        assertEquals("DOWN", check(response, "pool"));
+        assertEquals("no-store", response.headers().firstValue("Cache-Control").orElse(null));
+    }
+
+    @Test
+    void testNotReadyWhenCatalogFailedToLoad() throws Exception {
+        startDatabase();
+        warmup.skip();
+        assertSame(CatalogSnapshot.EMPTY, catalog.get(() -> null));
+
+        HttpResponse<String> response = ready();
+
+        assertEquals(503, response.statusCode());
+        assertEquals("DOWN", check(response, "catalog"));
+        assertEquals("UP", check(response, "database"));
+    }
+
+    @Test
+    void testReadyAfterWarmup() throws Exception {
+        startDatabase();
+        catalog.get(() -> null);
+        catalog.get(() -> new CatalogSnapshot(List.of(new HomeAppliance(1, "SKU1", "Kettle", "Kitchen", 30))));
+        warmup.skip();
+
+        HttpResponse<String> response = ready();
+
+        assertEquals(200, response.statusCode());
+        assertEquals("UP", new JSONObject(response.body()).getString("status"));
+
+        catalog.invalidate();
+        assertEquals(200, ready().statusCode());
+    }
+}
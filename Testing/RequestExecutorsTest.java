@@ -0,0 +1,82 @@
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+
+//Dominic Cash
+//16042439
+
+class RequestExecutorsTest {
+
+    @Test
+    void testPlatformQueueIsBounded() {
+        ExecutorService executor = RequestExecutors.create(RequestExecutors.Mode.PLATFORM, 2, 5);
+        try {
+            assertEquals(5, ((ThreadPoolExecutor) executor).getQueue().remainingCapacity());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testOverloadedPlatformPoolAnswers503() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) RequestExecutors.create(RequestExecutors.Mode.PLATFORM, 1, 1);
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(executor);
+        HttpContext context = server.createContext("/", exchange -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, 2);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write("ok".getBytes());
+            }
+        });
+        context.getFilters().add(new OverflowFilter());
+        server.start();
+        long shedBefore = OverflowFilter.getShedCount();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            HttpRequest request = HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + server.getAddress().getPort() + "/")).build();
+
+            CompletableFuture<HttpResponse<String>> running = client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<HttpResponse<String>> queued = client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+            long deadline = System.currentTimeMillis() + 5000;
+            while (executor.getQueue().isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertEquals(1, executor.getQueue().size());
+
+            HttpResponse<String> shed = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            assertEquals(503, shed.statusCode());
+            assertTrue(shed.headers().firstValue("Retry-After").isPresent());
+            assertEquals(shedBefore + 1, OverflowFilter.getShedCount());
+
+            release.countDown();
+            assertEquals(200, running.get(5, TimeUnit.SECONDS).statusCode());
+            assertEquals(200, queued.get(5, TimeUnit.SECONDS).statusCode());
+        } finally {
+            release.countDown();
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+
+//Dominic Cash
+//16042439
+
+class RouterTest {
+
+    private HttpServer server;
+    private HttpClient client;
+    private final AtomicInteger handled = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Router router = new Router()
+                .exact("/", exchange -> reply(exchange, "store"), "GET")
+                .exact("/login", exchange -> reply(exchange, "login " + exchange.getRequestMethod()), "GET", "POST")
+                .prefix("/static/", exchange -> reply(exchange, "asset"), "GET")
+                .prefix("/static/fonts/", exchange -> reply(exchange, "font"), "GET");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", router);
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    private void reply(HttpExchange exchange, String body) throws IOException {
+        handled.incrementAndGet();
+        byte[] bytes = body.getBytes();
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private HttpResponse<String> send(String method, String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void testExactAndLongestPrefixMatch() throws Exception {
+        assertEquals("store", send("GET", "/").body());
+        assertEquals("asset", send("GET", "/static/store.css").body());
+        assertEquals("font", send("GET", "/static/fonts/a.woff2").body());
+    }
+
+    @Test
+    void testUnknownPathIsNotFoundWithoutRunningAHandler() throws Exception {
+        HttpResponse<String> response = send("GET", "/favicon.ico");
+
+        assertEquals(404, response.statusCode());
+        assertEquals(0, handled.get());
+    }
+
+    @Test
+    void testMethodNotAllowed() throws Exception {
+        HttpResponse<String> response = send("DELETE", "/login");
+
+        assertEquals(405, response.statusCode());
+        assertEquals("GET, POST, HEAD", response.headers().firstValue("Allow").orElse(null));
+        assertEquals("login POST", send("POST", "/login").body());
+    }
+
+    @Test
+    void testHeadRunsTheGetHandlerWithoutBody() throws Exception {
+        HttpResponse<String> response = send("HEAD", "/login");
+
+        assertEquals(200, response.statusCode());
+        assertEquals("", response.body());
+        assertEquals(1, handled.get());
+    }
+}
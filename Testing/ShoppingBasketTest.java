@@ -0,0 +1,74 @@
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+//Dominic Cash
+//16042439
+
+class ShoppingBasketTest {
+
+    @Test
+    void testAddingTheSameItemRaisesItsQuantity() {
+        ShoppingBasket basket = new ShoppingBasket();
+        HomeAppliance kettle = new HomeAppliance(1, "SKU1", "Kettle", "Kitchen", 20);
+        basket.addItem(kettle);
+        basket.addItem(kettle);
+        basket.addItem(new HomeAppliance(2, "SKU2", "Toaster", "Kitchen", 35));
+
+        List<ShoppingBasket.Line> lines = basket.getLines();
+        assertEquals(2, lines.size());
+        assertEquals(1, lines.get(0).getProductId());
+        assertEquals(2, lines.get(0).getQuantity());
+        assertEquals(40, lines.get(0).getLineTotal());
+        assertEquals(3, basket.getItemCount());
+        assertEquals(75, basket.getTotalPrice());
+    }
+
+    @Test
+    void testUpdateAndRemoveKeepTheTotal() {
+        ShoppingBasket basket = new ShoppingBasket();
+        basket.add(1, 20, 1);
+        basket.add(2, 35, 1);
+
+        assertTrue(basket.updateQuantity(1, 4));
+        assertEquals(115, basket.getTotalPrice());
+        assertTrue(basket.remove(2));
+        assertEquals(80, basket.getTotalPrice());
+        assertFalse(basket.updateQuantity(2, 3));
+        assertTrue(basket.updateQuantity(1, 0));
+        assertEquals(0, basket.getTotalPrice());
+        assertEquals(0, basket.getLineCount());
+
+        basket.add(3, 10, 500);
+        assertEquals(ShoppingBasket.MAX_QUANTITY, basket.getQuantity(3));
+        basket.clearBasket();
+        assertEquals(0, basket.getItemCount());
+    }
+
+    @Test
+    void testMapKeepsEntriesReachableAcrossRemovals() {
+        IntIntMap map = new IntIntMap();
+        for (int key = 0; key < 1000; key++) {
+            map.put(key, key * 2, -1);
+        }
+        for (int key = 0; key < 1000; key += 3) {
+            assertEquals(key * 2, map.remove(key, -1));
+        }
+
+        assertEquals(666, map.size());
+        for (int key = 0; key < 1000; key++) {
+            assertEquals(key % 3 == 0 ? -1 : key * 2, map.get(key, -1));
+        }
+        assertEquals(1, map.keys()[0]);
+    }
+
+    @Test
+    void testUpdatingAPriceKeepsTheTotal() {
+        ShoppingBasket basket = new ShoppingBasket();
+        basket.add(1, 100, 3);
+
+        assertTrue(basket.updateUnitPrice(1, 90));
+        assertEquals(270, basket.getTotalPrice());
+        assertFalse(basket.updateUnitPrice(2, 50));
+    }
+}
@@ -0,0 +1,77 @@
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+//Dominic Cash
+//16042439
+
+class SignedCookieBasketsTest {
+
+    private static final byte[] KEY = new byte[32];
+
+    static {
+        Arrays.fill(KEY, (byte) 7);
+    }
+
+    @Test
+    void testBasketSurvivesTheRoundTrip() {
+        SignedCookieBaskets cookies = new SignedCookieBaskets(KEY, 3600);
+        ShoppingBasket basket = new ShoppingBasket();
+        basket.add(12, 250, 2);
+        basket.add(100_000, 1999, 1);
+
+        ShoppingBasket decoded = cookies.decode(cookies.encode(basket, 1000), 1500);
+
+        assertNotNull(decoded);
+        assertEquals(2, decoded.getQuantity(12));
+        assertEquals(1, decoded.getQuantity(100_000));
+        assertEquals(basket.getTotalPrice(), decoded.getTotalPrice());
+    }
+
+    @Test
+    void testTamperedForeignAndExpiredCookiesAreRejected() {
+        SignedCookieBaskets cookies = new SignedCookieBaskets(KEY, 3600);
+        ShoppingBasket basket = new ShoppingBasket();
+        basket.add(12, 250, 2);
+        String value = cookies.encode(basket, 1000);
+
+        char[] tampered = value.toCharArray();
+        tampered[3] = tampered[3] == 'A' ? 'B' : 'A';
+        byte[] otherKey = KEY.clone();
+        otherKey[0] = 1;
+
+        assertNull(cookies.decode(new String(tampered), 1500));
+        assertNull(new SignedCookieBaskets(otherKey, 3600).decode(value, 1500));
+        assertNull(cookies.decode(value, 1000 + 3601));
+        assertNull(cookies.decode("not-a-cookie", 1500));
+        assertEquals(3, cookies.getRejectedCount());
+    }
+
+    @Test
+    void testOversizedBasketIsNotSaved() {
+        SignedCookieBaskets cookies = new SignedCookieBaskets(KEY, 3600);
+        ShoppingBasket small = new ShoppingBasket();
+        small.add(12, 250, 2);
+        ShoppingBasket large = new ShoppingBasket();
+        for (int id = 1_000_000; id < 1_000_500; id++) {
+            large.add(id, 1_000_000, 1);
+        }
+
+        Headers kept = new Headers();
+        Headers dropped = new Headers();
+
+        assertTrue(cookies.save(exchangeWith(kept), small));
+        assertFalse(cookies.save(exchangeWith(dropped), large));
+        assertEquals(1, kept.get("Set-Cookie").size());
+        assertNull(dropped.get("Set-Cookie"));
+    }
+
+    private static HttpExchange exchangeWith(Headers responseHeaders) {
+        HttpExchange exchange = mock(HttpExchange.class);
+        when(exchange.getResponseHeaders()).thenReturn(responseHeaders);
+        return exchange;
+    }
+}
@@ -0,0 +1,39 @@
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import static org.junit.jupiter.api.Assertions.*;
+
+//Dominic Cash
+//16042439
+
+class StaticAssetsTest {
+
+    @Test
+    void testStylesheetIsVersionedByContent() throws IOException {
+        StaticAssets assets = new StaticAssets(Paths.get("static"));
+        String url = assets.url(StaticAssets.STYLESHEET);
+
+        assertNotNull(url);
+        assertTrue(url.matches("/static/store\\.[0-9a-f]{10}\\.css"));
+        assertEquals("text/css; charset=UTF-8", assets.find(url).getContentType());
+        assertNull(assets.find("/static/store.css"));
+    }
+
+    @Test
+    void testFontUrlsAreRewrittenToVersionedPaths() throws IOException {
+        StaticAssets assets = new StaticAssets(Paths.get("static"));
+        String css = new String(assets.find(assets.url(StaticAssets.STYLESHEET)).getContent(), StandardCharsets.UTF_8);
+
+        assertTrue(css.contains("url('" + assets.url("fonts/DejaVuLGCSans.woff2") + "')"));
+        assertFalse(css.contains("googleapis"));
+    }
+
+    @Test
+    void testPageHeadLinksStylesheet() {
+        String head = StaticAssets.pageHead("Home Solutions");
+
+        assertTrue(head.contains("<title>Home Solutions</title>"));
+        assertTrue(head.contains("href='" + StaticAssets.shared().url(StaticAssets.STYLESHEET) + "'"));
+    }
+}
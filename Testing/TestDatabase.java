@@ -0,0 +1,41 @@
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code TestDatabase} class creates a throwaway SQLite database with the same base tables as
+ * stores.sqlite, so that tests can start a {@link ConnectionPool} without touching the real database.
+ * The pool adds the remaining tables itself through {@link DatabaseSchema}.
+ *
+ * @author Dominic Cash
+ */
+final class TestDatabase {
+
+    private TestDatabase() {
+    }
+
+    /**
+     * Creates the appliance, customer and users tables in a new database file inside the given directory.
+     *
+     * @param directory the directory to create the database in, usually a JUnit temporary directory
+     * @return the JDBC URL of the new database
+     * @throws SQLException if the tables cannot be created
+     */
+    static String create(Path directory) throws SQLException {
+        String url = "jdbc:sqlite:" + directory.resolve("test.sqlite");
+        try (Connection conn = DriverManager.getConnection(url); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE appliance (id INTEGER PRIMARY KEY AUTOINCREMENT, sku TEXT NOT NULL UNIQUE, "
+                    + "description TEXT NOT NULL, category TEXT NOT NULL, price INTEGER NOT NULL)");
+            stmt.execute("CREATE TABLE customer (customerID INTEGER PRIMARY KEY AUTOINCREMENT, "
+                    + "businessName TEXT NOT NULL, addressLine0 TEXT, addressLine1 TEXT, addressLine2 TEXT, "
+                    + "country TEXT, postCode TEXT, telephoneNumber TEXT, email TEXT)");
+            stmt.execute("CREATE TABLE users (id INTEGER PRIMARY KEY AUTOINCREMENT, username TEXT, password TEXT)");
+        }
+        return url;
+    }
+}
@@ -0,0 +1,21 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+//Dominic Cash
+//16042439
+
+class WarmupTest {
+
+    @Test
+    void testReadyOnlyOnceFinished() {
+        Warmup warmup = new Warmup();
+
+        assertFalse(warmup.isReady());
+        assertEquals(-1, warmup.getTimeToReadyMillis());
+
+        warmup.skip();
+
+        assertTrue(warmup.isReady());
+        assertTrue(warmup.getTimeToReadyMillis() >= 0);
+    }
+}
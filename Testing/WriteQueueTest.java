@@ -0,0 +1,70 @@
+import org.junit.jupiter.api.Test;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+//Dominic Cash
+//16042439
+
+class WriteQueueTest {
+
+    @Test
+    void testBatchesCommitAndCompleteFutures() throws Exception {
+        Connection conn = mock(Connection.class);
+        WriteQueue queue = new WriteQueue(() -> conn, 16, 100);
+
+        CompletableFuture<Integer> first = queue.submit(c -> 1);
+        CompletableFuture<Integer> second = queue.submit(c -> 2);
+
+        assertEquals(1, first.get(5, TimeUnit.SECONDS));
+        assertEquals(2, second.get(5, TimeUnit.SECONDS));
+        assertTrue(queue.shutdown(5000));
+        verify(conn, atLeastOnce()).commit();
+    }
+
+    @Test
+    void testSubmitAfterShutdownFails() throws Exception {
+        WriteQueue queue = new WriteQueue(() -> mock(Connection.class), 16, 100);
+        assertTrue(queue.shutdown(5000));
+
+        CompletableFuture<Integer> future = queue.submit(c -> 1);
+
+        CompletionException e = assertThrows(CompletionException.class, future::join);
+        assertInstanceOf(SQLException.class, e.getCause());
+    }
+
+    @Test
+    void testProducerBlockedOnFullQueueIsReleasedByShutdown() throws Exception {
+        CountDownLatch writerStarted = new CountDownLatch(1);
+        CountDownLatch releaseWriter = new CountDownLatch(1);
+        Connection conn = mock(Connection.class);
+        WriteQueue queue = new WriteQueue(() -> {
+            writerStarted.countDown();
+            try {
+                releaseWriter.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return conn;
+        }, 1, 1);
+
+        CompletableFuture<Integer> committing = queue.submit(c -> 1);
+        assertTrue(writerStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Integer> queued = queue.submit(c -> 2);
+        CompletableFuture<CompletableFuture<Integer>> blocked = CompletableFuture.supplyAsync(() -> queue.submit(c -> 3));
+
+        assertFalse(queue.shutdown(200));
+        CompletableFuture<Integer> rejected = blocked.get(5, TimeUnit.SECONDS);
+        assertThrows(CompletionException.class, rejected::join);
+
+        releaseWriter.countDown();
+        assertTrue(queue.shutdown(5000));
+        assertEquals(1, committing.get(5, TimeUnit.SECONDS));
+        assertEquals(2, queued.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,284 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code AdaptiveLimiter} class bounds the number of database operations in flight, and moves the
+ * bound automatically by watching how long operations take. SQLite serialises work on a single file, so
+ * past a certain point more concurrent queries only make each one slower; the limiter finds that point
+ * and holds the concurrency there.
+ * <p>
+ * The limit follows a gradient rule. A long-term average of operation latency serves as the baseline,
+ * and a short-term average as the current latency. When the current latency rises above the baseline the
+ * limit shrinks in proportion; when latency is at the baseline the limit grows by about its square root,
+ * but only while the limit is actually being used. An operation that fails or is rejected shrinks the
+ * limit multiplicatively, as in AIMD. The limit always stays between a minimum and a maximum.
+ * <p>
+ * An operation that arrives when the limit is reached waits briefly in a bounded queue, and is rejected
+ * if the queue is full or no slot frees up in time.
+ *
+ * @author Dominic Cash
+ */
+public final class AdaptiveLimiter {
+
+    /** How much higher than the baseline the current latency may be before the limit shrinks. */
+    private static final double TOLERANCE = 1.5;
+
+    /** The weight of each sample in the short-term average, about the last 10 operations. */
+    private static final double SHORT_WEIGHT = 0.1;
+
+    /** The weight of each sample in the long-term average, about the last 500 operations. */
+    private static final double LONG_WEIGHT = 0.002;
+
+    /** How quickly the limit moves towards the value computed from each sample. */
+    private static final double SMOOTHING = 0.2;
+
+    /** The factor the limit is multiplied by when an operation fails or is rejected. */
+    private static final double BACKOFF = 0.9;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int queueCapacity;
+    private final long queueTimeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private double shortRttNanos;
+    private double longRttNanos;
+
+    private final AtomicLong acquiredCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    /**
+     * Creates a limiter.
+     *
+     * @param name the name of the limiter, used in metrics
+     * @param initialLimit the limit to start from
+     * @param minLimit the lowest the limit may fall
+     * @param maxLimit the highest the limit may rise
+     * @param queueCapacity the number of operations that may wait for a slot
+     * @param queueTimeoutMillis how long an operation may wait for a slot
+     */
+    public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit, int queueCapacity,
+                           long queueTimeoutMillis) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid limits: min " + minLimit + ", max " + maxLimit);
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.min(maxLimit, Math.max(minLimit, initialLimit));
+        this.queueCapacity = Math.max(0, queueCapacity);
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, queueTimeoutMillis));
+    }
+
+    /**
+     * Takes a slot, waiting in the queue if the limit has been reached.
+     *
+     * @return the time the slot was taken, to pass to {@link #release(long, boolean)}, or -1 if the
+     *         operation was rejected
+     */
+    public long acquire() {
+        lock.lock();
+        try {
+            if (inFlight >= (int) limit) {
+                if (queued >= queueCapacity) {
+                    reject();
+                    return -1;
+                }
+                queued++;
+                try {
+                    long remaining = queueTimeoutNanos;
+                    while (inFlight >= (int) limit) {
+                        if (remaining <= 0) {
+                            reject();
+                            return -1;
+                        }
+                        remaining = slotFreed.awaitNanos(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    reject();
+                    return -1;
+                } finally {
+                    queued--;
+                }
+            }
+            inFlight++;
+            acquiredCount.incrementAndGet();
+            return System.nanoTime();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives back a slot and feeds the operation's latency into the limit.
+     *
+     * @param startNanos the value returned by {@link #acquire()}
+     * @param failed whether the operation failed, which shrinks the limit instead
+     */
+    public void release(long startNanos, boolean failed) {
+        long rtt = System.nanoTime() - startNanos;
+        lock.lock();
+        try {
+            int used = inFlight;
+            inFlight--;
+            if (failed) {
+                limit = Math.max(minLimit, limit * BACKOFF);
+            } else {
+                sample(rtt, used);
+            }
+            slotFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Updates the latency averages and the limit from one operation. Must hold the lock.
+     */
+    private void sample(long rtt, int used) {
+        if (longRttNanos == 0) {
+            shortRttNanos = rtt;
+            longRttNanos = rtt;
+            return;
+        }
+        shortRttNanos += (rtt - shortRttNanos) * SHORT_WEIGHT;
+        longRttNanos += (rtt - longRttNanos) * LONG_WEIGHT;
+
+        // If latency has been high for long enough to drag the baseline up, pull the baseline back down
+        // so the limit can recover once the load eases
+        if (longRttNanos / shortRttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        // An operation that did not use most of the limit says nothing about whether it could be higher
+        if (used < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / shortRttNanos));
+        double target = limit * gradient + Math.sqrt(limit);
+        double next = limit * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    /**
+     * Counts a rejection and backs the limit off. Must hold the lock.
+     */
+    private void reject() {
+        rejectedCount.incrementAndGet();
+        limit = Math.max(minLimit, limit * BACKOFF);
+    }
+
+    /**
+     * Gets the name of the limiter.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of operations currently allowed in flight.
+     *
+     * @return the limit
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of operations in flight.
+     *
+     * @return the in-flight count
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of operations waiting for a slot.
+     *
+     * @return the queued count
+     */
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the short-term average operation latency.
+     *
+     * @return the latency in nanoseconds
+     */
+    public double getShortRttNanos() {
+        lock.lock();
+        try {
+            return shortRttNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the long-term average operation latency, the baseline the limit is measured against.
+     *
+     * @return the latency in nanoseconds
+     */
+    public double getLongRttNanos() {
+        lock.lock();
+        try {
+            return longRttNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of operations admitted.
+     *
+     * @return the acquired count
+     */
+    public long getAcquiredCount() {
+        return acquiredCount.get();
+    }
+
+    /**
+     * Gets the number of operations rejected because the queue was full or they waited too long.
+     *
+     * @return the rejected count
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return name + "{limit=" + getLimit() + ", inFlight=" + getInFlight() + ", queued=" + getQueued()
+                + ", rejected=" + getRejectedCount() + '}';
+    }
+}
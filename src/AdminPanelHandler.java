@@ -39,100 +39,12 @@ public class AdminPanelHandler implements HttpHandler {
         List<HomeAppliance> appliances = applianceDAO.findAllProducts();
         StringBuilder response = new StringBuilder();
         response.append("<html>\n" +
-                "<head>\n" +
-                "<title>Home Solutions - Admin Panel</title>\n" +  // Updated title
-                "<meta charset='UTF-8'>\n" +
-                "<link href='https://fonts.googleapis.com/css2?family=Poppins:wght@400;600&display=swap' rel='stylesheet'>\n" +
-                "<style>\n" +
-                "body {\n" +
-                "    font-family: 'Poppins', sans-serif;\n" +
-                "    background: linear-gradient(135deg, #f0f4f8, #d9e2ec);\n" +
-                "    margin: 0;\n" +
-                "    padding: 0;\n" +
-                "    color: #333;\n" +
-                "}\n" +
-                "h2 {\n" +
-                "    text-align: center;\n" +
-                "    color: #2c3e50;\n" +
-                "    margin-top: 60px;\n" +
-                "    font-size: 2.5em;\n" +
-                "    text-transform: uppercase;\n" +
-                "    letter-spacing: 2px;\n" +
-                "}\n" +
-                ".container {\n" +
-                "    max-width: 1200px;\n" +
-                "    margin: 0 auto;\n" +
-                "    padding: 20px;\n" +
-                "    animation: fadeIn 1s ease-in;\n" +
-                "}\n" +
-                "@keyframes fadeIn {\n" +
-                "    from { opacity: 0; }\n" +
-                "    to { opacity: 1; }\n" +
-                "}\n" +
-                "table {\n" +
-                "    width: 100%;\n" +
-                "    margin: 30px 0;\n" +
-                "    border-collapse: collapse;\n" +
-                "    background: #fff;\n" +
-                "    box-shadow: 0 4px 15px rgba(0, 0, 0, 0.1);\n" +
-                "    border-radius: 10px;\n" +
-                "    overflow: hidden;\n" +
-                "}\n" +
-                "th, td {\n" +
-                "    padding: 15px 20px;\n" +
-                "    text-align: left;\n" +
-                "    border-bottom: 1px solid #eee;\n" +
-                "}\n" +
-                "th {\n" +
-                "    background: #3498db;\n" +
-                "    color: white;\n" +
-                "    font-size: 1.1em;\n" +
-                "    text-transform: uppercase;\n" +
-                "    letter-spacing: 1px;\n" +
-                "}\n" +
-                "tr:nth-child(even) {\n" +
-                "    background-color: #f9fbfc;\n" +
-                "}\n" +
-                "tr:hover {\n" +
-                "    background-color: #ecf0f1;\n" +
-                "    transition: background-color 0.3s ease;\n" +
-                "}\n" +
-                ".btn {\n" +
-                "    background: #2ecc71;\n" +
-                "    color: white;\n" +
-                "    padding: 12px 25px;\n" +
-                "    text-align: center;\n" +
-                "    border: none;\n" +
-                "    cursor: pointer;\n" +
-                "    text-decoration: none;\n" +
-                "    display: inline-block;\n" +
-                "    border-radius: 25px;\n" +
-                "    font-weight: 600;\n" +
-                "    transition: transform 0.2s, background 0.3s;\n" +
-                "    margin: 5px;\n" +  // Added margin for spacing between Edit/Delete buttons
-                "}\n" +
-                ".btn:hover {\n" +
-                "    background: #27ae60;\n" +
-                "    transform: translateY(-2px);\n" +
-                "}\n" +
-                ".add-new {\n" +
-                "    display: block;\n" +
-                "    width: 200px;\n" +
-                "    margin: 20px auto;\n" +
-                "    text-align: center;\n" +
-                "}\n" +
-                ".logout {\n" +
-                "    position: absolute;\n" +
-                "    top: 20px;\n" +
-                "    left: 20px;\n" +
-                "}\n" +
-                "</style>\n" +
-                "</head>\n" +
+                StaticAssets.pageHead("Home Solutions - Admin Panel") +
                 "<body>\n");
 
         // Logout button
         response.append("<a href='/' class='btn logout'>Logout</a>")
-                .append("<div class='container'>")
+                .append("<div class='container admin'>")
                 .append("<h2>Admin Panel - Manage Appliances</h2>")
                 .append("<a href='/addProduct' class='btn add-new'>Add New Appliance</a>")
                 .append("<table>")
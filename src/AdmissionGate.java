@@ -0,0 +1,279 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code AdmissionGate} class bounds the work in progress for a group of routes. Each group, such as
+ * catalog browsing, the basket or the admin pages, has its own gate, so a spike in one cannot starve the
+ * others.
+ * <p>
+ * A gate lets a fixed number of requests run at once. Further requests wait in a bounded queue for up to
+ * a queue timeout. A request that finds the queue full, or times out waiting, is shed: it gets a
+ * {@code 503 Service Unavailable} with a {@code Retry-After} header straight away, without reaching the
+ * handler or the database. Shed requests are counted by reason and exposed on the metrics endpoint.
+ * <p>
+ * The following system properties configure the gate of a group, e.g. for the catalog group:
+ * <p>
+ * store.admission.catalog.limit - the requests that may run at once.
+ * store.admission.catalog.queue - the requests that may wait for a turn.
+ * store.admission.catalog.queueTimeoutMs - how long a request may wait before it is shed.
+ * store.admission.retryAfterSeconds - the Retry-After value sent with a 503, for every group (default 1).
+ * <p>
+ * Example usage:
+ * <p>
+ * AdmissionGate catalog = AdmissionGate.fromConfig("catalog", 64, 256);
+ * router.exact("/appliances", catalog.guard(new AppliancesHTTP()), "GET");
+ *
+ * @author Dominic Cash
+ */
+public final class AdmissionGate {
+
+    /** The system property holding the Retry-After value sent with a 503. */
+    public static final String RETRY_AFTER_PROPERTY = "store.admission.retryAfterSeconds";
+
+    /** The default time a request may wait in the queue. */
+    public static final long DEFAULT_QUEUE_TIMEOUT_MILLIS = 500;
+
+    private static final byte[] UNAVAILABLE = "503 Service Unavailable".getBytes(StandardCharsets.UTF_8);
+
+    private final String group;
+    private final int limit;
+    private final int queueCapacity;
+    private final long queueTimeoutMillis;
+    private final long retryAfterSeconds;
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicLong admittedCount = new AtomicLong();
+    private final AtomicLong queueFullCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+
+    /**
+     * Creates a gate.
+     *
+     * @param group the name of the route group, used in metrics
+     * @param limit the number of requests that may run at once
+     * @param queueCapacity the number of requests that may wait, 0 to shed as soon as the limit is reached
+     * @param queueTimeoutMillis how long a request may wait for a turn
+     * @param retryAfterSeconds the Retry-After value sent with a 503
+     */
+    public AdmissionGate(String group, int limit, int queueCapacity, long queueTimeoutMillis, long retryAfterSeconds) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Admission limit must be positive: " + limit);
+        }
+        this.group = group;
+        this.limit = limit;
+        this.queueCapacity = Math.max(0, queueCapacity);
+        this.queueTimeoutMillis = Math.max(0, queueTimeoutMillis);
+        this.retryAfterSeconds = Math.max(0, retryAfterSeconds);
+        this.permits = new Semaphore(limit);
+    }
+
+    /**
+     * Creates a gate for a group configured from system properties.
+     *
+     * @param group the name of the route group, e.g. "catalog"
+     * @param defaultLimit the limit used if store.admission.&lt;group&gt;.limit is not set
+     * @param defaultQueue the queue capacity used if store.admission.&lt;group&gt;.queue is not set
+     * @return the gate
+     */
+    public static AdmissionGate fromConfig(String group, int defaultLimit, int defaultQueue) {
+        String prefix = "store.admission." + group + ".";
+        return new AdmissionGate(group,
+                Integer.getInteger(prefix + "limit", defaultLimit),
+                Integer.getInteger(prefix + "queue", defaultQueue),
+                Long.getLong(prefix + "queueTimeoutMs", DEFAULT_QUEUE_TIMEOUT_MILLIS),
+                Long.getLong(RETRY_AFTER_PROPERTY, 1));
+    }
+
+    /**
+     * Wraps a handler so that it only runs when admitted by this gate.
+     *
+     * @param handler the handler to protect
+     * @return the guarded handler
+     */
+    public HttpHandler guard(HttpHandler handler) {
+        return exchange -> {
+            if (!acquire()) {
+                reject(exchange);
+                return;
+            }
+            try {
+                handler.handle(exchange);
+            } finally {
+                release();
+            }
+        };
+    }
+
+    /**
+     * Takes a turn, waiting in the queue if the limit has been reached.
+     *
+     * @return true if admitted, false if the request was shed
+     */
+    boolean acquire() {
+        if (permits.tryAcquire()) {
+            admittedCount.incrementAndGet();
+            return true;
+        }
+        if (queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            queueFullCount.incrementAndGet();
+            return false;
+        }
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        } finally {
+            queued.decrementAndGet();
+        }
+        if (acquired) {
+            admittedCount.incrementAndGet();
+        } else {
+            timeoutCount.incrementAndGet();
+        }
+        return acquired;
+    }
+
+    /**
+     * Gives back a turn taken by {@link #acquire()}.
+     */
+    void release() {
+        permits.release();
+    }
+
+    /**
+     * Sends a 503 with a Retry-After header.
+     */
+    private void reject(HttpExchange exchange) throws IOException {
+        sendUnavailable(exchange, retryAfterSeconds);
+    }
+
+    /**
+     * Sends a 503 with the configured Retry-After header. Handlers use it when the database sheds one of
+     * their reads, so the client gets the same answer as when a gate sheds the request.
+     *
+     * @param exchange the exchange to answer, before its response headers are sent
+     * @throws IOException if the response cannot be sent
+     */
+    public static void sendUnavailable(HttpExchange exchange) throws IOException {
+        sendUnavailable(exchange, Long.getLong(RETRY_AFTER_PROPERTY, 1));
+    }
+
+    private static void sendUnavailable(HttpExchange exchange, long retryAfterSeconds) throws IOException {
+        exchange.getResponseHeaders().set("Retry-After", Long.toString(retryAfterSeconds));
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+        exchange.sendResponseHeaders(503, UNAVAILABLE.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(UNAVAILABLE);
+        }
+    }
+
+    /**
+     * Registers the gate's gauges and counters with {@link Metrics}, labelled with its group.
+     */
+    public void registerMetrics() {
+        String label = Metrics.label("group", group);
+        Metrics.gauge("store_admission_limit", label, "Requests a route group may run at once", () -> limit);
+        Metrics.gauge("store_admission_in_flight", label, "Requests running in a route group", this::getInFlight);
+        Metrics.gauge("store_admission_queued", label, "Requests waiting for a turn in a route group",
+                this::getQueued);
+        Metrics.counter("store_admission_admitted_total", label, "Requests admitted by a route group",
+                this::getAdmittedCount);
+        Metrics.counter("store_admission_shed_total", label + "," + Metrics.label("reason", "queue_full"),
+                "Requests rejected with 503 by a route group", this::getQueueFullCount);
+        Metrics.counter("store_admission_shed_total", label + "," + Metrics.label("reason", "timeout"),
+                "Requests rejected with 503 by a route group", this::getTimeoutCount);
+    }
+
+    /**
+     * Gets the name of the route group.
+     *
+     * @return the group
+     */
+    public String getGroup() {
+        return group;
+    }
+
+    /**
+     * Gets the number of requests that may run at once.
+     *
+     * @return the limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Gets the number of requests running.
+     *
+     * @return the in-flight count
+     */
+    public int getInFlight() {
+        return limit - permits.availablePermits();
+    }
+
+    /**
+     * Gets the number of requests waiting for a turn.
+     *
+     * @return the queued count
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * Gets the number of requests admitted.
+     *
+     * @return the admitted count
+     */
+    public long getAdmittedCount() {
+        return admittedCount.get();
+    }
+
+    /**
+     * Gets the number of requests shed because the queue was full.
+     *
+     * @return the queue-full count
+     */
+    public long getQueueFullCount() {
+        return queueFullCount.get();
+    }
+
+    /**
+     * Gets the number of requests shed because they waited too long.
+     *
+     * @return the timeout count
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    /**
+     * Gets the number of requests shed for any reason.
+     *
+     * @return the shed count
+     */
+    public long getShedCount() {
+        return queueFullCount.get() + timeoutCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return group + "{limit=" + limit + ", inFlight=" + getInFlight() + ", queued=" + getQueued()
+                + ", admitted=" + getAdmittedCount() + ", shed=" + getShedCount() + '}';
+    }
+}
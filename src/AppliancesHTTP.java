@@ -2,16 +2,28 @@
  * Handles HTTP requests for displaying home appliances in a store.
  * This class implements the HttpHandler interface to process requests related to home appliances.
  * It supports filtering appliances by category, price range, and searching by description.
+ * A price range is either one of the fixed "priceRange" buckets or any "minPrice"/"maxPrice" pair,
+ * which takes precedence over the bucket. The filter options show how many products each would match.
+ * Listings are paged with keyset pagination: the "size", "sort" (id or price), "after" and "before"
+ * query parameters select a page, and each page links to its neighbours. Search results are paged the
+ * same way, in order of relevance.
  * The response is generated dynamically based on the query parameters and includes an HTML page
  * with a list of appliances, filter options, and a search form.
+ * Pages carry an ETag derived from the catalog version and the query, and unchanged pages are
+ * answered with 304 Not Modified. A page built while the catalog could not be read carries no ETag
+ * and is sent with Cache-Control: no-store, and if the read was shed because the database is overloaded
+ * the request is answered with 503 and Retry-After instead.
  * @author dominic cash
  */
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.sql.SQLTransientException;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 public class AppliancesHTTP implements HttpHandler {
@@ -22,159 +34,54 @@ public class AppliancesHTTP implements HttpHandler {
 
         String query = exchange.getRequestURI().getQuery();
         Map<String, String> params = Controller.parseQueryParams(query);
+
+        // Answer revalidations from the catalog version before touching the database
+        if (ConditionalGet.notModified(exchange, params, DataVersion.APPLIANCE)) {
+            return;
+        }
+
         String category = params.getOrDefault("category", "").trim();
         String search = params.getOrDefault("search", "").trim();
         String priceRange = params.getOrDefault("priceRange", "").trim();
+        Integer minPrice = parsePrice(params.get("minPrice"));
+        Integer maxPrice = parsePrice(params.get("maxPrice"));
+        boolean customRange = minPrice != null || maxPrice != null;
+        PriceBucket bucket = customRange ? null : PriceBucket.parse(priceRange);
+        int lowest = customRange ? (minPrice == null ? 0 : minPrice) : bucket == null ? 0 : bucket.getMinPrice();
+        int highest = customRange ? (maxPrice == null ? Integer.MAX_VALUE : maxPrice)
+                : bucket == null ? Integer.MAX_VALUE : bucket.getMaxPrice();
+
+        int size = ProductPage.clampSize(params.get("size"));
+        ProductPage.Sort sort = ProductPage.Sort.parse(params.get("sort"));
 
         HomeApplianceDAO applianceDAO = new HomeApplianceDAO();
-        List<HomeAppliance> appliances;
-
-        if (!category.isEmpty() && !priceRange.isEmpty()) {
-            appliances = applianceDAO.getProductsByCategoryAndPriceRange(category, priceRange);
-        } else if (!category.isEmpty()) {
-            appliances = applianceDAO.getProductsByCategory(category);
-        } else if (!priceRange.isEmpty()) {
-            appliances = applianceDAO.getProductsByPriceRange(priceRange);
-        } else if (!search.isEmpty()) {
-            appliances = applianceDAO.getProductsByDescription(search);
+        ProductPage page;
+        boolean searching = !search.isEmpty() && category.isEmpty() && priceRange.isEmpty() && !customRange;
+
+        if (searching) {
+            page = applianceDAO.findSearchPage(search, params.get("after"), params.get("before"), size);
+        } else if (customRange) {
+            page = applianceDAO.findProductsPage(category, lowest, highest, sort, params.get("after"), params.get("before"), size);
         } else {
-            appliances = applianceDAO.findAllProducts();
+            page = applianceDAO.findProductsPage(category, priceRange, sort, params.get("after"), params.get("before"), size);
         }
+        List<HomeAppliance> appliances = page.getItems();
 
-        List<String> categories = applianceDAO.getAllCategories();
+        CatalogFacets facets = applianceDAO.getFacets(category, lowest, highest);
+        if (applianceDAO.getReadFailure() instanceof SQLTransientException) {
+            ConditionalGet.doNotCache(exchange);
+            AdmissionGate.sendUnavailable(exchange);
+            return;
+        }
+        if (applianceDAO.getReadFailure() != null) {
+            ConditionalGet.doNotCache(exchange);
+        }
 
         StringBuilder response = new StringBuilder();
 
-        // Header and CSS (all buttons use the same green styling)
+        // Header, styled by the shared stylesheet
         response.append("<html>\n" +
-                "<head>\n" +
-                "<title>Home Solutions</title>\n" +
-                "<meta charset='UTF-8'>\n" +
-                "<link href='https://fonts.googleapis.com/css2?family=Poppins:wght@400;600&display=swap' rel='stylesheet'>\n" +
-                "<style>\n" +
-                "body {\n" +
-                "    font-family: 'Poppins', sans-serif;\n" +
-                "    background: linear-gradient(135deg, #f0f4f8, #d9e2ec);\n" +
-                "    margin: 0;\n" +
-                "    padding: 0;\n" +
-                "    color: #333;\n" +
-                "}\n" +
-                "h1 {\n" +
-                "    text-align: center;\n" +
-                "    color: #2c3e50;\n" +
-                "    margin-top: 60px;\n" +
-                "    font-size: 2.5em;\n" +
-                "    text-transform: uppercase;\n" +
-                "    letter-spacing: 2px;\n" +
-                "}\n" +
-                ".container {\n" +
-                "    max-width: 1200px;\n" +
-                "    margin: 0 auto;\n" +
-                "    padding: 20px;\n" +
-                "    animation: fadeIn 1s ease-in;\n" +
-                "}\n" +
-                "@keyframes fadeIn {\n" +
-                "    from { opacity: 0; }\n" +
-                "    to { opacity: 1; }\n" +
-                "}\n" +
-                "table {\n" +
-                "    width: 100%;\n" +
-                "    margin: 30px 0;\n" +
-                "    border-collapse: collapse;\n" +
-                "    background: #fff;\n" +
-                "    box-shadow: 0 4px 15px rgba(0, 0, 0, 0.1);\n" +
-                "    border-radius: 10px;\n" +
-                "    overflow: hidden;\n" +
-                "}\n" +
-                "th, td {\n" +
-                "    padding: 15px 20px;\n" +
-                "    text-align: left;\n" +
-                "    border-bottom: 1px solid #eee;\n" +
-                "}\n" +
-                "th {\n" +
-                "    background: #3498db;\n" +
-                "    color: white;\n" +
-                "    font-size: 1.1em;\n" +
-                "    text-transform: uppercase;\n" +
-                "    letter-spacing: 1px;\n" +
-                "}\n" +
-                "tr:nth-child(even) {\n" +
-                "    background-color: #f9fbfc;\n" +
-                "}\n" +
-                "tr:hover {\n" +
-                "    background-color: #ecf0f1;\n" +
-                "    transition: background-color 0.3s ease;\n" +
-                "}\n" +
-                ".btn {\n" +
-                "    background: #2ecc71;\n" +
-                "    color: white;\n" +
-                "    padding: 12px 25px;\n" +
-                "    text-align: center;\n" +
-                "    border: none;\n" +
-                "    cursor: pointer;\n" +
-                "    text-decoration: none;\n" +
-                "    display: inline-block;\n" +
-                "    border-radius: 25px;\n" +
-                "    font-weight: 600;\n" +
-                "    transition: transform 0.2s, background 0.3s;\n" +
-                "}\n" +
-                ".btn:hover {\n" +
-                "    background: #27ae60;\n" +
-                "    transform: translateY(-2px);\n" +
-                "}\n" +
-                "form {\n" +
-                "    margin: 30px auto;\n" +
-                "    display: flex;\n" +
-                "    justify-content: center;\n" +
-                "    gap: 15px;\n" +
-                "    background: #fff;\n" +
-                "    padding: 20px;\n" +
-                "    border-radius: 10px;\n" +
-                "    box-shadow: 0 2px 10px rgba(0, 0, 0, 0.05);\n" +
-                "}\n" +
-                "select, input[type='text'] {\n" +
-                "    padding: 12px;\n" +
-                "    border-radius: 8px;\n" +
-                "    border: 1px solid #ddd;\n" +
-                "    font-size: 1em;\n" +
-                "    background: #fafafa;\n" +
-                "    transition: border-color 0.3s;\n" +
-                "}\n" +
-                "select:focus, input[type='text']:focus {\n" +
-                "    border-color: #3498db;\n" +
-                "    outline: none;\n" +
-                "}\n" +
-                "button {\n" +
-                "    background: #2ecc71;\n" +
-                "    color: white;\n" +
-                "    border: none;\n" +
-                "    padding: 12px 25px;\n" +
-                "    border-radius: 8px;\n" +
-                "    cursor: pointer;\n" +
-                "    font-weight: 600;\n" +
-                "    transition: background 0.3s;\n" +
-                "}\n" +
-                "button:hover {\n" +
-                "    background: #27ae60;\n" +
-                "}\n" +
-                ".footer {\n" +
-                "    display: flex;\n" +
-                "    justify-content: center;\n" +
-                "    gap: 20px;\n" +
-                "    margin-top: 40px;\n" +
-                "}\n" +
-                ".admin-login {\n" +  // Keep positioning, no color override
-                "    position: absolute;\n" +
-                "    top: 20px;\n" +
-                "    left: 20px;\n" +
-                "}\n" +
-                ".view-customers {\n" +  // Keep positioning, no color override
-                "    position: absolute;\n" +
-                "    top: 20px;\n" +
-                "    right: 20px;\n" +
-                "}\n" +
-                "</style>\n" +
-                "</head>\n" +
+                StaticAssets.pageHead("Home Solutions") +
                 "<body>\n");
 
         // Navigation buttons
@@ -189,25 +96,38 @@ public class AppliancesHTTP implements HttpHandler {
                 .append("<select name='category'>")
                 .append("<option value=''>All</option>");
 
-        for (String cat : categories) {
+        for (Map.Entry<String, Integer> facet : facets.getCategoryCounts().entrySet()) {
+            String cat = facet.getKey();
             boolean isSelected = category.equals(cat);
             response.append("<option value='").append(cat).append("'")
                     .append(isSelected ? " selected" : "")
                     .append(">")
-                    .append(cat)
+                    .append(cat).append(" (").append(facet.getValue()).append(")")
                     .append("</option>");
         }
 
         response.append("</select>")
                 .append("<label for='priceRange'>Price Range:</label>")
                 .append("<select name='priceRange'>")
-                .append("<option value=''>All</option>")
-                .append("<option value='0-50'").append(priceRange.equals("0-50") ? " selected" : "").append(">£0 - £50</option>")
-                .append("<option value='51-100'").append(priceRange.equals("51-100") ? " selected" : "").append(">£50 - £100</option>")
-                .append("<option value='101-200'").append(priceRange.equals("101-200") ? " selected" : "").append(">£100 - £200</option>")
-                .append("<option value='201-500'").append(priceRange.equals("201-500") ? " selected" : "").append(">£200 - £500</option>")
-                .append("<option value='501-1000'").append(priceRange.equals("501-1000") ? " selected" : "").append(">£500 - £1000</option>")
-                .append("<option value='1001+'").append(priceRange.equals("1001+") ? " selected" : "").append(">£1000+</option>")
+                .append("<option value=''>All</option>");
+
+        for (PriceBucket option : PriceBucket.values()) {
+            response.append("<option value='").append(option.getValue()).append("'")
+                    .append(priceRange.equals(option.getValue()) ? " selected" : "")
+                    .append(">")
+                    .append(option.getLabel()).append(" (").append(facets.getBucketCount(option)).append(")")
+                    .append("</option>");
+        }
+
+        response.append("</select>")
+                .append("<label for='minPrice'>Min £</label>")
+                .append("<input type='number' name='minPrice' min='0' value='").append(minPrice == null ? "" : minPrice).append("' />")
+                .append("<label for='maxPrice'>Max £</label>")
+                .append("<input type='number' name='maxPrice' min='0' value='").append(maxPrice == null ? "" : maxPrice).append("' />")
+                .append("<label for='sort'>Sort by:</label>")
+                .append("<select name='sort'>")
+                .append("<option value='id'>ID</option>")
+                .append("<option value='price'").append(sort == ProductPage.Sort.PRICE ? " selected" : "").append(">Price</option>")
                 .append("</select>")
                 .append("<button type='submit'>Filter</button>")
                 .append("</form>");
@@ -236,6 +156,20 @@ public class AppliancesHTTP implements HttpHandler {
 
         response.append("</tbody></table>");
 
+        // Pagination links
+        if (page.getPreviousCursor() != null || page.getNextCursor() != null) {
+            response.append("<div class='footer'>");
+            if (page.getPreviousCursor() != null) {
+                response.append("<a href='").append(pageLink(searching ? search : "", category, priceRange, minPrice, maxPrice, sort, size, "before", page.getPreviousCursor()))
+                        .append("' class='btn'>Previous</a>");
+            }
+            if (page.getNextCursor() != null) {
+                response.append("<a href='").append(pageLink(searching ? search : "", category, priceRange, minPrice, maxPrice, sort, size, "after", page.getNextCursor()))
+                        .append("' class='btn'>Next</a>");
+            }
+            response.append("</div>");
+        }
+
         // Footer buttons
         response.append("<div class='footer'>")
                 .append("<a href='/appliances' class='btn'>Back to Store</a>")
@@ -252,4 +186,60 @@ public class AppliancesHTTP implements HttpHandler {
             os.write(responseBytes);
         }
     }
+
+    /**
+     * Builds the link to a neighbouring page of the listing, keeping the current search or filters.
+     *
+     * @param search the current search, or an empty string
+     * @param category the current category filter
+     * @param priceRange the current price range filter
+     * @param minPrice the current minimum price, or null
+     * @param maxPrice the current maximum price, or null
+     * @param sort the current sort order
+     * @param size the current page size
+     * @param direction "after" for the next page or "before" for the previous page
+     * @param cursor the cursor to seek from
+     * @return the relative URL of the page
+     */
+    private static String pageLink(String search, String category, String priceRange, Integer minPrice, Integer maxPrice,
+                                   ProductPage.Sort sort, int size, String direction, String cursor) {
+        StringBuilder link = new StringBuilder("/appliances?");
+        if (!search.isEmpty()) {
+            link.append("search=").append(URLEncoder.encode(search, StandardCharsets.UTF_8)).append('&');
+        }
+        if (!category.isEmpty()) {
+            link.append("category=").append(URLEncoder.encode(category, StandardCharsets.UTF_8)).append('&');
+        }
+        if (!priceRange.isEmpty()) {
+            link.append("priceRange=").append(URLEncoder.encode(priceRange, StandardCharsets.UTF_8)).append('&');
+        }
+        if (minPrice != null) {
+            link.append("minPrice=").append(minPrice).append('&');
+        }
+        if (maxPrice != null) {
+            link.append("maxPrice=").append(maxPrice).append('&');
+        }
+        return link.append("sort=").append(sort.name().toLowerCase(Locale.ROOT))
+                .append("&size=").append(size)
+                .append('&').append(direction).append('=').append(URLEncoder.encode(cursor, StandardCharsets.UTF_8))
+                .toString();
+    }
+
+    /**
+     * Parses a price query parameter.
+     *
+     * @param value the parameter value, may be null
+     * @return the price, or null if the value is missing, not a number or negative
+     */
+    private static Integer parsePrice(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            int price = Integer.parseInt(value.trim());
+            return price < 0 ? null : price;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
\ No newline at end of file
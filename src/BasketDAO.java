@@ -0,0 +1,132 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code BasketDAO} class reads and writes saved baskets in the basket and basket_line tables.
+ * Reads borrow a reader connection from the {@link ConnectionPool}; writes run on the connection of the
+ * {@link WriteQueue} batch they are part of, so many baskets are saved in one transaction.
+ *
+ * @author Dominic Cash
+ */
+public class BasketDAO {
+
+    private final WriteQueue.ConnectionSource readers;
+
+    /**
+     * Creates a DAO that reads through the shared {@link ConnectionPool}.
+     */
+    public BasketDAO() {
+        this(() -> ConnectionPool.getInstance().borrowReader());
+    }
+
+    /**
+     * Creates a DAO that reads on connections from the given source.
+     *
+     * @param readers supplies a read connection for each load, which is closed afterwards
+     */
+    BasketDAO(WriteQueue.ConnectionSource readers) {
+        this.readers = readers;
+    }
+
+    /**
+     * Loads a saved basket.
+     *
+     * @param basketId the basket id
+     * @return the basket, or null if none is saved under the id
+     * @throws SQLException if the query fails
+     */
+    public ShoppingBasket load(String basketId) throws SQLException {
+        String query = "SELECT product_id, quantity, unit_price FROM basket_line WHERE basket_id = ?";
+        long start = System.nanoTime();
+        try (Connection conn = readers.get();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+            stmt.setString(1, basketId);
+            ShoppingBasket basket = null;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (basket == null) {
+                        basket = new ShoppingBasket();
+                    }
+                    basket.add(rs.getInt("product_id"), rs.getInt("unit_price"), rs.getInt("quantity"));
+                }
+            }
+            return basket;
+        } finally {
+            Metrics.recordQuery("basket.load", start);
+        }
+    }
+
+    /**
+     * Saves the current lines of a number of baskets, replacing what was saved before. A basket with no
+     * lines is deleted. Must run inside a write transaction.
+     *
+     * @param conn the writer connection
+     * @param baskets the lines of each basket, by basket id
+     * @param now the time the baskets are saved at
+     * @return the number of baskets saved or deleted
+     * @throws SQLException if a statement fails
+     */
+    public int saveAll(Connection conn, Map<String, List<ShoppingBasket.Line>> baskets, long now)
+            throws SQLException {
+        try (PreparedStatement deleteLines = conn.prepareStatement("DELETE FROM basket_line WHERE basket_id = ?");
+             PreparedStatement deleteBasket = conn.prepareStatement("DELETE FROM basket WHERE id = ?");
+             PreparedStatement upsertBasket = conn.prepareStatement("INSERT INTO basket (id, updated_at) VALUES (?, ?) "
+                     + "ON CONFLICT (id) DO UPDATE SET updated_at = excluded.updated_at");
+             PreparedStatement insertLine = conn.prepareStatement("INSERT INTO basket_line "
+                     + "(basket_id, product_id, quantity, unit_price) VALUES (?, ?, ?, ?)")) {
+
+            for (Map.Entry<String, List<ShoppingBasket.Line>> basket : baskets.entrySet()) {
+                String id = basket.getKey();
+                deleteLines.setString(1, id);
+                deleteLines.addBatch();
+                if (basket.getValue().isEmpty()) {
+                    deleteBasket.setString(1, id);
+                    deleteBasket.addBatch();
+                    continue;
+                }
+                upsertBasket.setString(1, id);
+                upsertBasket.setLong(2, now);
+                upsertBasket.addBatch();
+                for (ShoppingBasket.Line line : basket.getValue()) {
+                    insertLine.setString(1, id);
+                    insertLine.setInt(2, line.getProductId());
+                    insertLine.setInt(3, line.getQuantity());
+                    insertLine.setInt(4, line.getUnitPrice());
+                    insertLine.addBatch();
+                }
+            }
+            deleteLines.executeBatch();
+            deleteBasket.executeBatch();
+            upsertBasket.executeBatch();
+            insertLine.executeBatch();
+            return baskets.size();
+        }
+    }
+
+    /**
+     * Deletes baskets that have not been saved since a given time, with their lines. Must run inside a
+     * write transaction.
+     *
+     * @param conn the writer connection
+     * @param before baskets last saved before this time are deleted
+     * @return the number of baskets deleted
+     * @throws SQLException if a statement fails
+     */
+    public int purge(Connection conn, long before) throws SQLException {
+        try (PreparedStatement deleteLines = conn.prepareStatement("DELETE FROM basket_line WHERE basket_id IN "
+                + "(SELECT id FROM basket WHERE updated_at < ?)");
+             PreparedStatement deleteBaskets = conn.prepareStatement("DELETE FROM basket WHERE updated_at < ?")) {
+            deleteLines.setLong(1, before);
+            deleteLines.executeUpdate();
+            deleteBaskets.setLong(1, before);
+            return deleteBaskets.executeUpdate();
+        }
+    }
+}
@@ -2,7 +2,11 @@
  * Handles HTTP requests related to the shopping basket in the application.
  *
  * This class implements {@link HttpHandler} and provides functionality
- * to add items to the shopping basket, view the contents of the basket, and clear the basket.
+ * to add items to the shopping basket, view the contents of the basket, change the quantity of a line,
+ * remove a line, and clear the basket.
+ * Each visitor has their own basket, found through a {@link BasketSource}. When the basket is viewed,
+ * its prices are checked against the catalog, and lines for products no longer sold are removed.
+ * A change the basket source cannot keep sends the visitor to the basket page with a notice.
  * @author Dominic Cash
  */
 import com.sun.net.httpserver.HttpExchange;
@@ -10,21 +14,29 @@ import com.sun.net.httpserver.HttpHandler;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class BasketHandler implements HttpHandler {
 
-    private ShoppingBasket basket;
+    /** The basket page's notices, by the value of its notice parameter. */
+    private static final Map<String, String> NOTICES = Map.of(
+            "full", "Your basket is full, so your last change could not be kept.",
+            "updated", "Your order has not been placed because prices or availability have changed. "
+                    + "Please check your basket and check out again.");
+
+    private BasketSource baskets;
     private HomeApplianceDAO applianceDAO;
 
     /**
-     * Creates a new instance of BasketHandler with the specified shopping basket and appliance DAO.
+     * Creates a new instance of BasketHandler with the specified basket source and appliance DAO.
      *
-     * @param basket the shopping basket to manage
+     * @param baskets where the visitors' shopping baskets are kept
      * @param applianceDAO the data access object for retrieving appliance details
      */
-    public BasketHandler(ShoppingBasket basket, HomeApplianceDAO applianceDAO) {
-        this.basket = basket;
+    public BasketHandler(BasketSource baskets, HomeApplianceDAO applianceDAO) {
+        this.baskets = baskets;
         this.applianceDAO = applianceDAO;
     }
 
@@ -34,6 +46,8 @@ public class BasketHandler implements HttpHandler {
      * Processes requests to:
      * Add an appliance to the shopping basket
      * Display the current contents of the basket
+     * Update the quantity of an appliance in the basket
+     * Remove an appliance from the basket
      * Clear all items from the basket
      *
      * @param exchange the HTTP exchange object representing the request and response
@@ -48,142 +62,92 @@ public class BasketHandler implements HttpHandler {
             Map<String, String> params = Controller.parseQueryParams(query);
             String id = params.get("id");
 
+            String location = "/appliances";
             if (id != null) {
                 HomeAppliance appliance = applianceDAO.findProduct(Integer.parseInt(id));
                 if (appliance != null) {
+                    ShoppingBasket basket = baskets.getOrCreate(exchange);
                     basket.addItem(appliance);
+                    if (!baskets.save(exchange, basket)) {
+                        location = "/basket/view?notice=full";
+                    }
                 }
             }
-            exchange.getResponseHeaders().set("Location", "/appliances");
+            exchange.getResponseHeaders().set("Location", location);
             exchange.sendResponseHeaders(302, -1);
             return;
         }
 
         if (path.equals("/basket/view")) {
+            ShoppingBasket basket = baskets.find(exchange);
+            if (basket == null) {
+                basket = new ShoppingBasket();
+            }
+            Map<Integer, HomeAppliance> products = new HashMap<>();
+            boolean revalidated = revalidate(basket, products);
+            if (revalidated) {
+                baskets.save(exchange, basket);
+            }
+            String noticeKey = Controller.parseQueryParams(exchange.getRequestURI().getQuery()).get("notice");
+            String notice = noticeKey == null ? null : NOTICES.get(noticeKey);
             StringBuilder response = new StringBuilder();
             response.append("<html>\n" +
-                    "<head>\n" +
-                    "<title>Home Solutions - Shopping Basket</title>\n" +  // Updated title
-                    "<meta charset='UTF-8'>\n" +
-                    "<link href='https://fonts.googleapis.com/css2?family=Poppins:wght@400;600&display=swap' rel='stylesheet'>\n" +
-                    "<style>\n" +
-                    "body {\n" +
-                    "    font-family: 'Poppins', sans-serif;\n" +
-                    "    background: linear-gradient(135deg, #f0f4f8, #d9e2ec);\n" +
-                    "    margin: 0;\n" +
-                    "    padding: 0;\n" +
-                    "    color: #333;\n" +
-                    "}\n" +
-                    "h1 {\n" +
-                    "    text-align: center;\n" +
-                    "    color: #2c3e50;\n" +
-                    "    margin-top: 60px;\n" +
-                    "    font-size: 2.5em;\n" +
-                    "    text-transform: uppercase;\n" +
-                    "    letter-spacing: 2px;\n" +
-                    "}\n" +
-                    "h2 {\n" +
-                    "    text-align: center;\n" +
-                    "    color: #2c3e50;\n" +
-                    "    font-size: 1.5em;\n" +
-                    "    margin: 20px 0;\n" +
-                    "}\n" +
-                    ".container {\n" +
-                    "    max-width: 1200px;\n" +
-                    "    margin: 0 auto;\n" +
-                    "    padding: 20px;\n" +
-                    "    animation: fadeIn 1s ease-in;\n" +
-                    "}\n" +
-                    "@keyframes fadeIn {\n" +
-                    "    from { opacity: 0; }\n" +
-                    "    to { opacity: 1; }\n" +
-                    "}\n" +
-                    "table {\n" +
-                    "    width: 100%;\n" +
-                    "    margin: 30px 0;\n" +
-                    "    border-collapse: collapse;\n" +
-                    "    background: #fff;\n" +
-                    "    box-shadow: 0 4px 15px rgba(0, 0, 0, 0.1);\n" +
-                    "    border-radius: 10px;\n" +
-                    "    overflow: hidden;\n" +
-                    "}\n" +
-                    "th, td {\n" +
-                    "    padding: 15px 20px;\n" +
-                    "    text-align: left;\n" +
-                    "    border-bottom: 1px solid #eee;\n" +
-                    "}\n" +
-                    "th {\n" +
-                    "    background: #3498db;\n" +
-                    "    color: white;\n" +
-                    "    font-size: 1.1em;\n" +
-                    "    text-transform: uppercase;\n" +
-                    "    letter-spacing: 1px;\n" +
-                    "}\n" +
-                    "tr:nth-child(even) {\n" +
-                    "    background-color: #f9fbfc;\n" +
-                    "}\n" +
-                    "tr:hover {\n" +
-                    "    background-color: #ecf0f1;\n" +
-                    "    transition: background-color 0.3s ease;\n" +
-                    "}\n" +
-                    ".btn {\n" +
-                    "    background: #2ecc71;\n" +
-                    "    color: white;\n" +
-                    "    padding: 12px 25px;\n" +
-                    "    text-align: center;\n" +
-                    "    border: none;\n" +
-                    "    cursor: pointer;\n" +
-                    "    text-decoration: none;\n" +
-                    "    display: inline-block;\n" +
-                    "    border-radius: 25px;\n" +
-                    "    font-weight: 600;\n" +
-                    "    transition: transform 0.2s, background 0.3s;\n" +
-                    "}\n" +
-                    ".btn:hover {\n" +
-                    "    background: #27ae60;\n" +
-                    "    transform: translateY(-2px);\n" +
-                    "}\n" +
-                    ".footer {\n" +
-                    "    display: flex;\n" +
-                    "    justify-content: center;\n" +
-                    "    gap: 20px;\n" +
-                    "    margin-top: 40px;\n" +
-                    "}\n" +
-                    ".back-to-appliances {\n" +
-                    "    position: absolute;\n" +
-                    "    top: 20px;\n" +
-                    "    left: 20px;\n" +
-                    "}\n" +
-                    "</style>\n" +
-                    "</head>\n" +
+                    StaticAssets.pageHead("Home Solutions - Shopping Basket") +
                     "<body>\n");
 
             // Back to Appliances button
             response.append("<a href='/appliances' class='btn back-to-appliances'>Back to Appliances</a>")
                     .append("<div class='container'>")
                     .append("<h1>Your Shopping Basket</h1>");
+            if (revalidated) {
+                response.append("<p>Your basket has been updated to the latest prices and availability.</p>");
+            }
+            if (notice != null) {
+                response.append("<p>").append(notice).append("</p>");
+            }
 
             // Basket table
             response.append("<table>")
-                    .append("<thead><tr><th>ID</th><th>SKU</th><th>Description</th><th>Category</th><th>Price</th></tr></thead>")
+                    .append("<thead><tr><th>ID</th><th>SKU</th><th>Description</th><th>Category</th><th>Price</th>")
+                    .append("<th>Quantity</th><th>Line Total</th><th></th></tr></thead>")
                     .append("<tbody>");
 
-            for (HomeAppliance item : basket.getItems()) {
+            List<ShoppingBasket.Line> lines = basket.getLines();
+            int total = 0;
+            for (ShoppingBasket.Line line : lines) {
+                HomeAppliance item = products.get(line.getProductId());
+                if (item == null) {
+                    // Added by another request after the basket was revalidated; shown on the next view
+                    continue;
+                }
+                total += line.getLineTotal();
                 response.append("<tr>")
-                        .append("<td>").append(item.getId()).append("</td>")
+                        .append("<td>").append(line.getProductId()).append("</td>")
                         .append("<td>").append(item.getSku()).append("</td>")
                         .append("<td>").append(item.getDescription()).append("</td>")
                         .append("<td>").append(item.getCategory()).append("</td>")
-                        .append("<td>£").append(item.getPrice()).append("</td>")
+                        .append("<td>£").append(line.getUnitPrice()).append("</td>")
+                        .append("<td><form action='/basket/update' method='get'>")
+                        .append("<input type='hidden' name='id' value='").append(line.getProductId()).append("'>")
+                        .append("<input type='number' name='qty' min='0' max='").append(ShoppingBasket.MAX_QUANTITY)
+                        .append("' value='").append(line.getQuantity()).append("'>")
+                        .append("<button type='submit' class='btn'>Update</button></form></td>")
+                        .append("<td>£").append(line.getLineTotal()).append("</td>")
+                        .append("<td><a href='/basket/remove?id=").append(line.getProductId())
+                        .append("' class='btn'>Remove</a></td>")
                         .append("</tr>");
             }
 
             response.append("</tbody></table>")
-                    .append("<h2>Total: £").append((int) basket.getTotalPrice()).append("</h2>")
+                    .append("<h2>Total: £").append(total).append("</h2>")
                     .append("<div class='footer'>")
                     .append("<a href='/appliances' class='btn'>Continue Shopping</a>")
-                    .append("<a href='/basket/clear' class='btn'>Clear Basket</a>")
-                    .append("</div>")
+                    .append("<a href='/basket/clear' class='btn'>Clear Basket</a>");
+            if (!lines.isEmpty()) {
+                response.append("<form action='/basket/checkout' method='post'>")
+                        .append("<button type='submit' class='btn'>Checkout</button></form>");
+            }
+            response.append("</div>")
                     .append("</div>")
                     .append("</body></html>");
 
@@ -194,10 +158,61 @@ public class BasketHandler implements HttpHandler {
             }
         }
 
+        if (path.equals("/basket/update") || path.equals("/basket/remove")) {
+            Map<String, String> params = Controller.parseQueryParams(exchange.getRequestURI().getQuery());
+            ShoppingBasket basket = baskets.find(exchange);
+            String location = "/basket/view";
+            try {
+                if (basket != null && params.get("id") != null) {
+                    int id = Integer.parseInt(params.get("id"));
+                    if (path.equals("/basket/remove")) {
+                        basket.remove(id);
+                    } else if (params.get("qty") != null) {
+                        basket.updateQuantity(id, Integer.parseInt(params.get("qty")));
+                    }
+                    if (!baskets.save(exchange, basket)) {
+                        location = "/basket/view?notice=full";
+                    }
+                }
+            } catch (NumberFormatException e) {
+                // Leave the basket as it is
+            }
+            exchange.getResponseHeaders().set("Location", location);
+            exchange.sendResponseHeaders(302, -1);
+            return;
+        }
+
         if (path.equals("/basket/clear")) {
-            basket.clearBasket();
+            ShoppingBasket basket = baskets.find(exchange);
+            if (basket != null) {
+                basket.clearBasket();
+                baskets.save(exchange, basket);
+            }
             exchange.getResponseHeaders().set("Location", "/basket/view");
             exchange.sendResponseHeaders(302, -1);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Brings a basket's prices up to date with the catalog and removes lines for products no longer sold.
+     *
+     * @param basket the basket to check
+     * @param products filled with the product of each line kept, by product id
+     * @return true if the basket was changed
+     */
+    private boolean revalidate(ShoppingBasket basket, Map<Integer, HomeAppliance> products) {
+        boolean changed = false;
+        for (ShoppingBasket.Line line : basket.getLines()) {
+            HomeAppliance item = applianceDAO.findProduct(line.getProductId());
+            if (item == null) {
+                changed |= basket.remove(line.getProductId());
+                continue;
+            }
+            products.put(line.getProductId(), item);
+            if (item.getPrice() != line.getUnitPrice()) {
+                changed |= basket.updateUnitPrice(line.getProductId(), item.getPrice());
+            }
+        }
+        return changed;
+    }
+}
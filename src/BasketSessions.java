@@ -0,0 +1,351 @@
+import com.sun.net.httpserver.HttpExchange;
+import java.security.SecureRandom;
+import java.sql.SQLException;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code BasketSessions} class gives each visitor their own {@link ShoppingBasket}, identified by a
+ * random id in the "basket" cookie. Baskets are kept in a concurrent map, so requests from different
+ * visitors never wait for one another, and each basket guards its own contents against concurrent
+ * requests from the same visitor.
+ * <p>
+ * A basket is created the first time its visitor adds an item, so browsing alone costs no memory. A
+ * basket nobody has used for the idle timeout is evicted by a background thread driven by a
+ * {@link TimingWheel}; using a basket only records the time, so memory is bounded by the visitors active
+ * within the timeout. Recording the use and evicting both happen inside an atomic update of the map
+ * entry, so a basket that is being handed to a request is never evicted at the same moment.
+ * <p>
+ * With a {@link BasketStore}, every change is saved behind the request, and a visitor whose basket is
+ * not in memory, after eviction or a restart, gets it back from the database on their next request.
+ * <p>
+ * The following system properties configure the sessions:
+ * <p>
+ * store.basket.idleTimeoutMinutes - how long an unused basket is kept (default 30).
+ * store.basket.tickMillis - how often idle baskets are looked for (default 1000).
+ *
+ * @author Dominic Cash
+ */
+public final class BasketSessions implements BasketSource {
+
+    /** The name of the cookie holding the basket id. */
+    public static final String COOKIE = "basket";
+
+    /** The number of slots in the eviction wheel. */
+    private static final int WHEEL_SLOTS = 512;
+
+    /** The length of a basket id: 16 random bytes in unpadded URL-safe base64. */
+    private static final int ID_LENGTH = 22;
+
+    /** The most unknown basket ids remembered, so a flood of made-up ids cannot grow the set without bound. */
+    private static final int MAX_MISSES = 10_000;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * A visitor's basket and when it was last used.
+     */
+    private static final class Session {
+
+        private final ShoppingBasket basket;
+        private volatile long lastAccess;
+
+        Session(ShoppingBasket basket, long now) {
+            this.basket = basket;
+            this.lastAccess = now;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> misses = new ConcurrentHashMap<>();
+    private final TimingWheel<String> wheel;
+    private final long idleTimeoutMillis;
+    private final BasketStore store;
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong restoredCount = new AtomicLong();
+    private ScheduledExecutorService evictor;
+
+    /**
+     * Creates the sessions without starting eviction.
+     *
+     * @param idleTimeoutMillis how long an unused basket is kept
+     * @param tickMillis how often idle baskets are looked for
+     * @param startMillis the current time
+     * @param store saves and restores baskets, or null to keep them in memory only
+     */
+    BasketSessions(long idleTimeoutMillis, long tickMillis, long startMillis, BasketStore store) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.store = store;
+        this.wheel = new TimingWheel<>(WHEEL_SLOTS, tickMillis, startMillis);
+    }
+
+    /**
+     * Creates sessions configured from system properties and starts evicting idle baskets.
+     *
+     * @return the started sessions
+     */
+    public static BasketSessions fromConfig() {
+        BasketSessions sessions = new BasketSessions(
+                TimeUnit.MINUTES.toMillis(Long.getLong("store.basket.idleTimeoutMinutes", 30)),
+                Math.max(1, Long.getLong("store.basket.tickMillis", 1000)),
+                System.currentTimeMillis(),
+                BasketStore.fromConfig());
+        sessions.start();
+        return sessions;
+    }
+
+    /**
+     * Starts the background thread that evicts idle baskets.
+     */
+    synchronized void start() {
+        if (evictor == null) {
+            evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "basket-evictor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long tick = wheel.getTickMillis();
+            evictor.scheduleAtFixedRate(() -> expire(System.currentTimeMillis()), tick, tick, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public ShoppingBasket find(HttpExchange exchange) {
+        return find(cookieValue(exchange, COOKIE), System.currentTimeMillis());
+    }
+
+    @Override
+    public ShoppingBasket getOrCreate(HttpExchange exchange) {
+        long now = System.currentTimeMillis();
+        ShoppingBasket basket = find(cookieValue(exchange, COOKIE), now);
+        if (basket != null) {
+            return basket;
+        }
+        String id = create(now);
+        exchange.getResponseHeaders().add("Set-Cookie", COOKIE + "=" + id + "; Path=/; HttpOnly; SameSite=Lax");
+        return find(id, now);
+    }
+
+    /**
+     * Creates an empty basket and schedules its eviction.
+     *
+     * @return the new basket's id
+     */
+    String create(long now) {
+        String id = newId();
+        track(id, new ShoppingBasket(), now);
+        createdCount.incrementAndGet();
+        return id;
+    }
+
+    /**
+     * Holds a basket in memory, arranges for its changes to be saved and schedules its eviction.
+     *
+     * @return the basket held under the id, which is another if one was added meanwhile
+     */
+    private ShoppingBasket track(String id, ShoppingBasket basket, long now) {
+        if (store != null) {
+            basket.setChangeListener(() -> store.markDirty(id, basket));
+        }
+        Session existing = sessions.putIfAbsent(id, new Session(basket, now));
+        if (existing != null) {
+            return existing.basket;
+        }
+        wheel.schedule(id, now + idleTimeoutMillis);
+        return basket;
+    }
+
+    @Override
+    public boolean save(HttpExchange exchange, ShoppingBasket basket) {
+        // The basket is held in memory, and saved by the store if there is one, as it changes
+        return true;
+    }
+
+    /**
+     * Gets a basket by id and records that it was used.
+     */
+    ShoppingBasket find(String id, long now) {
+        if (id == null) {
+            return null;
+        }
+        Session session = sessions.computeIfPresent(id, (key, current) -> {
+            current.lastAccess = now;
+            return current;
+        });
+        if (session == null) {
+            return restore(id, now);
+        }
+        return session.basket;
+    }
+
+    /**
+     * Loads a basket from the store into memory. An id the store does not know is remembered for the idle
+     * timeout, so a client that keeps sending a stale cookie does not cost a database read per request.
+     */
+    private ShoppingBasket restore(String id, long now) {
+        if (store == null || !isWellFormed(id)) {
+            return null;
+        }
+        Long missExpiry = misses.get(id);
+        if (missExpiry != null) {
+            if (missExpiry > now) {
+                return null;
+            }
+            misses.remove(id, missExpiry);
+        }
+        ShoppingBasket basket;
+        try {
+            basket = store.load(id);
+        } catch (SQLException e) {
+            // Not remembered as a miss: the basket may well be saved and readable on the next request
+            Log.warn("Error loading basket", "error", e.getMessage());
+            return null;
+        }
+        if (basket == null) {
+            if (misses.size() >= MAX_MISSES) {
+                misses.clear();
+            }
+            misses.put(id, now + idleTimeoutMillis);
+            return null;
+        }
+        restoredCount.incrementAndGet();
+        return track(id, basket, now);
+    }
+
+    /**
+     * Checks whether a cookie value could be a basket id, so made-up values never reach the database.
+     */
+    private static boolean isWellFormed(String id) {
+        if (id.length() != ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (!(Character.isLetterOrDigit(c) && c < 128) && c != '-' && c != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Evicts every basket whose idle timeout has passed by the given time, and schedules the rest again
+     * for when they will next be due.
+     *
+     * @param now the current time
+     */
+    void expire(long now) {
+        wheel.advance(now, id -> {
+            boolean[] evicted = new boolean[1];
+            Session remaining = sessions.computeIfPresent(id, (key, session) -> {
+                if (session.lastAccess + idleTimeoutMillis <= now) {
+                    evicted[0] = true;
+                    return null;
+                }
+                return session;
+            });
+            if (evicted[0]) {
+                evictedCount.incrementAndGet();
+            } else if (remaining != null) {
+                wheel.schedule(id, remaining.lastAccess + idleTimeoutMillis);
+            }
+        });
+    }
+
+    /**
+     * Creates a random basket id that cannot be guessed.
+     */
+    private static String newId() {
+        byte[] bytes = new byte[16];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Reads a cookie from a request.
+     *
+     * @param exchange the request
+     * @param name the cookie name
+     * @return the cookie's value, or null if the request does not carry it
+     */
+    static String cookieValue(HttpExchange exchange, String name) {
+        List<String> headers = exchange.getRequestHeaders().get("Cookie");
+        if (headers == null) {
+            return null;
+        }
+        for (String header : headers) {
+            for (String cookie : header.split(";")) {
+                int equals = cookie.indexOf('=');
+                if (equals > 0 && cookie.substring(0, equals).trim().equals(name)) {
+                    return cookie.substring(equals + 1).trim();
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void registerMetrics() {
+        Metrics.gauge("store_basket_sessions", "Baskets held in memory", this::size);
+        Metrics.counter("store_basket_sessions_created_total", "Baskets created", createdCount::get);
+        Metrics.counter("store_basket_sessions_evicted_total", "Baskets evicted after the idle timeout",
+                evictedCount::get);
+        Metrics.counter("store_basket_sessions_restored_total", "Baskets loaded back from the database",
+                restoredCount::get);
+        if (store != null) {
+            store.registerMetrics();
+        }
+    }
+
+    @Override
+    public void shutdown(long timeoutMillis) throws Exception {
+        if (store != null) {
+            store.shutdown(timeoutMillis);
+        }
+    }
+
+    /**
+     * Gets the number of baskets held.
+     *
+     * @return the basket count
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Gets the number of baskets evicted after the idle timeout.
+     *
+     * @return the eviction count
+     */
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    /**
+     * Gets the number of baskets loaded back from the store.
+     *
+     * @return the restore count
+     */
+    public long getRestoredCount() {
+        return restoredCount.get();
+    }
+
+    /**
+     * Gets how long an unused basket is kept.
+     *
+     * @return the idle timeout in milliseconds
+     */
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutMillis;
+    }
+}
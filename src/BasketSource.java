@@ -0,0 +1,76 @@
+import com.sun.net.httpserver.HttpExchange;
+import java.util.Locale;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code BasketSource} interface finds the {@link ShoppingBasket} of the visitor making a request.
+ * The store.basket.mode system property chooses where baskets are kept:
+ * <p>
+ * session (default) - on the server, by {@link BasketSessions}, identified by a cookie.
+ * cookie - in a signed cookie, by {@link SignedCookieBaskets}, so any instance can serve any basket.
+ * <p>
+ * A handler that changes a basket must call {@link #save(HttpExchange, ShoppingBasket)} before sending
+ * the response headers.
+ *
+ * @author Dominic Cash
+ */
+public interface BasketSource {
+
+    /**
+     * Gets the basket of the visitor making a request, if they have one.
+     *
+     * @param exchange the request
+     * @return the visitor's basket, or null if they have none
+     */
+    ShoppingBasket find(HttpExchange exchange);
+
+    /**
+     * Gets the basket of the visitor making a request, creating an empty one if they have none.
+     *
+     * @param exchange the request
+     * @return the visitor's basket
+     */
+    ShoppingBasket getOrCreate(HttpExchange exchange);
+
+    /**
+     * Keeps the changes made to a basket during a request.
+     *
+     * @param exchange the request, whose response headers have not been sent yet
+     * @param basket the changed basket
+     * @return true if the changes were kept, or false if the basket is too large to keep and the visitor
+     *         still has the basket they had before the request
+     */
+    boolean save(HttpExchange exchange, ShoppingBasket basket);
+
+    /**
+     * Registers the source's gauges and counters with {@link Metrics}.
+     */
+    void registerMetrics();
+
+    /**
+     * Saves any basket changes still held in memory, for shutdown.
+     *
+     * @param timeoutMillis how long to wait for the changes to be saved
+     * @throws Exception if the changes could not be saved in time
+     */
+    void shutdown(long timeoutMillis) throws Exception;
+
+    /**
+     * Creates the basket source chosen by the store.basket.mode system property.
+     *
+     * @return the configured source
+     */
+    static BasketSource fromConfig() {
+        String mode = System.getProperty("store.basket.mode", "session").trim().toLowerCase(Locale.ROOT);
+        switch (mode) {
+            case "session":
+                return BasketSessions.fromConfig();
+            case "cookie":
+                return SignedCookieBaskets.fromConfig();
+            default:
+                throw new IllegalArgumentException("Unknown store.basket.mode: " + mode);
+        }
+    }
+}
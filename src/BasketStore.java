@@ -0,0 +1,247 @@
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code BasketStore} class saves baskets to the database behind the requests that change them, so
+ * baskets survive a restart without a request ever waiting on a database write.
+ * <p>
+ * A changed basket is only marked dirty. A background thread saves every dirty basket through the
+ * {@link WriteQueue}, in one transaction, when the flush interval passes or as soon as the number of dirty
+ * baskets reaches the flush threshold. A basket changed many times between flushes is saved once, with
+ * its latest lines. If a flush fails its baskets are marked dirty again and saved by the next one. On
+ * shutdown the remaining dirty baskets are saved in the {@link Lifecycle.Phase#FLUSH} phase.
+ * <p>
+ * Saved baskets are loaded back by {@link BasketSessions} the first time their visitor returns, and
+ * baskets not saved for the retention period are deleted.
+ * <p>
+ * The following system properties configure the store:
+ * <p>
+ * store.basket.persist - whether baskets are saved at all (default true).
+ * store.basket.flushMillis - the longest a change waits to be saved (default 1000).
+ * store.basket.flushThreshold - the number of dirty baskets that triggers an early flush (default 256).
+ * store.basket.retentionDays - how long a saved basket is kept after its last change (default 30).
+ *
+ * @author Dominic Cash
+ */
+public final class BasketStore {
+
+    private final BasketDAO dao;
+    private final Supplier<WriteQueue> writeQueue;
+    private final int flushThreshold;
+    private final long retentionMillis;
+    private final ConcurrentHashMap<String, ShoppingBasket> dirty = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ShoppingBasket> inFlight = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong savedCount = new AtomicLong();
+    private final AtomicLong failedFlushCount = new AtomicLong();
+
+    /**
+     * Creates a store and starts its flush thread.
+     *
+     * @param dao reads and writes the basket tables
+     * @param flushMillis the longest a change waits to be saved
+     * @param flushThreshold the number of dirty baskets that triggers an early flush
+     * @param retentionMillis how long a saved basket is kept after its last change
+     */
+    public BasketStore(BasketDAO dao, long flushMillis, int flushThreshold, long retentionMillis) {
+        this(dao, WriteQueue::getInstance, flushMillis, flushThreshold, retentionMillis);
+    }
+
+    /**
+     * Creates a store that saves through the given write queue and starts its flush thread.
+     *
+     * @param dao reads and writes the basket tables
+     * @param writeQueue supplies the write queue flushes and purges are committed through
+     * @param flushMillis the longest a change waits to be saved
+     * @param flushThreshold the number of dirty baskets that triggers an early flush
+     * @param retentionMillis how long a saved basket is kept after its last change
+     */
+    BasketStore(BasketDAO dao, Supplier<WriteQueue> writeQueue, long flushMillis, int flushThreshold,
+                long retentionMillis) {
+        this.dao = dao;
+        this.writeQueue = writeQueue;
+        this.flushThreshold = Math.max(1, flushThreshold);
+        this.retentionMillis = retentionMillis;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "basket-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        long purgePeriod = TimeUnit.HOURS.toMillis(1);
+        flusher.scheduleWithFixedDelay(this::purge, purgePeriod, purgePeriod, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a store configured from system properties.
+     *
+     * @return the started store, or null if baskets are not to be saved
+     */
+    public static BasketStore fromConfig() {
+        if (!Boolean.parseBoolean(System.getProperty("store.basket.persist", "true"))) {
+            return null;
+        }
+        return new BasketStore(new BasketDAO(),
+                Math.max(1, Long.getLong("store.basket.flushMillis", 1000)),
+                Integer.getInteger("store.basket.flushThreshold", 256),
+                TimeUnit.DAYS.toMillis(Long.getLong("store.basket.retentionDays", 30)));
+    }
+
+    /**
+     * Loads a saved basket. A basket still waiting to be saved, or taken by a flush that has not committed
+     * yet, is returned as it is, so a basket evicted from memory before its last change was saved does not
+     * come back with its older saved lines.
+     *
+     * @param basketId the basket id
+     * @return the basket, or null if none is saved under the id
+     * @throws SQLException if the saved basket could not be read
+     */
+    public ShoppingBasket load(String basketId) throws SQLException {
+        ShoppingBasket pending = dirty.get(basketId);
+        if (pending == null) {
+            pending = inFlight.get(basketId);
+        }
+        if (pending != null) {
+            return pending;
+        }
+        return dao.load(basketId);
+    }
+
+    /**
+     * Marks a basket as changed, to be saved by the next flush.
+     *
+     * @param basketId the basket id
+     * @param basket the basket
+     */
+    public void markDirty(String basketId, ShoppingBasket basket) {
+        dirty.put(basketId, basket);
+        if (dirty.size() >= flushThreshold && flushPending.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                // Shutting down: the final flush in shutdown() saves what is dirty
+                flushPending.set(false);
+            }
+        }
+    }
+
+    /**
+     * Saves every dirty basket in one write transaction.
+     *
+     * @return a future completed with the number of baskets saved once the transaction has committed
+     */
+    public CompletableFuture<Integer> flush() {
+        flushPending.set(false);
+        if (dirty.isEmpty()) {
+            return CompletableFuture.completedFuture(0);
+        }
+        // Take each basket out before reading its lines, so a change made meanwhile marks it dirty again,
+        // and hold it in flight until the write commits, so load never returns the older saved lines meanwhile
+        Map<String, ShoppingBasket> baskets = new HashMap<>();
+        Map<String, List<ShoppingBasket.Line>> lines = new HashMap<>();
+        for (String id : dirty.keySet()) {
+            ShoppingBasket basket = dirty.get(id);
+            if (basket == null) {
+                continue;
+            }
+            inFlight.put(id, basket);
+            if (dirty.remove(id, basket)) {
+                baskets.put(id, basket);
+                lines.put(id, basket.getLines());
+            } else {
+                inFlight.remove(id, basket);
+            }
+        }
+        long now = System.currentTimeMillis();
+        long start = System.nanoTime();
+        return writeQueue.get().submit(conn -> dao.saveAll(conn, lines, now))
+                .whenComplete((saved, error) -> {
+                    Metrics.recordQuery("basket.save", start);
+                    flushCount.incrementAndGet();
+                    if (error == null) {
+                        savedCount.addAndGet(saved);
+                    } else {
+                        failedFlushCount.incrementAndGet();
+                        Log.warn("Error saving baskets", "baskets", baskets.size(), "error", error.getMessage());
+                        baskets.forEach(dirty::putIfAbsent);
+                    }
+                    baskets.forEach(inFlight::remove);
+                });
+    }
+
+    /**
+     * Deletes baskets not saved for the retention period.
+     *
+     * @return a future completed with the number of baskets deleted
+     */
+    CompletableFuture<Integer> purge() {
+        long before = System.currentTimeMillis() - retentionMillis;
+        return writeQueue.get().submit(conn -> dao.purge(conn, before))
+                .whenComplete((deleted, error) -> {
+                    if (error != null) {
+                        Log.warn("Error deleting old baskets", "error", error.getMessage());
+                    } else if (deleted > 0) {
+                        Log.info("Deleted old baskets", "baskets", deleted);
+                    }
+                });
+    }
+
+    /**
+     * Saves the remaining dirty baskets and stops the flush thread.
+     *
+     * @param timeoutMillis how long to wait for the final flush to commit
+     * @throws Exception if the final flush failed or did not commit in time
+     */
+    public void shutdown(long timeoutMillis) throws Exception {
+        flusher.shutdown();
+        flusher.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        int saved = flush().get(timeoutMillis, TimeUnit.MILLISECONDS);
+        Log.info("Baskets saved", "baskets", saved);
+    }
+
+    /**
+     * Registers the store's gauges and counters with {@link Metrics}.
+     */
+    public void registerMetrics() {
+        Metrics.gauge("store_basket_dirty", "Baskets changed since they were last saved", this::getDirtyCount);
+        Metrics.counter("store_basket_flushes_total", "Write-behind flushes of changed baskets", flushCount::get);
+        Metrics.counter("store_basket_saved_total", "Baskets saved by write-behind flushes", savedCount::get);
+        Metrics.counter("store_basket_flush_failures_total", "Write-behind flushes that failed",
+                failedFlushCount::get);
+    }
+
+    /**
+     * Gets the number of baskets changed since they were last saved.
+     *
+     * @return the dirty count
+     */
+    public int getDirtyCount() {
+        return dirty.size();
+    }
+
+    /**
+     * Gets the number of baskets saved.
+     *
+     * @return the saved count
+     */
+    public long getSavedCount() {
+        return savedCount.get();
+    }
+}
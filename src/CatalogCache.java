@@ -0,0 +1,112 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code CatalogCache} class holds the current {@link CatalogSnapshot} of the appliance table.
+ * Readers get the published snapshot without taking any lock. Writers publish a new snapshot atomically
+ * after their change has committed, so later reads, including the writer's own, see it immediately.
+ * <p>
+ * The snapshot is loaded lazily on the first read. If a change cannot be applied incrementally the
+ * cache is invalidated and the next read reloads it from the database.
+ *
+ * @author Dominic Cash
+ */
+public final class CatalogCache {
+
+    private static final CatalogCache SHARED = new CatalogCache();
+
+    private final AtomicReference<CatalogSnapshot> current = new AtomicReference<>();
+    private final AtomicLong changes = new AtomicLong();
+    private final Object loadLock = new Object();
+    private final Object publishLock = new Object();
+    private volatile boolean loadFailed;
+
+    /**
+     * Returns the process-wide catalog cache used by every {@link HomeApplianceDAO}.
+     *
+     * @return the shared catalog cache
+     */
+    public static CatalogCache shared() {
+        return SHARED;
+    }
+
+    /**
+     * Gets the current snapshot, loading it first if necessary. Concurrent first reads share one load.
+     *
+     * @param loader loads a fresh snapshot from the database, returning null if the load failed
+     * @return the current snapshot, or {@link CatalogSnapshot#EMPTY} if it could not be loaded
+     */
+    public CatalogSnapshot get(Supplier<CatalogSnapshot> loader) {
+        CatalogSnapshot snapshot = current.get();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (loadLock) {
+            while ((snapshot = current.get()) == null) {
+                long changesBefore = changes.get();
+                CatalogSnapshot loaded = loader.get();
+                loadFailed = loaded == null;
+                if (loaded == null) {
+                    return CatalogSnapshot.EMPTY;
+                }
+                // A write that committed while loading may be missing from the loaded rows, so retry
+                synchronized (publishLock) {
+                    if (changes.get() == changesBefore) {
+                        current.set(loaded);
+                    }
+                }
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Publishes a new snapshot derived from the current one. Does nothing if no snapshot is loaded,
+     * since the next read will load the committed state anyway.
+     *
+     * @param change derives the new snapshot from the current one
+     */
+    public void publish(UnaryOperator<CatalogSnapshot> change) {
+        synchronized (publishLock) {
+            changes.incrementAndGet();
+            CatalogSnapshot snapshot = current.get();
+            if (snapshot != null) {
+                current.set(change.apply(snapshot));
+            }
+        }
+    }
+
+    /**
+     * Discards the current snapshot so the next read reloads it from the database.
+     */
+    public void invalidate() {
+        synchronized (publishLock) {
+            changes.incrementAndGet();
+            current.set(null);
+        }
+    }
+
+    /**
+     * Checks whether a snapshot is currently loaded.
+     *
+     * @return true if reads are being served from memory
+     */
+    public boolean isLoaded() {
+        return current.get() != null;
+    }
+
+    /**
+     * Checks whether the most recent attempt to load a snapshot failed, in which case reads are being
+     * answered with {@link CatalogSnapshot#EMPTY}.
+     *
+     * @return true if the last load failed and no snapshot has been loaded since
+     */
+    public boolean isLoadFailed() {
+        return loadFailed;
+    }
+}
@@ -0,0 +1,90 @@
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code CatalogFacets} class holds the product counts shown next to each option of the storefront's
+ * category and price filters.
+ * <p>
+ * Counts follow the filters the shopper has already applied, except for the filter being counted: category
+ * counts respect the current price range, and price bucket counts respect the current category. So each
+ * count is the number of products the shopper would see after picking that option.
+ *
+ * @author Dominic Cash
+ */
+public final class CatalogFacets {
+
+    private final Map<String, Integer> categoryCounts;
+    private final int[] bucketCounts;
+
+    private CatalogFacets(Map<String, Integer> categoryCounts, int[] bucketCounts) {
+        this.categoryCounts = Collections.unmodifiableMap(categoryCounts);
+        this.bucketCounts = bucketCounts;
+    }
+
+    /**
+     * Counts the facets of a catalog in a single pass over its products.
+     *
+     * @param products every product in the catalog
+     * @param categories every category, in display order; categories with no matches are counted as zero
+     * @param category the applied category filter, or null for all categories
+     * @param minPrice the lowest price of the applied price filter
+     * @param maxPrice the highest price of the applied price filter
+     * @return the counts
+     */
+    static CatalogFacets count(List<HomeAppliance> products, Iterable<String> categories,
+                               String category, int minPrice, int maxPrice) {
+        Map<String, Integer> categoryCounts = new LinkedHashMap<>();
+        for (String name : categories) {
+            categoryCounts.put(name, 0);
+        }
+        int[] bucketCounts = new int[PriceBucket.values().length];
+
+        for (HomeAppliance appliance : products) {
+            int price = appliance.getPrice();
+            if (price >= minPrice && price <= maxPrice) {
+                categoryCounts.merge(appliance.getCategory(), 1, Integer::sum);
+            }
+            if (category == null || category.equals(appliance.getCategory())) {
+                PriceBucket bucket = PriceBucket.of(price);
+                if (bucket != null) {
+                    bucketCounts[bucket.ordinal()]++;
+                }
+            }
+        }
+        return new CatalogFacets(categoryCounts, bucketCounts);
+    }
+
+    /**
+     * Gets the categories with their product counts, in display order.
+     *
+     * @return an unmodifiable map of category to count
+     */
+    public Map<String, Integer> getCategoryCounts() {
+        return categoryCounts;
+    }
+
+    /**
+     * Gets the number of products in a category.
+     *
+     * @param category the category
+     * @return the count, or 0 if the category is unknown
+     */
+    public int getCategoryCount(String category) {
+        return categoryCounts.getOrDefault(category, 0);
+    }
+
+    /**
+     * Gets the number of products in a price bucket.
+     *
+     * @param bucket the price bucket
+     * @return the count
+     */
+    public int getBucketCount(PriceBucket bucket) {
+        return bucketCounts[bucket.ordinal()];
+    }
+}
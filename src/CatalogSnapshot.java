@@ -0,0 +1,418 @@
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code CatalogSnapshot} class is an immutable, in-memory copy of the appliance table.
+ * Readers share a snapshot without locking; a change to the catalog produces a new snapshot
+ * (copy-on-write) which is then published by {@link CatalogCache}.
+ * <p>
+ * Products are kept in id order, indexed by id and grouped by category. Prices are held in a
+ * {@link PriceIndex} for the whole catalog and one per category, so price range queries are answered by
+ * binary search. When a single product changes the price indexes are updated incrementally rather than
+ * rebuilt. Facet counts for the storefront filters, and the id order of each filtered price range, are
+ * computed on first use and cached for the life of the snapshot. The appliances held by a snapshot are private copies and must not be modified by callers.
+ *
+ * @author Dominic Cash
+ */
+public final class CatalogSnapshot {
+
+    /** The most facet combinations cached per snapshot; arbitrary price ranges beyond this are not cached. */
+    private static final int MAX_CACHED_FACETS = 256;
+
+    /** The most price ranges whose id order is cached per snapshot. */
+    private static final int MAX_CACHED_RANGES = 256;
+
+    /** A snapshot of an empty catalog. */
+    public static final CatalogSnapshot EMPTY = new CatalogSnapshot(new ArrayList<>(), true, null, null);
+
+    private final List<HomeAppliance> products;
+    private final HomeAppliance[] slots;
+    private final Map<Integer, HomeAppliance> byId;
+    private final Map<String, List<HomeAppliance>> byCategory;
+    private final PriceIndex prices;
+    private final Map<String, PriceIndex> categoryPrices;
+    private final Map<String, CatalogFacets> facets = new ConcurrentHashMap<>();
+    private final Map<String, int[]> idOrderedRanges = new ConcurrentHashMap<>();
+
+    /**
+     * Builds a snapshot from a list of appliances.
+     *
+     * @param appliances the appliances, which are copied and sorted by id
+     */
+    public CatalogSnapshot(List<HomeAppliance> appliances) {
+        this(copyAll(appliances), false, null, null);
+    }
+
+    /**
+     * Builds a snapshot from appliances that are already private to the snapshot.
+     *
+     * @param sorted the appliances, which become owned by the snapshot
+     * @param inIdOrder whether the appliances are already sorted by id
+     * @param prices the price index of all appliances, or null to build it
+     * @param categoryPrices the price index of each category, or null to build them
+     */
+    private CatalogSnapshot(ArrayList<HomeAppliance> sorted, boolean inIdOrder,
+                            PriceIndex prices, Map<String, PriceIndex> categoryPrices) {
+        if (!inIdOrder) {
+            sorted.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+        }
+
+        Map<String, List<HomeAppliance>> categories = new LinkedHashMap<>();
+        for (HomeAppliance appliance : sorted) {
+            categories.computeIfAbsent(appliance.getCategory(), key -> new ArrayList<>()).add(appliance);
+        }
+
+        // Ids are allocated sequentially, so a plain array indexed by id is usually small enough
+        // and avoids boxing on every lookup; fall back to a map for sparse ids.
+        int minId = sorted.isEmpty() ? 0 : sorted.get(0).getId();
+        int maxId = sorted.isEmpty() ? 0 : sorted.get(sorted.size() - 1).getId();
+        if (minId >= 0 && maxId <= sorted.size() * 4 + 1024) {
+            this.slots = new HomeAppliance[maxId + 1];
+            for (HomeAppliance appliance : sorted) {
+                slots[appliance.getId()] = appliance;
+            }
+            this.byId = null;
+        } else {
+            Map<Integer, HomeAppliance> ids = new HashMap<>(sorted.size() * 2);
+            for (HomeAppliance appliance : sorted) {
+                ids.put(appliance.getId(), appliance);
+            }
+            this.slots = null;
+            this.byId = ids;
+        }
+
+        if (prices == null) {
+            prices = PriceIndex.build(sorted);
+            categoryPrices = new HashMap<>();
+            for (Map.Entry<String, List<HomeAppliance>> entry : categories.entrySet()) {
+                categoryPrices.put(entry.getKey(), PriceIndex.build(entry.getValue()));
+            }
+        }
+        categories.replaceAll((key, list) -> Collections.unmodifiableList(list));
+
+        this.products = Collections.unmodifiableList(sorted);
+        this.byCategory = categories;
+        this.prices = prices;
+        this.categoryPrices = categoryPrices;
+    }
+
+    private static ArrayList<HomeAppliance> copyAll(List<HomeAppliance> appliances) {
+        ArrayList<HomeAppliance> copies = new ArrayList<>(appliances.size());
+        for (HomeAppliance appliance : appliances) {
+            copies.add(copyOf(appliance));
+        }
+        return copies;
+    }
+
+    /**
+     * Creates a detached copy of an appliance.
+     *
+     * @param appliance the appliance to copy
+     * @return a new appliance with the same field values
+     */
+    public static HomeAppliance copyOf(HomeAppliance appliance) {
+        return new HomeAppliance(appliance.getId(), appliance.getSku(), appliance.getDescription(),
+                appliance.getCategory(), appliance.getPrice());
+    }
+
+    /**
+     * Gets every product in the catalog, ordered by id.
+     *
+     * @return an unmodifiable list of all products
+     */
+    public List<HomeAppliance> getProducts() {
+        return products;
+    }
+
+    /**
+     * Finds a product by id.
+     *
+     * @param id the product id
+     * @return the shared product instance, or null if there is no such product
+     */
+    public HomeAppliance find(int id) {
+        if (slots != null) {
+            return id >= 0 && id < slots.length ? slots[id] : null;
+        }
+        return byId.get(id);
+    }
+
+    /**
+     * Gets the products in a category, ordered by id.
+     *
+     * @param category the category
+     * @return an unmodifiable list of the products in the category, empty if there are none
+     */
+    public List<HomeAppliance> getByCategory(String category) {
+        return byCategory.getOrDefault(category, List.of());
+    }
+
+    /**
+     * Gets every category in the catalog, in order of their lowest product id.
+     *
+     * @return an unmodifiable list of categories
+     */
+    public List<String> getCategories() {
+        return Collections.unmodifiableList(new ArrayList<>(byCategory.keySet()));
+    }
+
+    /**
+     * Gets the facet counts for the given filters, counting them on first use.
+     *
+     * @param category the applied category filter, or null for all categories
+     * @param minPrice the lowest price of the applied price filter
+     * @param maxPrice the highest price of the applied price filter
+     * @return the facet counts
+     */
+    public CatalogFacets getFacets(String category, int minPrice, int maxPrice) {
+        String key = (category == null ? "" : "=" + category) + '|' + minPrice + '|' + maxPrice;
+        CatalogFacets cached = facets.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        CatalogFacets counted = CatalogFacets.count(products, byCategory.keySet(), category, minPrice, maxPrice);
+        if (facets.size() < MAX_CACHED_FACETS) {
+            facets.putIfAbsent(key, counted);
+        }
+        return counted;
+    }
+
+    /**
+     * Gets the price index for all products or for one category.
+     *
+     * @param category the category, or null for all categories
+     * @return the price index, empty if the category has no products
+     */
+    public PriceIndex getPriceIndex(String category) {
+        return category == null ? prices : categoryPrices.getOrDefault(category, PriceIndex.EMPTY);
+    }
+
+    /**
+     * Gets the products within an inclusive price range, optionally restricted to a category.
+     *
+     * @param category the category to restrict to, or null for all categories
+     * @param minPrice the lowest price to include
+     * @param maxPrice the highest price to include
+     * @return the matching products, ordered by price and then id
+     */
+    public List<HomeAppliance> getByPriceRange(String category, int minPrice, int maxPrice) {
+        return new ArrayList<>(priceRange(category, minPrice, maxPrice));
+    }
+
+    /**
+     * Gets the products, optionally restricted to a category and an inclusive price range, in the given
+     * sort order. When sorting by price the result is a view over the price index, found by binary
+     * search. When sorting by id the ids in the price range are put in order once per snapshot and
+     * cached, so paging through the range does not repeat the work.
+     *
+     * @param category the category to restrict to, or null for all categories
+     * @param minPrice the lowest price to include
+     * @param maxPrice the highest price to include
+     * @param sort the order of the returned list
+     * @return the matching products, sorted by {@code sort}
+     */
+    public List<HomeAppliance> getOrdered(String category, int minPrice, int maxPrice, ProductPage.Sort sort) {
+        if (sort == ProductPage.Sort.PRICE) {
+            return priceRange(category, minPrice, maxPrice);
+        }
+        if (minPrice <= 0 && maxPrice == Integer.MAX_VALUE) {
+            return category == null ? products : getByCategory(category);
+        }
+
+        String key = (category == null ? "" : "=" + category) + '|' + minPrice + '|' + maxPrice;
+        int[] ids = idOrderedRanges.get(key);
+        if (ids == null) {
+            ids = idsInRange(category, minPrice, maxPrice);
+            if (idOrderedRanges.size() < MAX_CACHED_RANGES) {
+                idOrderedRanges.putIfAbsent(key, ids);
+            }
+        }
+        return new IdArrayView(ids);
+    }
+
+    /**
+     * Collects the ids of the products in a price range in ascending order. A narrow range is taken from
+     * the price index and sorted; a wide one is filtered out of the id-ordered product list, which is
+     * already sorted and cheaper to scan than the range would be to sort.
+     */
+    private int[] idsInRange(String category, int minPrice, int maxPrice) {
+        PriceIndex index = getPriceIndex(category);
+        int from = index.lowerBound(minPrice);
+        int to = Math.max(from, index.upperBound(maxPrice));
+        int count = to - from;
+        List<HomeAppliance> inIdOrder = category == null ? products : getByCategory(category);
+
+        int[] ids = new int[count];
+        if ((long) count * (32 - Integer.numberOfLeadingZeros(count)) > inIdOrder.size()) {
+            int next = 0;
+            for (HomeAppliance appliance : inIdOrder) {
+                int price = appliance.getPrice();
+                if (price >= minPrice && price <= maxPrice) {
+                    ids[next++] = appliance.getId();
+                }
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                ids[i - from] = index.idAt(i);
+            }
+            Arrays.sort(ids);
+        }
+        return ids;
+    }
+
+    /**
+     * Gets a read-only view of the products in a price range, in price order.
+     */
+    private List<HomeAppliance> priceRange(String category, int minPrice, int maxPrice) {
+        PriceIndex index = getPriceIndex(category);
+        int from = index.lowerBound(minPrice);
+        int to = Math.max(from, index.upperBound(maxPrice));
+        return new PriceRangeView(index, from, to);
+    }
+
+    /**
+     * A list view over a slice of a price index. Products are looked up by id when read, so taking a view
+     * copies nothing.
+     */
+    private final class PriceRangeView extends AbstractList<HomeAppliance> implements RandomAccess {
+
+        private final PriceIndex index;
+        private final int from;
+        private final int to;
+
+        PriceRangeView(PriceIndex index, int from, int to) {
+            this.index = index;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public HomeAppliance get(int position) {
+            if (position < 0 || position >= to - from) {
+                throw new IndexOutOfBoundsException(position);
+            }
+            return find(index.idAt(from + position));
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+
+    /**
+     * A list view over product ids that are already in id order. Products are looked up by id when read.
+     */
+    private final class IdArrayView extends AbstractList<HomeAppliance> implements RandomAccess {
+
+        private final int[] ids;
+
+        IdArrayView(int[] ids) {
+            this.ids = ids;
+        }
+
+        @Override
+        public HomeAppliance get(int position) {
+            return find(ids[position]);
+        }
+
+        @Override
+        public int size() {
+            return ids.length;
+        }
+    }
+
+    /**
+     * Gets the number of products in the catalog.
+     *
+     * @return the product count
+     */
+    public int size() {
+        return products.size();
+    }
+
+    /**
+     * Returns a new snapshot with the given appliance added, or replacing the product with the same id.
+     *
+     * @param appliance the new or changed appliance
+     * @return the new snapshot
+     */
+    public CatalogSnapshot withUpserted(HomeAppliance appliance) {
+        HomeAppliance copy = copyOf(appliance);
+        HomeAppliance previous = find(copy.getId());
+
+        ArrayList<HomeAppliance> next = new ArrayList<>(products.size() + 1);
+        boolean placed = false;
+        for (HomeAppliance existing : products) {
+            if (!placed && existing.getId() >= copy.getId()) {
+                next.add(copy);
+                placed = true;
+            }
+            if (existing.getId() != copy.getId()) {
+                next.add(existing);
+            }
+        }
+        if (!placed) {
+            next.add(copy);
+        }
+
+        PriceIndex nextPrices = prices;
+        Map<String, PriceIndex> nextCategoryPrices = new HashMap<>(categoryPrices);
+        if (previous != null) {
+            nextPrices = nextPrices.without(previous.getId(), previous.getPrice());
+            removeFromCategoryIndex(nextCategoryPrices, previous);
+        }
+        nextPrices = nextPrices.with(copy.getId(), copy.getPrice());
+        nextCategoryPrices.put(copy.getCategory(),
+                nextCategoryPrices.getOrDefault(copy.getCategory(), PriceIndex.EMPTY).with(copy.getId(), copy.getPrice()));
+        return new CatalogSnapshot(next, true, nextPrices, nextCategoryPrices);
+    }
+
+    /**
+     * Returns a new snapshot without the product with the given id.
+     *
+     * @param id the id of the removed product
+     * @return the new snapshot, or this snapshot if there was no such product
+     */
+    public CatalogSnapshot withRemoved(int id) {
+        HomeAppliance previous = find(id);
+        if (previous == null) {
+            return this;
+        }
+        ArrayList<HomeAppliance> next = new ArrayList<>(products.size());
+        for (HomeAppliance existing : products) {
+            if (existing.getId() != id) {
+                next.add(existing);
+            }
+        }
+        Map<String, PriceIndex> nextCategoryPrices = new HashMap<>(categoryPrices);
+        removeFromCategoryIndex(nextCategoryPrices, previous);
+        return new CatalogSnapshot(next, true, prices.without(id, previous.getPrice()), nextCategoryPrices);
+    }
+
+    /**
+     * Removes a product from the price index of its category, dropping the index if it becomes empty.
+     */
+    private static void removeFromCategoryIndex(Map<String, PriceIndex> categoryPrices, HomeAppliance appliance) {
+        PriceIndex index = categoryPrices.get(appliance.getCategory());
+        if (index != null) {
+            PriceIndex remaining = index.without(appliance.getId(), appliance.getPrice());
+            if (remaining.size() == 0) {
+                categoryPrices.remove(appliance.getCategory());
+            } else {
+                categoryPrices.put(appliance.getCategory(), remaining);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code Checkout} class turns a basket into an order. The basket's lines are taken out of it and
+ * checked against the current catalog, and the order and all its lines are written in one transaction
+ * through the {@link WriteQueue}, so concurrent checkouts share group commits. The order id comes from a
+ * block reserved in advance by the {@link OrderIdAllocator}.
+ * <p>
+ * Each line is ordered at the unit price the visitor saw in their basket. If a product is no longer sold
+ * or its price has changed since, nothing is ordered and the lines are put back, so the visitor can review
+ * the updated basket first. If the order cannot be written, the lines are put back too.
+ *
+ * @author Dominic Cash
+ */
+public class Checkout {
+
+    private final HomeApplianceDAO applianceDAO;
+    private final OrderDAO orderDAO;
+    private final OrderIdAllocator ids;
+    private final Supplier<WriteQueue> writeQueue;
+
+    private final AtomicLong placedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong changedCount = new AtomicLong();
+
+    /**
+     * Creates a checkout.
+     *
+     * @param applianceDAO looks up the current price and details of each product
+     * @param orderDAO writes the orders
+     * @param ids hands out order ids
+     */
+    public Checkout(HomeApplianceDAO applianceDAO, OrderDAO orderDAO, OrderIdAllocator ids) {
+        this(applianceDAO, orderDAO, ids, WriteQueue::getInstance);
+    }
+
+    /**
+     * Creates a checkout writing through the given write queue.
+     *
+     * @param applianceDAO looks up the current price and details of each product
+     * @param orderDAO writes the orders
+     * @param ids hands out order ids
+     * @param writeQueue supplies the write queue orders are committed through
+     */
+    Checkout(HomeApplianceDAO applianceDAO, OrderDAO orderDAO, OrderIdAllocator ids, Supplier<WriteQueue> writeQueue) {
+        this.applianceDAO = applianceDAO;
+        this.orderDAO = orderDAO;
+        this.ids = ids;
+        this.writeQueue = writeQueue;
+    }
+
+    /**
+     * Creates a checkout writing to the shared database.
+     *
+     * @param applianceDAO looks up the current price and details of each product
+     * @return the checkout
+     */
+    public static Checkout fromConfig(HomeApplianceDAO applianceDAO) {
+        OrderDAO orderDAO = new OrderDAO();
+        return new Checkout(applianceDAO, orderDAO, OrderIdAllocator.fromConfig(orderDAO));
+    }
+
+    /**
+     * Places an order for everything in a basket, at the basket's prices, and empties the basket once the
+     * order is written.
+     *
+     * @param basket the basket
+     * @return the order, or null if the basket is empty or a product in it is no longer sold or has changed
+     *         price; the basket is left as it was, to be revalidated by the basket page
+     * @throws SQLException if the order could not be written; the basket is left as it was
+     */
+    public Order placeOrder(ShoppingBasket basket) throws SQLException {
+        List<ShoppingBasket.Line> taken = basket.takeLines();
+        List<Order.Line> lines = new ArrayList<>(taken.size());
+        for (ShoppingBasket.Line line : taken) {
+            HomeAppliance item = applianceDAO.findProduct(line.getProductId());
+            if (item == null || item.getPrice() != line.getUnitPrice()) {
+                changedCount.incrementAndGet();
+                putBack(basket, taken);
+                return null;
+            }
+            lines.add(new Order.Line(item.getId(), item.getSku(), item.getDescription(),
+                    line.getQuantity(), line.getUnitPrice()));
+        }
+        if (lines.isEmpty()) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        try {
+            Order order = new Order(ids.next(), System.currentTimeMillis(), lines);
+            writeQueue.get().submit(conn -> orderDAO.insert(conn, order)).join();
+            placedCount.incrementAndGet();
+            return order;
+        } catch (SQLException | CompletionException e) {
+            failedCount.incrementAndGet();
+            putBack(basket, taken);
+            if (e instanceof SQLException) {
+                throw (SQLException) e;
+            }
+            throw new SQLException("Could not write order", e.getCause());
+        } finally {
+            Metrics.recordQuery("order.insert", start);
+        }
+    }
+
+    /**
+     * Puts lines taken out of a basket back in it.
+     */
+    private static void putBack(ShoppingBasket basket, List<ShoppingBasket.Line> taken) {
+        for (ShoppingBasket.Line line : taken) {
+            basket.add(line.getProductId(), line.getUnitPrice(), line.getQuantity());
+        }
+    }
+
+    /**
+     * Registers the checkout counters with {@link Metrics}.
+     */
+    public void registerMetrics() {
+        Metrics.counter("store_orders_placed_total", "Orders written", placedCount::get);
+        Metrics.counter("store_orders_failed_total", "Checkouts that could not write their order",
+                failedCount::get);
+        Metrics.counter("store_orders_changed_total",
+                "Checkouts sent back to the basket because a price or product had changed", changedCount::get);
+        Metrics.counter("store_order_id_blocks_total", "Blocks of order ids reserved", ids::getBlockCount);
+    }
+
+    /**
+     * Gets the number of orders written.
+     *
+     * @return the placed count
+     */
+    public long getPlacedCount() {
+        return placedCount.get();
+    }
+}
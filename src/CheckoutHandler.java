@@ -0,0 +1,101 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+
+//Dominic Cash
+//16042439
+
+/**
+ * Handles "/basket/checkout", which places an order for the visitor's basket through {@link Checkout}
+ * and shows the order. An empty basket is sent back to the basket page, as is a basket whose prices or
+ * products have changed, with a notice to check it before ordering. An order that cannot be written gets a
+ * 503 page with the basket left as it was.
+ *
+ * @author Dominic Cash
+ */
+public class CheckoutHandler implements HttpHandler {
+
+    private final BasketSource baskets;
+    private final Checkout checkout;
+
+    /**
+     * Creates a handler placing orders for the visitors' baskets.
+     *
+     * @param baskets where the visitors' shopping baskets are kept
+     * @param checkout places the orders
+     */
+    public CheckoutHandler(BasketSource baskets, Checkout checkout) {
+        this.baskets = baskets;
+        this.checkout = checkout;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        ShoppingBasket basket = baskets.find(exchange);
+        if (basket == null || basket.getLineCount() == 0) {
+            redirectToBasket(exchange);
+            return;
+        }
+
+        Order order;
+        try {
+            order = checkout.placeOrder(basket);
+        } catch (SQLException e) {
+            Log.warn("Error placing order", "error", e.getMessage());
+            send(exchange, 503, page("Home Solutions - Checkout",
+                    "<h1>We could not place your order</h1><p>Your basket has not changed. Please try again.</p>"
+                            + "<div class='footer'><a href='/basket/view' class='btn'>Back to Basket</a></div>"));
+            return;
+        }
+        if (order == null) {
+            // The lines were put back unchanged; the basket page brings them up to date
+            exchange.getResponseHeaders().set("Location", "/basket/view?notice=updated");
+            exchange.sendResponseHeaders(303, -1);
+            return;
+        }
+        baskets.save(exchange, basket);
+
+        StringBuilder body = new StringBuilder();
+        body.append("<h1>Thank you for your order</h1>")
+                .append("<p>Order number ").append(order.getId()).append("</p>")
+                .append("<table>")
+                .append("<thead><tr><th>SKU</th><th>Description</th><th>Price</th><th>Quantity</th><th>Line Total</th></tr></thead>")
+                .append("<tbody>");
+        for (Order.Line line : order.getLines()) {
+            body.append("<tr>")
+                    .append("<td>").append(line.getSku()).append("</td>")
+                    .append("<td>").append(line.getDescription()).append("</td>")
+                    .append("<td>£").append(line.getUnitPrice()).append("</td>")
+                    .append("<td>").append(line.getQuantity()).append("</td>")
+                    .append("<td>£").append(line.getLineTotal()).append("</td>")
+                    .append("</tr>");
+        }
+        body.append("</tbody></table>")
+                .append("<h2>Total: £").append(order.getTotal()).append("</h2>")
+                .append("<div class='footer'><a href='/appliances' class='btn'>Continue Shopping</a></div>");
+        send(exchange, 200, page("Home Solutions - Order Placed", body.toString()));
+    }
+
+    private static String page(String title, String content) {
+        return "<html>\n" + StaticAssets.pageHead(title) + "<body>\n"
+                + "<div class='container'>" + content + "</div></body></html>";
+    }
+
+    private static void redirectToBasket(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Location", "/basket/view");
+        exchange.sendResponseHeaders(303, -1);
+    }
+
+    private static void send(HttpExchange exchange, int status, String html) throws IOException {
+        byte[] responseBytes = html.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        exchange.sendResponseHeaders(status, responseBytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(responseBytes);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.TreeMap;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code ConditionalGet} class lets handlers answer conditional GET requests without building the page.
+ * A page's validators are derived from the {@link DataVersion} of each table it shows plus its normalized
+ * query parameters, so they can be computed before touching the database.
+ * <p>
+ * Handlers call {@link #notModified(HttpExchange, Map, DataVersion...)} first. It sets a strong
+ * {@code ETag} and a {@code Last-Modified} header on the response, and if the request's
+ * {@code If-None-Match} (or, without one, {@code If-Modified-Since}) shows the client's copy is current it
+ * sends 304 Not Modified and returns true.
+ * <p>
+ * If the page then cannot be built from real data, for example because the database could not be read,
+ * the handler calls {@link #doNotCache(HttpExchange)} before sending it, so the degraded page is neither
+ * validated nor stored by caches.
+ *
+ * @author Dominic Cash
+ */
+public final class ConditionalGet {
+
+    private ConditionalGet() {
+        // Static utility only
+    }
+
+    /**
+     * Sets the validators for a page and answers the request with 304 if the client's copy is current.
+     * The versions must be read before the page's data, which this method guarantees when called first.
+     *
+     * @param exchange the exchange being handled
+     * @param params the request's query parameters
+     * @param versions the versions of the tables the page is built from
+     * @return true if a 304 response was sent and the handler must not send a body
+     * @throws IOException if the response cannot be sent
+     */
+    public static boolean notModified(HttpExchange exchange, Map<String, String> params, DataVersion... versions)
+            throws IOException {
+        String etag = etag(params, versions);
+        long lastModified = DataVersion.BOOT_EPOCH;
+        for (DataVersion version : versions) {
+            lastModified = Math.max(lastModified, version.getLastModified());
+        }
+
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("ETag", etag);
+        headers.set("Last-Modified", formatDate(lastModified));
+        headers.set("Cache-Control", "no-cache");
+
+        String method = exchange.getRequestMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return false;
+        }
+        Headers request = exchange.getRequestHeaders();
+        String ifNoneMatch = request.getFirst("If-None-Match");
+        boolean current = ifNoneMatch != null
+                ? matches(ifNoneMatch, etag)
+                : notModifiedSince(request.getFirst("If-Modified-Since"), lastModified);
+        if (current) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+        }
+        return current;
+    }
+
+    /**
+     * Withdraws the validators set by {@link #notModified(HttpExchange, Map, DataVersion...)} and forbids
+     * caching. Used for pages rendered from a failed or partial load, which must not be revalidated
+     * against the table version as if they were complete.
+     *
+     * @param exchange the exchange being handled, before its response headers are sent
+     */
+    public static void doNotCache(HttpExchange exchange) {
+        Headers headers = exchange.getResponseHeaders();
+        headers.remove("ETag");
+        headers.remove("Last-Modified");
+        headers.set("Cache-Control", "no-store");
+    }
+
+    /**
+     * Builds the strong entity tag for a page.
+     *
+     * @param params the request's query parameters
+     * @param versions the versions of the tables the page is built from
+     * @return the quoted entity tag
+     */
+    static String etag(Map<String, String> params, DataVersion... versions) {
+        StringBuilder tag = new StringBuilder("\"").append(Long.toString(DataVersion.BOOT_EPOCH, 36));
+        for (DataVersion version : versions) {
+            tag.append('-').append(version.get());
+        }
+        return tag.append('-').append(Long.toHexString(hash(normalize(params)))).append('"').toString();
+    }
+
+    /**
+     * Normalizes query parameters so equivalent requests share a validator: parameters are sorted by name,
+     * values are trimmed and empty parameters are dropped.
+     *
+     * @param params the query parameters, may be null
+     * @return the normalized parameters as a query string
+     */
+    static String normalize(Map<String, String> params) {
+        if (params == null || params.isEmpty()) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder();
+        for (Map.Entry<String, String> param : new TreeMap<>(params).entrySet()) {
+            String value = param.getValue() == null ? "" : param.getValue().trim();
+            if (!value.isEmpty()) {
+                if (normalized.length() > 0) {
+                    normalized.append('&');
+                }
+                normalized.append(param.getKey()).append('=').append(value);
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * A 64-bit FNV-1a hash of the UTF-8 bytes of a string.
+     */
+    private static long hash(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Checks an If-None-Match header against the current entity tag. As the header is only used for
+     * GET and HEAD, weak tags compare equal to the strong tag with the same value, and the tag of the
+     * gzip variant sent by {@link GzipFilter} compares equal to the tag of the plain page.
+     *
+     * @param ifNoneMatch the header value
+     * @param etag the current entity tag
+     * @return true if the header lists the tag or is "*"
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (GzipFilter.stripGzipETag(tag).equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a page has not changed since the date in an If-Modified-Since header.
+     */
+    private static boolean notModifiedSince(String ifModifiedSince, long lastModified) {
+        if (ifModifiedSince == null) {
+            return false;
+        }
+        try {
+            long since = ZonedDateTime.parse(ifModifiedSince.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                    .toInstant().toEpochMilli();
+            return lastModified / 1000 <= since / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Formats a time as an HTTP date.
+     *
+     * @param millis the time in milliseconds since the epoch
+     * @return the date in RFC 1123 format
+     */
+    static String formatDate(long millis) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(millis).atZone(ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,669 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code ConnectionPool} class holds the process-wide pool of SQLite connections that every DAO and
+ * handler borrows from, instead of opening a new JDBC connection for every call.
+ * <p>
+ * The pool is split into a set of read-only connections for queries and a single dedicated writer
+ * connection for inserts, updates and deletes. All connections are opened when the pool starts and
+ * configured once with the selected {@link StorageProfile}, which puts the database in WAL mode so that
+ * reads never wait on a write. Schema upgrades from {@link DatabaseSchema} are applied at the same time.
+ * <p>
+ * Borrowed connections are wrapped so that {@link Connection#close()} returns them to the pool. Each
+ * connection is validated on borrow and replaced if it is no longer usable. Connections held for longer
+ * than the leak threshold are reported together with the stack trace of the code that borrowed them.
+ * The stack trace is only captured while leak detection is enabled, so a threshold of zero removes that
+ * cost from every borrow.
+ * <p>
+ * Reader borrows can pass through an {@link AdaptiveLimiter}, which adjusts how many reads may hold a
+ * connection at once from the time each loan lasts. A borrow the limiter rejects fails quickly with a
+ * {@link SQLTransientConnectionException} instead of adding to the contention on the database file.
+ * <p>
+ * The pool is configured through system properties:
+ * <p>
+ * {@code store.db.poolSize} - number of read-only connections (default 8).
+ * {@code store.db.borrowTimeoutMs} - how long a borrow waits for a free connection (default 5000).
+ * {@code store.db.leakThresholdMs} - how long a connection may be held before it is reported, or 0 to disable leak detection (default 30000).
+ * {@code store.db.profile} - the {@link StorageProfile} to apply (default balanced).
+ * {@code store.db.limiter} - whether reader borrows pass through an {@link AdaptiveLimiter} (default true).
+ * {@code store.db.limiter.minLimit} - the lowest concurrent read limit (default 1).
+ * {@code store.db.limiter.queue} - how many borrows may wait for the limiter (default 64).
+ * {@code store.db.limiter.queueTimeoutMs} - how long a borrow may wait for the limiter (default 250).
+ * <p>
+ * Example usage:
+ * <p>
+ * try (Connection conn = ConnectionPool.getInstance().borrowReader()) { ... }
+ *
+ * @author Dominic Cash
+ */
+public final class ConnectionPool {
+
+    /** The URL for the SQLite database connection. */
+    public static final String URL = "jdbc:sqlite:stores.sqlite";
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+    private static volatile ConnectionPool instance;
+
+    // Only taken while the shared pool is started; a lock rather than synchronized so a virtual thread
+    // starting it does not pin its carrier
+    private static final ReentrantLock START_LOCK = new ReentrantLock();
+
+    private final String url;
+    private final StorageProfile profile;
+    private final long borrowTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final Partition readers;
+    private final Partition writer;
+    private final ScheduledExecutorService leakDetector;
+    private volatile boolean closed;
+
+    /**
+     * Creates a pool for the given database and opens all of its connections.
+     *
+     * @param url the JDBC URL of the database
+     * @param readerCount the number of read-only connections
+     * @param profile the storage profile applied to every connection
+     * @param borrowTimeoutMillis how long a borrow may wait for a connection
+     * @param leakThresholdMillis how long a connection may be held before being reported as leaked,
+     *                            or 0 to disable leak detection
+     * @throws SQLException if the connections cannot be opened or configured
+     */
+    public ConnectionPool(String url, int readerCount, StorageProfile profile, long borrowTimeoutMillis,
+                          long leakThresholdMillis) throws SQLException {
+        this(url, readerCount, profile, borrowTimeoutMillis, leakThresholdMillis, null);
+    }
+
+    /**
+     * Creates a pool for the given database, with an adaptive limit on concurrent reads, and opens all of
+     * its connections.
+     *
+     * @param url the JDBC URL of the database
+     * @param readerCount the number of read-only connections
+     * @param profile the storage profile applied to every connection
+     * @param borrowTimeoutMillis how long a borrow may wait for a connection
+     * @param leakThresholdMillis how long a connection may be held before being reported as leaked,
+     *                            or 0 to disable leak detection
+     * @param readLimiter the limiter reader borrows pass through, or null for none
+     * @throws SQLException if the connections cannot be opened or configured
+     */
+    public ConnectionPool(String url, int readerCount, StorageProfile profile, long borrowTimeoutMillis,
+                          long leakThresholdMillis, AdaptiveLimiter readLimiter) throws SQLException {
+        this.url = url;
+        this.profile = profile;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.writer = new Partition("writer", 1, false, null);
+        this.readers = new Partition("reader", readerCount, true, readLimiter);
+
+        try (Connection conn = DriverManager.getConnection(url)) {
+            profile.enableWal(conn);
+            DatabaseSchema.apply(conn);
+        }
+        writer.fill();
+        readers.fill();
+
+        if (isLeakDetectionEnabled()) {
+            this.leakDetector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "db-leak-detector");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = Math.max(1000, leakThresholdMillis / 2);
+            leakDetector.scheduleAtFixedRate(this::detectLeaks, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.leakDetector = null;
+        }
+    }
+
+    /**
+     * Returns the shared pool, creating and starting it from system properties on first use.
+     *
+     * @return the process-wide connection pool
+     * @throws SQLException if the pool cannot be started
+     */
+    public static ConnectionPool getInstance() throws SQLException {
+        ConnectionPool pool = instance;
+        if (pool != null) {
+            return pool;
+        }
+        START_LOCK.lock();
+        try {
+            if (instance == null) {
+                instance = start();
+            }
+            return instance;
+        } finally {
+            START_LOCK.unlock();
+        }
+    }
+
+    /**
+     * Creates the shared pool from system properties.
+     */
+    private static ConnectionPool start() throws SQLException {
+        int readerCount = Integer.getInteger("store.db.poolSize", 8);
+        AdaptiveLimiter readLimiter = null;
+        if (Boolean.parseBoolean(System.getProperty("store.db.limiter", "true"))) {
+            readLimiter = new AdaptiveLimiter("reader", readerCount,
+                    Math.min(readerCount, Integer.getInteger("store.db.limiter.minLimit", 1)), readerCount,
+                    Integer.getInteger("store.db.limiter.queue", 64),
+                    Long.getLong("store.db.limiter.queueTimeoutMs", 250));
+        }
+        return new ConnectionPool(URL, readerCount,
+                StorageProfile.configured(),
+                Long.getLong("store.db.borrowTimeoutMs", 5000),
+                Long.getLong("store.db.leakThresholdMs", 30000),
+                readLimiter);
+    }
+
+    /**
+     * Returns the shared pool if it has been started, without starting it. Used by metrics, which must
+     * not open the database.
+     *
+     * @return the process-wide connection pool, or null if it has not been started
+     */
+    public static ConnectionPool getInstanceIfStarted() {
+        return instance;
+    }
+
+    /**
+     * Borrows a read-only connection, waiting up to the borrow timeout if all readers are in use.
+     * The returned connection must be closed to give it back to the pool.
+     *
+     * @return a validated read-only connection
+     * @throws SQLException if the pool is closed or no connection became free in time
+     */
+    public Connection borrowReader() throws SQLException {
+        return readers.borrow();
+    }
+
+    /**
+     * Borrows the writer connection, waiting up to the borrow timeout if another caller holds it.
+     * The returned connection must be closed to give it back to the pool.
+     *
+     * @return the validated writer connection
+     * @throws SQLException if the pool is closed or the writer did not become free in time
+     */
+    public Connection borrowWriter() throws SQLException {
+        return writer.borrow();
+    }
+
+    /**
+     * Opens and configures a new physical connection.
+     *
+     * @param readOnly whether the connection is for the read partition
+     * @return the configured connection
+     * @throws SQLException if the connection cannot be opened or configured
+     */
+    private Connection open(boolean readOnly) throws SQLException {
+        Connection conn = DriverManager.getConnection(url);
+        try {
+            profile.applyTo(conn, readOnly);
+        } catch (SQLException e) {
+            closeQuietly(conn);
+            throw e;
+        }
+        return conn;
+    }
+
+    /**
+     * Checks whether borrowed connections are watched for leaks. Borrow sites are only recorded when they are.
+     *
+     * @return true if the leak threshold is positive
+     */
+    public boolean isLeakDetectionEnabled() {
+        return leakThresholdMillis > 0;
+    }
+
+    /**
+     * Reports connections that have been held for longer than the leak threshold.
+     * Each lease is reported once.
+     */
+    private void detectLeaks() {
+        long now = System.currentTimeMillis();
+        for (Partition partition : new Partition[]{readers, writer}) {
+            for (Lease lease : partition.leased.values()) {
+                if (!lease.reported && now - lease.borrowedAt > leakThresholdMillis) {
+                    lease.reported = true;
+                    partition.leakCount.incrementAndGet();
+                    Log.warn("Possible connection leak", lease.borrowSite, "partition", partition.name,
+                            "heldMs", now - lease.borrowedAt, "thread", lease.borrower);
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops the leak detector. Connections still on loan are closed
+     * when they are returned.
+     */
+    public void close() {
+        closed = true;
+        if (leakDetector != null) {
+            leakDetector.shutdownNow();
+        }
+        readers.drain();
+        writer.drain();
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // The connection is being discarded anyway
+        }
+    }
+
+    /**
+     * Gets the storage profile applied to the pooled connections.
+     *
+     * @return the storage profile
+     */
+    public StorageProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Gets the read-only partition of the pool, for metrics.
+     *
+     * @return the reader partition
+     */
+    public Partition getReaders() {
+        return readers;
+    }
+
+    /**
+     * Gets the writer partition of the pool, for metrics.
+     *
+     * @return the writer partition
+     */
+    public Partition getWriter() {
+        return writer;
+    }
+
+    /**
+     * Gets the limiter reader borrows pass through, for metrics.
+     *
+     * @return the read limiter, or null if reads are not limited
+     */
+    public AdaptiveLimiter getReadLimiter() {
+        return readers.limiter;
+    }
+
+    /**
+     * Returns a one-line summary of the pool metrics.
+     *
+     * @return the pool metrics as a string
+     */
+    @Override
+    public String toString() {
+        return "ConnectionPool{" + "profile=" + profile + ", readers=" + readers + ", writer=" + writer + '}';
+    }
+
+    /**
+     * A fixed-size group of identically configured connections with its own idle queue and metrics.
+     */
+    public final class Partition {
+
+        private final String name;
+        private final int maxSize;
+        private final boolean readOnly;
+        private final AdaptiveLimiter limiter;
+        private final BlockingQueue<Connection> idle;
+        private final Map<Connection, Lease> leased = new ConcurrentHashMap<>();
+        private final AtomicInteger opened = new AtomicInteger();
+
+        private final AtomicLong borrowCount = new AtomicLong();
+        private final AtomicLong waitNanos = new AtomicLong();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+        private final AtomicLong timeoutCount = new AtomicLong();
+        private final AtomicLong invalidCount = new AtomicLong();
+        private final AtomicLong leakCount = new AtomicLong();
+
+        private Partition(String name, int maxSize, boolean readOnly, AdaptiveLimiter limiter) {
+            if (maxSize < 1) {
+                throw new IllegalArgumentException("Pool size must be positive: " + maxSize);
+            }
+            this.name = name;
+            this.maxSize = maxSize;
+            this.readOnly = readOnly;
+            this.limiter = limiter;
+            this.idle = new ArrayBlockingQueue<>(maxSize);
+        }
+
+        /**
+         * Opens every connection of the partition up front.
+         *
+         * @throws SQLException if a connection cannot be opened
+         */
+        private void fill() throws SQLException {
+            while (opened.get() < maxSize) {
+                idle.add(open(readOnly));
+                opened.incrementAndGet();
+            }
+        }
+
+        /**
+         * Closes every idle connection of the partition.
+         */
+        private void drain() {
+            Connection physical;
+            while ((physical = idle.poll()) != null) {
+                closeQuietly(physical);
+                opened.decrementAndGet();
+            }
+        }
+
+        private Connection borrow() throws SQLException {
+            if (closed) {
+                throw new SQLException("Connection pool is closed");
+            }
+            if (limiter == null) {
+                return lease(0);
+            }
+            long permit = limiter.acquire();
+            if (permit < 0) {
+                throw new SQLTransientConnectionException("Too many concurrent " + name
+                        + " operations, limit " + limiter.getLimit());
+            }
+            try {
+                return lease(permit);
+            } catch (SQLException | RuntimeException e) {
+                limiter.release(permit, true);
+                throw e;
+            }
+        }
+
+        /**
+         * Takes an idle connection, or waits for one, and wraps it in a new lease.
+         *
+         * @param permit the limiter permit the lease releases when it ends
+         * @return the borrower's proxy for the connection
+         * @throws SQLException if no connection became free in time or one cannot be opened
+         */
+        private Connection lease(long permit) throws SQLException {
+            long start = System.nanoTime();
+            Connection physical = idle.poll();
+
+            if (physical == null) {
+                physical = openIfBelowLimit();
+            }
+            if (physical == null) {
+                try {
+                    physical = idle.poll(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a " + name + " connection", e);
+                }
+                if (physical == null) {
+                    timeoutCount.incrementAndGet();
+                    throw new SQLTimeoutException("Timed out after " + borrowTimeoutMillis
+                            + " ms waiting for a " + name + " connection");
+                }
+            }
+
+            physical = validate(physical);
+
+            long waited = System.nanoTime() - start;
+            borrowCount.incrementAndGet();
+            waitNanos.addAndGet(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+            Throwable borrowSite = isLeakDetectionEnabled() ? new Throwable("Connection borrowed here") : null;
+            Lease lease = new Lease(this, physical, permit, borrowSite);
+            Connection proxy = (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, lease);
+            lease.proxy = proxy;
+            leased.put(proxy, lease);
+            return proxy;
+        }
+
+        /**
+         * Opens a replacement connection if connections were discarded and the partition is below its size.
+         *
+         * @return the new connection, or null if the partition is already full
+         * @throws SQLException if the connection cannot be opened
+         */
+        private Connection openIfBelowLimit() throws SQLException {
+            while (true) {
+                int current = opened.get();
+                if (current >= maxSize) {
+                    return null;
+                }
+                if (opened.compareAndSet(current, current + 1)) {
+                    try {
+                        return open(readOnly);
+                    } catch (SQLException e) {
+                        opened.decrementAndGet();
+                        throw e;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Checks that an idle connection is still usable, replacing it with a fresh one if not.
+         *
+         * @param physical the connection taken from the idle queue
+         * @return a usable connection
+         * @throws SQLException if a replacement connection cannot be opened
+         */
+        private Connection validate(Connection physical) throws SQLException {
+            boolean valid;
+            try {
+                valid = physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                valid = false;
+            }
+            if (valid) {
+                return physical;
+            }
+            invalidCount.incrementAndGet();
+            closeQuietly(physical);
+            try {
+                return open(readOnly);
+            } catch (SQLException e) {
+                opened.decrementAndGet();
+                throw e;
+            }
+        }
+
+        /**
+         * Returns a leased connection to the idle queue, resetting any transaction state left behind.
+         *
+         * @param lease the lease being released
+         */
+        private void release(Lease lease) {
+            leased.remove(lease.proxy);
+            if (limiter != null) {
+                limiter.release(lease.permit, lease.failed);
+            }
+            Connection physical = lease.physical;
+            try {
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                closeQuietly(physical);
+                opened.decrementAndGet();
+                return;
+            }
+            if (closed || !idle.offer(physical)) {
+                closeQuietly(physical);
+                opened.decrementAndGet();
+            }
+        }
+
+        /**
+         * Gets the number of connections in this partition.
+         *
+         * @return the partition size
+         */
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        /**
+         * Gets the number of connections currently on loan.
+         *
+         * @return the active connection count
+         */
+        public int getActiveCount() {
+            return leased.size();
+        }
+
+        /**
+         * Gets the number of open connections waiting in the partition.
+         *
+         * @return the idle connection count
+         */
+        public int getIdleCount() {
+            return idle.size();
+        }
+
+        /**
+         * Gets the number of successful borrows since the pool started.
+         *
+         * @return the borrow count
+         */
+        public long getBorrowCount() {
+            return borrowCount.get();
+        }
+
+        /**
+         * Gets the total time callers have spent waiting to borrow a connection.
+         *
+         * @return the accumulated wait time in milliseconds
+         */
+        public long getTotalWaitMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(waitNanos.get());
+        }
+
+        /**
+         * Gets the longest time a single borrow has waited.
+         *
+         * @return the maximum wait time in milliseconds
+         */
+        public long getMaxWaitMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+        }
+
+        /**
+         * Gets the number of borrows that gave up waiting for a connection.
+         *
+         * @return the timeout count
+         */
+        public long getTimeoutCount() {
+            return timeoutCount.get();
+        }
+
+        /**
+         * Gets the number of connections that failed validation and were replaced.
+         *
+         * @return the invalid connection count
+         */
+        public long getInvalidCount() {
+            return invalidCount.get();
+        }
+
+        /**
+         * Gets the number of leases that exceeded the leak threshold.
+         *
+         * @return the leak count
+         */
+        public long getLeakCount() {
+            return leakCount.get();
+        }
+
+        /**
+         * Returns a one-line summary of the partition metrics.
+         *
+         * @return the partition metrics as a string
+         */
+        @Override
+        public String toString() {
+            return "{active=" + getActiveCount() + ", idle=" + getIdleCount() + ", max=" + maxSize
+                    + ", borrows=" + getBorrowCount() + ", waitMs=" + getTotalWaitMillis() + ", maxWaitMs="
+                    + getMaxWaitMillis() + ", timeouts=" + getTimeoutCount() + ", invalid=" + getInvalidCount()
+                    + ", leaks=" + getLeakCount() + '}';
+        }
+    }
+
+    /**
+     * A single loan of a physical connection. Acts as the invocation handler of the proxy handed to the
+     * borrower, so that closing the proxy returns the connection instead of closing it.
+     */
+    private static final class Lease implements InvocationHandler {
+
+        private final Partition partition;
+        private final Connection physical;
+        private final long borrowedAt = System.currentTimeMillis();
+        private final String borrower = Thread.currentThread().getName();
+        private final Throwable borrowSite;
+        private final long permit;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private Connection proxy;
+        private volatile boolean failed;
+        private volatile boolean reported;
+
+        private Lease(Partition partition, Connection physical, long permit, Throwable borrowSite) {
+            this.partition = partition;
+            this.physical = physical;
+            this.permit = permit;
+            this.borrowSite = borrowSite;
+        }
+
+        @Override
+        public Object invoke(Object proxyInstance, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (released.compareAndSet(false, true)) {
+                        partition.release(this);
+                    }
+                    return null;
+                case "isClosed":
+                    return released.get() || physical.isClosed();
+                case "equals":
+                    return proxyInstance == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxyInstance);
+                case "toString":
+                    return "PooledConnection{" + partition.name + ", " + physical + '}';
+                default:
+                    if (released.get()) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        failed = true;
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
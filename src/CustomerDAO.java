@@ -1,10 +1,11 @@
 import java.sql.Connection;	
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 //Dominic Cash
 //16042439
@@ -23,29 +24,67 @@ import java.util.List;
  * Delete a customer
  * 
  *
- * The database connection uses the SQLite driver and the file "stores.sqlite".
+ * Database connections are borrowed from the shared {@link ConnectionPool} for the file "stores.sqlite".
+ * Every successful write bumps {@link DataVersion#CUSTOMER}.
  *
  * @author Dominic Cash
  */
 public class CustomerDAO {
 
-    /** The URL for the SQLite database connection. */
-    private static final String URL = "jdbc:sqlite:stores.sqlite";
+    private volatile SQLException readFailure;
 
     /**
-     * Establishes a connection to the SQLite database.
+     * Queues a mutation on the shared {@link WriteQueue}, which commits it together with other pending
+     * writes in a single transaction on the writer connection.
      *
-     * @return a {@link Connection} object to the database, or {@code null} if the connection fails
+     * @param work the mutation to run on the writer connection
+     * @param <T> the type of the result
+     * @return a future completed with the result once the write has committed
      */
-    protected Connection connect() {
-        Connection conn = null;
+    protected <T> CompletableFuture<T> submitWrite(WriteQueue.Work<T> work) {
+        long start = System.nanoTime();
+        return WriteQueue.getInstance().submit(work)
+                .whenComplete((result, error) -> Metrics.recordQuery("customer.write", start));
+    }
+
+    /**
+     * Waits for a queued write and reports its outcome.
+     *
+     * @param write the pending write
+     * @param errorMessage the message logged if the write failed
+     * @return the result of the write, or {@code false} if it failed
+     */
+    private boolean awaitWrite(CompletableFuture<Boolean> write, String errorMessage) {
         try {
-            conn = DriverManager.getConnection(URL);
-            System.out.println("Connected to database at: " + new java.io.File(URL.substring(12)).getAbsolutePath());
-        } catch (SQLException e) {
-            System.out.println("Connection failed: " + e.getMessage());
+            return write.join();
+        } catch (CompletionException e) {
+            Log.warn(errorMessage, "error", e.getCause().getMessage());
+            return false;
         }
-        return conn;
+    }
+
+    /**
+     * Borrows a read-only connection to the SQLite database from the shared {@link ConnectionPool}.
+     * Reads on these connections never wait on the writer. Closing the returned connection gives it
+     * back to the pool.
+     *
+     * @return a read-only Connection object to query the database
+     * @throws SQLException if no connection could be borrowed, including a
+     *         {@link java.sql.SQLTransientConnectionException} when the pool sheds the read under load
+     */
+    protected Connection connectReadOnly() throws SQLException {
+        return ConnectionPool.getInstance().borrowReader();
+    }
+
+    /**
+     * Gets the error behind the most recent read through this DAO that fell back to an empty result
+     * because the database could not be read. Handlers create a DAO per request and check this after
+     * rendering, so that a degraded page is not given a validator or cached.
+     *
+     * @return the read error, or null if every read succeeded
+     */
+    public SQLException getReadFailure() {
+        return readFailure;
     }
 
     /**
@@ -56,8 +95,9 @@ public class CustomerDAO {
     public List<Customer> findAllCustomers() {
         List<Customer> customers = new ArrayList<>();
         String query = "SELECT * FROM customer";
+        long start = System.nanoTime();
 
-        try (Connection conn = connect();
+        try (Connection conn = connectReadOnly();
              PreparedStatement stmt = conn.prepareStatement(query);
              ResultSet rs = stmt.executeQuery()) {
 
@@ -79,7 +119,10 @@ public class CustomerDAO {
                 customers.add(customer);
             }
         } catch (SQLException e) {
-            System.out.println("Error retrieving customers: " + e.getMessage());
+            Log.error("Error retrieving customers", "error", e.getMessage());
+            readFailure = e;
+        } finally {
+            Metrics.recordQuery("customer.findAll", start);
         }
 
         return customers;
@@ -94,8 +137,9 @@ public class CustomerDAO {
     public Customer findCustomer(int customerId) {
         Customer customer = null;
         String query = "SELECT * FROM customer WHERE customerID = ?";
+        long start = System.nanoTime();
 
-        try (Connection conn = connect();
+        try (Connection conn = connectReadOnly();
              PreparedStatement stmt = conn.prepareStatement(query)) {
 
             stmt.setInt(1, customerId);
@@ -118,7 +162,10 @@ public class CustomerDAO {
                 );
             }
         } catch (SQLException e) {
-            System.out.println("Error finding customer: " + e.getMessage());
+            Log.error("Error finding customer", "customerId", customerId, "error", e.getMessage());
+            readFailure = e;
+        } finally {
+            Metrics.recordQuery("customer.find", start);
         }
 
         return customer;
@@ -131,27 +178,33 @@ public class CustomerDAO {
      * @return {@code true} if the customer was inserted successfully, {@code false} otherwise
      */
     public boolean insertCustomer(Customer customer) {
-        String query = "INSERT INTO customer (businessName, addressLine0, addressLine1, addressLine2, country, postCode, telephoneNumber, email) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        return awaitWrite(insertCustomerAsync(customer), "Error inserting customer");
+    }
 
-        try (Connection conn = connect();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
+    /**
+     * Queues the insertion of a new customer without waiting for it to commit.
+     *
+     * @param customer the {@link Customer} object to insert
+     * @return a future completed with {@code true} if the customer was inserted
+     */
+    public CompletableFuture<Boolean> insertCustomerAsync(Customer customer) {
+        String query = "INSERT INTO customer (businessName, addressLine0, addressLine1, addressLine2, country, postCode, telephoneNumber, email) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
 
-            stmt.setString(1, customer.getBusinessName());
-            stmt.setString(2, customer.getAddress().getAddressLine0());
-            stmt.setString(3, customer.getAddress().getAddressLine1());
-            stmt.setString(4, customer.getAddress().getAddressLine2());
-            stmt.setString(5, customer.getAddress().getCountry());
-            stmt.setString(6, customer.getAddress().getPostCode());
-            stmt.setString(7, customer.getTelephoneNumber());
-            stmt.setString(8, customer.getEmail()); 
-
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
-        } catch (SQLException e) {
-            System.out.println("Error inserting customer: " + e.getMessage());
-        }
+        return submitWrite(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                stmt.setString(1, customer.getBusinessName());
+                stmt.setString(2, customer.getAddress().getAddressLine0());
+                stmt.setString(3, customer.getAddress().getAddressLine1());
+                stmt.setString(4, customer.getAddress().getAddressLine2());
+                stmt.setString(5, customer.getAddress().getCountry());
+                stmt.setString(6, customer.getAddress().getPostCode());
+                stmt.setString(7, customer.getTelephoneNumber());
+                stmt.setString(8, customer.getEmail());
 
-        return false;
+                int rowsAffected = stmt.executeUpdate();
+                return rowsAffected > 0;
+            }
+        }).thenApply(CustomerDAO::recordChange);
     }
 
     /**
@@ -161,28 +214,34 @@ public class CustomerDAO {
      * @return {@code true} if the customer was updated successfully, {@code false} otherwise
      */
     public boolean updateCustomer(Customer customer) {
-        String query = "UPDATE customer SET businessName = ?, addressLine0 = ?, addressLine1 = ?, addressLine2 = ?, country = ?, postCode = ?, telephoneNumber = ?, email = ? WHERE customerID = ?";
+        return awaitWrite(updateCustomerAsync(customer), "Error updating customer");
+    }
 
-        try (Connection conn = connect();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
+    /**
+     * Queues an update of an existing customer without waiting for it to commit.
+     *
+     * @param customer the {@link Customer} object with updated information
+     * @return a future completed with {@code true} if the customer was updated
+     */
+    public CompletableFuture<Boolean> updateCustomerAsync(Customer customer) {
+        String query = "UPDATE customer SET businessName = ?, addressLine0 = ?, addressLine1 = ?, addressLine2 = ?, country = ?, postCode = ?, telephoneNumber = ?, email = ? WHERE customerID = ?";
 
-            stmt.setString(1, customer.getBusinessName());
-            stmt.setString(2, customer.getAddress().getAddressLine0());
-            stmt.setString(3, customer.getAddress().getAddressLine1());
-            stmt.setString(4, customer.getAddress().getAddressLine2());
-            stmt.setString(5, customer.getAddress().getCountry());
-            stmt.setString(6, customer.getAddress().getPostCode());
-            stmt.setString(7, customer.getTelephoneNumber());
-            stmt.setString(8, customer.getEmail()); 
-            stmt.setInt(9, customer.getCustomerID());
-
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
-        } catch (SQLException e) {
-            System.out.println("Error updating customer: " + e.getMessage());
-        }
+        return submitWrite(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                stmt.setString(1, customer.getBusinessName());
+                stmt.setString(2, customer.getAddress().getAddressLine0());
+                stmt.setString(3, customer.getAddress().getAddressLine1());
+                stmt.setString(4, customer.getAddress().getAddressLine2());
+                stmt.setString(5, customer.getAddress().getCountry());
+                stmt.setString(6, customer.getAddress().getPostCode());
+                stmt.setString(7, customer.getTelephoneNumber());
+                stmt.setString(8, customer.getEmail());
+                stmt.setInt(9, customer.getCustomerID());
 
-        return false;
+                int rowsAffected = stmt.executeUpdate();
+                return rowsAffected > 0;
+            }
+        }).thenApply(CustomerDAO::recordChange);
     }
 
     /**
@@ -192,19 +251,37 @@ public class CustomerDAO {
      * @return {@code true} if the customer was deleted successfully, {@code false} otherwise
      */
     public boolean deleteCustomer(int customerId) {
+        return awaitWrite(deleteCustomerAsync(customerId), "Error deleting customer");
+    }
+
+    /**
+     * Queues the deletion of a customer without waiting for it to commit.
+     *
+     * @param customerId the ID of the customer to delete
+     * @return a future completed with {@code true} if the customer was deleted
+     */
+    public CompletableFuture<Boolean> deleteCustomerAsync(int customerId) {
         String query = "DELETE FROM customer WHERE customerID = ?";
 
-        try (Connection conn = connect();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
+        return submitWrite(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                stmt.setInt(1, customerId);
+                int rowsAffected = stmt.executeUpdate();
+                return rowsAffected > 0;
+            }
+        }).thenApply(CustomerDAO::recordChange);
+    }
 
-            stmt.setInt(1, customerId);
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
-        } catch (SQLException e) {
-            System.out.println("Error deleting customer: " + e.getMessage());
+    /**
+     * Bumps the customer table version after a successful write, so cached customer pages are revalidated.
+     *
+     * @param success whether the write changed a row
+     * @return the same success flag
+     */
+    private static boolean recordChange(boolean success) {
+        if (success) {
+            DataVersion.CUSTOMER.bump();
         }
-
-        return false;
+        return success;
     }
-}
-
+}
\ No newline at end of file
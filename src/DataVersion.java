@@ -0,0 +1,58 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code DataVersion} enum keeps a monotonically increasing version for each table whose contents are
+ * shown on cacheable pages. Every successful DAO write bumps the version of the table it changed, after the
+ * change is visible to readers, so a page built after reading a version is never older than that version.
+ * <p>
+ * Versions start from zero when the server starts; {@link #BOOT_EPOCH} distinguishes one run from the next
+ * so validators issued before a restart are never mistaken for current ones.
+ *
+ * @author Dominic Cash
+ */
+public enum DataVersion {
+
+    /** The appliance table. */
+    APPLIANCE,
+
+    /** The customer table. */
+    CUSTOMER;
+
+    /** The time the server started, in milliseconds since the epoch. */
+    public static final long BOOT_EPOCH = System.currentTimeMillis();
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile long lastModified;
+
+    /**
+     * Records a change to the table.
+     *
+     * @return the new version
+     */
+    public long bump() {
+        lastModified = System.currentTimeMillis();
+        return version.incrementAndGet();
+    }
+
+    /**
+     * Gets the current version of the table.
+     *
+     * @return the version, 0 if the table has not changed since the server started
+     */
+    public long get() {
+        return version.get();
+    }
+
+    /**
+     * Gets the time of the last change to the table.
+     *
+     * @return the time in milliseconds since the epoch, or the boot time if the table has not changed
+     */
+    public long getLastModified() {
+        long changed = lastModified;
+        return changed == 0 ? BOOT_EPOCH : changed;
+    }
+}
@@ -0,0 +1,142 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code DatabaseSchema} class creates the supporting tables, indexes and triggers the application
+ * needs on top of the base store schema. It is run once by the {@link ConnectionPool} when the pool starts,
+ * and every statement is idempotent so it is safe to run against an already upgraded database.
+ * <p>
+ * Currently this adds:
+ * <p>
+ * appliance_fts - an FTS5 full-text index over appliance descriptions, kept in sync by triggers.
+ * basket and basket_line - visitors' saved baskets, written by {@link BasketStore}.
+ * orders and order_line - placed orders, written by {@link Checkout}.
+ * id_block - the next unreserved id of each id sequence, handed out in blocks by {@link OrderIdAllocator}.
+ *
+ * @author Dominic Cash
+ */
+public final class DatabaseSchema {
+
+    private DatabaseSchema() {
+        // Static utility only
+    }
+
+    /**
+     * Applies every schema upgrade on the given connection.
+     *
+     * @param conn a writable connection
+     * @throws SQLException if a statement fails
+     */
+    public static void apply(Connection conn) throws SQLException {
+        createApplianceSearchIndex(conn);
+        createBasketTables(conn);
+        createOrderTables(conn);
+    }
+
+    /**
+     * Creates the tables baskets are saved in. A basket row records when the basket was last saved, and
+     * each of its lines is a row of basket_line keyed by basket and product.
+     *
+     * @param conn a writable connection
+     * @throws SQLException if a table cannot be created
+     */
+    private static void createBasketTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS basket ("
+                    + "id TEXT PRIMARY KEY, "
+                    + "updated_at INTEGER NOT NULL)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS basket_line ("
+                    + "basket_id TEXT NOT NULL, "
+                    + "product_id INTEGER NOT NULL, "
+                    + "quantity INTEGER NOT NULL, "
+                    + "unit_price INTEGER NOT NULL, "
+                    + "PRIMARY KEY (basket_id, product_id)) WITHOUT ROWID");
+            stmt.execute("CREATE INDEX IF NOT EXISTS basket_updated_at ON basket (updated_at)");
+        }
+    }
+
+    /**
+     * Creates the external-content FTS5 table over appliance descriptions and the triggers that keep it
+     * in sync with the appliance table. The index is built from the existing rows when first created.
+     * If the SQLite build has no FTS5 module the error is reported and searches fall back to LIKE.
+     *
+     * @param conn a writable connection
+     * @throws SQLException if a trigger cannot be created
+     */
+    private static void createApplianceSearchIndex(Connection conn) throws SQLException {
+        boolean exists = tableExists(conn, "appliance_fts");
+        try (Statement stmt = conn.createStatement()) {
+            if (!exists) {
+                try {
+                    stmt.execute("CREATE VIRTUAL TABLE appliance_fts USING fts5("
+                            + "description, content='appliance', content_rowid='id')");
+                } catch (SQLException e) {
+                    Log.warn("Full-text search unavailable, falling back to LIKE", "error", e.getMessage());
+                    return;
+                }
+                stmt.execute("INSERT INTO appliance_fts(appliance_fts) VALUES ('rebuild')");
+            }
+            stmt.execute("CREATE TRIGGER IF NOT EXISTS appliance_fts_insert AFTER INSERT ON appliance BEGIN "
+                    + "INSERT INTO appliance_fts(rowid, description) VALUES (new.id, new.description); END");
+            stmt.execute("CREATE TRIGGER IF NOT EXISTS appliance_fts_delete AFTER DELETE ON appliance BEGIN "
+                    + "INSERT INTO appliance_fts(appliance_fts, rowid, description) "
+                    + "VALUES ('delete', old.id, old.description); END");
+            stmt.execute("CREATE TRIGGER IF NOT EXISTS appliance_fts_update AFTER UPDATE ON appliance BEGIN "
+                    + "INSERT INTO appliance_fts(appliance_fts, rowid, description) "
+                    + "VALUES ('delete', old.id, old.description); "
+                    + "INSERT INTO appliance_fts(rowid, description) VALUES (new.id, new.description); END");
+        }
+    }
+
+    /**
+     * Creates the tables orders are written to. Each order line keeps the SKU, description and price the
+     * product had when the order was placed, so later catalog changes do not alter past orders.
+     *
+     * @param conn a writable connection
+     * @throws SQLException if a table cannot be created
+     */
+    private static void createOrderTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS orders ("
+                    + "id INTEGER PRIMARY KEY, "
+                    + "created_at INTEGER NOT NULL, "
+                    + "item_count INTEGER NOT NULL, "
+                    + "total INTEGER NOT NULL)");
+            stmt.execute("CREATE TABLE IF NOT EXISTS order_line ("
+                    + "order_id INTEGER NOT NULL, "
+                    + "product_id INTEGER NOT NULL, "
+                    + "sku TEXT, "
+                    + "description TEXT, "
+                    + "quantity INTEGER NOT NULL, "
+                    + "unit_price INTEGER NOT NULL, "
+                    + "PRIMARY KEY (order_id, product_id)) WITHOUT ROWID");
+            stmt.execute("CREATE TABLE IF NOT EXISTS id_block ("
+                    + "name TEXT PRIMARY KEY, "
+                    + "next_id INTEGER NOT NULL)");
+        }
+    }
+
+    /**
+     * Checks whether a table exists in the database.
+     *
+     * @param conn the connection to query
+     * @param name the table name
+     * @return true if the table exists
+     * @throws SQLException if the catalog query fails
+     */
+    private static boolean tableExists(Connection conn, String name) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?")) {
+            stmt.setString(1, name);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+}
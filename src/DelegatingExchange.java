@@ -0,0 +1,119 @@
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code DelegatingExchange} class is an {@link HttpExchange} that forwards every call to another
+ * exchange. Filters and the {@link Router} extend it to change how a handler's response is sent, such as
+ * compressing or discarding the body, while handlers keep using the plain exchange API.
+ *
+ * @author Dominic Cash
+ */
+public abstract class DelegatingExchange extends HttpExchange {
+
+    /** The exchange calls are forwarded to. */
+    protected final HttpExchange delegate;
+
+    /**
+     * Creates an exchange forwarding to another.
+     *
+     * @param delegate the wrapped exchange
+     */
+    protected DelegatingExchange(HttpExchange delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void sendResponseHeaders(int code, long length) throws IOException {
+        delegate.sendResponseHeaders(code, length);
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        return delegate.getResponseBody();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public Headers getRequestHeaders() {
+        return delegate.getRequestHeaders();
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return delegate.getResponseHeaders();
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return delegate.getRequestURI();
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return delegate.getRequestMethod();
+    }
+
+    @Override
+    public HttpContext getHttpContext() {
+        return delegate.getHttpContext();
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return delegate.getRequestBody();
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return delegate.getRemoteAddress();
+    }
+
+    @Override
+    public int getResponseCode() {
+        return delegate.getResponseCode();
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return delegate.getLocalAddress();
+    }
+
+    @Override
+    public String getProtocol() {
+        return delegate.getProtocol();
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return delegate.getAttribute(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        delegate.setAttribute(name, value);
+    }
+
+    @Override
+    public void setStreams(InputStream in, OutputStream out) {
+        delegate.setStreams(in, out);
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return delegate.getPrincipal();
+    }
+}
@@ -73,70 +73,9 @@ public class DeleteProductHandler implements HttpHandler {
     private void showConfirmationPage(HttpExchange exchange, HomeAppliance appliance) throws IOException {
         String response = String.format("""
             <html>
-            <head>
-                <title>Home Solutions - Delete Product</title>
-                <meta charset='UTF-8'>
-                <link href='https://fonts.googleapis.com/css2?family=Poppins:wght@400;600&display=swap' rel='stylesheet'>
-                <style>
-                    body {
-                        font-family: 'Poppins', sans-serif;
-                        background: linear-gradient(135deg, #f0f4f8, #d9e2ec);
-                        margin: 0;
-                        padding: 0;
-                        color: #333;
-                    }
-                    .container {
-                        max-width: 600px;
-                        margin: 100px auto;
-                        padding: 20px;
-                        background: #fff;
-                        border-radius: 10px;
-                        box-shadow: 0 4px 15px rgba(0, 0, 0, 0.1);
-                        animation: fadeIn 1s ease-in;
-                        text-align: center;
-                    }
-                    @keyframes fadeIn {
-                        from { opacity: 0; }
-                        to { opacity: 1; }
-                    }
-                    h1 {
-                        color: #2c3e50;
-                        font-size: 2em;
-                        text-transform: uppercase;
-                        letter-spacing: 2px;
-                        margin-bottom: 20px;
-                    }
-                    form {
-                        display: inline-block;
-                        margin: 10px;
-                    }
-                    .btn {
-                        background: #2ecc71;
-                        color: white;
-                        padding: 12px 25px;
-                        text-align: center;
-                        border: none;
-                        cursor: pointer;
-                        text-decoration: none;
-                        display: inline-block;
-                        border-radius: 25px;
-                        font-weight: 600;
-                        transition: transform 0.2s, background 0.3s;
-                    }
-                    .btn:hover {
-                        background: #27ae60;
-                        transform: translateY(-2px);
-                    }
-                    .btn.cancel {
-                        background: #e74c3c;
-                    }
-                    .btn.cancel:hover {
-                        background: #c0392b;
-                    }
-                </style>
-            </head>
+            """ + StaticAssets.pageHead("Home Solutions - Delete Product") + """
             <body>
-                <div class="container">
+                <div class="container card message">
                     <h1>You have selected '%s' to delete. Are you sure?</h1>
                     <form method="POST" action="/deleteProduct">
                         <input type="hidden" name="id" value="%d" />
@@ -0,0 +1,97 @@
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code DrainFilter} class counts the requests in flight and lets shutdown wait for them to finish.
+ * <p>
+ * Once {@link #drain(long)} has been called, new requests are answered at once with
+ * {@code 503 Service Unavailable}, {@code Retry-After} and {@code Connection: close}, so clients and load
+ * balancers move to another instance, while the requests already running are given time to complete.
+ * The server can then be stopped without cutting off a response half way.
+ *
+ * @author Dominic Cash
+ */
+public class DrainFilter extends Filter {
+
+    private static final byte[] SHUTTING_DOWN = "503 Service Unavailable: shutting down".getBytes(StandardCharsets.UTF_8);
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean draining;
+
+    @Override
+    public String description() {
+        return "Counts requests in flight and refuses new ones while shutting down";
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        inFlight.incrementAndGet();
+        try {
+            if (draining) {
+                refuse(exchange);
+                return;
+            }
+            chain.doFilter(exchange);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Sends a 503 telling the client to retry elsewhere.
+     */
+    private static void refuse(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        exchange.getResponseHeaders().set("Connection", "close");
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+        exchange.sendResponseHeaders(503, SHUTTING_DOWN.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(SHUTTING_DOWN);
+        }
+    }
+
+    /**
+     * Refuses new requests and waits for those in flight to finish.
+     *
+     * @param timeoutMillis the longest time to wait
+     * @return true if every request finished in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean drain(long timeoutMillis) throws InterruptedException {
+        draining = true;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (inFlight.get() > 0) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether new requests are being refused.
+     *
+     * @return true once draining has started
+     */
+    public boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * Gets the number of requests being handled.
+     *
+     * @return the in-flight count
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
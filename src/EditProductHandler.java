@@ -52,89 +52,9 @@ public class EditProductHandler implements HttpHandler {
 
             String response = String.format("""
                 <html>
-                <head>
-                    <title>Home Solutions - Edit Product</title>
-                    <meta charset='UTF-8'>
-                    <link href='https://fonts.googleapis.com/css2?family=Poppins:wght@400;600&display=swap' rel='stylesheet'>
-                    <style>
-                        body {
-                            font-family: 'Poppins', sans-serif;
-                            background: linear-gradient(135deg, #f0f4f8, #d9e2ec);
-                            margin: 0;
-                            padding: 0;
-                            color: #333;
-                        }
-                        .container {
-                            max-width: 600px;
-                            margin: 60px auto;
-                            padding: 20px;
-                            background: #fff;
-                            border-radius: 10px;
-                            box-shadow: 0 4px 15px rgba(0, 0, 0, 0.1);
-                            animation: fadeIn 1s ease-in;
-                        }
-                        @keyframes fadeIn {
-                            from { opacity: 0; }
-                            to { opacity: 1; }
-                        }
-                        h1 {
-                            text-align: center;
-                            color: #2c3e50;
-                            font-size: 2em;
-                            text-transform: uppercase;
-                            letter-spacing: 2px;
-                            margin-bottom: 20px;
-                        }
-                        form {
-                            display: flex;
-                            flex-direction: column;
-                            gap: 15px;
-                        }
-                        label {
-                            font-weight: 600;
-                            margin-bottom: 5px;
-                        }
-                        input[type='text'], input[type='number'] {
-                            width: 100%%;
-                            padding: 12px;
-                            border-radius: 8px;
-                            border: 1px solid #ddd;
-                            font-size: 1em;
-                            background: #fafafa;
-                            box-sizing: border-box;
-                            transition: border-color 0.3s;
-                        }
-                        input[type='text']:focus, input[type='number']:focus {
-                            border-color: #3498db;
-                            outline: none;
-                        }
-                        .btn {
-                            background: #2ecc71;
-                            color: white;
-                            padding: 12px 25px;
-                            text-align: center;
-                            border: none;
-                            cursor: pointer;
-                            text-decoration: none;
-                            display: inline-block;
-                            border-radius: 25px;
-                            font-weight: 600;
-                            transition: transform 0.2s, background 0.3s;
-                        }
-                        .btn:hover {
-                            background: #27ae60;
-                            transform: translateY(-2px);
-                        }
-                        .footer {
-                            display: flex;
-                            justify-content: center;
-                            gap: 20px;
-                            margin-top: 20px;
-                        }
-                    </style>
-                </head>
+                """ + StaticAssets.pageHead("Home Solutions - Edit Product") + """
                 <body>
-                    <div class="container">
+                    <div class="container card">
                         <h1>Edit Product</h1>
                         <form method='POST' action='/editProduct'>
                             <input type='hidden' name='id' value='%d' />
@@ -160,67 +80,16 @@ public class EditProductHandler implements HttpHandler {
         } catch (Exception e) {
             sendResponse(exchange, 500, """
                 <html>
-                <head>
-                    <title>Home Solutions - Error</title>
-                    <meta charset='UTF-8'>
-                    <link href='https://fonts.googleapis.com/css2?family=Poppins:wght@400;600&display=swap' rel='stylesheet'>
-                    <style>
-                        body {
-                            font-family: 'Poppins', sans-serif;
-                            background: linear-gradient(135deg, #f0f4f8, #d9e2ec);
-                            margin: 0;
-                            padding: 0;
-                            color: #333;
-                        }
-                        .container {
-                            max-width: 600px;
-                            margin: 100px auto;
-                            padding: 20px;
-                            background: #fff;
-                            border-radius: 10px;
-                            box-shadow: 0 4px 15px rgba(0, 0, 0, 0.1);
-                            animation: fadeIn 1s ease-in;
-                            text-align: center;
-                        }
-                        @keyframes fadeIn {
-                            from { opacity: 0; }
-                            to { opacity: 1; }
-                        }
-                        h1 {
-                            color: #2c3e50;
-                            font-size: 2em;
-                            text-transform: uppercase;
-                            letter-spacing: 2px;
-                            margin-bottom: 20px;
-                        }
-                        .btn {
-                            background: #2ecc71;
-                            color: white;
-                            padding: 12px 25px;
-                            text-align: center;
-                            border: none;
-                            cursor: pointer;
-                            text-decoration: none;
-                            display: inline-block;
-                            border-radius: 25px;
-                            font-weight: 600;
-                            transition: transform 0.2s, background 0.3s;
-                        }
-                        .btn:hover {
-                            background: #27ae60;
-                            transform: translateY(-2px);
-                        }
-                    </style>
-                </head>
+                """ + StaticAssets.pageHead("Home Solutions - Error") + """
                 <body>
-                    <div class="container">
+                    <div class="container card message">
                         <h1>Error Loading Product for Editing</h1>
                         <p><a href="/adminPanel" class="btn">Back to Admin Panel</a></p>
                     </div>
                 </body>
                 </html>
             """);
-            e.printStackTrace();
+            Log.error("Error loading product for editing", e);
         }
     }
 
@@ -235,7 +104,7 @@ public class EditProductHandler implements HttpHandler {
         String formData = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
         Map<String, String> params = parseFormData(formData);
 
-        System.out.println("POST params: " + params); // Debug log
+        Log.debug("Product update submitted", "params", params);
 
         try {
             int id = Integer.parseInt(params.get("id"));
@@ -250,60 +119,9 @@ public class EditProductHandler implements HttpHandler {
 
             String response = String.format("""
                 <html>
-                <head>
-                    <title>Home Solutions - Product Update</title>
-                    <meta charset='UTF-8'>
-                    <link href='https://fonts.googleapis.com/css2?family=Poppins:wght@400;600&display=swap' rel='stylesheet'>
-                    <style>
-                        body {
-                            font-family: 'Poppins', sans-serif;
-                            background: linear-gradient(135deg, #f0f4f8, #d9e2ec);
-                            margin: 0;
-                            padding: 0;
-                            color: #333;
-                        }
-                        .container {
-                            max-width: 600px;
-                            margin: 100px auto;
-                            padding: 20px;
-                            background: #fff;
-                            border-radius: 10px;
-                            box-shadow: 0 4px 15px rgba(0, 0, 0, 0.1);
-                            animation: fadeIn 1s ease-in;
-                            text-align: center;
-                        }
-                        @keyframes fadeIn {
-                            from { opacity: 0; }
-                            to { opacity: 1; }
-                        }
-                        h1 {
-                            color: #2c3e50;
-                            font-size: 2em;
-                            text-transform: uppercase;
-                            letter-spacing: 2px;
-                            margin-bottom: 20px;
-                        }
-                        .btn {
-                            background: #2ecc71;
-                            color: white;
-                            padding: 12px 25px;
-                            text-align: center;
-                            border: none;
-                            cursor: pointer;
-                            text-decoration: none;
-                            display: inline-block;
-                            border-radius: 25px;
-                            font-weight: 600;
-                            transition: transform 0.2s, background 0.3s;
-                        }
-                        .btn:hover {
-                            background: #27ae60;
-                            transform: translateY(-2px);
-                        }
-                    </style>
-                </head>
+                """ + StaticAssets.pageHead("Home Solutions - Product Update") + """
                 <body>
-                    <div class="container">
+                    <div class="container card message">
                         <h1>%s</h1>
                         <p><a href='/adminPanel' class='btn'>Back to Admin Panel</a></p>
                     </div>
@@ -315,67 +133,16 @@ public class EditProductHandler implements HttpHandler {
         } catch (Exception e) {
             sendResponse(exchange, 400, """
                 <html>
-                <head>
-                    <title>Home Solutions - Error</title>
-                    <meta charset='UTF-8'>
-                    <link href='https://fonts.googleapis.com/css2?family=Poppins:wght@400;600&display=swap' rel='stylesheet'>
-                    <style>
-                        body {
-                            font-family: 'Poppins', sans-serif;
-                            background: linear-gradient(135deg, #f0f4f8, #d9e2ec);
-                            margin: 0;
-                            padding: 0;
-                            color: #333;
-                        }
-                        .container {
-                            max-width: 600px;
-                            margin: 100px auto;
-                            padding: 20px;
-                            background: #fff;
-                            border-radius: 10px;
-                            box-shadow: 0 4px 15px rgba(0, 0, 0, 0.1);
-                            animation: fadeIn 1s ease-in;
-                            text-align: center;
-                        }
-                        @keyframes fadeIn {
-                            from { opacity: 0; }
-                            to { opacity: 1; }
-                        }
-                        h1 {
-                            color: #2c3e50;
-                            font-size: 2em;
-                            text-transform: uppercase;
-                            letter-spacing: 2px;
-                            margin-bottom: 20px;
-                        }
-                        .btn {
-                            background: #2ecc71;
-                            color: white;
-                            padding: 12px 25px;
-                            text-align: center;
-                            border: none;
-                            cursor: pointer;
-                            text-decoration: none;
-                            display: inline-block;
-                            border-radius: 25px;
-                            font-weight: 600;
-                            transition: transform 0.2s, background 0.3s;
-                        }
-                        .btn:hover {
-                            background: #27ae60;
-                            transform: translateY(-2px);
-                        }
-                    </style>
-                </head>
+                """ + StaticAssets.pageHead("Home Solutions - Error") + """
                 <body>
-                    <div class="container">
+                    <div class="container card message">
                         <h1>Invalid Form Data or Server Error</h1>
                         <p><a href="/adminPanel" class="btn">Back to Admin Panel</a></p>
                     </div>
                 </body>
                 </html>
             """);
-            e.printStackTrace();
+            Log.warn("Error updating product", e, "params", params);
         }
     }
 
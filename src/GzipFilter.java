@@ -0,0 +1,420 @@
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code GzipFilter} class compresses response bodies with gzip for clients that send
+ * {@code Accept-Encoding: gzip}. Handlers are unchanged: the filter hands them a wrapped exchange that
+ * intercepts {@code sendResponseHeaders} and the response body stream.
+ * <p>
+ * Only textual responses are compressed, and bodies with a known length below a minimum size are sent as
+ * they are. Other responses are streamed through a {@link GZIPOutputStream} as the handler writes them.
+ * <p>
+ * Cacheable responses, meaning successful GET responses that carry an {@code ETag} and do not forbid
+ * shared caching, are compressed once. The compressed bytes are kept in a size-bounded LRU cache, keyed
+ * by request URI and ETag, together with a SHA-256 digest of the uncompressed body. A later response is
+ * served from the cache only when the handler rendered exactly the same bytes. Any other body is
+ * compressed again and replaces the entry.
+ * <p>
+ * A compressed response is a different representation from the plain one, so its {@code ETag} gets a
+ * {@value #ETAG_SUFFIX} suffix. {@link ConditionalGet} strips the suffix again when it compares
+ * {@code If-None-Match}.
+ * <p>
+ * The following system properties configure the filter:
+ * <p>
+ * store.gzip.minBytes - the smallest body compressed, in bytes (default 1024).
+ * store.gzip.cacheBytes - the total size of cached compressed bodies, in bytes (default 8 MB, 0 disables).
+ *
+ * @author Dominic Cash
+ */
+public class GzipFilter extends Filter {
+
+    /** The system property holding the minimum body size to compress. */
+    public static final String MIN_BYTES_PROPERTY = "store.gzip.minBytes";
+
+    /** The system property holding the size of the compressed body cache. */
+    public static final String CACHE_BYTES_PROPERTY = "store.gzip.cacheBytes";
+
+    /** The suffix added to the entity tag of a compressed response, inside the closing quote. */
+    public static final String ETAG_SUFFIX = "-gz";
+
+    private static final int DEFAULT_MIN_BYTES = 1024;
+    private static final long DEFAULT_CACHE_BYTES = 8L * 1024 * 1024;
+
+    private final int minBytes;
+    private final long cacheCapacity;
+    private final LinkedHashMap<String, CachedBody> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedBytes;
+
+    private final AtomicLong compressedCount = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+
+    /**
+     * Creates a filter configured from system properties.
+     */
+    public GzipFilter() {
+        this(Integer.getInteger(MIN_BYTES_PROPERTY, DEFAULT_MIN_BYTES),
+                Long.getLong(CACHE_BYTES_PROPERTY, DEFAULT_CACHE_BYTES));
+    }
+
+    /**
+     * Creates a filter.
+     *
+     * @param minBytes the smallest body with a known length that is compressed
+     * @param cacheCapacity the total size of cached compressed bodies in bytes, 0 to disable the cache
+     */
+    public GzipFilter(int minBytes, long cacheCapacity) {
+        this.minBytes = Math.max(0, minBytes);
+        this.cacheCapacity = Math.max(0, cacheCapacity);
+    }
+
+    @Override
+    public String description() {
+        return "Compresses responses with gzip when the client accepts it";
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+        if (!acceptsGzip(exchange.getRequestHeaders().get("Accept-Encoding"))) {
+            chain.doFilter(exchange);
+            return;
+        }
+        CompressingExchange compressing = new CompressingExchange(exchange);
+        try {
+            chain.doFilter(compressing);
+        } finally {
+            compressing.finish();
+        }
+    }
+
+    /**
+     * Checks whether an Accept-Encoding header allows gzip.
+     *
+     * @param values the header values, may be null
+     * @return true if gzip (or any encoding) is accepted with a non-zero quality
+     */
+    static boolean acceptsGzip(Iterable<String> values) {
+        if (values == null) {
+            return false;
+        }
+        for (String value : values) {
+            for (String coding : value.split(",")) {
+                String[] parts = coding.trim().split(";");
+                String name = parts[0].trim().toLowerCase(Locale.ROOT);
+                if (!name.equals("gzip") && !name.equals("*")) {
+                    continue;
+                }
+                boolean rejected = false;
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].trim();
+                    if (parameter.startsWith("q=")) {
+                        try {
+                            rejected = Double.parseDouble(parameter.substring(2)) <= 0;
+                        } catch (NumberFormatException e) {
+                            rejected = true;
+                        }
+                    }
+                }
+                if (!rejected) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the gzip suffix to an entity tag.
+     *
+     * @param etag the entity tag of the uncompressed response, strong or weak
+     * @return the entity tag of the compressed response
+     */
+    static String gzipETag(String etag) {
+        if (!etag.endsWith("\"") || etag.endsWith(ETAG_SUFFIX + "\"")) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + ETAG_SUFFIX + '"';
+    }
+
+    /**
+     * Removes the gzip suffix from an entity tag, if it has one.
+     *
+     * @param etag an entity tag as sent by a client
+     * @return the entity tag of the uncompressed response
+     */
+    static String stripGzipETag(String etag) {
+        if (!etag.endsWith(ETAG_SUFFIX + "\"")) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - ETAG_SUFFIX.length() - 1) + '"';
+    }
+
+    /**
+     * Checks whether a content type is worth compressing. A missing content type is treated as HTML,
+     * which is what the store's handlers send.
+     */
+    private static boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return true;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.startsWith("text/") || type.contains("json") || type.contains("javascript")
+                || type.contains("xml");
+    }
+
+    /**
+     * Checks whether a response may be kept in the compressed body cache.
+     */
+    private boolean isCacheable(HttpExchange exchange, int code, Headers headers) {
+        if (cacheCapacity == 0 || code != 200 || !"GET".equals(exchange.getRequestMethod())
+                || headers.getFirst("ETag") == null) {
+            return false;
+        }
+        String cacheControl = headers.getFirst("Cache-Control");
+        if (cacheControl == null) {
+            return true;
+        }
+        String directives = cacheControl.toLowerCase(Locale.ROOT);
+        return !directives.contains("no-store") && !directives.contains("private");
+    }
+
+    private static String cacheKey(HttpExchange exchange, Headers headers) {
+        return exchange.getRequestURI() + "\n" + headers.getFirst("ETag");
+    }
+
+    private CachedBody cached(String key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    private void store(String key, CachedBody body) {
+        if (body.compressed.length > cacheCapacity / 4) {
+            return;
+        }
+        synchronized (cache) {
+            CachedBody previous = cache.put(key, body);
+            cachedBytes += body.compressed.length - (previous == null ? 0 : previous.compressed.length);
+            Iterator<CachedBody> eldest = cache.values().iterator();
+            while (cachedBytes > cacheCapacity && eldest.hasNext()) {
+                cachedBytes -= eldest.next().compressed.length;
+                eldest.remove();
+            }
+        }
+    }
+
+    private static byte[] digest(byte[] bytes, int length) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(bytes, 0, length);
+            return sha256.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static byte[] compress(byte[] bytes, int length) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(256, length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer, 8192)) {
+            gzip.write(bytes, 0, length);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Gets the number of responses compressed, including those served from the cache.
+     *
+     * @return the compressed response count
+     */
+    public long getCompressedCount() {
+        return compressedCount.get();
+    }
+
+    /**
+     * Gets the number of responses served from the compressed body cache.
+     *
+     * @return the cache hit count
+     */
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * Gets the total size of the cached compressed bodies.
+     *
+     * @return the cached size in bytes
+     */
+    public long getCachedBytes() {
+        synchronized (cache) {
+            return cachedBytes;
+        }
+    }
+
+    /**
+     * An exchange that decides at {@code sendResponseHeaders} whether to compress, and then gives the
+     * handler a body stream that compresses, buffers for the cache, or discards when served from the cache.
+     */
+    private final class CompressingExchange extends DelegatingExchange {
+
+        private OutputStream body;
+
+        CompressingExchange(HttpExchange delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void sendResponseHeaders(int code, long length) throws IOException {
+            Headers headers = delegate.getResponseHeaders();
+            String etag = headers.getFirst("ETag");
+            if (code == 304 && etag != null) {
+                // Confirm the variant the client holds
+                String ifNoneMatch = delegate.getRequestHeaders().getFirst("If-None-Match");
+                if (ifNoneMatch != null && ifNoneMatch.contains(gzipETag(etag))) {
+                    headers.set("ETag", gzipETag(etag));
+                }
+            }
+            boolean compress = length >= 0 && code != 204 && code != 304 && !"HEAD".equals(getRequestMethod())
+                    && headers.getFirst("Content-Encoding") == null
+                    && isCompressible(headers.getFirst("Content-Type"))
+                    && (length == 0 || length >= minBytes);
+            if (!compress) {
+                delegate.sendResponseHeaders(code, length);
+                return;
+            }
+
+            headers.set("Content-Encoding", "gzip");
+            if (etag != null) {
+                headers.set("ETag", gzipETag(etag));
+            }
+            compressedCount.incrementAndGet();
+
+            if (length > 0 && length <= Integer.MAX_VALUE && isCacheable(delegate, code, headers)) {
+                body = new CachingStream(code, cacheKey(delegate, headers), (int) length);
+                return;
+            }
+
+            delegate.sendResponseHeaders(code, 0);
+            body = new GZIPOutputStream(delegate.getResponseBody(), 8192);
+        }
+
+        @Override
+        public OutputStream getResponseBody() {
+            return body != null ? body : delegate.getResponseBody();
+        }
+
+        /**
+         * Completes the compressed body if the handler did not close it.
+         */
+        void finish() throws IOException {
+            if (body != null) {
+                body.close();
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                finish();
+            } catch (IOException e) {
+                // The client has gone; the delegate close below releases the exchange
+            }
+            delegate.close();
+        }
+
+        /**
+         * Collects a cacheable body in memory. On close it sends the cached compression if the body is
+         * identical to the one cached, and otherwise compresses the body, caches it and sends it.
+         */
+        private final class CachingStream extends FilterOutputStream {
+
+            private final int code;
+            private final String key;
+            private final Buffer buffer;
+            private boolean closed;
+
+            CachingStream(int code, String key, int length) {
+                this(code, key, new Buffer(length));
+            }
+
+            private CachingStream(int code, String key, Buffer buffer) {
+                super(buffer);
+                this.code = code;
+                this.key = key;
+                this.buffer = buffer;
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                out.write(bytes, offset, length);
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                byte[] raw = buffer.bytes();
+                int length = buffer.size();
+                byte[] digest = digest(raw, length);
+                CachedBody hit = cached(key);
+                byte[] compressed;
+                if (hit != null && Arrays.equals(hit.digest, digest)) {
+                    cacheHits.incrementAndGet();
+                    compressed = hit.compressed;
+                } else {
+                    compressed = compress(raw, length);
+                    store(key, new CachedBody(digest, compressed));
+                }
+                delegate.sendResponseHeaders(code, compressed.length);
+                try (OutputStream client = delegate.getResponseBody()) {
+                    client.write(compressed);
+                }
+            }
+        }
+    }
+
+    /**
+     * A byte buffer that exposes its array, so a body is not copied before it is hashed and compressed.
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        Buffer(int length) {
+            super(length);
+        }
+
+        byte[] bytes() {
+            return buf;
+        }
+    }
+
+    /**
+     * A cached compressed body together with the digest of the uncompressed bytes it was made from.
+     */
+    private static final class CachedBody {
+
+        private final byte[] digest;
+        private final byte[] compressed;
+
+        CachedBody(byte[] digest, byte[] compressed) {
+            this.digest = digest;
+            this.compressed = compressed;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import org.json.JSONObject;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code HealthHandler} class serves "/health", the liveness probe for a supervisor. It answers 200
+ * whenever the server can handle a request at all, from memory only, so a slow or unavailable database
+ * never gets a healthy process restarted. Whether the server should receive traffic is answered by
+ * {@link ReadyHandler}.
+ * <p>
+ * Example response:
+ * <p>
+ * {"status":"UP","uptimeSeconds":3600.5}
+ *
+ * @author Dominic Cash
+ */
+public class HealthHandler implements HttpHandler {
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        JSONObject result = new JSONObject()
+                .put("status", "UP")
+                .put("uptimeSeconds", ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0);
+        byte[] body = result.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+}
@@ -1,11 +1,14 @@
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 //Dominic Cash
 //16042439
@@ -14,39 +17,113 @@ import java.util.Map;
  * The HomeApplianceDAO class is responsible for interacting with the SQLite database to perform CRUD operations
  * on the appliance data. It provides methods to retrieve, insert, update, and delete home appliance records
  * from the database.
+ * <p>
+ * Catalog reads are served from an immutable in-memory {@link CatalogSnapshot} of the appliance table,
+ * loaded on first use. Every successful write through the DAO publishes a new snapshot, so reads never
+ * lock and see committed changes immediately. Each write then bumps {@link DataVersion#APPLIANCE}.
  *
  * @author dominic cash
  */
 public class HomeApplianceDAO {
 
-    private static final String URL = "jdbc:sqlite:stores.sqlite";
+    private final CatalogCache catalog;
+    private volatile SQLException readFailure;
 
     /**
-     * Establishes a connection to the SQLite database.
+     * Creates a DAO that serves reads from the shared in-memory {@link CatalogCache}.
+     */
+    public HomeApplianceDAO() {
+        this(CatalogCache.shared());
+    }
+
+    /**
+     * Creates a DAO that serves reads from the given catalog cache.
      *
-     * @return a Connection object to interact with the database, or null if the connection fails
+     * @param catalog the catalog cache to read from and publish changes to
      */
-    protected Connection connect() {
-        Connection conn = null;
+    HomeApplianceDAO(CatalogCache catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Queues a mutation on the shared {@link WriteQueue}, which commits it together with other pending
+     * writes in a single transaction on the writer connection. The time from queueing to commit is
+     * recorded in {@link Metrics} as the "appliance.write" operation.
+     *
+     * @param work the mutation to run on the writer connection
+     * @param <T> the type of the result
+     * @return a future completed with the result once the write has committed
+     */
+    protected <T> CompletableFuture<T> submitWrite(WriteQueue.Work<T> work) {
+        long start = System.nanoTime();
+        return WriteQueue.getInstance().submit(work)
+                .whenComplete((result, error) -> Metrics.recordQuery("appliance.write", start));
+    }
+
+    /**
+     * Waits for a queued write and reports its outcome.
+     *
+     * @param write the pending write
+     * @param errorMessage the message logged if the write failed
+     * @return the result of the write, or false if it failed
+     */
+    private boolean awaitWrite(CompletableFuture<Boolean> write, String errorMessage) {
         try {
-            conn = DriverManager.getConnection(URL);
-            System.out.println("Connected to database at: " + new java.io.File(URL.substring(12)).getAbsolutePath());
-        } catch (SQLException e) {
-            System.out.println("Connection failed: " + e.getMessage());
+            return write.join();
+        } catch (CompletionException e) {
+            Log.warn(errorMessage, "error", e.getCause().getMessage());
+            return false;
         }
-        return conn;
     }
 
     /**
-     * Retrieves all products (appliances) from the database.
+     * Borrows a read-only connection to the SQLite database from the shared {@link ConnectionPool}.
+     * Reads on these connections never wait on the writer. Closing the returned connection gives it
+     * back to the pool.
      *
-     * @return a list of HomeAppliance objects containing details of all products in the database
+     * @return a read-only Connection object to query the database
+     * @throws SQLException if no connection could be borrowed, including a
+     *         {@link java.sql.SQLTransientConnectionException} when the pool sheds the read under load
      */
-    public List<HomeAppliance> findAllProducts() {
+    protected Connection connectReadOnly() throws SQLException {
+        return ConnectionPool.getInstance().borrowReader();
+    }
+
+    /**
+     * Gets the current catalog snapshot, loading it from the database on first use.
+     *
+     * @return the current catalog snapshot
+     */
+    protected CatalogSnapshot snapshot() {
+        CatalogSnapshot snapshot = catalog.get(this::loadSnapshot);
+        if (snapshot == CatalogSnapshot.EMPTY && readFailure == null) {
+            readFailure = new SQLException("The catalog could not be loaded");
+        }
+        return snapshot;
+    }
+
+    /**
+     * Gets the error behind the most recent read through this DAO that fell back to an empty result
+     * because the database could not be read. Handlers create a DAO per request and check this after
+     * rendering, so that a degraded page is not given a validator or cached.
+     *
+     * @return the read error, or null if every read succeeded
+     */
+    public SQLException getReadFailure() {
+        return readFailure;
+    }
+
+    /**
+     * Loads every row of the appliance table into a new snapshot.
+     *
+     * @return the loaded snapshot, or null if the table could not be read
+     */
+    private CatalogSnapshot loadSnapshot() {
         List<HomeAppliance> appliances = new ArrayList<>();
         String query = "SELECT * FROM appliance";
+        long start = System.nanoTime();
 
-        try (Connection conn = connect();
+        try (Connection conn = connectReadOnly();
              PreparedStatement stmt = conn.prepareStatement(query);
              ResultSet rs = stmt.executeQuery()) {
 
@@ -61,77 +138,271 @@ public class HomeApplianceDAO {
                 appliances.add(appliance);
             }
         } catch (SQLException e) {
-            System.out.println("Error retrieving products: " + e.getMessage());
+            Log.error("Error retrieving products", "error", e.getMessage());
+            readFailure = e;
+            return null;
+        } finally {
+            Metrics.recordQuery("appliance.load", start);
         }
 
-        return appliances;
+        return new CatalogSnapshot(appliances);
     }
 
     /**
-     * Retrieves all distinct categories from the appliance database.
+     * Retrieves all products (appliances) from the catalog.
+     * The returned appliances are shared with the catalog snapshot and must not be modified.
+     *
+     * @return a list of HomeAppliance objects containing details of all products in the database
+     */
+    public List<HomeAppliance> findAllProducts() {
+        return snapshot().getProducts();
+    }
+
+    /**
+     * Retrieves all distinct categories from the catalog.
      *
      * @return a list of unique categories
      */
     public List<String> getAllCategories() {
-        List<String> categories = new ArrayList<>();
-        String query = "SELECT DISTINCT category FROM appliance";
-
-        try (Connection conn = connect();
-             PreparedStatement stmt = conn.prepareStatement(query);
-             ResultSet rs = stmt.executeQuery()) {
-
-            while (rs.next()) {
-                categories.add(rs.getString("category"));
-            }
-        } catch (SQLException e) {
-            System.out.println("Error retrieving categories: " + e.getMessage());
-        }
+        return snapshot().getCategories();
+    }
 
-        return categories;
+    /**
+     * Retrieves the product counts for each category and price bucket, given the filters already applied.
+     * Category counts respect the price filter and bucket counts respect the category filter. Counts are
+     * cached until the catalog next changes.
+     *
+     * @param category the applied category filter, or an empty string for all categories
+     * @param minPrice the lowest price of the applied price filter
+     * @param maxPrice the highest price of the applied price filter
+     * @return the facet counts
+     */
+    public CatalogFacets getFacets(String category, int minPrice, int maxPrice) {
+        String filter = category == null || category.isEmpty() ? null : category;
+        return snapshot().getFacets(filter, minPrice, maxPrice);
     }
 
     /**
-     * Retrieves products (appliances) from the database based on the specified category.
+     * Retrieves products (appliances) from the catalog based on the specified category.
+     * The returned appliances are shared with the catalog snapshot and must not be modified.
      *
      * @param category the category to filter products by
      * @return a list of HomeAppliance objects in the specified category
      */
     public List<HomeAppliance> getProductsByCategory(String category) {
-        List<HomeAppliance> appliances = new ArrayList<>();
-        String query = "SELECT * FROM appliance WHERE category = ?";
+        return snapshot().getByCategory(category);
+    }
 
-        try (Connection conn = connect();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
+    /**
+     * Retrieves products (appliances) whose description matches a search.
+     * Every word of the search must match the start of a word in the description, and results are
+     * ordered by BM25 relevance. Matching uses the appliance_fts full-text index, so the cost grows with
+     * the number of matches rather than the size of the catalog. If the index is unavailable the search
+     * falls back to a LIKE scan for the whole search term.
+     *
+     * @param searchTerm the words to search for in the product description
+     * @return a list of HomeAppliance objects that match the search, most relevant first
+     */
+    public List<HomeAppliance> getProductsByDescription(String searchTerm) {
+        String match = toFullTextQuery(searchTerm);
+        if (match.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-            stmt.setString(1, category);
-            ResultSet rs = stmt.executeQuery();
+        List<HomeAppliance> products = new ArrayList<>();
+        String query = "SELECT rowid FROM appliance_fts WHERE appliance_fts MATCH ? ORDER BY bm25(appliance_fts)";
+        CatalogSnapshot snapshot = snapshot();
+        long start = System.nanoTime();
 
-            while (rs.next()) {
-                HomeAppliance appliance = new HomeAppliance(
-                        rs.getString("sku"),
-                        rs.getString("description"),
-                        rs.getString("category"),
-                        rs.getInt("price")
-                );
-                appliance.setId(rs.getInt("id"));
-                appliances.add(appliance);
+        try (Connection conn = connectReadOnly();
+             PreparedStatement stmt = conn.prepareStatement(query)) {
+
+            stmt.setString(1, match);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    HomeAppliance appliance = snapshot.find(rs.getInt(1));
+                    if (appliance != null) {
+                        products.add(appliance);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            if (e instanceof SQLTransientException) {
+                // The database is overloaded, so a LIKE scan would only add to it
+                Log.warn("Search rejected", "error", e.getMessage());
+                readFailure = e;
+                return new ArrayList<>();
             }
+            Log.warn("Full-text search failed, using LIKE", "error", e.getMessage());
+            return executeProductQuery("SELECT * FROM appliance WHERE description LIKE ?", "%" + searchTerm + "%");
+        } finally {
+            Metrics.recordQuery("appliance.search", start);
+        }
+        return products;
+    }
+
+    /**
+     * Retrieves one page of the products whose description matches a search, most relevant first.
+     * Pages are fetched with keyset pagination on the BM25 rank, with the product id breaking ties, so
+     * each cursor is "rank:id". Matching works as in {@link #getProductsByDescription(String)}, including
+     * the LIKE fallback, which ranks every match equally and so pages in id order.
+     *
+     * @param searchTerm the words to search for in the product description
+     * @param after      the cursor of the last product of the previous page, or null
+     * @param before     the cursor of the first product of the following page, or null
+     * @param size       the maximum number of products on the page
+     * @return the page of matching products with cursors for the neighbouring pages
+     */
+    public ProductPage findSearchPage(String searchTerm, String after, String before, int size) {
+        String match = toFullTextQuery(searchTerm);
+        if (match.isEmpty()) {
+            return new ProductPage(new ArrayList<>(), null, null);
+        }
+        SearchCursor afterKey = SearchCursor.parse(after);
+        SearchCursor beforeKey = afterKey == null ? SearchCursor.parse(before) : null;
+        long start = System.nanoTime();
+        try {
+            return searchPage("SELECT rowid, rank FROM appliance_fts WHERE appliance_fts MATCH ?",
+                    match, afterKey, beforeKey, size);
         } catch (SQLException e) {
-            System.out.println("Error retrieving products by category: " + e.getMessage());
+            if (e instanceof SQLTransientException) {
+                // The database is overloaded, so a LIKE scan would only add to it
+                Log.warn("Search rejected", "error", e.getMessage());
+                readFailure = e;
+                return new ProductPage(new ArrayList<>(), null, null);
+            }
+            Log.warn("Full-text search failed, using LIKE", "error", e.getMessage());
+            try {
+                return searchPage("SELECT rowid, 0.0 AS rank FROM appliance WHERE description LIKE ?",
+                        "%" + searchTerm + "%", afterKey, beforeKey, size);
+            } catch (SQLException fallback) {
+                Log.error("Error searching products", "error", fallback.getMessage());
+                readFailure = fallback;
+                return new ProductPage(new ArrayList<>(), null, null);
+            }
+        } finally {
+            Metrics.recordQuery("appliance.search", start);
         }
+    }
 
-        return appliances;
+    /**
+     * Runs one page of a search. The select must return the product id as "rowid" and its relevance as
+     * "rank", lower ranks first. One row beyond the page is read to tell whether another page follows.
+     */
+    private ProductPage searchPage(String select, String match, SearchCursor afterKey, SearchCursor beforeKey,
+                                   int size) throws SQLException {
+        boolean backwards = beforeKey != null;
+        SearchCursor key = backwards ? beforeKey : afterKey;
+        String op = backwards ? "<" : ">";
+        String direction = backwards ? " DESC" : "";
+        StringBuilder query = new StringBuilder(select);
+        if (key != null) {
+            query.append(" AND (rank ").append(op).append(" ? OR (rank = ? AND rowid ").append(op).append(" ?))");
+        }
+        query.append(" ORDER BY rank").append(direction).append(", rowid").append(direction).append(" LIMIT ?");
+
+        List<SearchCursor> rows = new ArrayList<>(size + 1);
+        try (Connection conn = connectReadOnly();
+             PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+            int parameter = 1;
+            stmt.setString(parameter++, match);
+            if (key != null) {
+                stmt.setDouble(parameter++, key.rank);
+                stmt.setDouble(parameter++, key.rank);
+                stmt.setInt(parameter++, key.id);
+            }
+            stmt.setInt(parameter, size + 1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new SearchCursor(rs.getDouble("rank"), rs.getInt("rowid")));
+                }
+            }
+        }
+
+        boolean more = rows.size() > size;
+        if (more) {
+            rows.remove(size);
+        }
+        if (backwards) {
+            Collections.reverse(rows);
+        }
+        CatalogSnapshot snapshot = snapshot();
+        List<HomeAppliance> items = new ArrayList<>(rows.size());
+        for (SearchCursor row : rows) {
+            HomeAppliance appliance = snapshot.find(row.id);
+            if (appliance != null) {
+                items.add(appliance);
+            }
+        }
+        if (rows.isEmpty()) {
+            return new ProductPage(items, null, null);
+        }
+        String first = rows.get(0).toString();
+        String last = rows.get(rows.size() - 1).toString();
+        if (backwards) {
+            return new ProductPage(items, last, more ? first : null);
+        }
+        return new ProductPage(items, more ? last : null, afterKey != null ? first : null);
     }
 
     /**
-     * Retrieves products (appliances) from the database based on a search term in the description.
+     * The position of a search result: its rank and, to break ties, its product id.
+     */
+    private static final class SearchCursor {
+
+        private final double rank;
+        private final int id;
+
+        private SearchCursor(double rank, int id) {
+            this.rank = rank;
+            this.id = id;
+        }
+
+        /**
+         * Parses a "rank:id" cursor.
+         *
+         * @return the cursor, or null if the text is missing or malformed
+         */
+        private static SearchCursor parse(String cursor) {
+            if (cursor == null || cursor.isBlank()) {
+                return null;
+            }
+            int colon = cursor.lastIndexOf(':');
+            if (colon < 0) {
+                return null;
+            }
+            try {
+                return new SearchCursor(Double.parseDouble(cursor.substring(0, colon)),
+                        Integer.parseInt(cursor.substring(colon + 1).trim()));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return rank + ":" + id;
+        }
+    }
+
+    /**
+     * Converts free text into an FTS5 query: each word becomes a quoted prefix term and all terms must match.
+     * Punctuation is dropped, so user input cannot inject FTS5 query syntax.
      *
-     * @param searchTerm the term to search for in the product description
-     * @return a list of HomeAppliance objects that match the search term in their description
+     * @param searchTerm the raw search text
+     * @return the FTS5 MATCH expression, or an empty string if the text contains no words
      */
-    public List<HomeAppliance> getProductsByDescription(String searchTerm) {
-        String query = "SELECT * FROM appliance WHERE description LIKE ?";
-        return executeProductQuery(query, "%" + searchTerm + "%");
+    static String toFullTextQuery(String searchTerm) {
+        StringBuilder match = new StringBuilder();
+        for (String word : searchTerm.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                if (match.length() > 0) {
+                    match.append(' ');
+                }
+                match.append('"').append(word).append("\"*");
+            }
+        }
+        return match.toString();
     }
 
     /**
@@ -143,7 +414,8 @@ public class HomeApplianceDAO {
      */
     private List<HomeAppliance> executeProductQuery(String query, String... params) {
         List<HomeAppliance> products = new ArrayList<>();
-        try (Connection conn = DriverManager.getConnection(URL);
+        long start = System.nanoTime();
+        try (Connection conn = connectReadOnly();
              PreparedStatement stmt = conn.prepareStatement(query)) {
 
             for (int i = 0; i < params.length; i++) {
@@ -161,200 +433,126 @@ public class HomeApplianceDAO {
                 ));
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("Product query failed", e, "query", query);
+            readFailure = e;
+        } finally {
+            Metrics.recordQuery("appliance.query", start);
         }
         return products;
     }
 
     /**
      * Retrieves products (appliances) based on both category and price range.
+     * The returned appliances are shared with the catalog snapshot and must not be modified.
      *
      * @param category   the category to filter products by
      * @param priceRange the price range to filter products by (e.g., "0-50", "51-100", etc.)
-     * @return a list of HomeAppliance objects in the specified category and price range
+     * @return a list of HomeAppliance objects in the specified category and price range, ordered by price
      */
     public List<HomeAppliance> getProductsByCategoryAndPriceRange(String category, String priceRange) {
-        List<HomeAppliance> appliances = new ArrayList<>();
-        System.out.println("Received priceRange: '" + priceRange + "' for category: " + category);
-        String query;
-        Integer minPrice = null;
-        Integer maxPrice = null;
-
-        switch (priceRange) {
-            case "0-50":
-                minPrice = 0;
-                maxPrice = 50;
-                query = "SELECT * FROM appliance WHERE category = ? AND price >= ? AND price <= ?";
-                break;
-            case "51-100":
-                minPrice = 51;
-                maxPrice = 100;
-                query = "SELECT * FROM appliance WHERE category = ? AND price >= ? AND price <= ?";
-                break;
-            case "101-200":
-                minPrice = 101;
-                maxPrice = 200;
-                query = "SELECT * FROM appliance WHERE category = ? AND price >= ? AND price <= ?";
-                break;
-            case "201-500":
-                minPrice = 201;
-                maxPrice = 500;
-                query = "SELECT * FROM appliance WHERE category = ? AND price >= ? AND price <= ?";
-                break;
-            case "501-1000":
-                minPrice = 501;
-                maxPrice = 1000;
-                query = "SELECT * FROM appliance WHERE category = ? AND price >= ? AND price <= ?";
-                break;
-            case "1001+":
-            case "1001": // Fallback for incorrect front-end value
-                minPrice = 1001;
-                query = "SELECT * FROM appliance WHERE category = ? AND price >= ?";
-                break;
-            default:
-                System.err.println("Invalid price range: '" + priceRange + "'");
-                return appliances;
-        }
-
-        System.out.println("Executing query for category: " + category + ", price range: " + priceRange);
-
-        try (Connection conn = connect();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            stmt.setString(1, category);
-            stmt.setInt(2, minPrice);
-            if (!priceRange.equals("1001+") && !priceRange.equals("1001")) {
-                stmt.setInt(3, maxPrice);
-            }
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    appliances.add(new HomeAppliance(
-                            rs.getInt("id"),
-                            rs.getString("sku"),
-                            rs.getString("description"),
-                            rs.getString("category"),
-                            rs.getInt("price")
-                    ));
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Error retrieving products by category and price: " + e.getMessage());
+        PriceBucket bucket = PriceBucket.parse(priceRange);
+        if (bucket == null) {
+            return new ArrayList<>();
         }
+        return getProductsByCategoryAndPriceRange(category, bucket.getMinPrice(), bucket.getMaxPrice());
+    }
 
-        System.out.println("Found " + appliances.size() + " products for category: " + category + ", price range: " + priceRange);
-        return appliances;
+    /**
+     * Retrieves products (appliances) in a category within an inclusive price range.
+     * The range is found by binary search on the category's price index.
+     * The returned appliances are shared with the catalog snapshot and must not be modified.
+     *
+     * @param category the category to filter products by
+     * @param minPrice the lowest price to include
+     * @param maxPrice the highest price to include
+     * @return a list of HomeAppliance objects in the category and price range, ordered by price
+     */
+    public List<HomeAppliance> getProductsByCategoryAndPriceRange(String category, int minPrice, int maxPrice) {
+        return snapshot().getByPriceRange(category, minPrice, maxPrice);
     }
 
     /**
      * Retrieves products (appliances) based only on price range.
+     * The returned appliances are shared with the catalog snapshot and must not be modified.
      *
      * @param priceRange the price range to filter products by (e.g., "0-50", "51-100", etc.)
-     * @return a list of HomeAppliance objects in the specified price range
+     * @return a list of HomeAppliance objects in the specified price range, ordered by price
      */
     public List<HomeAppliance> getProductsByPriceRange(String priceRange) {
-        List<HomeAppliance> appliances = new ArrayList<>();
-        System.out.println("Received priceRange: '" + priceRange + "'");
-        String query;
-        Integer minPrice = null;
-        Integer maxPrice = null;
-
-        switch (priceRange) {
-            case "0-50":
-                minPrice = 0;
-                maxPrice = 50;
-                query = "SELECT * FROM appliance WHERE price >= ? AND price <= ?";
-                break;
-            case "51-100":
-                minPrice = 51;
-                maxPrice = 100;
-                query = "SELECT * FROM appliance WHERE price >= ? AND price <= ?";
-                break;
-            case "101-200":
-                minPrice = 101;
-                maxPrice = 200;
-                query = "SELECT * FROM appliance WHERE price >= ? AND price <= ?";
-                break;
-            case "201-500":
-                minPrice = 201;
-                maxPrice = 500;
-                query = "SELECT * FROM appliance WHERE price >= ? AND price <= ?";
-                break;
-            case "501-1000":
-                minPrice = 501;
-                maxPrice = 1000;
-                query = "SELECT * FROM appliance WHERE price >= ? AND price <= ?";
-                break;
-            case "1001+":
-            case "1001": // Fallback for incorrect front-end value
-                minPrice = 1001;
-                query = "SELECT * FROM appliance WHERE price >= ?";
-                break;
-            default:
-                System.err.println("Invalid price range: '" + priceRange + "'");
-                return appliances;
+        PriceBucket bucket = PriceBucket.parse(priceRange);
+        if (bucket == null) {
+            return new ArrayList<>();
         }
+        return getProductsByPriceRange(bucket.getMinPrice(), bucket.getMaxPrice());
+    }
 
-        System.out.println("Executing query for price range: " + priceRange);
-
-        try (Connection conn = connect();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            stmt.setInt(1, minPrice);
-            if (!priceRange.equals("1001+") && !priceRange.equals("1001")) {
-                stmt.setInt(2, maxPrice);
-            }
-
-            ResultSet rs = stmt.executeQuery();
+    /**
+     * Retrieves products (appliances) within an inclusive price range.
+     * The range is found by binary search on the catalog's price index.
+     * The returned appliances are shared with the catalog snapshot and must not be modified.
+     *
+     * @param minPrice the lowest price to include
+     * @param maxPrice the highest price to include
+     * @return a list of HomeAppliance objects in the price range, ordered by price
+     */
+    public List<HomeAppliance> getProductsByPriceRange(int minPrice, int maxPrice) {
+        return snapshot().getByPriceRange(null, minPrice, maxPrice);
+    }
 
-            while (rs.next()) {
-                HomeAppliance appliance = new HomeAppliance(
-                        rs.getInt("id"),
-                        rs.getString("sku"),
-                        rs.getString("description"),
-                        rs.getString("category"),
-                        rs.getInt("price")
-                );
-                appliances.add(appliance);
-            }
-        } catch (SQLException e) {
-            System.err.println("Error retrieving products by price: " + e.getMessage());
+    /**
+     * Retrieves one page of the product listing using keyset pagination: the page starts right after
+     * (or ends right before) the given cursor instead of skipping rows with an offset.
+     * The returned appliances are shared with the catalog snapshot and must not be modified.
+     *
+     * @param category   the category to filter products by, or an empty string for all categories
+     * @param priceRange the price range to filter products by (e.g., "0-50"), or an empty string for all prices
+     * @param sort       the order of the listing
+     * @param after      the cursor of the last product of the previous page, or null
+     * @param before     the cursor of the first product of the following page, or null
+     * @param size       the maximum number of products on the page
+     * @return the page of products with cursors for the neighbouring pages
+     */
+    public ProductPage findProductsPage(String category, String priceRange, ProductPage.Sort sort,
+                                        String after, String before, int size) {
+        if (priceRange == null || priceRange.isEmpty()) {
+            return findProductsPage(category, 0, Integer.MAX_VALUE, sort, after, before, size);
         }
+        PriceBucket bucket = PriceBucket.parse(priceRange);
+        if (bucket == null) {
+            return new ProductPage(new ArrayList<>(), null, null);
+        }
+        return findProductsPage(category, bucket.getMinPrice(), bucket.getMaxPrice(), sort, after, before, size);
+    }
 
-        System.out.println("Found " + appliances.size() + " products for price range: " + priceRange);
-        return appliances;
+    /**
+     * Retrieves one page of the product listing within an inclusive price range, using keyset pagination.
+     * The returned appliances are shared with the catalog snapshot and must not be modified.
+     *
+     * @param category the category to filter products by, or an empty string for all categories
+     * @param minPrice the lowest price to include
+     * @param maxPrice the highest price to include
+     * @param sort     the order of the listing
+     * @param after    the cursor of the last product of the previous page, or null
+     * @param before   the cursor of the first product of the following page, or null
+     * @param size     the maximum number of products on the page
+     * @return the page of products with cursors for the neighbouring pages
+     */
+    public ProductPage findProductsPage(String category, int minPrice, int maxPrice, ProductPage.Sort sort,
+                                        String after, String before, int size) {
+        String filter = category == null || category.isEmpty() ? null : category;
+        List<HomeAppliance> ordered = snapshot().getOrdered(filter, minPrice, maxPrice, sort);
+        return ProductPage.seek(ordered, sort, after, before, size);
     }
 
     /**
      * Finds a product by its unique ID.
      *
      * @param id the ID of the product to find
-     * @return a HomeAppliance object representing the product, or null if not found
+     * @return a copy of the product that the caller may modify, or null if not found
      */
     public HomeAppliance findProduct(int id) {
-        HomeAppliance appliance = null;
-        String query = "SELECT * FROM appliance WHERE id = ?;";
-
-        try (Connection conn = connect();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            stmt.setInt(1, id);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                appliance = new HomeAppliance(
-                        rs.getString("sku"),
-                        rs.getString("description"),
-                        rs.getString("category"),
-                        rs.getInt("price")
-                );
-                appliance.setId(rs.getInt("id"));
-            }
-        } catch (SQLException e) {
-            System.out.println("Error finding product: " + e.getMessage());
-        }
-
-        return appliance;
+        HomeAppliance appliance = snapshot().find(id);
+        return appliance == null ? null : CatalogSnapshot.copyOf(appliance);
     }
 
     /**
@@ -364,23 +562,45 @@ public class HomeApplianceDAO {
      * @return true if the product was successfully inserted, false otherwise
      */
     public boolean insertItem(HomeAppliance appliance) {
-        String query = "INSERT INTO appliance (sku, description, category, price) VALUES (?, ?, ?, ?);";
-
-        try (Connection conn = connect();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            stmt.setString(1, appliance.getSku());
-            stmt.setString(2, appliance.getDescription());
-            stmt.setString(3, appliance.getCategory());
-            stmt.setInt(4, appliance.getPrice());
-
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
-        } catch (SQLException e) {
-            System.out.println("Error inserting product: " + e.getMessage());
-        }
+        return awaitWrite(insertItemAsync(appliance), "Error inserting product");
+    }
 
-        return false;
+    /**
+     * Queues the insertion of a new product without waiting for it to commit.
+     *
+     * @param appliance the HomeAppliance object to insert
+     * @return a future completed with true if the product was inserted
+     */
+    public CompletableFuture<Boolean> insertItemAsync(HomeAppliance appliance) {
+        String query = "INSERT INTO appliance (sku, description, category, price) VALUES (?, ?, ?, ?);";
+        HomeAppliance inserted = CatalogSnapshot.copyOf(appliance);
+
+        return submitWrite(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setString(1, appliance.getSku());
+                stmt.setString(2, appliance.getDescription());
+                stmt.setString(3, appliance.getCategory());
+                stmt.setInt(4, appliance.getPrice());
+
+                int rowsAffected = stmt.executeUpdate();
+                if (rowsAffected > 0) {
+                    try (ResultSet keys = stmt.getGeneratedKeys()) {
+                        inserted.setId(keys != null && keys.next() ? keys.getInt(1) : 0);
+                    }
+                }
+                return rowsAffected > 0;
+            }
+        }).thenApply(success -> {
+            if (success && inserted.getId() > 0) {
+                catalog.publish(snapshot -> snapshot.withUpserted(inserted));
+            } else if (success) {
+                catalog.invalidate();
+            }
+            if (success) {
+                DataVersion.APPLIANCE.bump();
+            }
+            return success;
+        });
     }
 
     /**
@@ -390,24 +610,37 @@ public class HomeApplianceDAO {
      * @return true if the product was successfully updated, false otherwise
      */
     public boolean updateItem(HomeAppliance appliance) {
-        String query = "UPDATE appliance SET sku = ?, description = ?, category = ?, price = ? WHERE id = ?;";
-
-        try (Connection conn = connect();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-
-            stmt.setString(1, appliance.getSku());
-            stmt.setString(2, appliance.getDescription());
-            stmt.setString(3, appliance.getCategory());
-            stmt.setInt(4, appliance.getPrice());
-            stmt.setInt(5, appliance.getId());
-
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
-        } catch (SQLException e) {
-            System.out.println("Error updating product: " + e.getMessage());
-        }
+        return awaitWrite(updateItemAsync(appliance), "Error updating product");
+    }
 
-        return false;
+    /**
+     * Queues an update of an existing product without waiting for it to commit.
+     *
+     * @param appliance the HomeAppliance object with updated details
+     * @return a future completed with true if the product was updated
+     */
+    public CompletableFuture<Boolean> updateItemAsync(HomeAppliance appliance) {
+        String query = "UPDATE appliance SET sku = ?, description = ?, category = ?, price = ? WHERE id = ?;";
+        HomeAppliance updated = CatalogSnapshot.copyOf(appliance);
+
+        return submitWrite(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                stmt.setString(1, appliance.getSku());
+                stmt.setString(2, appliance.getDescription());
+                stmt.setString(3, appliance.getCategory());
+                stmt.setInt(4, appliance.getPrice());
+                stmt.setInt(5, appliance.getId());
+
+                int rowsAffected = stmt.executeUpdate();
+                return rowsAffected > 0;
+            }
+        }).thenApply(success -> {
+            if (success) {
+                catalog.publish(snapshot -> snapshot.withUpserted(updated));
+                DataVersion.APPLIANCE.bump();
+            }
+            return success;
+        });
     }
 
     /**
@@ -417,18 +650,30 @@ public class HomeApplianceDAO {
      * @return true if the product was successfully deleted, false otherwise
      */
     public boolean deleteItem(int id) {
-        String query = "DELETE FROM appliance WHERE id = ?;";
-
-        try (Connection conn = connect();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
+        return awaitWrite(deleteItemAsync(id), "Error deleting product");
+    }
 
-            stmt.setInt(1, id);
-            int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
-        } catch (SQLException e) {
-            System.out.println("Error deleting product: " + e.getMessage());
-        }
+    /**
+     * Queues the deletion of a product without waiting for it to commit.
+     *
+     * @param id the ID of the product to delete
+     * @return a future completed with true if the product was deleted
+     */
+    public CompletableFuture<Boolean> deleteItemAsync(int id) {
+        String query = "DELETE FROM appliance WHERE id = ?;";
 
-        return false;
+        return submitWrite(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                stmt.setInt(1, id);
+                int rowsAffected = stmt.executeUpdate();
+                return rowsAffected > 0;
+            }
+        }).thenApply(success -> {
+            if (success) {
+                catalog.publish(snapshot -> snapshot.withRemoved(id));
+                DataVersion.APPLIANCE.bump();
+            }
+            return success;
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,206 @@
+import java.util.Arrays;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code IntIntMap} class is a hash map from {@code int} keys to {@code int} values held in two
+ * primitive arrays, with no boxing and no object per entry. It uses open addressing with linear probing,
+ * and removal shifts later entries back instead of leaving markers, so lookups stay short however many
+ * entries come and go.
+ * <p>
+ * Keys must not be negative; product ids never are. The map is not thread-safe.
+ *
+ * @author Dominic Cash
+ */
+public final class IntIntMap {
+
+    /** Marks an empty slot. */
+    private static final int FREE = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    /**
+     * Creates an empty map with room for a few entries.
+     */
+    public IntIntMap() {
+        this(8);
+    }
+
+    /**
+     * Creates an empty map with room for the given number of entries before it grows.
+     *
+     * @param expectedSize the expected number of entries
+     */
+    public IntIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+    }
+
+    /**
+     * Gets the value of a key.
+     *
+     * @param key the key
+     * @param missing the value returned if the key is not present
+     * @return the value, or {@code missing}
+     */
+    public int get(int key, int missing) {
+        int slot = find(key);
+        return slot < 0 ? missing : values[slot];
+    }
+
+    /**
+     * Checks whether a key is present.
+     *
+     * @param key the key
+     * @return true if the map holds the key
+     */
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Sets the value of a key.
+     *
+     * @param key the key, not negative
+     * @param value the value
+     * @param missing the value returned if the key was not present
+     * @return the previous value, or {@code missing}
+     */
+    public int put(int key, int value, int missing) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Negative key: " + key);
+        }
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        return missing;
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @param key the key
+     * @param missing the value returned if the key was not present
+     * @return the removed value, or {@code missing}
+     */
+    public int remove(int key, int missing) {
+        int slot = find(key);
+        if (slot < 0) {
+            return missing;
+        }
+        int removed = values[slot];
+        int mask = keys.length - 1;
+        // Shift back each later entry of the run that would no longer be found past the gap
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != FREE) {
+            int home = mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = FREE;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Gets the keys, in ascending order.
+     *
+     * @return a new array of the keys
+     */
+    public int[] keys() {
+        int[] result = new int[size];
+        int i = 0;
+        for (int key : keys) {
+            if (key != FREE) {
+                result[i++] = key;
+            }
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return the entry count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the map is empty.
+     *
+     * @return true if the map holds no entries
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        size = 0;
+    }
+
+    private int find(int key) {
+        if (key < 0) {
+            return -1;
+        }
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                put(oldKeys[i], oldValues[i], 0);
+            }
+        }
+    }
+
+    /**
+     * Spreads sequential ids across the table.
+     */
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
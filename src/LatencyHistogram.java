@@ -0,0 +1,144 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code LatencyHistogram} class records durations into log-linear buckets in the style of an
+ * HdrHistogram. Each power of two is split into {@value #SUB_BUCKETS} equal sub-buckets, so any recorded
+ * value is reported within about 3% of its true value, from a nanosecond up to several minutes, in a fixed
+ * few kilobytes.
+ * <p>
+ * Recording is lock-free: it increments one slot of an {@link AtomicLongArray} and a few adders, so many
+ * request threads can record into the same histogram without contention. Percentiles are read from a
+ * scan of the buckets and are approximate while recording continues.
+ *
+ * @author Dominic Cash
+ */
+public final class LatencyHistogram {
+
+    /** The number of sub-buckets per power of two; the relative precision is 1 / SUB_BUCKETS. */
+    public static final int SUB_BUCKETS = 32;
+
+    private static final int SUB_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+
+    /** The largest power of two tracked; longer durations (about 9 minutes) are clamped. */
+    private static final int MAX_EXPONENT = 39;
+
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration in nanoseconds; negative values are recorded as zero
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        count.increment();
+        sum.add(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Records the time elapsed since a start time taken from {@link System#nanoTime()}.
+     *
+     * @param startNanos the start time
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Finds the bucket for a value. Values below SUB_BUCKETS each have their own bucket; above that, the
+     * bucket is chosen by the position of the highest set bit and the SUB_BITS bits below it.
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Gets the highest value that falls in a bucket.
+     */
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BITS);
+        return ((SUB_BUCKETS + subBucket) << (exponent - SUB_BITS)) + width - 1;
+    }
+
+    /**
+     * Gets the number of recorded durations.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the total of the recorded durations.
+     *
+     * @return the sum in nanoseconds
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Gets the longest recorded duration.
+     *
+     * @return the maximum in nanoseconds, 0 if nothing was recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets a percentile of the recorded durations.
+     *
+     * @param quantile the quantile, between 0 and 1, e.g. 0.99 for the 99th percentile
+     * @return the duration in nanoseconds at or below which that fraction of durations fall, 0 if empty
+     */
+    public long getValueAtQuantile(double quantile) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), getMax());
+            }
+        }
+        return getMax();
+    }
+}
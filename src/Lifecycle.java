@@ -0,0 +1,174 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code Lifecycle} class runs the store's shutdown sequence. Components register a hook for the
+ * phase they belong to, and when the JVM is asked to stop, for example by SIGTERM during a rolling
+ * restart, the hooks run phase by phase: the server stops accepting connections and drains the requests
+ * in flight, in-memory state is flushed, pending writes are committed and the database is closed. The
+ * remaining {@link Log} events are written out last, after every hook.
+ * <p>
+ * Hooks within a phase run in the order they were registered. A hook that fails is logged and the
+ * sequence carries on, so one stuck component cannot stop the others from shutting down cleanly. The
+ * sequence runs at most once.
+ * <p>
+ * Example usage:
+ * <p>
+ * Lifecycle.shared().register(Lifecycle.Phase.CLOSE, "connection pool", pool::close);
+ *
+ * @author Dominic Cash
+ */
+public final class Lifecycle {
+
+    /**
+     * The phases of the shutdown sequence, in the order they run.
+     */
+    public enum Phase {
+        /** Stop accepting requests and wait for those in flight to finish. */
+        DRAIN,
+        /** Stop the request executor once no requests are left. */
+        STOP_WORKERS,
+        /** Save state held in memory, such as baskets. */
+        FLUSH,
+        /** Commit pending database writes. */
+        COMMIT,
+        /** Close the database connections. */
+        CLOSE
+    }
+
+    /**
+     * A shutdown step.
+     */
+    public interface Hook {
+
+        /**
+         * Runs the step.
+         *
+         * @throws Exception if the step fails
+         */
+        void run() throws Exception;
+    }
+
+    private static final Lifecycle SHARED = new Lifecycle(true);
+
+    /** How long the log is given to write out its remaining events. */
+    private static final long LOG_FLUSH_MILLIS = 2000;
+
+    /**
+     * A registered hook.
+     */
+    private static final class Registration {
+
+        private final Phase phase;
+        private final String name;
+        private final Hook hook;
+
+        Registration(Phase phase, String name, Hook hook) {
+            this.phase = phase;
+            this.name = name;
+            this.hook = hook;
+        }
+    }
+
+    private final List<Registration> hooks = new ArrayList<>();
+    private final boolean closesLog;
+    private boolean hookInstalled;
+    private boolean stopped;
+
+    /**
+     * Creates a lifecycle.
+     *
+     * @param closesLog whether shutdown ends by writing out and stopping the shared log
+     */
+    Lifecycle(boolean closesLog) {
+        this.closesLog = closesLog;
+    }
+
+    /**
+     * Gets the process-wide lifecycle.
+     *
+     * @return the shared lifecycle
+     */
+    public static Lifecycle shared() {
+        return SHARED;
+    }
+
+    /**
+     * Registers a shutdown hook. Hooks registered after shutdown has started are ignored.
+     *
+     * @param phase the phase the hook runs in
+     * @param name the name used when logging the step
+     * @param hook the step to run
+     */
+    public synchronized void register(Phase phase, String name, Hook hook) {
+        if (!stopped) {
+            hooks.add(new Registration(phase, name, hook));
+        }
+    }
+
+    /**
+     * Installs a JVM shutdown hook that runs {@link #shutdown()}, so the sequence runs on SIGTERM, SIGINT
+     * or a normal exit. Installing more than once has no further effect.
+     */
+    public synchronized void installShutdownHook() {
+        if (!hookInstalled) {
+            hookInstalled = true;
+            Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "shutdown"));
+        }
+    }
+
+    /**
+     * Runs every registered hook, phase by phase. Later calls return immediately.
+     *
+     * @return true if every hook completed, false if any failed or shutdown had already run
+     */
+    public boolean shutdown() {
+        List<Registration> sequence;
+        synchronized (this) {
+            if (stopped) {
+                return false;
+            }
+            stopped = true;
+            sequence = new ArrayList<>(hooks);
+        }
+        // A stable sort keeps registration order within each phase
+        sequence.sort(Comparator.comparing((Registration registration) -> registration.phase));
+
+        long start = System.nanoTime();
+        Log.info("Shutting down", "steps", sequence.size());
+        boolean clean = true;
+        for (Registration registration : sequence) {
+            long stepStart = System.nanoTime();
+            try {
+                registration.hook.run();
+                Log.info("Shutdown step finished", "phase", registration.phase, "step", registration.name,
+                        "ms", (System.nanoTime() - stepStart) / 1_000_000);
+            } catch (Exception e) {
+                clean = false;
+                Log.error("Shutdown step failed", e, "phase", registration.phase, "step", registration.name);
+            }
+        }
+        Log.info("Shutdown complete", "ms", (System.nanoTime() - start) / 1_000_000, "clean", clean);
+        if (closesLog) {
+            try {
+                Log.shutdown(LOG_FLUSH_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return clean;
+    }
+
+    /**
+     * Checks whether shutdown has started.
+     *
+     * @return true once {@link #shutdown()} has been called
+     */
+    public synchronized boolean isStopped() {
+        return stopped;
+    }
+}
@@ -0,0 +1,499 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code Log} class is the store's logger. Events have a level, a message and optional key/value
+ * pairs, and are written as one line each, for example:
+ * <p>
+ * 2026-10-17T09:30:00.125Z WARN  [db-writer] Write failed operation=insert error="database is locked"
+ * <p>
+ * Logging never blocks the calling thread and never does I/O on it. An event is copied into a slot of a
+ * preallocated ring buffer, and a background thread formats the events and appends them to a file. If the
+ * buffer is full the event is dropped and counted rather than waiting; the count is exposed through
+ * {@link #getDroppedCount()} and the metrics endpoint. The file is rotated when it reaches a maximum size,
+ * keeping a fixed number of older files.
+ * <p>
+ * The following system properties configure the logger:
+ * <p>
+ * store.log.dir - the directory log files are written to (default logs).
+ * store.log.level - the lowest level written: DEBUG, INFO, WARN or ERROR (default INFO).
+ * store.log.bufferSize - the number of events the ring buffer holds, rounded up to a power of two (default 8192).
+ * store.log.maxBytes - the size at which the file is rotated (default 10 MB).
+ * store.log.files - the number of rotated files kept (default 5).
+ * store.log.console - also write every event to standard output, from the background thread (default false).
+ * <p>
+ * Example usage:
+ * <p>
+ * Log.warn("Connection failed", "partition", "reader", "error", e.getMessage());
+ *
+ * @author Dominic Cash
+ */
+public final class Log {
+
+    /**
+     * The severity of an event.
+     */
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR
+    }
+
+    /** The name of the current log file; rotated files have ".1", ".2" and so on appended. */
+    public static final String FILE_NAME = "store.log";
+
+    private static final DateTimeFormatter TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+    private static final Object[] NO_FIELDS = new Object[0];
+
+    /** How long the writer thread sleeps when the buffer is empty. */
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private static final Level THRESHOLD = parseLevel(System.getProperty("store.log.level", "INFO"));
+
+    /**
+     * A slot of the ring buffer. Slots are allocated once and reused; the fields are written by the
+     * producer that claimed the slot and published by the release of its sequence number.
+     */
+    private static final class Event {
+
+        long timestamp;
+        Level level;
+        String thread;
+        String message;
+        Object[] fields;
+        Throwable error;
+    }
+
+    /**
+     * Holds the running logger; the buffer is allocated and the writer thread started on first use.
+     */
+    private static final class Holder {
+
+        static final Log LOG = new Log(Paths.get(System.getProperty("store.log.dir", "logs")),
+                Integer.getInteger("store.log.bufferSize", 8192),
+                Long.getLong("store.log.maxBytes", 10L * 1024 * 1024),
+                Integer.getInteger("store.log.files", 5),
+                Boolean.getBoolean("store.log.console"));
+    }
+
+    private final Event[] events;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final Path directory;
+    private final long maxBytes;
+    private final int maxFiles;
+    private final boolean console;
+    private Writer out;
+    private long fileBytes;
+
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    /**
+     * Creates a logger and starts its writer thread.
+     */
+    private Log(Path directory, int bufferSize, long maxBytes, int maxFiles, boolean console) {
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize - 1)) << 1;
+        this.events = new Event[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            events[i] = new Event();
+            sequences.set(i, i);
+        }
+        this.mask = capacity - 1;
+        this.directory = directory;
+        this.maxBytes = Math.max(1024, maxBytes);
+        this.maxFiles = Math.max(0, maxFiles);
+        this.console = console;
+        this.writerThread = new Thread(this::run, "log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Logs a debug event.
+     *
+     * @param message what happened
+     * @param fields alternating keys and values
+     */
+    public static void debug(String message, Object... fields) {
+        log(Level.DEBUG, message, null, fields);
+    }
+
+    /**
+     * Logs an informational event.
+     *
+     * @param message what happened
+     * @param fields alternating keys and values
+     */
+    public static void info(String message, Object... fields) {
+        log(Level.INFO, message, null, fields);
+    }
+
+    /**
+     * Logs a warning.
+     *
+     * @param message what happened
+     * @param fields alternating keys and values
+     */
+    public static void warn(String message, Object... fields) {
+        log(Level.WARN, message, null, fields);
+    }
+
+    /**
+     * Logs a warning with the exception that caused it; its stack trace is written after the event.
+     *
+     * @param message what happened
+     * @param error the exception
+     * @param fields alternating keys and values
+     */
+    public static void warn(String message, Throwable error, Object... fields) {
+        log(Level.WARN, message, error, fields);
+    }
+
+    /**
+     * Logs an error.
+     *
+     * @param message what happened
+     * @param fields alternating keys and values
+     */
+    public static void error(String message, Object... fields) {
+        log(Level.ERROR, message, null, fields);
+    }
+
+    /**
+     * Logs an error with the exception that caused it; its stack trace is written after the event.
+     *
+     * @param message what happened
+     * @param error the exception
+     * @param fields alternating keys and values
+     */
+    public static void error(String message, Throwable error, Object... fields) {
+        log(Level.ERROR, message, error, fields);
+    }
+
+    /**
+     * Checks whether events of a level are written.
+     *
+     * @param level the level
+     * @return true if events of the level are written
+     */
+    public static boolean isEnabled(Level level) {
+        return level.compareTo(THRESHOLD) >= 0;
+    }
+
+    /**
+     * Logs an event at a level.
+     *
+     * @param level the level
+     * @param message what happened
+     * @param error the exception that caused it, or null
+     * @param fields alternating keys and values
+     */
+    public static void log(Level level, String message, Throwable error, Object... fields) {
+        if (isEnabled(level)) {
+            Holder.LOG.publish(level, message, error, fields);
+        }
+    }
+
+    /**
+     * Gets the number of events dropped because the buffer was full.
+     *
+     * @return the drop count
+     */
+    public static long getDroppedCount() {
+        return Holder.LOG.dropped.get();
+    }
+
+    /**
+     * Gets the number of events written by the background thread.
+     *
+     * @return the written count
+     */
+    public static long getWrittenCount() {
+        return Holder.LOG.written.get();
+    }
+
+    /**
+     * Waits until every event logged before the call has been written and flushed.
+     *
+     * @param timeoutMillis the longest time to wait
+     * @return true if the events were written, false if the timeout expired first
+     */
+    public static boolean flush(long timeoutMillis) {
+        Log log = Holder.LOG;
+        long target = log.tail.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (log.flushed.get() < target) {
+            if (!log.writerThread.isAlive() || System.nanoTime() > deadline) {
+                return false;
+            }
+            LockSupport.unpark(log.writerThread);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    /**
+     * Writes every pending event, then stops the writer thread and closes the file. Later events are
+     * dropped.
+     *
+     * @param timeoutMillis the longest time to wait for the pending events
+     * @return true if the writer thread stopped in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static boolean shutdown(long timeoutMillis) throws InterruptedException {
+        Log log = Holder.LOG;
+        log.running = false;
+        LockSupport.unpark(log.writerThread);
+        log.writerThread.join(timeoutMillis);
+        return !log.writerThread.isAlive();
+    }
+
+    /**
+     * Copies an event into the next free slot, or counts it as dropped if the buffer is full or the
+     * logger has stopped. Slots are claimed by advancing the tail with a compare-and-set, so producers
+     * never wait for each other or for the writer.
+     */
+    private void publish(Level level, String message, Throwable error, Object[] fields) {
+        if (!running) {
+            dropped.incrementAndGet();
+            return;
+        }
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                dropped.incrementAndGet();
+                return;
+            } else {
+                position = tail.get();
+            }
+        }
+
+        int index = (int) (position & mask);
+        Event event = events[index];
+        event.timestamp = System.currentTimeMillis();
+        event.level = level;
+        event.thread = Thread.currentThread().getName();
+        event.message = message;
+        event.fields = fields == null ? NO_FIELDS : fields;
+        event.error = error;
+        sequences.set(index, position + 1);
+        if (level == Level.ERROR) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    /**
+     * The writer thread: takes published events in order, writes them, and flushes after each batch.
+     */
+    private void run() {
+        StringBuilder line = new StringBuilder(256);
+        while (true) {
+            int drained = 0;
+            while (true) {
+                int index = (int) (head & mask);
+                if (sequences.get(index) != head + 1) {
+                    break;
+                }
+                Event event = events[index];
+                line.setLength(0);
+                format(event, line);
+                event.message = null;
+                event.fields = null;
+                event.error = null;
+                event.thread = null;
+                sequences.set(index, head + events.length);
+                head++;
+                write(line);
+                written.incrementAndGet();
+                drained++;
+            }
+            if (drained > 0) {
+                flushFile();
+                flushed.set(head);
+            } else if (!running) {
+                break;
+            } else {
+                LockSupport.parkNanos(IDLE_NANOS);
+            }
+        }
+        closeFile();
+    }
+
+    /**
+     * Formats an event as one line, followed by the stack trace of its exception if it has one.
+     */
+    private static void format(Event event, StringBuilder line) {
+        TIMESTAMP.formatTo(Instant.ofEpochMilli(event.timestamp), line);
+        line.append(' ').append(event.level);
+        for (int pad = event.level.name().length(); pad < 5; pad++) {
+            line.append(' ');
+        }
+        line.append(" [").append(event.thread).append("] ").append(event.message);
+        Object[] fields = event.fields;
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            line.append(' ').append(fields[i]).append('=');
+            appendValue(line, fields[i + 1]);
+        }
+        if (fields.length % 2 != 0) {
+            line.append(' ');
+            appendValue(line, fields[fields.length - 1]);
+        }
+        line.append(System.lineSeparator());
+        if (event.error != null) {
+            StringWriter trace = new StringWriter();
+            event.error.printStackTrace(new PrintWriter(trace));
+            line.append(trace);
+        }
+    }
+
+    /**
+     * Appends a value, quoting it if it is empty or contains spaces, quotes or an equals sign.
+     */
+    private static void appendValue(StringBuilder line, Object value) {
+        String text = String.valueOf(value);
+        boolean quote = text.isEmpty();
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c <= ' ' || c == '"' || c == '=';
+        }
+        if (!quote) {
+            line.append(text);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c == '\n') {
+                line.append("\\n");
+            } else if (c == '\r') {
+                line.append("\\r");
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    /**
+     * Appends a formatted line to the log file, rotating it first if it has reached the maximum size.
+     * If the file cannot be written the line goes to standard error instead.
+     */
+    private void write(StringBuilder line) {
+        if (console) {
+            System.out.print(line);
+        }
+        try {
+            if (out == null || fileBytes >= maxBytes) {
+                openFile();
+            }
+            out.append(line);
+            fileBytes += line.length();
+        } catch (IOException e) {
+            closeFile();
+            System.err.print(line);
+        }
+    }
+
+    /**
+     * Opens the current log file, rotating the existing files if the current one is full.
+     */
+    private void openFile() throws IOException {
+        closeFile();
+        Files.createDirectories(directory);
+        Path current = directory.resolve(FILE_NAME);
+        if (Files.exists(current) && Files.size(current) >= maxBytes) {
+            rotate(current);
+        }
+        fileBytes = Files.exists(current) ? Files.size(current) : 0;
+        out = new BufferedWriter(Files.newBufferedWriter(current, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), 16 * 1024);
+    }
+
+    /**
+     * Renames store.log to store.log.1, store.log.1 to store.log.2 and so on, deleting the oldest.
+     */
+    private void rotate(Path current) throws IOException {
+        if (maxFiles == 0) {
+            Files.delete(current);
+            return;
+        }
+        Files.deleteIfExists(directory.resolve(FILE_NAME + "." + maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path older = directory.resolve(FILE_NAME + "." + i);
+            if (Files.exists(older)) {
+                Files.move(older, directory.resolve(FILE_NAME + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(current, directory.resolve(FILE_NAME + ".1"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void flushFile() {
+        if (out != null) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                closeFile();
+            }
+        }
+    }
+
+    private void closeFile() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+                // The file is abandoned; the next write reopens it
+            }
+            out = null;
+        }
+    }
+
+    /**
+     * Parses a level name, defaulting to INFO.
+     */
+    private static Level parseLevel(String name) {
+        try {
+            return Level.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+}
@@ -51,76 +51,9 @@ public class LoginHandler implements HttpHandler {
     private void displayLoginForm(HttpExchange exchange) throws IOException {
         String response = """
             <html>
-            <head>
-                <title>Home Solutions - Admin Login</title>
-                <meta charset='UTF-8'>
-                <link href='https://fonts.googleapis.com/css2?family=Poppins:wght@400;600&display=swap' rel='stylesheet'>
-                <style>
-                    body {
-                        font-family: 'Poppins', sans-serif;
-                        background: linear-gradient(135deg, #f0f4f8, #d9e2ec);
-                        margin: 0;
-                        padding: 0;
-                        color: #333;
-                    }
-                    .container {
-                        max-width: 400px;
-                        margin: 100px auto;
-                        padding: 20px;
-                        background: #fff;
-                        border-radius: 10px;
-                        box-shadow: 0 4px 15px rgba(0, 0, 0, 0.1);
-                        animation: fadeIn 1s ease-in;
-                    }
-                    @keyframes fadeIn {
-                        from { opacity: 0; }
-                        to { opacity: 1; }
-                    }
-                    h2 {
-                        text-align: center;
-                        color: #2c3e50;
-                        font-size: 2em;
-                        text-transform: uppercase;
-                        letter-spacing: 2px;
-                        margin-bottom: 20px;
-                    }
-                    input[type='text'], input[type='password'] {
-                        width: 100%;
-                        padding: 12px;
-                        margin: 10px 0;
-                        border-radius: 8px;
-                        border: 1px solid #ddd;
-                        font-size: 1em;
-                        background: #fafafa;
-                        box-sizing: border-box;
-                        transition: border-color 0.3s;
-                    }
-                    input[type='text']:focus, input[type='password']:focus {
-                        border-color: #3498db;
-                        outline: none;
-                    }
-                    .btn {
-                        background: #2ecc71;
-                        color: white;
-                        padding: 12px 25px;
-                        text-align: center;
-                        border: none;
-                        cursor: pointer;
-                        text-decoration: none;
-                        display: block;
-                        width: 100%;
-                        border-radius: 25px;
-                        font-weight: 600;
-                        transition: transform 0.2s, background 0.3s;
-                    }
-                    .btn:hover {
-                        background: #27ae60;
-                        transform: translateY(-2px);
-                    }
-                </style>
-            </head>
+            """ + StaticAssets.pageHead("Home Solutions - Admin Login") + """
             <body>
-                <div class="container">
+                <div class="container card narrow">
                     <h2>Admin Login</h2>
                     <form action="/login" method="POST">
                         <input type="text" name="username" placeholder="Username" required />
@@ -164,60 +97,9 @@ public class LoginHandler implements HttpHandler {
 
             String response = """
                 <html>
-                <head>
-                    <title>Home Solutions - Login Success</title>
-                    <meta charset='UTF-8'>
-                    <link href='https://fonts.googleapis.com/css2?family=Poppins:wght@400;600&display=swap' rel='stylesheet'>
-                    <style>
-                        body {
-                            font-family: 'Poppins', sans-serif;
-                            background: linear-gradient(135deg, #f0f4f8, #d9e2ec);
-                            margin: 0;
-                            padding: 0;
-                            color: #333;
-                        }
-                        .container {
-                            max-width: 600px;
-                            margin: 100px auto;
-                            padding: 20px;
-                            background: #fff;
-                            border-radius: 10px;
-                            box-shadow: 0 4px 15px rgba(0, 0, 0, 0.1);
-                            animation: fadeIn 1s ease-in;
-                            text-align: center;
-                        }
-                        @keyframes fadeIn {
-                            from { opacity: 0; }
-                            to { opacity: 1; }
-                        }
-                        h1 {
-                            color: #2c3e50;
-                            font-size: 2em;
-                            text-transform: uppercase;
-                            letter-spacing: 2px;
-                            margin-bottom: 20px;
-                        }
-                        .btn {
-                            background: #2ecc71;
-                            color: white;
-                            padding: 12px 25px;
-                            text-align: center;
-                            border: none;
-                            cursor: pointer;
-                            text-decoration: none;
-                            display: inline-block;
-                            border-radius: 25px;
-                            font-weight: 600;
-                            transition: transform 0.2s, background 0.3s;
-                        }
-                        .btn:hover {
-                            background: #27ae60;
-                            transform: translateY(-2px);
-                        }
-                    </style>
-                </head>
+                """ + StaticAssets.pageHead("Home Solutions - Login Success") + """
                 <body>
-                    <div class="container">
+                    <div class="container card message">
                         <h1>Welcome, %s!</h1>
                         <p><a href="/adminPanel" class="btn">Go to Admin Panel</a></p>
                     </div>
@@ -234,60 +116,9 @@ public class LoginHandler implements HttpHandler {
         } else {
             String response = """
                 <html>
-                <head>
-                    <title>Home Solutions - Login Failed</title>
-                    <meta charset='UTF-8'>
-                    <link href='https://fonts.googleapis.com/css2?family=Poppins:wght@400;600&display=swap' rel='stylesheet'>
-                    <style>
-                        body {
-                            font-family: 'Poppins', sans-serif;
-                            background: linear-gradient(135deg, #f0f4f8, #d9e2ec);
-                            margin: 0;
-                            padding: 0;
-                            color: #333;
-                        }
-                        .container {
-                            max-width: 600px;
-                            margin: 100px auto;
-                            padding: 20px;
-                            background: #fff;
-                            border-radius: 10px;
-                            box-shadow: 0 4px 15px rgba(0, 0, 0, 0.1);
-                            animation: fadeIn 1s ease-in;
-                            text-align: center;
-                        }
-                        @keyframes fadeIn {
-                            from { opacity: 0; }
-                            to { opacity: 1; }
-                        }
-                        h1 {
-                            color: #2c3e50;
-                            font-size: 2em;
-                            text-transform: uppercase;
-                            letter-spacing: 2px;
-                            margin-bottom: 20px;
-                        }
-                        .btn {
-                            background: #2ecc71;
-                            color: white;
-                            padding: 12px 25px;
-                            text-align: center;
-                            border: none;
-                            cursor: pointer;
-                            text-decoration: none;
-                            display: inline-block;
-                            border-radius: 25px;
-                            font-weight: 600;
-                            transition: transform 0.2s, background 0.3s;
-                        }
-                        .btn:hover {
-                            background: #27ae60;
-                            transform: translateY(-2px);
-                        }
-                    </style>
-                </head>
+                """ + StaticAssets.pageHead("Home Solutions - Login Failed") + """
                 <body>
-                    <div class="container">
+                    <div class="container card message">
                         <h1>Invalid Username or Password</h1>
                         <p><a href="/login" class="btn">Back to Login</a></p>
                     </div>
@@ -320,7 +151,7 @@ public class LoginHandler implements HttpHandler {
                 String value = URLDecoder.decode(keyValue[1], StandardCharsets.UTF_8);
                 params.put(key, value);
             } catch (Exception e) {
-                e.printStackTrace();
+                Log.debug("Ignoring malformed form field", "field", pair);
             }
         }
         return params;
@@ -335,25 +166,23 @@ public class LoginHandler implements HttpHandler {
      * @return {@code true} if the credentials are valid, {@code false} otherwise
      */
     private boolean authenticateUser(String username, String password) {
-        String dbUrl = "jdbc:sqlite:stores.sqlite";
         String query = "SELECT password FROM users WHERE username = ?";
+        String storedHash;
 
-        try (Connection conn = DriverManager.getConnection(dbUrl);
+        try (Connection conn = ConnectionPool.getInstance().borrowReader();
              PreparedStatement stmt = conn.prepareStatement(query)) {
 
             stmt.setString(1, username);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                String storedHash = rs.getString("password");
-                return BCrypt.checkpw(password, storedHash);
-            } else {
-                return false;
+            try (ResultSet rs = stmt.executeQuery()) {
+                storedHash = rs.next() ? rs.getString("password") : null;
             }
         } catch (SQLException e) {
-            e.printStackTrace();
+            Log.error("Error authenticating user", e, "username", username);
             return false;
         }
+
+        // Checked after the connection is returned, so the deliberately slow hash holds no reader or limiter slot
+        return storedHash != null && BCrypt.checkpw(password, storedHash);
     }
 }
 
@@ -0,0 +1,318 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.DoubleSupplier;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code Metrics} class is the process-wide registry of the store's measurements, rendered by
+ * {@link MetricsHandler} in the Prometheus text format.
+ * <p>
+ * Request latencies are recorded per route and status code by {@link MetricsFilter}, and DAO query
+ * latencies per operation, each into a {@link LatencyHistogram} and reported as a summary with the
+ * 0.5, 0.99 and 0.999 quantiles. Recording never takes a lock: histograms are found in concurrent maps
+ * and arrays, and created on first use.
+ * <p>
+ * Other components register gauges and counters as suppliers that are read when the metrics are
+ * rendered, so registering costs nothing on the request path. A supplier returning NaN is skipped, which
+ * lets a gauge report nothing until the component behind it has started. JVM memory, thread, garbage
+ * collection and uptime metrics are registered by this class.
+ * <p>
+ * Example usage:
+ * <p>
+ * Metrics.gauge("store_db_write_queue_depth", "Operations waiting for the writer thread", () -> queue.getQueueDepth());
+ *
+ * @author Dominic Cash
+ */
+public final class Metrics {
+
+    /** The quantiles reported for every latency summary. */
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private static final String REQUEST_METRIC = "store_http_request_duration_seconds";
+    private static final String QUERY_METRIC = "store_db_query_duration_seconds";
+
+    /** Status codes are recorded in a flat array indexed from 100. */
+    private static final int MIN_STATUS = 100;
+    private static final int MAX_STATUS = 599;
+
+    private static final ConcurrentHashMap<String, AtomicReferenceArray<LatencyHistogram>> REQUESTS =
+            new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, LatencyHistogram> QUERIES = new ConcurrentHashMap<>();
+    private static final ConcurrentSkipListMap<String, Family> FAMILIES = new ConcurrentSkipListMap<>();
+
+    /**
+     * A named metric and its samples, one per set of labels.
+     */
+    private static final class Family {
+
+        private final String type;
+        private final String help;
+        private final ConcurrentSkipListMap<String, DoubleSupplier> samples = new ConcurrentSkipListMap<>();
+
+        Family(String type, String help) {
+            this.type = type;
+            this.help = help;
+        }
+    }
+
+    static {
+        registerJvmMetrics();
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Records the latency of a request.
+     *
+     * @param route the pattern of the route that handled the request
+     * @param status the response status code; codes outside 100-599 are recorded as 500
+     * @param nanos the time taken in nanoseconds
+     */
+    public static void recordRequest(String route, int status, long nanos) {
+        int code = status < MIN_STATUS || status > MAX_STATUS ? 500 : status;
+        AtomicReferenceArray<LatencyHistogram> byStatus = REQUESTS.get(route);
+        if (byStatus == null) {
+            byStatus = REQUESTS.computeIfAbsent(route,
+                    key -> new AtomicReferenceArray<>(MAX_STATUS - MIN_STATUS + 1));
+        }
+        LatencyHistogram histogram = byStatus.get(code - MIN_STATUS);
+        if (histogram == null) {
+            byStatus.compareAndSet(code - MIN_STATUS, null, new LatencyHistogram());
+            histogram = byStatus.get(code - MIN_STATUS);
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * Records the latency of a DAO operation started at a time taken from {@link System#nanoTime()}.
+     *
+     * @param operation the name of the operation, e.g. "appliance.load"
+     * @param startNanos the time the operation started
+     */
+    public static void recordQuery(String operation, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        LatencyHistogram histogram = QUERIES.get(operation);
+        if (histogram == null) {
+            histogram = QUERIES.computeIfAbsent(operation, key -> new LatencyHistogram());
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * Gets the latency histogram of a route and status code.
+     *
+     * @param route the route pattern
+     * @param status the status code
+     * @return the histogram, or null if no such request has been recorded
+     */
+    public static LatencyHistogram getRequestHistogram(String route, int status) {
+        AtomicReferenceArray<LatencyHistogram> byStatus = REQUESTS.get(route);
+        if (byStatus == null || status < MIN_STATUS || status > MAX_STATUS) {
+            return null;
+        }
+        return byStatus.get(status - MIN_STATUS);
+    }
+
+    /**
+     * Gets the latency histogram of a DAO operation.
+     *
+     * @param operation the name of the operation
+     * @return the histogram, or null if the operation has not been recorded
+     */
+    public static LatencyHistogram getQueryHistogram(String operation) {
+        return QUERIES.get(operation);
+    }
+
+    /**
+     * Registers a gauge, a value that can go up and down. Registering the same name again replaces it.
+     *
+     * @param name the metric name
+     * @param help the description shown in the HELP line
+     * @param value supplies the current value when the metrics are rendered
+     */
+    public static void gauge(String name, String help, DoubleSupplier value) {
+        register(name, "gauge", help, "", value);
+    }
+
+    /**
+     * Registers a gauge with labels, e.g. {@code partition="reader"}.
+     *
+     * @param name the metric name
+     * @param labels the rendered labels without braces
+     * @param help the description shown in the HELP line
+     * @param value supplies the current value when the metrics are rendered
+     */
+    public static void gauge(String name, String labels, String help, DoubleSupplier value) {
+        register(name, "gauge", help, labels, value);
+    }
+
+    /**
+     * Registers a counter, a value that only increases. Registering the same name again replaces it.
+     *
+     * @param name the metric name, ending in "_total" by convention
+     * @param help the description shown in the HELP line
+     * @param value supplies the current value when the metrics are rendered
+     */
+    public static void counter(String name, String help, DoubleSupplier value) {
+        register(name, "counter", help, "", value);
+    }
+
+    /**
+     * Registers a counter with labels, e.g. {@code group="catalog"}.
+     *
+     * @param name the metric name, ending in "_total" by convention
+     * @param labels the rendered labels without braces
+     * @param help the description shown in the HELP line
+     * @param value supplies the current value when the metrics are rendered
+     */
+    public static void counter(String name, String labels, String help, DoubleSupplier value) {
+        register(name, "counter", help, labels, value);
+    }
+
+    private static void register(String name, String type, String help, String labels, DoubleSupplier value) {
+        FAMILIES.computeIfAbsent(name, key -> new Family(type, help)).samples.put(labels, value);
+    }
+
+    /**
+     * Formats a label value, quoting and escaping it as the text format requires.
+     *
+     * @param name the label name
+     * @param value the label value
+     * @return the label, e.g. {@code route="/appliances"}
+     */
+    public static String label(String name, String value) {
+        String escaped = value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        return name + "=\"" + escaped + "\"";
+    }
+
+    /**
+     * Renders every metric in the Prometheus text exposition format, version 0.0.4.
+     *
+     * @return the metrics text
+     */
+    public static String render() {
+        StringBuilder out = new StringBuilder(8192);
+
+        List<String> requestLabels = new ArrayList<>();
+        List<LatencyHistogram> requestHistograms = new ArrayList<>();
+        for (Map.Entry<String, AtomicReferenceArray<LatencyHistogram>> route : REQUESTS.entrySet()) {
+            AtomicReferenceArray<LatencyHistogram> byStatus = route.getValue();
+            for (int i = 0; i < byStatus.length(); i++) {
+                LatencyHistogram histogram = byStatus.get(i);
+                if (histogram != null) {
+                    requestLabels.add(label("route", route.getKey()) + "," + label("status", Integer.toString(MIN_STATUS + i)));
+                    requestHistograms.add(histogram);
+                }
+            }
+        }
+        summary(out, REQUEST_METRIC, "HTTP request latency by route and status code", requestLabels, requestHistograms);
+
+        List<String> queryLabels = new ArrayList<>();
+        List<LatencyHistogram> queryHistograms = new ArrayList<>();
+        for (Map.Entry<String, LatencyHistogram> query : QUERIES.entrySet()) {
+            queryLabels.add(label("operation", query.getKey()));
+            queryHistograms.add(query.getValue());
+        }
+        summary(out, QUERY_METRIC, "Database query latency by DAO operation", queryLabels, queryHistograms);
+
+        for (Map.Entry<String, Family> entry : FAMILIES.entrySet()) {
+            Family family = entry.getValue();
+            StringBuilder samples = new StringBuilder();
+            for (Map.Entry<String, DoubleSupplier> sample : family.samples.entrySet()) {
+                double value = sample.getValue().getAsDouble();
+                if (!Double.isNaN(value)) {
+                    samples.append(entry.getKey());
+                    if (!sample.getKey().isEmpty()) {
+                        samples.append('{').append(sample.getKey()).append('}');
+                    }
+                    samples.append(' ').append(format(value)).append('\n');
+                }
+            }
+            if (samples.length() > 0) {
+                header(out, entry.getKey(), family.type, family.help);
+                out.append(samples);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Renders a set of histograms as one summary metric.
+     */
+    private static void summary(StringBuilder out, String name, String help, List<String> labels,
+                                List<LatencyHistogram> histograms) {
+        if (histograms.isEmpty()) {
+            return;
+        }
+        header(out, name, "summary", help);
+        for (int i = 0; i < histograms.size(); i++) {
+            LatencyHistogram histogram = histograms.get(i);
+            String sampleLabels = labels.get(i);
+            for (double quantile : QUANTILES) {
+                out.append(name).append('{').append(sampleLabels).append(",quantile=\"").append(quantile).append("\"} ")
+                        .append(format(histogram.getValueAtQuantile(quantile) / 1e9)).append('\n');
+            }
+            out.append(name).append("_sum{").append(sampleLabels).append("} ")
+                    .append(format(histogram.getSum() / 1e9)).append('\n');
+            out.append(name).append("_count{").append(sampleLabels).append("} ")
+                    .append(histogram.getCount()).append('\n');
+        }
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * Formats a sample value, writing whole numbers without a fraction.
+     */
+    private static String format(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    /**
+     * Registers the JVM's heap, thread, garbage collection and uptime metrics.
+     */
+    private static void registerJvmMetrics() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        gauge("jvm_memory_heap_used_bytes", "Heap memory in use",
+                () -> memory.getHeapMemoryUsage().getUsed());
+        gauge("jvm_memory_heap_committed_bytes", "Heap memory committed by the JVM",
+                () -> memory.getHeapMemoryUsage().getCommitted());
+        gauge("jvm_memory_heap_max_bytes", "Maximum heap memory, -1 if undefined",
+                () -> memory.getHeapMemoryUsage().getMax());
+        gauge("jvm_memory_nonheap_used_bytes", "Non-heap memory in use",
+                () -> memory.getNonHeapMemoryUsage().getUsed());
+        gauge("jvm_threads_live", "Live threads, including daemon threads", threads::getThreadCount);
+        gauge("jvm_threads_daemon", "Live daemon threads", threads::getDaemonThreadCount);
+        gauge("jvm_threads_peak", "Peak live threads since the JVM started", threads::getPeakThreadCount);
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            String gc = label("gc", collector.getName());
+            counter("jvm_gc_collections_total", gc, "Garbage collections by collector",
+                    collector::getCollectionCount);
+            counter("jvm_gc_collection_seconds_total", gc, "Time spent in garbage collection by collector",
+                    () -> collector.getCollectionTime() / 1000.0);
+        }
+        gauge("process_uptime_seconds", "Time since the JVM started",
+                () -> ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0);
+        gauge("process_cpu_count", "Processors available to the JVM",
+                () -> Runtime.getRuntime().availableProcessors());
+    }
+}
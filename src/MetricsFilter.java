@@ -0,0 +1,40 @@
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code MetricsFilter} class times every request and records its latency in {@link Metrics}, by
+ * route and status code.
+ * <p>
+ * The route is the pattern the {@link Router} stored in the exchange, so requests for any static asset
+ * share one route rather than one per file. The filter should be the first on the context, so the time
+ * includes compression by later filters. A request whose handler throws, or that never sent a response,
+ * is recorded with status 500.
+ *
+ * @author Dominic Cash
+ */
+public class MetricsFilter extends Filter {
+
+    @Override
+    public String description() {
+        return "Records request latency by route and status code";
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(exchange);
+            failed = false;
+        } finally {
+            Object route = exchange.getAttribute(Router.ROUTE_ATTRIBUTE);
+            int status = failed ? 500 : exchange.getResponseCode();
+            Metrics.recordRequest(route == null ? Router.UNMATCHED : route.toString(), status,
+                    System.nanoTime() - start);
+        }
+    }
+}
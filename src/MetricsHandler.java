@@ -0,0 +1,31 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code MetricsHandler} class serves "/metrics": every measurement in {@link Metrics}, in the
+ * Prometheus text exposition format, for a Prometheus server or a person with curl.
+ *
+ * @author Dominic Cash
+ */
+public class MetricsHandler implements HttpHandler {
+
+    /** The content type of the Prometheus text format. */
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        byte[] body = Metrics.render().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+}
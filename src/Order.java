@@ -0,0 +1,174 @@
+import java.util.Collections;
+import java.util.List;
+
+//Dominic Cash
+//16042439
+
+/**
+ * Represents a placed order: its id, when it was placed, and its lines with the SKU, description and
+ * price each product had at the time.
+ *
+ * @author Dominic Cash
+ */
+public class Order {
+
+    private final long id;
+    private final long createdAt;
+    private final List<Line> lines;
+    private final int itemCount;
+    private final int total;
+
+    /**
+     * A line of an order.
+     */
+    public static final class Line {
+
+        private final int productId;
+        private final String sku;
+        private final String description;
+        private final int quantity;
+        private final int unitPrice;
+
+        /**
+         * Creates an order line.
+         *
+         * @param productId the product id
+         * @param sku the product's SKU when ordered
+         * @param description the product's description when ordered
+         * @param quantity the quantity ordered
+         * @param unitPrice the price of one item when ordered
+         */
+        public Line(int productId, String sku, String description, int quantity, int unitPrice) {
+            this.productId = productId;
+            this.sku = sku;
+            this.description = description;
+            this.quantity = quantity;
+            this.unitPrice = unitPrice;
+        }
+
+        /**
+         * Gets the product id.
+         *
+         * @return the product id
+         */
+        public int getProductId() {
+            return productId;
+        }
+
+        /**
+         * Gets the product's SKU when ordered.
+         *
+         * @return the SKU
+         */
+        public String getSku() {
+            return sku;
+        }
+
+        /**
+         * Gets the product's description when ordered.
+         *
+         * @return the description
+         */
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Gets the quantity ordered.
+         *
+         * @return the quantity
+         */
+        public int getQuantity() {
+            return quantity;
+        }
+
+        /**
+         * Gets the price of one item when ordered.
+         *
+         * @return the unit price
+         */
+        public int getUnitPrice() {
+            return unitPrice;
+        }
+
+        /**
+         * Gets the price of the whole line.
+         *
+         * @return the unit price times the quantity
+         */
+        public int getLineTotal() {
+            return unitPrice * quantity;
+        }
+    }
+
+    /**
+     * Creates an order, totalling its lines.
+     *
+     * @param id the order id
+     * @param createdAt when the order was placed, in milliseconds since the epoch
+     * @param lines the order lines
+     */
+    public Order(long id, long createdAt, List<Line> lines) {
+        this.id = id;
+        this.createdAt = createdAt;
+        this.lines = Collections.unmodifiableList(lines);
+        int items = 0;
+        int sum = 0;
+        for (Line line : lines) {
+            items += line.getQuantity();
+            sum += line.getLineTotal();
+        }
+        this.itemCount = items;
+        this.total = sum;
+    }
+
+    /**
+     * Gets the order id.
+     *
+     * @return the id
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gets when the order was placed.
+     *
+     * @return the time in milliseconds since the epoch
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Gets the order lines.
+     *
+     * @return the lines, which cannot be modified
+     */
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    /**
+     * Gets the number of items ordered, counting each unit of every line.
+     *
+     * @return the item count
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * Gets the total price of the order.
+     *
+     * @return the total
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return "Order{id=" + id + ", lines=" + lines.size() + ", total=" + total + '}';
+    }
+}
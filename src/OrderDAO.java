@@ -0,0 +1,88 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code OrderDAO} class writes orders to the orders and order_line tables and reserves blocks of
+ * order ids from the id_block table. Every method runs on the connection of a {@link WriteQueue} batch,
+ * inside its transaction.
+ *
+ * @author Dominic Cash
+ */
+public class OrderDAO {
+
+    /** The name of the order id sequence in the id_block table. */
+    static final String ORDER_SEQUENCE = "orders";
+
+    /**
+     * Writes an order and all its lines. The lines are sent as one batch, and the order and its lines
+     * commit or roll back together.
+     *
+     * @param conn the writer connection
+     * @param order the order to write
+     * @return true once the order is written
+     * @throws SQLException if a statement fails
+     */
+    public boolean insert(Connection conn, Order order) throws SQLException {
+        try (PreparedStatement insertOrder = conn.prepareStatement(
+                "INSERT INTO orders (id, created_at, item_count, total) VALUES (?, ?, ?, ?)");
+             PreparedStatement insertLine = conn.prepareStatement("INSERT INTO order_line "
+                     + "(order_id, product_id, sku, description, quantity, unit_price) VALUES (?, ?, ?, ?, ?, ?)")) {
+            insertOrder.setLong(1, order.getId());
+            insertOrder.setLong(2, order.getCreatedAt());
+            insertOrder.setInt(3, order.getItemCount());
+            insertOrder.setInt(4, order.getTotal());
+            insertOrder.executeUpdate();
+
+            for (Order.Line line : order.getLines()) {
+                insertLine.setLong(1, order.getId());
+                insertLine.setInt(2, line.getProductId());
+                insertLine.setString(3, line.getSku());
+                insertLine.setString(4, line.getDescription());
+                insertLine.setInt(5, line.getQuantity());
+                insertLine.setInt(6, line.getUnitPrice());
+                insertLine.addBatch();
+            }
+            insertLine.executeBatch();
+            return true;
+        }
+    }
+
+    /**
+     * Reserves a block of order ids. The sequence starts after the highest order id already written, and
+     * the single writer makes each reservation atomic.
+     *
+     * @param conn the writer connection
+     * @param size the number of ids to reserve
+     * @return the first id of the block
+     * @throws SQLException if a statement fails
+     */
+    public long reserveIdBlock(Connection conn, int size) throws SQLException {
+        try (PreparedStatement create = conn.prepareStatement("INSERT OR IGNORE INTO id_block (name, next_id) "
+                + "SELECT ?, COALESCE(MAX(id), 0) + 1 FROM orders");
+             PreparedStatement select = conn.prepareStatement("SELECT next_id FROM id_block WHERE name = ?");
+             PreparedStatement advance = conn.prepareStatement(
+                     "UPDATE id_block SET next_id = next_id + ? WHERE name = ?")) {
+            create.setString(1, ORDER_SEQUENCE);
+            create.executeUpdate();
+
+            long first;
+            select.setString(1, ORDER_SEQUENCE);
+            try (ResultSet rs = select.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Order id sequence missing");
+                }
+                first = rs.getLong(1);
+            }
+
+            advance.setInt(1, size);
+            advance.setString(2, ORDER_SEQUENCE);
+            advance.executeUpdate();
+            return first;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+import java.sql.SQLException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code OrderIdAllocator} class hands out order ids from blocks reserved in advance, so placing an
+ * order never waits on the database for its id, and concurrent checkouts never compete for a row or a
+ * {@code MAX(id)} query. Only when a block runs out does one checkout reserve the next block, with a
+ * single write.
+ * <p>
+ * Ids are unique and increasing, but the unused part of a block is skipped after a restart, so ids may
+ * have gaps.
+ *
+ * @author Dominic Cash
+ */
+public final class OrderIdAllocator {
+
+    /**
+     * Reserves a block of ids.
+     */
+    @FunctionalInterface
+    public interface BlockSource {
+
+        /**
+         * Reserves the given number of consecutive ids.
+         *
+         * @param size the number of ids
+         * @return the first id of the block
+         * @throws SQLException if the block could not be reserved
+         */
+        long reserve(int size) throws SQLException;
+    }
+
+    private final BlockSource source;
+    private final int blockSize;
+    // A lock rather than synchronized, so a virtual thread reserving a block does not pin its carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private long next;
+    private long limit;
+
+    private final AtomicLong blockCount = new AtomicLong();
+
+    /**
+     * Creates an allocator.
+     *
+     * @param source reserves the blocks
+     * @param blockSize the number of ids reserved at a time
+     */
+    public OrderIdAllocator(BlockSource source, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Id block size must be positive: " + blockSize);
+        }
+        this.source = source;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Creates an allocator that reserves blocks of store.orders.idBlockSize ids (default 100) through the
+     * {@link WriteQueue}.
+     *
+     * @param dao reserves the blocks in the id_block table
+     * @return the allocator
+     */
+    public static OrderIdAllocator fromConfig(OrderDAO dao) {
+        return new OrderIdAllocator(size -> {
+            try {
+                return WriteQueue.getInstance().submit(conn -> dao.reserveIdBlock(conn, size)).join();
+            } catch (CompletionException e) {
+                throw new SQLException("Could not reserve order ids", e.getCause());
+            }
+        }, Integer.getInteger("store.orders.idBlockSize", 100));
+    }
+
+    /**
+     * Gets the next order id, reserving a new block first if the current one is used up.
+     *
+     * @return the id
+     * @throws SQLException if a new block was needed and could not be reserved
+     */
+    public long next() throws SQLException {
+        lock.lock();
+        try {
+            if (next == limit) {
+                long first = source.reserve(blockSize);
+                next = first;
+                limit = first + blockSize;
+                blockCount.incrementAndGet();
+            }
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of blocks reserved.
+     *
+     * @return the block count
+     */
+    public long getBlockCount() {
+        return blockCount.get();
+    }
+}
@@ -0,0 +1,63 @@
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code OverflowFilter} class answers requests that arrived while the platform request pool's
+ * queue was full. The JDK server hands the executor an exchange whose request has not been read yet, so
+ * the pool cannot answer it itself; instead {@link RequestExecutors} runs such an exchange outside the
+ * pool through {@link #runOverflow(Runnable)}, and this filter sends it
+ * {@code 503 Service Unavailable} with {@code Retry-After}, as an {@link AdmissionGate} would, without
+ * calling any handler.
+ * <p>
+ * Requests run by the pool itself, and every request in virtual thread mode, pass straight through.
+ *
+ * @author Dominic Cash
+ */
+public class OverflowFilter extends Filter {
+
+    private static final ThreadLocal<Boolean> OVERFLOW = new ThreadLocal<>();
+    private static final AtomicLong shedCount = new AtomicLong();
+
+    @Override
+    public String description() {
+        return "Answers requests the full request queue could not take with 503";
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        if (OVERFLOW.get() == null) {
+            chain.doFilter(exchange);
+            return;
+        }
+        shedCount.incrementAndGet();
+        AdmissionGate.sendUnavailable(exchange);
+    }
+
+    /**
+     * Runs an exchange the request pool rejected, so that this filter answers it with 503.
+     *
+     * @param exchange the server's task for the exchange
+     */
+    static void runOverflow(Runnable exchange) {
+        OVERFLOW.set(Boolean.TRUE);
+        try {
+            exchange.run();
+        } finally {
+            OVERFLOW.remove();
+        }
+    }
+
+    /**
+     * Gets the number of requests answered with 503 because the request queue was full.
+     *
+     * @return the shed count
+     */
+    public static long getShedCount() {
+        return shedCount.get();
+    }
+}
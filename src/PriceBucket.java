@@ -0,0 +1,105 @@
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code PriceBucket} enum lists the fixed price ranges offered in the storefront's price filter.
+ * Each bucket has the value used in the "priceRange" query parameter, inclusive price bounds and the
+ * label shown to shoppers.
+ *
+ * @author Dominic Cash
+ */
+public enum PriceBucket {
+
+    UP_TO_50("0-50", 0, 50, "£0 - £50"),
+    UP_TO_100("51-100", 51, 100, "£50 - £100"),
+    UP_TO_200("101-200", 101, 200, "£100 - £200"),
+    UP_TO_500("201-500", 201, 500, "£200 - £500"),
+    UP_TO_1000("501-1000", 501, 1000, "£500 - £1000"),
+    OVER_1000("1001+", 1001, Integer.MAX_VALUE, "£1000+");
+
+    private static final PriceBucket[] BUCKETS = values();
+
+    private final String value;
+    private final int minPrice;
+    private final int maxPrice;
+    private final String label;
+
+    PriceBucket(String value, int minPrice, int maxPrice, String label) {
+        this.value = value;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.label = label;
+    }
+
+    /**
+     * Gets the query parameter value for this bucket.
+     *
+     * @return the value, e.g. "0-50"
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Gets the lowest price in this bucket.
+     *
+     * @return the inclusive minimum price
+     */
+    public int getMinPrice() {
+        return minPrice;
+    }
+
+    /**
+     * Gets the highest price in this bucket.
+     *
+     * @return the inclusive maximum price
+     */
+    public int getMaxPrice() {
+        return maxPrice;
+    }
+
+    /**
+     * Gets the label shown for this bucket in the price filter.
+     *
+     * @return the label, e.g. "£0 - £50"
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Finds the bucket a price falls in.
+     *
+     * @param price the price
+     * @return the bucket containing the price, or null if the price is negative
+     */
+    public static PriceBucket of(int price) {
+        for (PriceBucket bucket : BUCKETS) {
+            if (price >= bucket.minPrice && price <= bucket.maxPrice) {
+                return bucket;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the bucket for a query parameter value.
+     *
+     * @param value the price range value (e.g., "0-50", "51-100", etc.)
+     * @return the matching bucket, or null if the value is not recognised
+     */
+    public static PriceBucket parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.equals("1001")) { // Fallback for incorrect front-end value
+            return OVER_1000;
+        }
+        for (PriceBucket bucket : BUCKETS) {
+            if (bucket.value.equals(value)) {
+                return bucket;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,214 @@
+import java.util.Arrays;
+import java.util.List;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code PriceIndex} class is an immutable, sorted index of product prices held in primitive arrays.
+ * Prices are stored in ascending order in an {@code int[]} with the matching product ids in a parallel
+ * {@code int[]}; products with the same price are ordered by id. A price range is found with two binary
+ * searches, so a range query costs O(log n + k) with no objects created per row.
+ * <p>
+ * Changes produce a new index by inserting or removing a single entry with an array copy, so admin
+ * writes update the index incrementally instead of re-sorting the catalog.
+ *
+ * @author Dominic Cash
+ */
+public final class PriceIndex {
+
+    /** An index with no entries. */
+    public static final PriceIndex EMPTY = new PriceIndex(new int[0], new int[0]);
+
+    private final int[] prices;
+    private final int[] ids;
+
+    private PriceIndex(int[] prices, int[] ids) {
+        this.prices = prices;
+        this.ids = ids;
+    }
+
+    /**
+     * Builds an index over a list of appliances.
+     *
+     * @param appliances the appliances to index
+     * @return the new index
+     */
+    public static PriceIndex build(List<HomeAppliance> appliances) {
+        int n = appliances.size();
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            HomeAppliance appliance = appliances.get(i);
+            keys[i] = key(appliance.getPrice(), appliance.getId());
+        }
+        Arrays.sort(keys);
+        int[] prices = new int[n];
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            prices[i] = (int) (keys[i] >> 32);
+            ids[i] = (int) keys[i];
+        }
+        return new PriceIndex(prices, ids);
+    }
+
+    /**
+     * Packs a price and id into one sortable key. Ids are non-negative, so ordering the packed keys orders
+     * by price and then by id.
+     */
+    private static long key(int price, int id) {
+        return ((long) price << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Gets the number of entries in the index.
+     *
+     * @return the entry count
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Gets the price at a position of the index.
+     *
+     * @param position the position, from 0 to size() - 1
+     * @return the price
+     */
+    public int priceAt(int position) {
+        return prices[position];
+    }
+
+    /**
+     * Gets the product id at a position of the index.
+     *
+     * @param position the position, from 0 to size() - 1
+     * @return the product id
+     */
+    public int idAt(int position) {
+        return ids[position];
+    }
+
+    /**
+     * Finds the first position whose price is at least the given price.
+     *
+     * @param minPrice the lowest price of interest
+     * @return the start of the range, size() if every price is lower
+     */
+    public int lowerBound(int minPrice) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] < minPrice) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the first position whose price is greater than the given price.
+     *
+     * @param maxPrice the highest price of interest
+     * @return the end (exclusive) of the range
+     */
+    public int upperBound(int maxPrice) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] <= maxPrice) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Counts the entries within an inclusive price range.
+     *
+     * @param minPrice the lowest price to count
+     * @param maxPrice the highest price to count
+     * @return the number of entries in the range
+     */
+    public int count(int minPrice, int maxPrice) {
+        if (minPrice > maxPrice) {
+            return 0;
+        }
+        return Math.max(0, upperBound(maxPrice) - lowerBound(minPrice));
+    }
+
+    /**
+     * Finds the position of an exact price and id pair.
+     *
+     * @return the position, or a negative value if absent
+     */
+    private int positionOf(int price, int id) {
+        long target = key(price, id);
+        int low = 0;
+        int high = prices.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midKey = key(prices[mid], ids[mid]);
+            if (midKey < target) {
+                low = mid + 1;
+            } else if (midKey > target) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Returns a new index with an entry added.
+     *
+     * @param id the product id
+     * @param price the product price
+     * @return the new index, or this index if the entry is already present
+     */
+    public PriceIndex with(int id, int price) {
+        int position = positionOf(price, id);
+        if (position >= 0) {
+            return this;
+        }
+        int insertAt = -(position + 1);
+        int n = prices.length;
+        int[] newPrices = new int[n + 1];
+        int[] newIds = new int[n + 1];
+        System.arraycopy(prices, 0, newPrices, 0, insertAt);
+        System.arraycopy(ids, 0, newIds, 0, insertAt);
+        newPrices[insertAt] = price;
+        newIds[insertAt] = id;
+        System.arraycopy(prices, insertAt, newPrices, insertAt + 1, n - insertAt);
+        System.arraycopy(ids, insertAt, newIds, insertAt + 1, n - insertAt);
+        return new PriceIndex(newPrices, newIds);
+    }
+
+    /**
+     * Returns a new index with an entry removed.
+     *
+     * @param id the product id
+     * @param price the price the product was indexed under
+     * @return the new index, or this index if the entry is not present
+     */
+    public PriceIndex without(int id, int price) {
+        int position = positionOf(price, id);
+        if (position < 0) {
+            return this;
+        }
+        int n = prices.length;
+        int[] newPrices = new int[n - 1];
+        int[] newIds = new int[n - 1];
+        System.arraycopy(prices, 0, newPrices, 0, position);
+        System.arraycopy(ids, 0, newIds, 0, position);
+        System.arraycopy(prices, position + 1, newPrices, position, n - position - 1);
+        System.arraycopy(ids, position + 1, newIds, position, n - position - 1);
+        return new PriceIndex(newPrices, newIds);
+    }
+}
@@ -0,0 +1,234 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code ProductPage} class is one page of a product listing, fetched with keyset pagination.
+ * Rather than skipping rows with an offset, a page seeks directly to the first product after (or before)
+ * a cursor that encodes the sort key of the last product seen, so every page costs the same however deep
+ * into the catalog it is.
+ * <p>
+ * Cursors are the product id when sorting by {@link Sort#ID}, and "price:id" when sorting by
+ * {@link Sort#PRICE}, where the id breaks ties between products with the same price.
+ *
+ * @author Dominic Cash
+ */
+public final class ProductPage {
+
+    /** The number of products on a page when none is requested. */
+    public static final int DEFAULT_SIZE = 50;
+
+    /** The largest page size a client may request. */
+    public static final int MAX_SIZE = 200;
+
+    /**
+     * The orders a product listing can be paged in.
+     */
+    public enum Sort {
+        /** Ascending product id. */
+        ID(Comparator.comparingInt(HomeAppliance::getId)),
+        /** Ascending price, then ascending id. */
+        PRICE(Comparator.comparingInt(HomeAppliance::getPrice).thenComparingInt(HomeAppliance::getId));
+
+        private final Comparator<HomeAppliance> order;
+
+        Sort(Comparator<HomeAppliance> order) {
+            this.order = order;
+        }
+
+        /**
+         * Gets the comparator for this sort order.
+         *
+         * @return the comparator
+         */
+        public Comparator<HomeAppliance> order() {
+            return order;
+        }
+
+        /**
+         * Parses a sort name, ignoring case.
+         *
+         * @param value the sort name, e.g. "id" or "price"
+         * @return the matching sort, or {@link #ID} if the value is missing or unknown
+         */
+        public static Sort parse(String value) {
+            if (value != null && value.trim().toLowerCase(Locale.ROOT).equals("price")) {
+                return PRICE;
+            }
+            return ID;
+        }
+    }
+
+    private final List<HomeAppliance> items;
+    private final String nextCursor;
+    private final String previousCursor;
+
+    /**
+     * Creates a page.
+     *
+     * @param items the products on the page
+     * @param nextCursor the cursor for the following page, or null if this is the last page
+     * @param previousCursor the cursor for the preceding page, or null if this is the first page
+     */
+    public ProductPage(List<HomeAppliance> items, String nextCursor, String previousCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+        this.previousCursor = previousCursor;
+    }
+
+    /**
+     * Gets the products on this page.
+     *
+     * @return an unmodifiable list of products
+     */
+    public List<HomeAppliance> getItems() {
+        return items;
+    }
+
+    /**
+     * Gets the cursor to pass as "after" for the following page.
+     *
+     * @return the next cursor, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Gets the cursor to pass as "before" for the preceding page.
+     *
+     * @return the previous cursor, or null if this is the first page
+     */
+    public String getPreviousCursor() {
+        return previousCursor;
+    }
+
+    /**
+     * Clamps a requested page size to the allowed range.
+     *
+     * @param requested the requested size as text, may be null
+     * @return a page size between 1 and {@link #MAX_SIZE}
+     */
+    public static int clampSize(String requested) {
+        if (requested == null || requested.isBlank()) {
+            return DEFAULT_SIZE;
+        }
+        try {
+            return Math.max(1, Math.min(MAX_SIZE, Integer.parseInt(requested.trim())));
+        } catch (NumberFormatException e) {
+            return DEFAULT_SIZE;
+        }
+    }
+
+    /**
+     * Encodes the cursor for a product.
+     *
+     * @param appliance the product
+     * @param sort the sort order of the listing
+     * @return the cursor
+     */
+    public static String cursorOf(HomeAppliance appliance, Sort sort) {
+        return sort == Sort.PRICE ? appliance.getPrice() + ":" + appliance.getId() : String.valueOf(appliance.getId());
+    }
+
+    /**
+     * Decodes a cursor into a probe product carrying just the sort key.
+     *
+     * @param cursor the cursor text
+     * @param sort the sort order of the listing
+     * @return a probe product for comparisons, or null if the cursor is missing or malformed
+     */
+    static HomeAppliance parseCursor(String cursor, Sort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            if (sort == Sort.PRICE) {
+                int colon = cursor.indexOf(':');
+                if (colon < 0) {
+                    return null;
+                }
+                return new HomeAppliance(Integer.parseInt(cursor.substring(colon + 1)), null, null, null,
+                        Integer.parseInt(cursor.substring(0, colon)));
+            }
+            return new HomeAppliance(Integer.parseInt(cursor.trim()), null, null, null, 0);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Seeks a page out of a listing that is already sorted in the given order. The cursor position is found
+     * by binary search, so the cost is O(log n + size) however large the listing is.
+     *
+     * @param ordered the listing, sorted by {@code sort}
+     * @param sort the sort order of the listing
+     * @param after the cursor to start after, or null
+     * @param before the cursor to end before, used only when {@code after} is null
+     * @param size the page size
+     * @return the page
+     */
+    public static ProductPage seek(List<HomeAppliance> ordered, Sort sort, String after, String before, int size) {
+        Comparator<HomeAppliance> order = sort.order();
+        HomeAppliance afterKey = parseCursor(after, sort);
+        HomeAppliance beforeKey = afterKey == null ? parseCursor(before, sort) : null;
+        int n = ordered.size();
+        int start;
+        int end;
+
+        if (afterKey != null) {
+            start = firstGreater(ordered, afterKey, order);
+            end = Math.min(n, start + size);
+        } else if (beforeKey != null) {
+            end = firstNotLess(ordered, beforeKey, order);
+            start = Math.max(0, end - size);
+        } else {
+            start = 0;
+            end = Math.min(n, size);
+        }
+
+        List<HomeAppliance> items = new ArrayList<>(ordered.subList(start, end));
+        String next = end < n && end > start ? cursorOf(ordered.get(end - 1), sort) : null;
+        String previous = start > 0 && start < n ? cursorOf(ordered.get(start), sort) : null;
+        return new ProductPage(items, next, previous);
+    }
+
+    /**
+     * Finds the index of the first element strictly greater than the key.
+     */
+    private static int firstGreater(List<HomeAppliance> ordered, HomeAppliance key, Comparator<HomeAppliance> order) {
+        int low = 0;
+        int high = ordered.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (order.compare(ordered.get(mid), key) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the index of the first element greater than or equal to the key.
+     */
+    private static int firstNotLess(List<HomeAppliance> ordered, HomeAppliance key, Comparator<HomeAppliance> order) {
+        int low = 0;
+        int high = ordered.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (order.compare(ordered.get(mid), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,149 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+import org.json.JSONObject;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code ReadyHandler} class serves "/ready", which tells a load balancer whether to send traffic.
+ * It answers 200 when every check passes and 503 otherwise, with a JSON body giving the result and
+ * details of each check:
+ * <p>
+ * warmup - {@link Warmup} has finished.
+ * pool - the connection pool has been started; its reader counts are reported.
+ * database - a reader connection answers {@code SELECT 1}; the time taken is reported.
+ * catalog - the catalog snapshot is loaded. A snapshot discarded after a write is reloaded by the next
+ * read, so once warm-up has finished an unloaded catalog only fails the check if the last attempt to
+ * load it failed, which means shoppers are being shown an empty catalog.
+ * writeQueue - fewer writes are waiting than store.ready.maxWriteQueueDepth (default 1000).
+ * <p>
+ * The checks never touch the appliance table and never start the pool, so probes stay cheap however
+ * often they arrive. Liveness is answered separately by {@link HealthHandler}.
+ * <p>
+ * Example response:
+ * <p>
+ * {"status":"UP","checks":{"database":{"status":"UP","ms":0.4},"catalog":{"status":"UP","loaded":true},...}}
+ *
+ * @author Dominic Cash
+ */
+public class ReadyHandler implements HttpHandler {
+
+    private static final String UP = "UP";
+    private static final String DOWN = "DOWN";
+
+    private final Warmup warmup;
+    private final CatalogCache catalog;
+    private final Supplier<ConnectionPool> pool;
+    private final Supplier<WriteQueue> writeQueue;
+    private final int maxWriteQueueDepth;
+
+    /**
+     * Creates a handler reporting the state of a warm-up and the store's dependencies.
+     *
+     * @param warmup the server's warm-up
+     */
+    public ReadyHandler(Warmup warmup) {
+        this(warmup, CatalogCache.shared(), ConnectionPool::getInstanceIfStarted, WriteQueue::getInstanceIfStarted,
+                Integer.getInteger("store.ready.maxWriteQueueDepth", 1000));
+    }
+
+    /**
+     * Creates a handler reporting on the given dependencies.
+     *
+     * @param warmup the server's warm-up
+     * @param catalog the catalog cache to check
+     * @param pool supplies the connection pool, or null if it has not been started
+     * @param writeQueue supplies the write queue, or null if it has not been started
+     * @param maxWriteQueueDepth the queue depth at which the server stops being ready
+     */
+    ReadyHandler(Warmup warmup, CatalogCache catalog, Supplier<ConnectionPool> pool, Supplier<WriteQueue> writeQueue,
+                 int maxWriteQueueDepth) {
+        this.warmup = warmup;
+        this.catalog = catalog;
+        this.pool = pool;
+        this.writeQueue = writeQueue;
+        this.maxWriteQueueDepth = maxWriteQueueDepth;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        JSONObject result = check();
+        byte[] body = result.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        exchange.sendResponseHeaders(UP.equals(result.getString("status")) ? 200 : 503, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    /**
+     * Runs every check.
+     *
+     * @return the overall status and the result of each check
+     */
+    JSONObject check() {
+        JSONObject checks = new JSONObject();
+        checks.put("warmup", status(warmup.isReady()).put("timeToReadyMs", warmup.getTimeToReadyMillis()));
+
+        ConnectionPool connections = pool.get();
+        checks.put("pool", checkPool(connections));
+        checks.put("database", checkDatabase(connections));
+
+        boolean loaded = catalog.isLoaded();
+        boolean loadFailed = !loaded && catalog.isLoadFailed();
+        checks.put("catalog", status(loaded || (warmup.isReady() && !loadFailed))
+                .put("loaded", loaded).put("loadFailed", loadFailed));
+
+        WriteQueue queue = writeQueue.get();
+        checks.put("writeQueue", queue == null
+                ? status(false).put("reason", "not started")
+                : status(queue.getQueueDepth() < maxWriteQueueDepth).put("depth", queue.getQueueDepth())
+                        .put("max", maxWriteQueueDepth));
+
+        boolean ready = true;
+        for (String name : checks.keySet()) {
+            ready &= UP.equals(checks.getJSONObject(name).getString("status"));
+        }
+        return new JSONObject().put("status", ready ? UP : DOWN).put("checks", checks);
+    }
+
+    private static JSONObject checkPool(ConnectionPool pool) {
+        if (pool == null) {
+            return status(false).put("reason", "not started");
+        }
+        ConnectionPool.Partition readers = pool.getReaders();
+        return status(true)
+                .put("active", readers.getActiveCount())
+                .put("idle", readers.getIdleCount())
+                .put("max", readers.getMaxSize());
+    }
+
+    private static JSONObject checkDatabase(ConnectionPool pool) {
+        if (pool == null) {
+            return status(false).put("reason", "pool not started");
+        }
+        long start = System.nanoTime();
+        try (Connection conn = pool.borrowReader();
+             PreparedStatement stmt = conn.prepareStatement("SELECT 1");
+             ResultSet rs = stmt.executeQuery()) {
+            boolean answered = rs.next() && rs.getInt(1) == 1;
+            return status(answered).put("ms", (System.nanoTime() - start) / 1_000_000.0);
+        } catch (SQLException e) {
+            return status(false).put("reason", String.valueOf(e.getMessage()));
+        }
+    }
+
+    private static JSONObject status(boolean up) {
+        return new JSONObject().put("status", up ? UP : DOWN);
+    }
+}
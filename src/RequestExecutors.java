@@ -0,0 +1,194 @@
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code RequestExecutors} class builds the executor the HTTP server dispatches requests on.
+ * Without an executor the server runs every exchange on its single dispatcher thread, so one slow
+ * database query or BCrypt check stalls every other shopper.
+ * <p>
+ * Two modes are supported:
+ * <p>
+ * {@link Mode#VIRTUAL} (default) runs each request on its own virtual thread.
+ * {@link Mode#PLATFORM} runs requests on a fixed-size pool of platform threads with a bounded queue.
+ * <p>
+ * The mode is selected at startup with the {@code store.executor} system property
+ * ({@code virtual} or {@code platform}), the pool size with {@code store.executor.threads} and the
+ * platform queue length with {@code store.executor.queue}. A request arriving while the platform queue is
+ * full is answered at once with 503 by {@link OverflowFilter}, so waiting work stays bounded and load is
+ * shed instead of piling up in front of the {@link AdmissionGate}s.
+ * <p>
+ * Example usage:
+ * <p>
+ * java -Dstore.executor=platform -Dstore.executor.threads=32 RootHandler
+ *
+ * @author Dominic Cash
+ */
+public final class RequestExecutors {
+
+    /** System property selecting the executor mode. */
+    public static final String MODE_PROPERTY = "store.executor";
+
+    /** System property selecting the platform pool size. */
+    public static final String THREADS_PROPERTY = "store.executor.threads";
+
+    /** System property selecting the platform queue length. */
+    public static final String QUEUE_PROPERTY = "store.executor.queue";
+
+    /** Default platform pool size when none is configured. */
+    public static final int DEFAULT_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 4);
+
+    /** Default platform queue length when none is configured. */
+    public static final int DEFAULT_QUEUE = 128;
+
+    /** The most rejected requests answered at once; beyond this their connections are closed instead. */
+    private static final int MAX_OVERFLOW = 256;
+
+    /**
+     * The available request executor modes.
+     */
+    public enum Mode {
+        /** One virtual thread per request. */
+        VIRTUAL,
+        /** A bounded pool of platform threads. */
+        PLATFORM;
+
+        /**
+         * Parses a mode name, ignoring case.
+         *
+         * @param value the mode name, e.g. "virtual" or "platform"
+         * @return the matching mode, or {@link #VIRTUAL} if the value is null or blank
+         * @throws IllegalArgumentException if the value does not name a mode
+         */
+        public static Mode parse(String value) {
+            if (value == null || value.isBlank()) {
+                return VIRTUAL;
+            }
+            return Mode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private RequestExecutors() {
+        // Static factory only
+    }
+
+    /**
+     * Reads the executor mode from the {@code store.executor} system property.
+     *
+     * @return the configured mode, {@link Mode#VIRTUAL} by default
+     */
+    public static Mode configuredMode() {
+        return Mode.parse(System.getProperty(MODE_PROPERTY));
+    }
+
+    /**
+     * Reads the platform pool size from the {@code store.executor.threads} system property.
+     *
+     * @return the configured pool size, or {@link #DEFAULT_THREADS} if unset
+     */
+    public static int configuredThreads() {
+        return Integer.getInteger(THREADS_PROPERTY, DEFAULT_THREADS);
+    }
+
+    /**
+     * Reads the platform queue length from the {@code store.executor.queue} system property.
+     *
+     * @return the configured queue length, or {@link #DEFAULT_QUEUE} if unset
+     */
+    public static int configuredQueue() {
+        return Integer.getInteger(QUEUE_PROPERTY, DEFAULT_QUEUE);
+    }
+
+    /**
+     * Creates the executor configured through system properties.
+     *
+     * @return a new executor service for the HTTP server
+     */
+    public static ExecutorService fromConfig() {
+        return create(configuredMode(), configuredThreads(), configuredQueue());
+    }
+
+    /**
+     * Creates a request executor for the given mode with the default platform queue length.
+     *
+     * @param mode the executor mode
+     * @param threads the pool size, only used in {@link Mode#PLATFORM} mode
+     * @return a new executor service for the HTTP server
+     */
+    public static ExecutorService create(Mode mode, int threads) {
+        return create(mode, threads, DEFAULT_QUEUE);
+    }
+
+    /**
+     * Creates a request executor for the given mode.
+     *
+     * @param mode the executor mode
+     * @param threads the pool size, only used in {@link Mode#PLATFORM} mode
+     * @param queue how many requests may wait for a platform thread, only used in {@link Mode#PLATFORM} mode
+     * @return a new executor service for the HTTP server
+     */
+    public static ExecutorService create(Mode mode, int threads, int queue) {
+        if (mode == Mode.PLATFORM) {
+            if (threads < 1) {
+                throw new IllegalArgumentException("Thread count must be positive: " + threads);
+            }
+            if (queue < 1) {
+                throw new IllegalArgumentException("Queue length must be positive: " + queue);
+            }
+            return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queue), namedThreads("http-worker-"), new OverflowPolicy());
+        }
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-vt-", 0).factory());
+    }
+
+    /**
+     * Hands a request the full pool rejected to {@link OverflowFilter} on a virtual thread of its own, which
+     * reads the request and answers it with 503. If too many are being answered already, or the pool is
+     * shut down, the rejection is passed on and the server closes the connection.
+     */
+    private static final class OverflowPolicy implements RejectedExecutionHandler {
+
+        private final Semaphore slots = new Semaphore(MAX_OVERFLOW);
+        private final ThreadFactory threads = Thread.ofVirtual().name("http-overflow-", 0).factory();
+
+        @Override
+        public void rejectedExecution(Runnable exchange, ThreadPoolExecutor pool) {
+            if (pool.isShutdown() || !slots.tryAcquire()) {
+                throw new RejectedExecutionException("Request queue full");
+            }
+            threads.newThread(() -> {
+                try {
+                    OverflowFilter.runOverflow(exchange);
+                } finally {
+                    slots.release();
+                }
+            }).start();
+        }
+    }
+
+    /**
+     * Creates a thread factory for platform workers with sequentially numbered names.
+     *
+     * @param prefix the thread name prefix
+     * @return a thread factory producing non-daemon platform threads
+     */
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.getAndIncrement());
+            thread.setDaemon(false);
+            return thread;
+        };
+    }
+}
@@ -1,7 +1,15 @@
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 
 import java.io.*;
 import java.net.InetSocketAddress;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 
 //Dominic Cash
 //16042439
@@ -10,13 +18,27 @@ import java.net.InetSocketAddress;
  * The {@code RootHandler} class is responsible for setting up an HTTP server and handling
  * various routes for displaying products, customers, admin panel, and managing user login/logout.
  * <p>
- * It creates the server on port 8080 and binds different contexts to specific URL paths, including:
+ * It creates the server on port 8080 and routes specific URL paths to their handlers through a
+ * {@link Router}, including:
  * <p>
- * Root context ("/") to display products.
+ * Root path ("/" and "/appliances") to display products.
  * "/customers" to display customer information.
  * "/adminPanel" for the admin panel.
  * "/addProduct", "/editProduct", and "/deleteProduct" for product management.
  * "/login" and "/logout" for user authentication.
+ * "/static" for the shared stylesheet and fonts.
+ * "/metrics" for request, query, pool and JVM metrics in the Prometheus text format.
+ * "/health" for liveness probes, answered from memory.
+ * "/ready" for load balancers, answering 503 with JSON details until {@link Warmup} has finished and the
+ * database, catalog and write queue checks pass.
+ * <p>
+ * Any other path gets a 404 from the router without reaching a handler.
+ * Catalog, basket and admin routes each pass through their own {@link AdmissionGate}, which answers 503
+ * when the group is overloaded; static assets, metrics and probes are never shed.
+ * Every request is timed by a {@link MetricsFilter}, counted by a {@link DrainFilter}, and its response
+ * passes through a {@link GzipFilter}, which compresses it for clients that accept gzip.
+ * On SIGTERM the server drains the requests in flight and closes the database through the shared
+ * {@link Lifecycle}.
  * <p>
  * Example usage:
  * <p>
@@ -29,48 +51,274 @@ public class RootHandler {
     private static final int PORT = 8080;
 
     /**
-     * Main method that initializes the HTTP server and registers the context handlers.
-     * It starts the server on port 8080 and binds various request handlers to specific URL paths.
+     * Main method that initializes the HTTP server and registers the routes.
+     * It starts the server on port 8080 and routes specific URL paths to their request handlers.
+     * Requests are dispatched on the executor selected by {@link RequestExecutors#fromConfig()}.
+     * Once started, the server is warmed up by {@link Warmup} before "/ready" reports it ready.
      *
      * @param args commandline arguments (not used)
      * @throws IOException if an I/O error occurs when creating or starting the server
      */
     public static void main(String[] args) throws IOException {
 
-        HttpServer server = HttpServer.create(new InetSocketAddress(PORT), 0);
+        ExecutorService executor = RequestExecutors.fromConfig();
 
-        server.createContext("/", new AppliancesHTTP());
+        DrainFilter drain = new DrainFilter();
 
-        server.createContext("/customers", new CustomerHandler());
+        Warmup warmup = new Warmup();
 
-        server.createContext("/adminPanel", new AdminPanelHandler());
+        BasketSource baskets = BasketSource.fromConfig();
 
-        server.createContext("/addProduct", new AddProductHandler());
+        HttpServer server = createServer(PORT, executor, drain, warmup, baskets);
 
-        server.createContext("/editProduct", new EditProductHandler());
+        registerShutdown(server, executor, drain, baskets);
 
-        server.createContext("/deleteProduct", new DeleteProductHandler());
+        server.start();
+        System.out.println("Server started on port " + PORT + " using " + RequestExecutors.configuredMode()
+                + " request executor");
+        Log.info("Server started", "port", PORT, "executor", RequestExecutors.configuredMode());
 
-        server.createContext("/login", new LoginHandler());
+        if (Boolean.parseBoolean(System.getProperty("store.warmup", "true"))) {
+            warmup.run(PORT, Integer.getInteger("store.warmup.passes", 20));
+        } else {
+            warmup.skip();
+        }
+        Log.info("Ready", "timeToReadyMs", warmup.getTimeToReadyMillis());
+        if (Boolean.getBoolean("store.warmup.exit")) {
+            System.exit(0);
+        }
+    }
 
-        server.createContext("/logout", new LogoutHandler());
+    /**
+     * Creates the HTTP server, registers the routes and sets the request executor.
+     * The server is returned unstarted so callers such as benchmarks can choose the port and executor.
+     *
+     * @param port the port to bind, or 0 for an ephemeral port
+     * @param executor the executor requests are dispatched on
+     * @return the configured, unstarted server
+     * @throws IOException if the server cannot be bound
+     */
+    public static HttpServer createServer(int port, Executor executor) throws IOException {
+        Warmup warmup = new Warmup();
+        warmup.skip();
+        return createServer(port, executor, new DrainFilter(), warmup, BasketSource.fromConfig());
+    }
+
+    /**
+     * Creates the HTTP server with the drain filter shutdown uses to wait for requests in flight, the
+     * warm-up that "/ready" reports on, and the visitors' baskets.
+     *
+     * @param port the port to bind, or 0 for an ephemeral port
+     * @param executor the executor requests are dispatched on
+     * @param drain the filter counting requests in flight
+     * @param warmup the warm-up run once the server has started
+     * @param baskets the visitors' shopping baskets
+     * @return the configured, unstarted server
+     * @throws IOException if the server cannot be bound
+     */
+    private static HttpServer createServer(int port, Executor executor, DrainFilter drain, Warmup warmup,
+                                           BasketSource baskets) throws IOException {
 
-        ShoppingBasket basket = new ShoppingBasket();
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+
+        server.setExecutor(executor);
+
+        baskets.registerMetrics();
 
         HomeApplianceDAO applianceDAO = new HomeApplianceDAO();
 
-        server.createContext("/basket/add", new BasketHandler(basket, applianceDAO));
+        Checkout checkout = Checkout.fromConfig(applianceDAO);
+        checkout.registerMetrics();
 
-        server.createContext("/basket/view", new BasketHandler(basket, applianceDAO));
+        AdmissionGate catalogGate = AdmissionGate.fromConfig("catalog", 64, 256);
+        AdmissionGate basketGate = AdmissionGate.fromConfig("basket", 32, 128);
+        AdmissionGate adminGate = AdmissionGate.fromConfig("admin", 8, 16);
+        for (AdmissionGate gate : new AdmissionGate[] {catalogGate, basketGate, adminGate}) {
+            gate.registerMetrics();
+        }
 
-        server.createContext("/basket/clear", new BasketHandler(basket, applianceDAO));
+        HttpHandler storefront = catalogGate.guard(new AppliancesHTTP());
 
+        Router router = new Router()
+                .exact("/", storefront, "GET")
+                .exact("/appliances", storefront, "GET")
+                .exact("/customers", adminGate.guard(new CustomerHandler()), "GET")
+                .exact("/adminPanel", adminGate.guard(new AdminPanelHandler()), "GET")
+                .exact("/addProduct", adminGate.guard(new AddProductHandler()), "GET", "POST")
+                .exact("/editProduct", adminGate.guard(new EditProductHandler()), "GET", "POST")
+                .exact("/deleteProduct", adminGate.guard(new DeleteProductHandler()), "GET", "POST")
+                .exact("/login", adminGate.guard(new LoginHandler()), "GET", "POST")
+                .exact("/logout", adminGate.guard(new LogoutHandler()), "GET", "POST")
+                .exact("/basket/add", basketGate.guard(new BasketHandler(baskets, applianceDAO)), "GET")
+                .exact("/basket/view", basketGate.guard(new BasketHandler(baskets, applianceDAO)), "GET")
+                .exact("/basket/update", basketGate.guard(new BasketHandler(baskets, applianceDAO)), "GET")
+                .exact("/basket/remove", basketGate.guard(new BasketHandler(baskets, applianceDAO)), "GET")
+                .exact("/basket/clear", basketGate.guard(new BasketHandler(baskets, applianceDAO)), "GET")
+                .exact("/basket/checkout", basketGate.guard(new CheckoutHandler(baskets, checkout)), "POST")
+                .exact("/metrics", new MetricsHandler(), "GET")
+                .exact("/health", new HealthHandler(), "GET")
+                .exact("/ready", new ReadyHandler(warmup), "GET")
+                .prefix(StaticAssets.PREFIX, new StaticAssetHandler(), "GET");
 
-        server.start();
-        System.out.println("Server started on port " + PORT);
+        GzipFilter gzip = new GzipFilter();
+        registerMetrics(gzip);
+
+        Metrics.gauge("store_http_requests_in_flight", "Requests being handled", drain::getInFlight);
+        Metrics.gauge("store_startup_time_to_ready_seconds", "Time from JVM start until warm-up finished",
+                () -> warmup.isReady() ? warmup.getTimeToReadyMillis() / 1000.0 : Double.NaN);
+
+        HttpContext context = server.createContext("/", router);
+        context.getFilters().add(new MetricsFilter());
+        context.getFilters().add(new OverflowFilter());
+        context.getFilters().add(drain);
+        context.getFilters().add(gzip);
+
+        return server;
     }
-}
 
+    /**
+     * Registers the shutdown sequence with the shared {@link Lifecycle} and installs it as a JVM shutdown
+     * hook, so SIGTERM stops the server gracefully: new requests are refused with 503, requests in flight
+     * get up to store.shutdown.drainMs (default 10000) to finish, the server is stopped, and then the
+     * executor is stopped, changed baskets are saved, queued writes are committed and the connection pool
+     * is closed, each within store.shutdown.timeoutMs (default 5000).
+     *
+     * @param server the server to stop
+     * @param executor the executor requests are dispatched on
+     * @param drain the server's drain filter
+     * @param baskets the visitors' baskets, whose changes are saved before the write queue stops
+     */
+    private static void registerShutdown(HttpServer server, ExecutorService executor, DrainFilter drain,
+                                         BasketSource baskets) {
+        long drainMillis = Long.getLong("store.shutdown.drainMs", 10000);
+        long timeoutMillis = Long.getLong("store.shutdown.timeoutMs", 5000);
+        Lifecycle lifecycle = Lifecycle.shared();
 
+        lifecycle.register(Lifecycle.Phase.DRAIN, "http server", () -> {
+            boolean drained = drain.drain(drainMillis);
+            // The JDK server waits out the whole delay even when idle, so the draining is done above
+            server.stop(0);
+            if (!drained) {
+                throw new IllegalStateException(drain.getInFlight() + " requests still running after "
+                        + drainMillis + " ms");
+            }
+        });
+        lifecycle.register(Lifecycle.Phase.STOP_WORKERS, "request executor", () -> {
+            executor.shutdown();
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Request executor did not stop within " + timeoutMillis + " ms");
+            }
+        });
+        lifecycle.register(Lifecycle.Phase.FLUSH, "baskets", () -> baskets.shutdown(timeoutMillis));
+        lifecycle.register(Lifecycle.Phase.COMMIT, "write queue", () -> {
+            WriteQueue queue = WriteQueue.getInstanceIfStarted();
+            if (queue != null && !queue.shutdown(timeoutMillis)) {
+                throw new IllegalStateException("Write queue did not drain within " + timeoutMillis + " ms");
+            }
+        });
+        lifecycle.register(Lifecycle.Phase.CLOSE, "connection pool", () -> {
+            ConnectionPool pool = ConnectionPool.getInstanceIfStarted();
+            if (pool != null) {
+                pool.close();
+            }
+        });
+        lifecycle.installShutdownHook();
+    }
 
+    /**
+     * Registers the gauges and counters of the connection pool and its read limiter, the write queue, the
+     * gzip filter and the log.
+     * The pool and queue are read only if they have been started, so serving metrics never opens the database.
+     *
+     * @param gzip the server's gzip filter
+     */
+    private static void registerMetrics(GzipFilter gzip) {
+        for (String partition : new String[] {"reader", "writer"}) {
+            Function<ConnectionPool, ConnectionPool.Partition> select =
+                    "reader".equals(partition) ? ConnectionPool::getReaders : ConnectionPool::getWriter;
+            String label = Metrics.label("partition", partition);
+            Metrics.gauge("store_db_pool_connections_active", label, "Connections borrowed from the pool",
+                    poolValue(select, ConnectionPool.Partition::getActiveCount));
+            Metrics.gauge("store_db_pool_connections_idle", label, "Idle connections in the pool",
+                    poolValue(select, ConnectionPool.Partition::getIdleCount));
+            Metrics.gauge("store_db_pool_connections_max", label, "Size of the pool",
+                    poolValue(select, ConnectionPool.Partition::getMaxSize));
+            Metrics.counter("store_db_pool_borrows_total", label, "Connections borrowed",
+                    poolValue(select, ConnectionPool.Partition::getBorrowCount));
+            Metrics.counter("store_db_pool_wait_seconds_total", label, "Time spent waiting to borrow a connection",
+                    poolValue(select, p -> p.getTotalWaitMillis() / 1000.0));
+            Metrics.counter("store_db_pool_timeouts_total", label, "Borrows that timed out",
+                    poolValue(select, ConnectionPool.Partition::getTimeoutCount));
+            Metrics.counter("store_db_pool_leaks_total", label, "Connections held past the leak threshold",
+                    poolValue(select, ConnectionPool.Partition::getLeakCount));
+        }
+
+        Metrics.counter("store_executor_overflow_total", "Requests answered with 503 because the request queue was full",
+                OverflowFilter::getShedCount);
+
+        Metrics.gauge("store_db_limiter_limit", "Concurrent reads currently allowed by the adaptive limiter",
+                limiterValue(AdaptiveLimiter::getLimit));
+        Metrics.gauge("store_db_limiter_in_flight", "Reads holding a limiter slot",
+                limiterValue(AdaptiveLimiter::getInFlight));
+        Metrics.gauge("store_db_limiter_queued", "Reads waiting for a limiter slot",
+                limiterValue(AdaptiveLimiter::getQueued));
+        Metrics.gauge("store_db_limiter_rtt_short_seconds", "Recent average time a read holds a connection",
+                limiterValue(limiter -> limiter.getShortRttNanos() / 1e9));
+        Metrics.gauge("store_db_limiter_rtt_long_seconds", "Baseline time a read holds a connection",
+                limiterValue(limiter -> limiter.getLongRttNanos() / 1e9));
+        Metrics.counter("store_db_limiter_rejected_total", "Reads rejected by the adaptive limiter",
+                limiterValue(AdaptiveLimiter::getRejectedCount));
+
+        Metrics.gauge("store_db_write_queue_depth", "Operations waiting for the writer thread",
+                queueValue(WriteQueue::getQueueDepth));
+        Metrics.counter("store_db_write_batches_total", "Transactions committed by the writer thread",
+                queueValue(WriteQueue::getBatchCount));
+        Metrics.counter("store_db_write_operations_total", "Operations run by the writer thread",
+                queueValue(WriteQueue::getOperationCount));
+        Metrics.counter("store_db_write_failures_total", "Operations that failed or were rolled back",
+                queueValue(WriteQueue::getFailedOperationCount));
+        Metrics.gauge("store_db_write_largest_batch", "Most operations committed in one transaction",
+                queueValue(WriteQueue::getLargestBatch));
+
+        Metrics.counter("store_gzip_compressed_total", "Responses compressed", gzip::getCompressedCount);
+        Metrics.counter("store_gzip_cache_hits_total", "Compressed responses served from the cache",
+                gzip::getCacheHits);
+        Metrics.gauge("store_gzip_cache_bytes", "Size of the cached compressed bodies", gzip::getCachedBytes);
+
+        Metrics.counter("store_log_events_total", "Log events written", Log::getWrittenCount);
+        Metrics.counter("store_log_dropped_total", "Log events dropped because the buffer was full",
+                Log::getDroppedCount);
+    }
+
+    /**
+     * Reads a value from a partition of the shared pool, or NaN if the pool has not been started.
+     */
+    private static DoubleSupplier poolValue(Function<ConnectionPool, ConnectionPool.Partition> partition,
+                                            ToDoubleFunction<ConnectionPool.Partition> value) {
+        return () -> {
+            ConnectionPool pool = ConnectionPool.getInstanceIfStarted();
+            return pool == null ? Double.NaN : value.applyAsDouble(partition.apply(pool));
+        };
+    }
+
+    /**
+     * Reads a value from the pool's read limiter, or NaN if the pool has not been started or has no limiter.
+     */
+    private static DoubleSupplier limiterValue(ToDoubleFunction<AdaptiveLimiter> value) {
+        return () -> {
+            ConnectionPool pool = ConnectionPool.getInstanceIfStarted();
+            AdaptiveLimiter limiter = pool == null ? null : pool.getReadLimiter();
+            return limiter == null ? Double.NaN : value.applyAsDouble(limiter);
+        };
+    }
 
+    /**
+     * Reads a value from the shared write queue, or NaN if the queue has not been started.
+     */
+    private static DoubleSupplier queueValue(ToDoubleFunction<WriteQueue> value) {
+        return () -> {
+            WriteQueue queue = WriteQueue.getInstanceIfStarted();
+            return queue == null ? Double.NaN : value.applyAsDouble(queue);
+        };
+    }
+}
\ No newline at end of file
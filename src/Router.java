@@ -0,0 +1,185 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code Router} class dispatches every request to the handler registered for its path. It is bound
+ * to the server's root context, so it sees all requests, and replaces the server's longest-prefix context
+ * matching, which sent any unknown path to the store page.
+ * <p>
+ * Routes are either exact paths, looked up in a hash map, or path prefixes, checked longest first.
+ * Requests with no route get a small 404 without reaching a handler, and requests with a method the route
+ * does not allow get a 405 with an Allow header. Every route that allows GET also answers HEAD: the handler
+ * runs as for GET and its body is discarded.
+ * <p>
+ * The matched route's pattern is stored in the exchange attribute {@link #ROUTE_ATTRIBUTE}, so filters
+ * can group requests by route rather than by raw path.
+ * <p>
+ * Example usage:
+ * <p>
+ * new Router().exact("/customers", new CustomerHandler(), "GET").prefix("/static/", new StaticAssetHandler(), "GET");
+ *
+ * @author Dominic Cash
+ */
+public class Router implements HttpHandler {
+
+    /** The exchange attribute holding the pattern of the matched route. */
+    public static final String ROUTE_ATTRIBUTE = "store.route";
+
+    /** The route pattern recorded for requests that match no route. */
+    public static final String UNMATCHED = "unmatched";
+
+    private static final byte[] NOT_FOUND = "404 Not Found".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * A registered route.
+     */
+    private static final class Route {
+
+        private final String pattern;
+        private final HttpHandler handler;
+        private final Set<String> methods;
+        private final String allow;
+
+        Route(String pattern, HttpHandler handler, String... methods) {
+            Set<String> allowed = new LinkedHashSet<>(Arrays.asList(methods));
+            if (allowed.contains("GET")) {
+                allowed.add("HEAD");
+            }
+            this.pattern = pattern;
+            this.handler = handler;
+            this.methods = allowed;
+            this.allow = String.join(", ", allowed);
+        }
+    }
+
+    private final Map<String, Route> exact = new HashMap<>();
+    private final List<Route> prefixes = new ArrayList<>();
+    private volatile Route[] prefixTable = new Route[0];
+
+    /**
+     * Registers a handler for one exact path.
+     *
+     * @param path the path, e.g. "/customers"
+     * @param handler the handler for the path
+     * @param methods the HTTP methods allowed; GET also allows HEAD
+     * @return this router
+     */
+    public synchronized Router exact(String path, HttpHandler handler, String... methods) {
+        exact.put(path, new Route(path, handler, methods));
+        return this;
+    }
+
+    /**
+     * Registers a handler for every path starting with a prefix. Exact routes take precedence, and the
+     * longest matching prefix wins.
+     *
+     * @param prefix the path prefix, e.g. "/static/"
+     * @param handler the handler for the paths
+     * @param methods the HTTP methods allowed; GET also allows HEAD
+     * @return this router
+     */
+    public synchronized Router prefix(String prefix, HttpHandler handler, String... methods) {
+        prefixes.add(new Route(prefix + "*", handler, methods));
+        Route[] table = prefixes.toArray(new Route[0]);
+        Arrays.sort(table, Comparator.comparingInt((Route route) -> route.pattern.length()).reversed());
+        prefixTable = table;
+        return this;
+    }
+
+    /**
+     * Finds the route for a path.
+     */
+    private Route match(String path) {
+        Route route = exact.get(path);
+        if (route != null) {
+            return route;
+        }
+        for (Route candidate : prefixTable) {
+            if (path.regionMatches(0, candidate.pattern, 0, candidate.pattern.length() - 1)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        Route route = match(exchange.getRequestURI().getPath());
+        if (route == null) {
+            exchange.setAttribute(ROUTE_ATTRIBUTE, UNMATCHED);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+            exchange.sendResponseHeaders(404, NOT_FOUND.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(NOT_FOUND);
+            }
+            return;
+        }
+
+        exchange.setAttribute(ROUTE_ATTRIBUTE, route.pattern);
+        String method = exchange.getRequestMethod();
+        if (!route.methods.contains(method)) {
+            exchange.getResponseHeaders().set("Allow", route.allow);
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+
+        if ("HEAD".equals(method)) {
+            HeadExchange head = new HeadExchange(exchange);
+            try {
+                route.handler.handle(head);
+            } finally {
+                head.close();
+            }
+            return;
+        }
+        route.handler.handle(exchange);
+    }
+
+    /**
+     * Runs a handler for a HEAD request as if it were a GET, sending its status and headers but no body.
+     */
+    private static final class HeadExchange extends DelegatingExchange {
+
+        HeadExchange(HttpExchange delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public String getRequestMethod() {
+            return "GET";
+        }
+
+        @Override
+        public void sendResponseHeaders(int code, long length) throws IOException {
+            if (length > 0) {
+                delegate.getResponseHeaders().set("Content-Length", Long.toString(length));
+            }
+            delegate.sendResponseHeaders(code, -1);
+        }
+
+        @Override
+        public OutputStream getResponseBody() {
+            return OutputStream.nullOutputStream();
+        }
+    }
+}
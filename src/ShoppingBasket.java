@@ -5,55 +5,262 @@ import java.util.List;
 //16042439
 
 /**
- * Represents a shopping basket that holds a list of home appliances.
- * Provides methods for adding items, retrieving the list of items, calculating the total price,
- * and clearing the basket.
+ * Represents a shopping basket as lines of product id and quantity, held in a primitive
+ * {@link IntIntMap} with the unit price of each line in another. Adding the same product again raises
+ * its quantity instead of storing the product twice, and the total price is kept up to date on every
+ * change, so each operation costs O(1) however many items the basket holds.
+ * <p>
+ * The unit price of a line is the product's price when it was first added, until it is revalidated
+ * against the catalog with {@link #updateUnitPrice(int, int)}.
+ * <p>
+ * A basket is safe to use from concurrent requests of the same visitor; its methods lock the basket
+ * itself, so requests for different baskets never wait for one another.
  */
 public class ShoppingBasket {
-    private List<HomeAppliance> items;
+
+    /** The most of one product a basket line may hold. */
+    public static final int MAX_QUANTITY = 99;
+
+    private final IntIntMap quantities = new IntIntMap();
+    private final IntIntMap unitPrices = new IntIntMap();
+    private int totalPrice;
+    private int itemCount;
+    private Runnable changeListener;
+
+    /**
+     * A line of the basket: a product, its quantity and its unit price.
+     */
+    public static final class Line {
+
+        private final int productId;
+        private final int quantity;
+        private final int unitPrice;
+
+        Line(int productId, int quantity, int unitPrice) {
+            this.productId = productId;
+            this.quantity = quantity;
+            this.unitPrice = unitPrice;
+        }
+
+        /**
+         * Gets the product id.
+         *
+         * @return the product id
+         */
+        public int getProductId() {
+            return productId;
+        }
+
+        /**
+         * Gets the quantity.
+         *
+         * @return the quantity
+         */
+        public int getQuantity() {
+            return quantity;
+        }
+
+        /**
+         * Gets the price of one item.
+         *
+         * @return the unit price
+         */
+        public int getUnitPrice() {
+            return unitPrice;
+        }
+
+        /**
+         * Gets the price of the whole line.
+         *
+         * @return the unit price times the quantity
+         */
+        public int getLineTotal() {
+            return unitPrice * quantity;
+        }
+    }
 
     /**
      * Initialises an empty shopping basket.
      */
     public ShoppingBasket() {
-        this.items = new ArrayList<>();
     }
 
     /**
-     * Adds a home appliance item to the shopping basket.
+     * Sets a callback run after every change to the basket, such as marking it to be saved.
+     *
+     * @param listener the callback, or null for none
+     */
+    public synchronized void setChangeListener(Runnable listener) {
+        this.changeListener = listener;
+    }
+
+    /**
+     * Adds one of a home appliance to the shopping basket.
      *
      * @param item the home appliance to add
      */
     public void addItem(HomeAppliance item) {
-        this.items.add(item);
+        add(item.getId(), item.getPrice(), 1);
     }
 
     /**
-     * Retrieves the list of home appliances in the shopping basket.
+     * Adds a quantity of a product, up to {@link #MAX_QUANTITY} on its line.
      *
-     * @return the list of items in the basket
+     * @param productId the product id
+     * @param unitPrice the price of one item, used if the product is not yet in the basket
+     * @param quantity the number to add
      */
-    public List<HomeAppliance> getItems() {
-        return items;
+    public synchronized void add(int productId, int unitPrice, int quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+        int current = quantities.get(productId, 0);
+        if (current == 0) {
+            unitPrices.put(productId, unitPrice, 0);
+        }
+        setLine(productId, current, Math.min(MAX_QUANTITY, current + quantity));
     }
 
     /**
-     * Calculates the total price of all items in the shopping basket.
+     * Sets the quantity of a product already in the basket. A quantity of 0 or less removes the line.
      *
-     * @return the total price of items in the basket
+     * @param productId the product id
+     * @param quantity the new quantity, capped at {@link #MAX_QUANTITY}
+     * @return true if the product was in the basket
+     */
+    public synchronized boolean updateQuantity(int productId, int quantity) {
+        int current = quantities.get(productId, 0);
+        if (current == 0) {
+            return false;
+        }
+        setLine(productId, current, Math.min(MAX_QUANTITY, Math.max(0, quantity)));
+        return true;
+    }
+
+    /**
+     * Changes the unit price of a product already in the basket, such as when the catalog price has changed.
+     *
+     * @param productId the product id
+     * @param unitPrice the new price of one item
+     * @return true if the product was in the basket
+     */
+    public synchronized boolean updateUnitPrice(int productId, int unitPrice) {
+        int quantity = quantities.get(productId, 0);
+        if (quantity == 0) {
+            return false;
+        }
+        int previous = unitPrices.put(productId, unitPrice, 0);
+        totalPrice += (unitPrice - previous) * quantity;
+        changed();
+        return true;
+    }
+
+    /**
+     * Removes a product's line from the basket.
+     *
+     * @param productId the product id
+     * @return true if the product was in the basket
+     */
+    public synchronized boolean remove(int productId) {
+        return updateQuantity(productId, 0);
+    }
+
+    /**
+     * Changes a line's quantity and the totals with it. Must hold the lock.
+     */
+    private void setLine(int productId, int current, int quantity) {
+        int unitPrice = unitPrices.get(productId, 0);
+        totalPrice += (quantity - current) * unitPrice;
+        itemCount += quantity - current;
+        if (quantity == 0) {
+            quantities.remove(productId, 0);
+            unitPrices.remove(productId, 0);
+        } else {
+            quantities.put(productId, quantity, 0);
+        }
+        changed();
+    }
+
+    /**
+     * Tells the listener the basket has changed. Must hold the lock.
+     */
+    private void changed() {
+        if (changeListener != null) {
+            changeListener.run();
+        }
+    }
+
+    /**
+     * Gets the quantity of a product.
+     *
+     * @param productId the product id
+     * @return the quantity, or 0 if the product is not in the basket
+     */
+    public synchronized int getQuantity(int productId) {
+        return quantities.get(productId, 0);
+    }
+
+    /**
+     * Retrieves the lines of the shopping basket, ordered by product id.
+     *
+     * @return a copy of the lines in the basket
      */
-    public int getTotalPrice() {
-        int total = 0;
-        for (HomeAppliance item : items) {
-            total += item.getPrice();
+    public synchronized List<Line> getLines() {
+        int[] ids = quantities.keys();
+        List<Line> lines = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            lines.add(new Line(id, quantities.get(id, 0), unitPrices.get(id, 0)));
         }
-        return total;
+        return lines;
+    }
+
+    /**
+     * Gets the number of lines in the basket.
+     *
+     * @return the line count
+     */
+    public synchronized int getLineCount() {
+        return quantities.size();
+    }
+
+    /**
+     * Gets the number of items in the basket, counting each unit of every line.
+     *
+     * @return the item count
+     */
+    public synchronized int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * Gets the total price of all items in the shopping basket.
+     *
+     * @return the total price of items in the basket
+     */
+    public synchronized int getTotalPrice() {
+        return totalPrice;
+    }
+
+    /**
+     * Empties the basket and returns what it held, in one step, so two checkouts of the same basket
+     * cannot both take its lines.
+     *
+     * @return the lines the basket held, ordered by product id
+     */
+    public synchronized List<Line> takeLines() {
+        List<Line> lines = getLines();
+        clearBasket();
+        return lines;
     }
 
     /**
      * Clears all items from the shopping basket.
      */
-    public void clearBasket() {
-        this.items.clear();
+    public synchronized void clearBasket() {
+        quantities.clear();
+        unitPrices.clear();
+        totalPrice = 0;
+        itemCount = 0;
+        changed();
     }
-}
\ No newline at end of file
+}
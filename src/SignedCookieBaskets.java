@@ -0,0 +1,243 @@
+import com.sun.net.httpserver.HttpExchange;
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code SignedCookieBaskets} class keeps each visitor's basket in a cookie instead of on the
+ * server, so any instance behind a load balancer can serve any basket and the server stores nothing.
+ * <p>
+ * The cookie holds the basket's lines packed as variable-length integers (product id, quantity and unit
+ * price) with the time it was issued, in URL-safe base64, followed by an HMAC-SHA256 signature of that
+ * payload. A cookie whose signature does not match, that cannot be decoded, or that is older than the
+ * maximum age is ignored, so visitors cannot change prices or quantities themselves. Because the prices
+ * in a cookie may be out of date, the basket page revalidates them against the catalog. A change that would
+ * make the cookie too large for a browser to keep is not saved, and the visitor is told their basket is full.
+ * <p>
+ * Every instance must be given the same key. The following system properties configure the cookies:
+ * <p>
+ * store.basket.cookieKey - the signing key, in base64, at least 32 bytes. If unset, a random key is used,
+ * so baskets last only until restart and are not shared between instances.
+ * store.basket.cookieMaxAgeDays - how long a basket cookie is accepted after it was last changed (default 30).
+ *
+ * @author Dominic Cash
+ */
+public final class SignedCookieBaskets implements BasketSource {
+
+    /** The name of the cookie holding the basket. */
+    public static final String COOKIE = "basket_lines";
+
+    /** The longest cookie written; browsers accept about 4 KB per cookie. */
+    static final int MAX_COOKIE_LENGTH = 3800;
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int VERSION = 1;
+
+    /** The number of signature bytes kept in the cookie. */
+    private static final int SIGNATURE_BYTES = 16;
+
+    private final SecretKeySpec key;
+    private final long maxAgeSeconds;
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong oversizedCount = new AtomicLong();
+
+    /**
+     * Creates a source signing with the given key.
+     *
+     * @param key the signing key, at least 32 bytes
+     * @param maxAgeSeconds how long a cookie is accepted after it was issued
+     */
+    public SignedCookieBaskets(byte[] key, long maxAgeSeconds) {
+        if (key.length < 32) {
+            throw new IllegalArgumentException("Basket cookie key must be at least 32 bytes: " + key.length);
+        }
+        this.key = new SecretKeySpec(key, ALGORITHM);
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+
+    /**
+     * Creates a source configured from system properties.
+     *
+     * @return the source
+     */
+    public static SignedCookieBaskets fromConfig() {
+        String configured = System.getProperty("store.basket.cookieKey");
+        byte[] key;
+        if (configured == null || configured.isBlank()) {
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            Log.warn("No store.basket.cookieKey set; basket cookies will not survive a restart or be shared "
+                    + "between instances");
+        } else {
+            key = Base64.getDecoder().decode(configured.trim());
+        }
+        return new SignedCookieBaskets(key,
+                TimeUnit.DAYS.toSeconds(Long.getLong("store.basket.cookieMaxAgeDays", 30)));
+    }
+
+    @Override
+    public ShoppingBasket find(HttpExchange exchange) {
+        String value = BasketSessions.cookieValue(exchange, COOKIE);
+        return value == null ? null : decode(value, System.currentTimeMillis() / 1000);
+    }
+
+    @Override
+    public ShoppingBasket getOrCreate(HttpExchange exchange) {
+        ShoppingBasket basket = find(exchange);
+        return basket == null ? new ShoppingBasket() : basket;
+    }
+
+    @Override
+    public boolean save(HttpExchange exchange, ShoppingBasket basket) {
+        String cookie;
+        if (basket.getLineCount() == 0) {
+            cookie = COOKIE + "=; Path=/; Max-Age=0; HttpOnly; SameSite=Lax";
+        } else {
+            String value = encode(basket, System.currentTimeMillis() / 1000);
+            if (value.length() > MAX_COOKIE_LENGTH) {
+                // Keep the previous cookie rather than send one the browser would drop
+                oversizedCount.incrementAndGet();
+                Log.debug("Basket too large for a cookie", "lines", basket.getLineCount());
+                return false;
+            }
+            cookie = COOKIE + "=" + value + "; Path=/; Max-Age=" + maxAgeSeconds + "; HttpOnly; SameSite=Lax";
+        }
+        exchange.getResponseHeaders().add("Set-Cookie", cookie);
+        return true;
+    }
+
+    /**
+     * Encodes and signs a basket.
+     *
+     * @param basket the basket
+     * @param nowSeconds the time of issue, in seconds since the epoch
+     * @return the cookie value
+     */
+    String encode(ShoppingBasket basket, long nowSeconds) {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        payload.write(VERSION);
+        writeVarint(payload, nowSeconds);
+        List<ShoppingBasket.Line> lines = basket.getLines();
+        writeVarint(payload, lines.size());
+        for (ShoppingBasket.Line line : lines) {
+            writeVarint(payload, line.getProductId());
+            writeVarint(payload, line.getQuantity());
+            writeVarint(payload, line.getUnitPrice());
+        }
+        byte[] bytes = payload.toByteArray();
+        Base64.Encoder base64 = Base64.getUrlEncoder().withoutPadding();
+        return base64.encodeToString(bytes) + "." + base64.encodeToString(sign(bytes));
+    }
+
+    /**
+     * Verifies and decodes a cookie value.
+     *
+     * @param value the cookie value
+     * @param nowSeconds the current time, in seconds since the epoch
+     * @return the basket, or null if the cookie is forged, malformed or expired
+     */
+    ShoppingBasket decode(String value, long nowSeconds) {
+        try {
+            int dot = value.indexOf('.');
+            if (dot < 0) {
+                return reject();
+            }
+            Base64.Decoder base64 = Base64.getUrlDecoder();
+            byte[] bytes = base64.decode(value.substring(0, dot));
+            byte[] signature = base64.decode(value.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(bytes), signature)) {
+                return reject();
+            }
+            ByteBuffer in = ByteBuffer.wrap(bytes);
+            if (in.get() != VERSION) {
+                return reject();
+            }
+            long issued = readVarint(in);
+            if (nowSeconds - issued > maxAgeSeconds) {
+                return reject();
+            }
+            ShoppingBasket basket = new ShoppingBasket();
+            long count = readVarint(in);
+            for (long i = 0; i < count; i++) {
+                int productId = Math.toIntExact(readVarint(in));
+                int quantity = Math.toIntExact(readVarint(in));
+                int unitPrice = Math.toIntExact(readVarint(in));
+                basket.add(productId, unitPrice, quantity);
+            }
+            return basket;
+        } catch (IllegalArgumentException | ArithmeticException | BufferUnderflowException e) {
+            return reject();
+        }
+    }
+
+    private ShoppingBasket reject() {
+        rejectedCount.incrementAndGet();
+        return null;
+    }
+
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return Arrays.copyOf(mac.doFinal(payload), SIGNATURE_BYTES);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 unavailable", e);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+
+    @Override
+    public void registerMetrics() {
+        Metrics.counter("store_basket_cookies_rejected_total", "Basket cookies ignored as forged, malformed or expired",
+                rejectedCount::get);
+        Metrics.counter("store_basket_cookies_oversized_total", "Basket changes not kept because the cookie was too large",
+                oversizedCount::get);
+    }
+
+    @Override
+    public void shutdown(long timeoutMillis) {
+        // Baskets live in the visitors' cookies, so there is nothing to save
+    }
+
+    /**
+     * Gets the number of cookies ignored as forged, malformed or expired.
+     *
+     * @return the rejected count
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+}
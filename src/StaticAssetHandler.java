@@ -0,0 +1,74 @@
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.io.OutputStream;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code StaticAssetHandler} class serves the preloaded {@link StaticAssets} under "/static".
+ * <p>
+ * Versioned paths, the ones pages link to, are sent with a one-year immutable Cache-Control header, so
+ * browsers never ask for them again. The plain file names are also served for convenience, but must be
+ * revalidated. Every response carries a strong ETag, and a matching If-None-Match is answered with 304.
+ *
+ * @author Dominic Cash
+ */
+public class StaticAssetHandler implements HttpHandler {
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    private final StaticAssets assets;
+
+    /**
+     * Creates a handler serving the shared assets.
+     */
+    public StaticAssetHandler() {
+        this(StaticAssets.shared());
+    }
+
+    /**
+     * Creates a handler serving the given assets.
+     *
+     * @param assets the assets to serve
+     */
+    public StaticAssetHandler(StaticAssets assets) {
+        this.assets = assets;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        StaticAssets.Asset asset = assets.find(path);
+        boolean versioned = asset != null;
+        if (asset == null && path.startsWith(StaticAssets.PREFIX)) {
+            String url = assets.url(path.substring(StaticAssets.PREFIX.length()));
+            asset = url == null ? null : assets.find(url);
+        }
+        if (asset == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", asset.getContentType());
+        headers.set("ETag", asset.getETag());
+        headers.set("Cache-Control", versioned ? IMMUTABLE : "no-cache");
+
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null && ConditionalGet.matches(ifNoneMatch, asset.getETag())) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] content = asset.getContent();
+        exchange.sendResponseHeaders(200, content.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(content);
+        }
+    }
+}
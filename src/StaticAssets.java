@@ -0,0 +1,287 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code StaticAssets} class holds the stylesheet and fonts shared by every page, preloaded into memory
+ * from the "static" directory when first used.
+ * <p>
+ * Each asset is published under a versioned path containing a hash of its content, for example
+ * "/static/store.3f9a1c02d4.css", so it can be cached forever by browsers: a changed file gets a new path.
+ * References between assets, such as font URLs in the stylesheet, are rewritten to the versioned paths
+ * when the assets are loaded. Pages link to the stylesheet through {@link #pageHead(String)}.
+ * <p>
+ * The directory can be changed with the system property store.static.dir.
+ *
+ * @author Dominic Cash
+ */
+public final class StaticAssets {
+
+    /** The URL path prefix assets are served under. */
+    public static final String PREFIX = "/static/";
+
+    /** The system property holding the directory assets are loaded from. */
+    public static final String DIR_PROPERTY = "store.static.dir";
+
+    /** The stylesheet linked from every page. */
+    public static final String STYLESHEET = "store.css";
+
+    private static final Pattern CSS_URL = Pattern.compile("url\\('([^':)]+)'\\)");
+
+    /**
+     * A preloaded asset.
+     */
+    public static final class Asset {
+
+        private final String path;
+        private final String contentType;
+        private final byte[] content;
+        private final String etag;
+
+        Asset(String path, String contentType, byte[] content, String hash) {
+            this.path = path;
+            this.contentType = contentType;
+            this.content = content;
+            this.etag = "\"" + hash + "\"";
+        }
+
+        /**
+         * Gets the versioned URL path of the asset.
+         *
+         * @return the path, e.g. "/static/store.3f9a1c02d4.css"
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Gets the content type of the asset.
+         *
+         * @return the content type
+         */
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * Gets the asset's bytes. The array is shared and must not be modified.
+         *
+         * @return the content
+         */
+        public byte[] getContent() {
+            return content;
+        }
+
+        /**
+         * Gets the strong entity tag of the asset, derived from its content.
+         *
+         * @return the quoted entity tag
+         */
+        public String getETag() {
+            return etag;
+        }
+    }
+
+    private final Map<String, Asset> byName;
+    private final Map<String, Asset> byPath;
+    private final String pageHeadLinks;
+
+    /**
+     * Loads every file under a directory.
+     *
+     * @param directory the directory holding the assets
+     * @throws IOException if a file cannot be read
+     */
+    public StaticAssets(Path directory) throws IOException {
+        Map<String, byte[]> files = new HashMap<>();
+        if (Files.isDirectory(directory)) {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                for (Path file : paths.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                    String name = directory.relativize(file).toString().replace('\\', '/');
+                    files.put(name, Files.readAllBytes(file));
+                }
+            }
+        }
+
+        Map<String, Asset> names = new HashMap<>();
+        // Binary assets first, so stylesheets can refer to their versioned paths
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            if (!file.getKey().endsWith(".css")) {
+                names.put(file.getKey(), version(file.getKey(), file.getValue()));
+            }
+        }
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            if (file.getKey().endsWith(".css")) {
+                names.put(file.getKey(), version(file.getKey(), rewriteUrls(file.getKey(), file.getValue(), names)));
+            }
+        }
+
+        Map<String, Asset> paths = new HashMap<>();
+        for (Asset asset : names.values()) {
+            paths.put(asset.getPath(), asset);
+        }
+        this.byName = names;
+        this.byPath = paths;
+
+        Asset stylesheet = names.get(STYLESHEET);
+        this.pageHeadLinks = stylesheet == null ? "" : "<link rel='stylesheet' href='" + stylesheet.getPath() + "'>\n";
+    }
+
+    /**
+     * Gets the assets loaded from the configured directory, loading them on first use. If the directory
+     * cannot be read the error is reported and pages are served without a stylesheet.
+     *
+     * @return the shared assets
+     */
+    public static StaticAssets shared() {
+        return Shared.ASSETS;
+    }
+
+    /**
+     * Holds the shared assets; the class is initialised, and the files read, on first use.
+     */
+    private static final class Shared {
+
+        static final StaticAssets ASSETS = load();
+
+        private static StaticAssets load() {
+            Path directory = Paths.get(System.getProperty(DIR_PROPERTY, "static"));
+            try {
+                return new StaticAssets(directory);
+            } catch (IOException e) {
+                Log.error("Unable to load static assets", "directory", directory, "error", e.getMessage());
+                return new StaticAssets();
+            }
+        }
+    }
+
+    /**
+     * Creates an empty set of assets.
+     */
+    private StaticAssets() {
+        this.byName = Map.of();
+        this.byPath = Map.of();
+        this.pageHeadLinks = "";
+    }
+
+    /**
+     * Builds the versioned asset for a file.
+     */
+    private static Asset version(String name, byte[] content) {
+        String hash = hash(content);
+        int dot = name.lastIndexOf('.');
+        String versioned = dot > name.lastIndexOf('/')
+                ? name.substring(0, dot) + "." + hash + name.substring(dot)
+                : name + "." + hash;
+        return new Asset(PREFIX + versioned, contentType(name), content, hash);
+    }
+
+    /**
+     * Rewrites relative url('...') references in a stylesheet to the versioned paths of the assets.
+     */
+    private static byte[] rewriteUrls(String name, byte[] css, Map<String, Asset> assets) {
+        String base = name.contains("/") ? name.substring(0, name.lastIndexOf('/') + 1) : "";
+        Matcher matcher = CSS_URL.matcher(new String(css, StandardCharsets.UTF_8));
+        StringBuilder rewritten = new StringBuilder();
+        while (matcher.find()) {
+            Asset target = assets.get(base + matcher.group(1));
+            String url = target == null ? matcher.group(1) : target.getPath();
+            matcher.appendReplacement(rewritten, Matcher.quoteReplacement("url('" + url + "')"));
+        }
+        matcher.appendTail(rewritten);
+        return rewritten.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A short hex digest of some content.
+     */
+    private static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return HexFormat.of().formatHex(digest, 0, 5);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Gets the content type for a file name.
+     */
+    private static String contentType(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".css")) {
+            return "text/css; charset=UTF-8";
+        } else if (lower.endsWith(".js")) {
+            return "text/javascript; charset=UTF-8";
+        } else if (lower.endsWith(".woff2")) {
+            return "font/woff2";
+        } else if (lower.endsWith(".woff")) {
+            return "font/woff";
+        } else if (lower.endsWith(".svg")) {
+            return "image/svg+xml";
+        } else if (lower.endsWith(".png")) {
+            return "image/png";
+        }
+        return "application/octet-stream";
+    }
+
+    /**
+     * Finds an asset by its versioned URL path.
+     *
+     * @param path the request path
+     * @return the asset, or null if there is none at that path
+     */
+    public Asset find(String path) {
+        return byPath.get(path);
+    }
+
+    /**
+     * Gets the versioned URL path of an asset.
+     *
+     * @param name the file name relative to the asset directory, e.g. "store.css"
+     * @return the versioned path, or null if there is no such asset
+     */
+    public String url(String name) {
+        Asset asset = byName.get(name);
+        return asset == null ? null : asset.getPath();
+    }
+
+    /**
+     * Gets every asset.
+     *
+     * @return the assets
+     */
+    public List<Asset> getAssets() {
+        return List.copyOf(byPath.values());
+    }
+
+    /**
+     * Builds the head element of a page: the title, character set and the shared stylesheet.
+     *
+     * @param title the page title
+     * @return the head element, ending with a newline
+     */
+    public static String pageHead(String title) {
+        return "<head>\n"
+                + "<title>" + title + "</title>\n"
+                + "<meta charset='UTF-8'>\n"
+                + shared().pageHeadLinks
+                + "</head>\n";
+    }
+}
@@ -0,0 +1,130 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code StorageProfile} enum names a set of SQLite storage settings that the {@link ConnectionPool}
+ * applies when it opens its connections at pool start. Every profile runs the database in WAL journal
+ * mode, so readers never wait on the writer; the profiles differ in page cache size, memory-mapped I/O
+ * size and how often SQLite syncs to disk.
+ * <p>
+ * The profile is selected with the {@code store.db.profile} system property (default {@code balanced}).
+ * Individual settings can be overridden with {@code store.db.cacheSize} (pages, or KiB when negative),
+ * {@code store.db.mmapSize} (bytes) and {@code store.db.synchronous} (OFF, NORMAL, FULL or EXTRA).
+ *
+ * @author Dominic Cash
+ */
+public enum StorageProfile {
+
+    /** Moderate cache and memory mapping, sync at WAL checkpoints only. */
+    BALANCED(-16_000, 64L * 1024 * 1024, "NORMAL"),
+
+    /** Large cache and memory mapping for catalog-heavy read traffic. */
+    READ_HEAVY(-64_000, 256L * 1024 * 1024, "NORMAL"),
+
+    /** Small cache, no memory mapping and a sync on every commit. */
+    DURABLE(-8_000, 0L, "FULL");
+
+    private final int cacheSize;
+    private final long mmapSize;
+    private final String synchronous;
+
+    StorageProfile(int cacheSize, long mmapSize, String synchronous) {
+        this.cacheSize = cacheSize;
+        this.mmapSize = mmapSize;
+        this.synchronous = synchronous;
+    }
+
+    /**
+     * Reads the profile from the {@code store.db.profile} system property.
+     *
+     * @return the configured profile, {@link #BALANCED} by default
+     */
+    public static StorageProfile configured() {
+        String name = System.getProperty("store.db.profile", "balanced");
+        return valueOf(name.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Gets the page cache size, honouring the {@code store.db.cacheSize} override.
+     *
+     * @return the cache size in pages, or in KiB when negative
+     */
+    public int getCacheSize() {
+        return Integer.getInteger("store.db.cacheSize", cacheSize);
+    }
+
+    /**
+     * Gets the memory-mapped I/O size, honouring the {@code store.db.mmapSize} override.
+     *
+     * @return the mmap size in bytes
+     */
+    public long getMmapSize() {
+        return Long.getLong("store.db.mmapSize", mmapSize);
+    }
+
+    /**
+     * Gets the synchronous level, honouring the {@code store.db.synchronous} override.
+     *
+     * @return the synchronous level
+     */
+    public String getSynchronous() {
+        String value = System.getProperty("store.db.synchronous", synchronous).trim().toUpperCase(Locale.ROOT);
+        switch (value) {
+            case "OFF":
+            case "NORMAL":
+            case "FULL":
+            case "EXTRA":
+                return value;
+            default:
+                throw new IllegalArgumentException("Invalid synchronous setting: " + value);
+        }
+    }
+
+    /**
+     * Switches the database file to WAL journal mode. The journal mode is stored in the database file,
+     * so this only needs to run once, on the writer connection.
+     *
+     * @param connection the writer connection
+     * @throws SQLException if the pragma fails
+     */
+    public void enableWal(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA journal_mode=WAL");
+        }
+    }
+
+    /**
+     * Applies the per-connection settings of this profile to a newly opened connection.
+     *
+     * @param connection the connection to configure
+     * @param readOnly whether the connection should reject writes
+     * @throws SQLException if a pragma fails
+     */
+    public void applyTo(Connection connection, boolean readOnly) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("PRAGMA cache_size=" + getCacheSize());
+            stmt.execute("PRAGMA mmap_size=" + getMmapSize());
+            stmt.execute("PRAGMA synchronous=" + getSynchronous());
+            stmt.execute("PRAGMA busy_timeout=5000");
+            if (readOnly) {
+                stmt.execute("PRAGMA query_only=1");
+            }
+        }
+    }
+
+    /**
+     * Returns a summary of the effective settings of this profile.
+     *
+     * @return the profile name and settings
+     */
+    @Override
+    public String toString() {
+        return name() + "{journal_mode=WAL, cache_size=" + getCacheSize() + ", mmap_size=" + getMmapSize()
+                + ", synchronous=" + getSynchronous() + '}';
+    }
+}
@@ -0,0 +1,93 @@
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code TimingWheel} class schedules keys to expire at a deadline, with constant cost for
+ * scheduling and for each expiry however many keys are scheduled. Time is divided into ticks, and the
+ * wheel has one slot per tick; a key is placed in the slot its deadline falls in, and each time the
+ * clock advances the slots passed over are emptied.
+ * <p>
+ * A deadline further away than one turn of the wheel comes round early, and a key scheduled into a slot
+ * that is being emptied comes round one turn late. The owner therefore checks each expired key against
+ * its own record of the deadline and schedules it again if it is not yet due. This also lets the owner
+ * extend a deadline by updating its record alone, instead of moving the key between slots.
+ * <p>
+ * Keys may be scheduled from any thread; {@link #advance(long, Consumer)} is called by a single thread.
+ *
+ * @param <K> the type of key scheduled
+ * @author Dominic Cash
+ */
+public final class TimingWheel<K> {
+
+    private final Queue<K>[] slots;
+    private final long tickMillis;
+    private volatile long currentTick;
+
+    /**
+     * Creates a wheel.
+     *
+     * @param slotCount the number of slots, one per tick
+     * @param tickMillis the length of a tick
+     * @param startMillis the time the wheel starts at
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(int slotCount, long tickMillis, long startMillis) {
+        if (slotCount < 1 || tickMillis < 1) {
+            throw new IllegalArgumentException("Invalid wheel: " + slotCount + " slots of " + tickMillis + " ms");
+        }
+        this.slots = new Queue[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedules a key to come round at a deadline. A deadline already passed comes round on the next tick.
+     *
+     * @param key the key
+     * @param deadlineMillis the time the key is due
+     */
+    public void schedule(K key, long deadlineMillis) {
+        long tick = Math.max(deadlineMillis / tickMillis, currentTick + 1);
+        slots[(int) (tick % slots.length)].add(key);
+    }
+
+    /**
+     * Advances the wheel to a time, emptying every slot passed over.
+     *
+     * @param nowMillis the current time
+     * @param expired receives each key whose slot was emptied
+     */
+    public void advance(long nowMillis, Consumer<K> expired) {
+        long target = nowMillis / tickMillis;
+        // Once a full turn has been emptied every slot has been visited
+        long from = Math.max(currentTick + 1, target - slots.length + 1);
+        for (long tick = from; tick <= target; tick++) {
+            currentTick = tick;
+            Queue<K> slot = slots[(int) (tick % slots.length)];
+            for (int i = slot.size(); i > 0; i--) {
+                K key = slot.poll();
+                if (key == null) {
+                    break;
+                }
+                expired.accept(key);
+            }
+        }
+        currentTick = Math.max(currentTick, target);
+    }
+
+    /**
+     * Gets the length of a tick.
+     *
+     * @return the tick length in milliseconds
+     */
+    public long getTickMillis() {
+        return tickMillis;
+    }
+}
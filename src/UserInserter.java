@@ -1,7 +1,5 @@
-import java.sql.Connection;	
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
-import java.sql.SQLException;
+import java.util.concurrent.CompletionException;
 import org.mindrot.jbcrypt.BCrypt;
 
 //Dominic Cash
@@ -12,7 +10,7 @@ import org.mindrot.jbcrypt.BCrypt;
  * database with a hashed password.
  *
  * The password is hashed using the BCrypt hashing algorithm before being stored in the database.
- * The class connects to a SQLite database to execute an insert query to store the username
+ * The insert is queued on the shared {@link WriteQueue}, which executes an insert query to store the username
  * and hashed password in the users table.
  *
  * Example usage:
@@ -37,26 +35,26 @@ public class UserInserter {
      * @param plainPassword the plain text password to be hashed before insertion
      */
     public static void insertUser(String username, String plainPassword) {
-        String dbUrl = "jdbc:sqlite:stores.sqlite"; 
         String insertQuery = "INSERT INTO users (username, password) VALUES (?, ?)";
 
         String hashedPassword = BCrypt.hashpw(plainPassword, BCrypt.gensalt());
 
-        try (Connection conn = DriverManager.getConnection(dbUrl);
-             PreparedStatement stmt = conn.prepareStatement(insertQuery)) {
+        try {
+            boolean inserted = WriteQueue.getInstance().submit(conn -> {
+                try (PreparedStatement stmt = conn.prepareStatement(insertQuery)) {
+                    stmt.setString(1, username);
+                    stmt.setString(2, hashedPassword);
+                    return stmt.executeUpdate() > 0;
+                }
+            }).join();
 
-            stmt.setString(1, username);
-            stmt.setString(2, hashedPassword);
-
-            int rowsInserted = stmt.executeUpdate();
-
-            if (rowsInserted > 0) {
+            if (inserted) {
                 System.out.println("User inserted successfully with hashed password.");
             } else {
                 System.out.println("Failed to insert user.");
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
+        } catch (CompletionException e) {
+            e.getCause().printStackTrace();
         }
     }
 
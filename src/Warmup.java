@@ -0,0 +1,200 @@
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code Warmup} class gets a freshly started server ready for traffic, so the first shoppers do not
+ * pay for class loading, JDBC driver start-up, SQLite schema parsing and cold JIT compilation.
+ * <p>
+ * Warm-up runs these steps in order:
+ * <p>
+ * Opens the connection pool and the write queue, so every connection is open and configured.
+ * Prepares the hot queries on every connection, which makes SQLite parse the schema on each of them.
+ * Loads the catalog snapshot into memory.
+ * Sends a number of synthetic requests to the main pages through the running server, so the handlers,
+ * filters and compression are compiled before real requests arrive.
+ * <p>
+ * Until warm-up has finished, {@link #isReady()} is false and "/ready" answers 503, so a load balancer
+ * keeps traffic away. The time from JVM start to ready, and the latency of the first and the last
+ * synthetic requests, are logged. A step that fails is logged and warm-up carries on with the next.
+ * <p>
+ * The following system properties configure warm-up:
+ * <p>
+ * store.warmup - whether to warm up at startup (default true).
+ * store.warmup.passes - how many times the synthetic requests are sent (default 20).
+ * store.warmup.exit - exit once ready, for a training run that writes an AppCDS archive (default false).
+ *
+ * @author Dominic Cash
+ */
+public final class Warmup {
+
+    /** The queries the DAOs and handlers run most, prepared on every connection during warm-up. */
+    private static final String[] HOT_QUERIES = {
+            "SELECT * FROM appliance",
+            "SELECT rowid FROM appliance_fts WHERE appliance_fts MATCH ? ORDER BY bm25(appliance_fts)",
+            "SELECT * FROM customer",
+            "SELECT * FROM customer WHERE customerID = ?",
+            "SELECT password FROM users WHERE username = ?"
+    };
+
+    private volatile boolean ready;
+    private volatile long timeToReadyMillis = -1;
+    private volatile long firstRequestNanos = -1;
+    private volatile long lastPassNanos = -1;
+
+    /**
+     * Marks the server ready without warming up, for when warm-up is turned off.
+     */
+    public void skip() {
+        finish();
+    }
+
+    /**
+     * Warms up the database, the catalog and the server, then marks the server ready.
+     *
+     * @param port the port the started server listens on
+     * @param passes how many times the synthetic requests are sent
+     */
+    public void run(int port, int passes) {
+        long start = System.nanoTime();
+        Log.info("Warm-up started", "passes", passes);
+
+        step("connection pool", () -> {
+            ConnectionPool.getInstance();
+            WriteQueue.getInstance();
+        });
+        step("hot statements", this::prepareHotStatements);
+        step("catalog", () -> Log.info("Catalog preloaded", "products", new HomeApplianceDAO().findAllProducts().size()));
+        step("requests", () -> sendRequests(port, passes));
+
+        finish();
+        Log.info("Warm-up complete", "warmupMs", (System.nanoTime() - start) / 1_000_000,
+                "timeToReadyMs", timeToReadyMillis,
+                "firstRequestMs", millis(firstRequestNanos),
+                "warmRequestMs", millis(lastPassNanos));
+    }
+
+    /**
+     * Converts a measured time to milliseconds, keeping -1 for a time that was never measured.
+     */
+    private static double millis(long nanos) {
+        return nanos < 0 ? -1 : nanos / 1_000_000.0;
+    }
+
+    /**
+     * A warm-up step.
+     */
+    private interface Step {
+        void run() throws Exception;
+    }
+
+    private static void step(String name, Step step) {
+        long start = System.nanoTime();
+        try {
+            step.run();
+            Log.info("Warm-up step finished", "step", name, "ms", (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            Log.warn("Warm-up step failed", e, "step", name);
+        }
+    }
+
+    /**
+     * Borrows every reader connection at once, and the writer, and prepares the hot queries on each.
+     */
+    private void prepareHotStatements() throws SQLException {
+        ConnectionPool pool = ConnectionPool.getInstance();
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < pool.getReaders().getMaxSize(); i++) {
+                connections.add(pool.borrowReader());
+            }
+            connections.add(pool.borrowWriter());
+            for (Connection conn : connections) {
+                for (String query : HOT_QUERIES) {
+                    try (PreparedStatement stmt = conn.prepareStatement(query)) {
+                        stmt.getParameterMetaData();
+                    } catch (SQLException e) {
+                        // The full-text index may be unavailable; the DAO falls back to LIKE
+                        Log.debug("Hot statement not prepared", "query", query, "error", e.getMessage());
+                    }
+                }
+            }
+        } finally {
+            for (Connection conn : connections) {
+                conn.close();
+            }
+        }
+    }
+
+    /**
+     * Sends the synthetic requests through the running server, timing the first and the last pass.
+     */
+    private void sendRequests(int port, int passes) throws Exception {
+        String base = "http://127.0.0.1:" + port;
+        List<String> paths = new ArrayList<>(List.of("/", "/appliances?sort=price", "/appliances?priceRange=0-50",
+                "/appliances?search=kettle", "/basket/view"));
+        List<String> categories = new HomeApplianceDAO().getAllCategories();
+        if (!categories.isEmpty()) {
+            paths.add("/appliances?category=" + URLEncoder.encode(categories.get(0), StandardCharsets.UTF_8));
+        }
+        String stylesheet = StaticAssets.shared().url(StaticAssets.STYLESHEET);
+        if (stylesheet != null) {
+            paths.add(stylesheet);
+        }
+
+        try (HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build()) {
+            for (int pass = 0; pass < passes; pass++) {
+                long passStart = System.nanoTime();
+                for (String path : paths) {
+                    HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(base + path))
+                            .timeout(Duration.ofSeconds(30));
+                    if (pass % 2 == 1) {
+                        request.header("Accept-Encoding", "gzip");
+                    }
+                    long requestStart = System.nanoTime();
+                    client.send(request.build(), HttpResponse.BodyHandlers.discarding());
+                    if (firstRequestNanos < 0) {
+                        firstRequestNanos = System.nanoTime() - requestStart;
+                    }
+                }
+                lastPassNanos = (System.nanoTime() - passStart) / paths.size();
+            }
+        }
+    }
+
+    private void finish() {
+        timeToReadyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        ready = true;
+    }
+
+    /**
+     * Checks whether the server has finished warming up.
+     *
+     * @return true once warm-up has finished or been skipped
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Gets the time from JVM start until the server was ready.
+     *
+     * @return the time in milliseconds, or -1 if not yet ready
+     */
+    public long getTimeToReadyMillis() {
+        return timeToReadyMillis;
+    }
+}
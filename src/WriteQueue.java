@@ -0,0 +1,318 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Dominic Cash
+//16042439
+
+/**
+ * The {@code WriteQueue} class routes every database mutation through a single writer thread that commits
+ * them in batches (group commit). Instead of one auto-commit transaction, and one fsync, per row, the
+ * writer drains whatever has queued up while the previous batch was committing and runs it in one
+ * transaction on the pool's writer connection.
+ * <p>
+ * Each operation runs inside its own savepoint, so a failing operation is rolled back on its own and
+ * does not abort the rest of the batch. Every caller gets a {@link CompletableFuture} that completes
+ * with its own result once the batch containing it has committed.
+ * <p>
+ * Configured with the {@code store.db.writeBatchSize} (default 256) and
+ * {@code store.db.writeQueueCapacity} (default 10000) system properties. Submitting to a full queue
+ * blocks until the writer catches up or the queue is shut down. Work that is still queued when the
+ * writer stops is completed exceptionally, so no caller is left waiting on a future that never completes.
+ * <p>
+ * Example usage:
+ * <p>
+ * WriteQueue.getInstance().submit(conn -> stmt.executeUpdate() > 0).join();
+ *
+ * @author Dominic Cash
+ */
+public final class WriteQueue {
+
+    /**
+     * A unit of work to run on the writer connection inside the current batch transaction.
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+        /**
+         * Runs the work. Implementations must not commit, roll back or change auto-commit.
+         *
+         * @param conn the writer connection
+         * @return the result handed to the caller
+         * @throws SQLException if the statement fails; only this operation is rolled back
+         */
+        T execute(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Supplies the connection a batch is committed on.
+     */
+    @FunctionalInterface
+    public interface ConnectionSource {
+        /**
+         * Borrows a connection for one batch. It is closed when the batch completes.
+         *
+         * @return the connection
+         * @throws SQLException if no connection is available
+         */
+        Connection get() throws SQLException;
+    }
+
+    private static WriteQueue instance;
+
+    private final ConnectionSource connectionSource;
+    private final int maxBatchSize;
+    private final BlockingQueue<Operation<?>> queue;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong operationCount = new AtomicLong();
+    private final AtomicLong failedOperationCount = new AtomicLong();
+    private final AtomicLong largestBatch = new AtomicLong();
+
+    /**
+     * Creates a write queue and starts its writer thread.
+     *
+     * @param connectionSource supplies the connection each batch is committed on
+     * @param maxBatchSize the maximum number of operations per transaction
+     * @param capacity the maximum number of queued operations
+     */
+    public WriteQueue(ConnectionSource connectionSource, int maxBatchSize, int capacity) {
+        this.connectionSource = connectionSource;
+        this.maxBatchSize = maxBatchSize;
+        this.queue = new LinkedBlockingQueue<>(capacity);
+        this.writerThread = new Thread(this::run, "db-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Returns the shared write queue, which commits on the writer connection of the {@link ConnectionPool}.
+     *
+     * @return the process-wide write queue
+     */
+    public static synchronized WriteQueue getInstance() {
+        if (instance == null) {
+            instance = new WriteQueue(() -> ConnectionPool.getInstance().borrowWriter(),
+                    Integer.getInteger("store.db.writeBatchSize", 256),
+                    Integer.getInteger("store.db.writeQueueCapacity", 10_000));
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the shared write queue if it has been started, without starting it.
+     *
+     * @return the process-wide write queue, or null if it has not been started
+     */
+    public static synchronized WriteQueue getInstanceIfStarted() {
+        return instance;
+    }
+
+    /**
+     * Queues a unit of work for the writer thread.
+     *
+     * @param work the work to run
+     * @param <T> the type of the result
+     * @return a future completed with the result once the batch has committed, or exceptionally if the
+     *         work or the commit failed
+     */
+    public <T> CompletableFuture<T> submit(Work<T> work) {
+        Operation<T> operation = new Operation<>(work);
+        try {
+            while (true) {
+                if (!running) {
+                    operation.future.completeExceptionally(new SQLException("Write queue is shut down"));
+                    return operation.future;
+                }
+                if (queue.offer(operation, 100, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            operation.future.completeExceptionally(e);
+            return operation.future;
+        }
+        // Shutdown may have started after the check above, and the writer may already have exited.
+        // Whoever removes the operation from the queue owns it, so it is completed exactly once.
+        if (!running && queue.remove(operation)) {
+            operation.future.completeExceptionally(new SQLException("Write queue is shut down"));
+        }
+        return operation.future;
+    }
+
+    /**
+     * Writer thread loop: waits for work, drains up to a full batch and commits it.
+     */
+    private void run() {
+        List<Operation<?>> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                try {
+                    Operation<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, maxBatchSize - 1);
+                    commit(batch);
+                } catch (InterruptedException e) {
+                    running = false;
+                } finally {
+                    batch.clear();
+                }
+            }
+        } finally {
+            running = false;
+            failRemaining();
+        }
+    }
+
+    /**
+     * Completes every operation still queued after the writer has stopped exceptionally.
+     */
+    private void failRemaining() {
+        Operation<?> operation;
+        while ((operation = queue.poll()) != null) {
+            failedOperationCount.incrementAndGet();
+            operation.future.completeExceptionally(new SQLException("Write queue is shut down"));
+        }
+    }
+
+    /**
+     * Runs a batch of operations in a single transaction and completes their futures.
+     *
+     * @param batch the operations to run
+     */
+    private void commit(List<Operation<?>> batch) {
+        try (Connection conn = connectionSource.get()) {
+            conn.setAutoCommit(false);
+            for (Operation<?> operation : batch) {
+                Savepoint savepoint = conn.setSavepoint();
+                try {
+                    operation.run(conn);
+                    conn.releaseSavepoint(savepoint);
+                } catch (SQLException | RuntimeException e) {
+                    conn.rollback(savepoint);
+                    operation.error = e;
+                }
+            }
+            conn.commit();
+            conn.setAutoCommit(true);
+        } catch (SQLException | RuntimeException e) {
+            for (Operation<?> operation : batch) {
+                if (operation.error == null) {
+                    operation.error = e;
+                }
+            }
+        }
+
+        batchCount.incrementAndGet();
+        operationCount.addAndGet(batch.size());
+        largestBatch.accumulateAndGet(batch.size(), Math::max);
+        for (Operation<?> operation : batch) {
+            if (operation.error != null) {
+                failedOperationCount.incrementAndGet();
+            }
+            operation.complete();
+        }
+    }
+
+    /**
+     * Stops accepting work, lets the writer commit everything already queued, and waits for it to finish.
+     * Callers blocked on a full queue give up and their futures complete exceptionally.
+     *
+     * @param timeoutMillis how long to wait for the queue to drain
+     * @return true if the queue drained within the timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean shutdown(long timeoutMillis) throws InterruptedException {
+        running = false;
+        writerThread.join(timeoutMillis);
+        return !writerThread.isAlive();
+    }
+
+    /**
+     * Gets the number of operations waiting to be committed.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Gets the number of batches committed.
+     *
+     * @return the batch count
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * Gets the number of operations processed.
+     *
+     * @return the operation count
+     */
+    public long getOperationCount() {
+        return operationCount.get();
+    }
+
+    /**
+     * Gets the number of operations that failed.
+     *
+     * @return the failed operation count
+     */
+    public long getFailedOperationCount() {
+        return failedOperationCount.get();
+    }
+
+    /**
+     * Gets the size of the largest batch committed so far.
+     *
+     * @return the largest batch size
+     */
+    public long getLargestBatch() {
+        return largestBatch.get();
+    }
+
+    /**
+     * A queued unit of work together with the future its caller is waiting on.
+     *
+     * @param <T> the type of the result
+     */
+    private static final class Operation<T> {
+
+        private final Work<T> work;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private T result;
+        private Exception error;
+
+        private Operation(Work<T> work) {
+            this.work = work;
+        }
+
+        private void run(Connection conn) throws SQLException {
+            result = work.execute(conn);
+        }
+
+        private void complete() {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+}